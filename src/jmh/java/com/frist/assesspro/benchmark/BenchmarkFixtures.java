@@ -0,0 +1,240 @@
+package com.frist.assesspro.benchmark;
+
+import com.frist.assesspro.dto.statistics.AnswerDetailDTO;
+import com.frist.assesspro.dto.statistics.QuestionAnswerDetailDTO;
+import com.frist.assesspro.dto.statistics.TestSummaryDTO;
+import com.frist.assesspro.dto.statistics.TesterAttemptDTO;
+import com.frist.assesspro.dto.statistics.TesterDetailedAnswersDTO;
+import com.frist.assesspro.entity.AnswerOption;
+import com.frist.assesspro.entity.Category;
+import com.frist.assesspro.entity.Project;
+import com.frist.assesspro.entity.Question;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.TestAttempt;
+import com.frist.assesspro.entity.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Генерация данных для бенчмарков. Распределения приближены к рабочим:
+ * большинство попыток завершено, часть закрыта по времени, часть не окончена;
+ * баллы и длительность случайны, генератор с фиксированным зерном.
+ */
+public final class BenchmarkFixtures {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2025, 1, 1, 9, 0);
+    private static final int OPTIONS_PER_QUESTION = 4;
+
+    private final SplittableRandom random;
+    private long sequence = 1;
+
+    public BenchmarkFixtures(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public List<User> testers(int count, int projects) {
+        List<Project> projectList = new ArrayList<>(projects);
+        for (int i = 0; i < projects; i++) {
+            Project project = new Project();
+            project.setId(nextId());
+            project.setName("Проект " + (i + 1));
+            projectList.add(project);
+        }
+
+        List<User> testers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setId(nextId());
+            user.setUsername("tester" + i);
+            user.setRole(User.Roles.TESTER);
+            user.setFirstName("Иван" + i);
+            user.setLastName("Петров");
+            user.setMiddleName("Сергеевич");
+            user.setIsProfileComplete(true);
+            user.setIsActive(true);
+            user.setCreatedAt(EPOCH);
+            if (!projectList.isEmpty()) {
+                user.setProject(projectList.get(i % projectList.size()));
+            }
+            testers.add(user);
+        }
+        return testers;
+    }
+
+    public List<Test> tests(int count, int questionsPerTest) {
+        Category category = new Category();
+        category.setId(nextId());
+        category.setName("Общая категория");
+        category.setIsActive(true);
+
+        List<Test> tests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Test test = new Test();
+            test.setId(nextId());
+            test.setTitle("Тест " + (i + 1));
+            test.setDescription("Описание теста " + (i + 1));
+            test.setIsPublished(true);
+            test.setCreatedAt(EPOCH);
+            test.setCategory(category);
+            test.setTimeLimitMinutes(30);
+            test.setPassThresholdPercent(70);
+            test.setQuestions(questions(test, questionsPerTest));
+            test.setQuestionCount(questionsPerTest);
+            tests.add(test);
+        }
+        return tests;
+    }
+
+    public List<Question> questions(Test test, int count) {
+        List<Question> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Question question = new Question();
+            question.setId(nextId());
+            question.setTest(test);
+            question.setText("Вопрос " + (i + 1) + ": выберите верный вариант ответа");
+            question.setOrderIndex(i);
+            int correct = random.nextInt(OPTIONS_PER_QUESTION);
+            for (int j = 0; j < OPTIONS_PER_QUESTION; j++) {
+                AnswerOption option = new AnswerOption();
+                option.setId(nextId());
+                option.setText("Вариант " + (j + 1));
+                option.setIsCorrect(j == correct);
+                question.addAnswerOption(option);
+            }
+            questions.add(question);
+        }
+        return questions;
+    }
+
+    /**
+     * Попытки распределяются по тестировщикам и тестам случайно
+     */
+    public List<TestAttempt> attempts(int count, List<User> testers, List<Test> tests) {
+        List<TestAttempt> attempts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Test test = tests.get(random.nextInt(tests.size()));
+            User tester = testers.get(random.nextInt(testers.size()));
+            attempts.add(attempt(test, tester));
+        }
+        return attempts;
+    }
+
+    private TestAttempt attempt(Test test, User tester) {
+        int questionCount = test.getQuestionCount();
+        LocalDateTime start = EPOCH.plusMinutes(random.nextInt(365 * 24 * 60));
+
+        TestAttempt attempt = new TestAttempt();
+        attempt.setId(nextId());
+        attempt.setTest(test);
+        attempt.setUser(tester);
+        attempt.setStartTime(start);
+        attempt.setQuestionSeed(attempt.getId());
+        attempt.setTotalQuestions(questionCount);
+
+        int roll = random.nextInt(100);
+        if (roll < 85) {
+            attempt.setStatus(TestAttempt.AttemptStatus.COMPLETED);
+            attempt.setEndTime(start.plusMinutes(1 + random.nextInt(30)));
+            attempt.setAnsweredCount(questionCount);
+            attempt.setTotalScore(random.nextInt(questionCount + 1));
+        } else if (roll < 95) {
+            attempt.setStatus(TestAttempt.AttemptStatus.TIMEOUT);
+            attempt.setEndTime(start.plusMinutes(30));
+            attempt.setAnsweredCount(random.nextInt(questionCount + 1));
+            attempt.setTotalScore(random.nextInt(attempt.getAnsweredCount() + 1));
+        } else {
+            attempt.setStatus(TestAttempt.AttemptStatus.IN_PROGRESS);
+            attempt.setAnsweredCount(random.nextInt(questionCount + 1));
+            attempt.setTotalScore(0);
+        }
+        attempt.setRunningScore(attempt.getTotalScore());
+        return attempt;
+    }
+
+    /**
+     * Готовые DTO попыток - вход PDF-отчётов
+     */
+    public List<TesterAttemptDTO> attemptDtos(int count, List<User> testers, List<Test> tests) {
+        List<TesterAttemptDTO> dtos = new ArrayList<>(count);
+        for (TestAttempt attempt : attempts(count, testers, tests)) {
+            int maxScore = attempt.getTotalQuestions();
+            int score = attempt.getTotalScore();
+            dtos.add(new TesterAttemptDTO(
+                    attempt.getId(),
+                    attempt.getTest().getTitle(),
+                    attempt.getUser().getUsername(),
+                    attempt.getStartTime(),
+                    attempt.getEndTime(),
+                    score,
+                    maxScore,
+                    maxScore > 0 ? (double) score / maxScore * 100 : 0.0,
+                    attempt.getEndTime() != null
+                            ? Duration.between(attempt.getStartTime(), attempt.getEndTime()).toMinutes()
+                            : 0L,
+                    attempt.getTest().getId(),
+                    attempt.getUser().getFullName(),
+                    maxScore));
+        }
+        return dtos;
+    }
+
+    /**
+     * Детальные ответы одной попытки - вход PDF-отчёта по попытке
+     */
+    public TesterDetailedAnswersDTO detailedAnswers(Test test, User tester) {
+        List<QuestionAnswerDetailDTO> answers = new ArrayList<>(test.getQuestions().size());
+        int correctAnswers = 0;
+        for (Question question : test.getQuestions()) {
+            AnswerOption chosen = question.getAnswerOptions().get(random.nextInt(OPTIONS_PER_QUESTION));
+            AnswerOption correct = question.getAnswerOptions().stream()
+                    .filter(AnswerOption::getIsCorrect)
+                    .findFirst()
+                    .orElseThrow();
+
+            QuestionAnswerDetailDTO answer = new QuestionAnswerDetailDTO();
+            answer.setQuestionId(question.getId());
+            answer.setQuestionText(question.getText());
+            answer.setQuestionOrder(question.getOrderIndex());
+            answer.setChosenAnswer(answerDetail(chosen));
+            answer.setCorrectAnswer(answerDetail(correct));
+            answer.setIsCorrect(chosen == correct);
+            answer.setPointsEarned(chosen == correct ? 1 : 0);
+            answers.add(answer);
+            if (chosen == correct) {
+                correctAnswers++;
+            }
+        }
+
+        TestSummaryDTO summary = new TestSummaryDTO();
+        summary.setTotalQuestions(answers.size());
+        summary.setAnsweredQuestions(answers.size());
+        summary.setCorrectAnswers(correctAnswers);
+        summary.setTotalScore(correctAnswers);
+        summary.setPercentage(answers.isEmpty() ? 0.0 : (double) correctAnswers / answers.size() * 100);
+
+        TesterDetailedAnswersDTO dto = new TesterDetailedAnswersDTO();
+        dto.setAttemptId(nextId());
+        dto.setTesterUsername(tester.getUsername());
+        dto.setStartTime(EPOCH);
+        dto.setEndTime(EPOCH.plusMinutes(25));
+        dto.setQuestionAnswers(answers);
+        dto.setSummary(summary);
+        return dto;
+    }
+
+    private static AnswerDetailDTO answerDetail(AnswerOption option) {
+        AnswerDetailDTO dto = new AnswerDetailDTO();
+        dto.setAnswerId(option.getId());
+        dto.setAnswerText(option.getText());
+        dto.setIsCorrect(option.getIsCorrect());
+        return dto;
+    }
+
+    private long nextId() {
+        return sequence++;
+    }
+}
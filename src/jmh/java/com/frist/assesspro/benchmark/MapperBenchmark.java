@@ -0,0 +1,89 @@
+package com.frist.assesspro.benchmark;
+
+import com.frist.assesspro.dto.QuestionDTO;
+import com.frist.assesspro.dto.TestDTO;
+import com.frist.assesspro.dto.admin.UserManagementDTO;
+import com.frist.assesspro.entity.Question;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.mapper.QuestionMapper;
+import com.frist.assesspro.mapper.TestMapper;
+import com.frist.assesspro.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Мапперы MapStruct на списках сущностей. Реализации берутся из контекста,
+ * собранного только из пакета mapper, - так вложенные мапперы связаны как в приложении.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private static final int QUESTIONS_PER_TEST = 30;
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private AnnotationConfigApplicationContext context;
+    private TestMapper testMapper;
+    private QuestionMapper questionMapper;
+    private UserMapper userMapper;
+
+    private List<Test> tests;
+    private List<Question> questions;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext("com.frist.assesspro.mapper");
+        testMapper = context.getBean(TestMapper.class);
+        questionMapper = context.getBean(QuestionMapper.class);
+        userMapper = context.getBean(UserMapper.class);
+
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(42L);
+        tests = fixtures.tests(size, QUESTIONS_PER_TEST);
+        Test questionOwner = fixtures.tests(1, 0).get(0);
+        questions = fixtures.questions(questionOwner, size);
+        users = fixtures.testers(size, 10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TestDTO> testToDtoList() {
+        return testMapper.toDtoList(tests);
+    }
+
+    @Benchmark
+    public List<QuestionDTO> questionToDtoList() {
+        return questionMapper.toDtoList(questions);
+    }
+
+    @Benchmark
+    public List<UserManagementDTO> userToDtoList() {
+        return userMapper.toDtoList(users);
+    }
+}
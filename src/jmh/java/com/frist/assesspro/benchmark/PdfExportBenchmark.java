@@ -0,0 +1,101 @@
+package com.frist.assesspro.benchmark;
+
+import com.frist.assesspro.dto.statistics.TesterAttemptDTO;
+import com.frist.assesspro.dto.statistics.TesterDetailedAnswersDTO;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.pdf.ManagerPdfExportService;
+import com.frist.assesspro.pdf.PdfFontProvider;
+import com.frist.assesspro.service.ManagerService;
+import com.frist.assesspro.service.export.TesterAttemptPdfService;
+import com.frist.assesspro.service.export.TesterFullStatisticsPdfService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Построение PDF-отчётов: полная статистика тестировщика, результаты попытки
+ * и статистика теста для менеджера. Размер - число строк в таблицах отчёта.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PdfExportBenchmark {
+
+    private static final String MANAGER = "manager";
+    private static final int TESTS = 20;
+    private static final int QUESTIONS_PER_TEST = 30;
+
+    @Param({"50", "500", "5000"})
+    private int rows;
+
+    private TesterFullStatisticsPdfService fullStatisticsPdfService;
+    private TesterAttemptPdfService attemptPdfService;
+    private ManagerPdfExportService managerPdfExportService;
+
+    private User tester;
+    private Test test;
+    private List<TesterAttemptDTO> testerAttempts;
+    private TesterDetailedAnswersDTO detailedAnswers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(42L);
+
+        tester = fixtures.testers(1, 1).get(0);
+        List<Test> tests = fixtures.tests(TESTS, QUESTIONS_PER_TEST);
+        testerAttempts = fixtures.attemptDtos(rows, List.of(tester), tests);
+
+        Test largeTest = fixtures.tests(1, rows).get(0);
+        detailedAnswers = fixtures.detailedAnswers(largeTest, tester);
+
+        test = tests.get(0);
+        List<User> testers = fixtures.testers(Math.max(1, rows / 5), 5);
+        List<TesterAttemptDTO> managerAttempts = fixtures.attemptDtos(rows, testers, List.of(test));
+
+        fullStatisticsPdfService = new TesterFullStatisticsPdfService();
+        attemptPdfService = new TesterAttemptPdfService();
+
+        PdfFontProvider fontProvider = new PdfFontProvider();
+        fontProvider.init();
+        ManagerService managerService = mock(ManagerService.class, withSettings().stubOnly());
+        when(managerService.getAllFilteredTestersByTest(anyLong(), anyString())).thenReturn(managerAttempts);
+        managerPdfExportService = new ManagerPdfExportService(fontProvider, managerService);
+    }
+
+    @Benchmark
+    public byte[] testerFullStatistics() {
+        return fullStatisticsPdfService.generate(tester, testerAttempts);
+    }
+
+    @Benchmark
+    public byte[] testerAttempt() {
+        return attemptPdfService.generateTesterAttemptPdf(detailedAnswers, tester.getFullName());
+    }
+
+    @Benchmark
+    public byte[] managerTestStatistics() {
+        return managerPdfExportService.generateTestStatistics(test, MANAGER, null, null);
+    }
+}
@@ -0,0 +1,271 @@
+package com.frist.assesspro.benchmark;
+
+import com.frist.assesspro.controllers.creator.TesterOverallStatisticsController;
+import com.frist.assesspro.dto.statistics.TestSummaryDTO;
+import com.frist.assesspro.dto.statistics.TesterAggregatedStatsDTO;
+import com.frist.assesspro.dto.statistics.TesterTestStatsProjection;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.TestAttempt;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.RetryCooldownExceptionRepository;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterScope;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterStatsRow;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.service.TestService;
+import com.frist.assesspro.service.TesterStatisticsService;
+import com.frist.assesspro.service.UserService;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.statistics.AttemptColumnStore;
+import com.frist.assesspro.service.statistics.TestSummaryCache;
+import com.frist.assesspro.service.statistics.TesterOverviewCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Агрегация статистики тестировщиков и конвертация попыток в DTO.
+ * Репозитории заменены заглушками, отдающими заранее сгенерированные попытки
+ * и строки сводки, поэтому измеряется только обработка в памяти;
+ * сводка по тесту и общая статистика тестировщика после первого вызова отдаются из кэша.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TesterStatisticsBenchmark {
+
+    private static final String CREATOR = "creator";
+    private static final int QUESTIONS_PER_TEST = 30;
+    private static final int ATTEMPTS_PER_TESTER = 10;
+    private static final int TESTS_PER_TESTER = 100;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int attemptCount;
+
+    private TesterStatisticsService service;
+    private TesterOverallStatisticsController controller;
+    private Pageable firstPage;
+
+    // Попытки одного теста - страница статистики создателя
+    private Test test;
+    private List<TestAttempt> testAttempts;
+    private User busiestTester;
+
+    // Попытки одного тестировщика по многим тестам - общая статистика тестировщика
+    private User tester;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(42L);
+
+        test = fixtures.tests(1, QUESTIONS_PER_TEST).get(0);
+        List<User> testers = fixtures.testers(Math.max(1, attemptCount / ATTEMPTS_PER_TESTER), 10);
+        testAttempts = fixtures.attempts(attemptCount, testers, List.of(test));
+        busiestTester = testAttempts.stream()
+                .collect(Collectors.groupingBy(TestAttempt::getUser, Collectors.counting()))
+                .entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElseThrow()
+                .getKey();
+
+        tester = fixtures.testers(1, 1).get(0);
+        List<Test> testerTests = fixtures.tests(TESTS_PER_TESTER, QUESTIONS_PER_TEST);
+        List<TestAttempt> testerAttempts = fixtures.attempts(attemptCount, List.of(tester), testerTests);
+        Map<Long, Test> testsById = testerTests.stream()
+                .collect(Collectors.toMap(Test::getId, Function.identity()));
+
+        TestAttemptRepository testAttemptRepository = stub(TestAttemptRepository.class);
+        TestRepository testRepository = stub(TestRepository.class);
+        UserRepository userRepository = stub(UserRepository.class);
+
+        when(testRepository.existsById(test.getId())).thenReturn(true);
+        when(testRepository.countQuestionsByTestId(test.getId())).thenReturn(QUESTIONS_PER_TEST);
+        when(testAttemptRepository.summarizeTestScores(test.getId(), QUESTIONS_PER_TEST, TesterScope.all()))
+                .thenReturn(scoreSummary());
+        stubTesterStats(testAttemptRepository);
+        when(testAttemptRepository.findTestStatsByUserId(tester.getId())).thenReturn(testStatsRows(testerAttempts));
+        when(userRepository.findByUsername(busiestTester.getUsername())).thenReturn(Optional.of(busiestTester));
+        when(userRepository.findByUsername(tester.getUsername())).thenReturn(Optional.of(tester));
+
+        // Один узел без колоночного хранилища: рассылка инвалидаций не нужна, сводки считает репозиторий
+        CacheInvalidationBus invalidationBus = stub(CacheInvalidationBus.class);
+        service = new TesterStatisticsService(testAttemptRepository, stub(UserAnswerRepository.class),
+                testRepository, userRepository, stub(RetryCooldownExceptionRepository.class),
+                new TestSummaryCache(invalidationBus), new TesterOverviewCache(invalidationBus),
+                stub(AttemptColumnStore.class));
+
+        UserService userService = stub(UserService.class);
+        TestService testService = stub(TestService.class);
+        when(userService.getUserById(tester.getId())).thenReturn(Optional.of(tester));
+        when(testService.getTestByIdWithoutOwnershipCheckOptional(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(testsById.get(invocation.<Long>getArgument(0))));
+        controller = new TesterOverallStatisticsController(service, userService, testService);
+
+    }
+
+    /**
+     * Сводка test_tester_stats: первая страница тестировщиков и попытки только этих тестировщиков
+     */
+    private void stubTesterStats(TestAttemptRepository testAttemptRepository) {
+        Map<Long, List<TestAttempt>> attemptsByTester = testAttempts.stream()
+                .sorted(Comparator.comparing(TestAttempt::getStartTime).reversed())
+                .collect(Collectors.groupingBy(attempt -> attempt.getUser().getId()));
+        Map<Long, User> testersById = testAttempts.stream()
+                .map(TestAttempt::getUser)
+                .distinct()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        firstPage = PageRequest.of(0, PAGE_SIZE);
+        List<TesterStatsRow> rows = attemptsByTester.keySet().stream()
+                .limit(PAGE_SIZE)
+                .map(testerId -> statsRow(testersById.get(testerId), attemptsByTester.get(testerId)))
+                .toList();
+
+        when(testAttemptRepository.findTesterStats(anyLong(), any(), any(), any()))
+                .thenReturn(new PageImpl<>(rows, firstPage, attemptsByTester.size()));
+        when(testAttemptRepository.findTesterStats(test.getId(), busiestTester.getId()))
+                .thenReturn(Optional.of(statsRow(busiestTester, attemptsByTester.get(busiestTester.getId()))));
+        when(testAttemptRepository.findByTestIdAndUserIdsAndDateRange(
+                anyLong(), anyCollection(), anyBoolean(), any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(1).stream()
+                        .flatMap(testerId -> attemptsByTester.getOrDefault(testerId, List.of()).stream())
+                        .toList());
+    }
+
+    /**
+     * Результат агрегирующего запроса по попыткам теста
+     */
+    private TestScoreSummary scoreSummary() {
+        long uniqueTesters = testAttempts.stream().map(TestAttempt::getUser).distinct().count();
+        double[] scores = testAttempts.stream()
+                .filter(attempt -> attempt.getStatus() == TestAttempt.AttemptStatus.COMPLETED)
+                .mapToDouble(TestAttempt::getTotalScore)
+                .sorted()
+                .toArray();
+        List<Long> distribution = new ArrayList<>(Collections.nCopies(TestAttemptRepositoryCustom.SCORE_BUCKETS, 0L));
+        for (double score : scores) {
+            int bucket = Math.min((int) (score * TestAttemptRepositoryCustom.SCORE_BUCKETS / QUESTIONS_PER_TEST),
+                    TestAttemptRepositoryCustom.SCORE_BUCKETS - 1);
+            distribution.set(bucket, distribution.get(bucket) + 1);
+        }
+        return new TestScoreSummary(QUESTIONS_PER_TEST, testAttempts.size(), uniqueTesters, scores.length,
+                Arrays.stream(scores).average().orElse(0), scores.length > 0 ? scores[scores.length - 1] : 0,
+                percentile(scores, 0.5), percentile(scores, 0.9), distribution);
+    }
+
+    /**
+     * Результат сгруппированного запроса по тестам тестировщика
+     */
+    private static List<TesterTestStatsProjection> testStatsRows(List<TestAttempt> attempts) {
+        return attempts.stream()
+                .collect(Collectors.groupingBy(TestAttempt::getTest))
+                .entrySet().stream()
+                .map(entry -> {
+                    List<TestAttempt> testAttempts = entry.getValue();
+                    double[] percentages = testAttempts.stream()
+                            .mapToDouble(attempt -> attempt.getTotalScore() * 100.0 / QUESTIONS_PER_TEST)
+                            .toArray();
+                    return (TesterTestStatsProjection) new TestStatsRow(entry.getKey().getId(), entry.getKey().getTitle(),
+                            (long) testAttempts.size(),
+                            testAttempts.stream().filter(attempt -> attempt.getEndTime() != null).count(),
+                            Arrays.stream(percentages).average().orElse(0),
+                            Arrays.stream(percentages).max().orElse(0),
+                            testAttempts.stream().map(TestAttempt::getStartTime).max(Comparator.naturalOrder()).orElse(null));
+                })
+                .toList();
+    }
+
+    private record TestStatsRow(Long getTestId, String getTestTitle, Long getTotalAttempts, Long getCompletedAttempts,
+                                Double getAveragePercentage, Double getBestPercentage,
+                                LocalDateTime getLastAttemptTime) implements TesterTestStatsProjection {
+    }
+
+    private static double percentile(double[] sorted, double fraction) {
+        return sorted.length > 0 ? sorted[(int) Math.floor(fraction * (sorted.length - 1))] : 0;
+    }
+
+    private static TesterStatsRow statsRow(User tester, List<TestAttempt> attempts) {
+        return new TesterStatsRow(tester.getId(), tester.getUsername(), attempts.size(), attempts.size(),
+                50.0, 100.0, 10.0, 0L, attempts.get(attempts.size() - 1).getStartTime(), attempts.get(0).getStartTime());
+    }
+
+    @Benchmark
+    public Page<TesterAggregatedStatsDTO> aggregatedTestersByTest() {
+        return service.getAggregatedTestersByTest(test.getId(), CREATOR, firstPage, null, null);
+    }
+
+    @Benchmark
+    public TesterAggregatedStatsDTO testerAggregatedStats() {
+        return service.getTesterAggregatedStats(test.getId(), busiestTester.getUsername(), CREATOR);
+    }
+
+    @Benchmark
+    public void convertToTesterAttemptDTO(Blackhole blackhole) {
+        for (TestAttempt attempt : testAttempts) {
+            blackhole.consume(service.convertToTesterAttemptDTO(attempt));
+        }
+    }
+
+    @Benchmark
+    public TestSummaryDTO testSummary() {
+        return service.getTestSummary(test.getId(), CREATOR);
+    }
+
+    @Benchmark
+    public ExtendedModelMap testerOverallStatistics(Blackhole blackhole) {
+        ExtendedModelMap model = new ExtendedModelMap();
+        blackhole.consume(controller.getTesterOverallStatistics(tester.getId(), null, model));
+        return model;
+    }
+
+    /**
+     * Заглушка без записи вызовов: обычный mock копит их и искажает замеры
+     */
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+}
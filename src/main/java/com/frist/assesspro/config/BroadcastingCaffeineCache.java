@@ -0,0 +1,52 @@
+package com.frist.assesspro.config;
+
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * Кэш Spring на Caffeine, который сообщает о своих сбросах другим узлам.
+ * Ключи передаются строкой: на другом узле удаляются записи с тем же строковым ключом.
+ */
+class BroadcastingCaffeineCache extends CaffeineCache {
+
+    private final CacheInvalidationBus invalidationBus;
+
+    BroadcastingCaffeineCache(String name, Cache<Object, Object> cache, CacheInvalidationBus invalidationBus) {
+        super(name, cache, false);
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(name, keys -> {
+            if (keys == null) {
+                cache.invalidateAll();
+            } else {
+                cache.asMap().keySet().removeIf(key -> keys.contains(String.valueOf(key)));
+            }
+        });
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        invalidationBus.publish(getName(), key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = super.evictIfPresent(key);
+        invalidationBus.publish(getName(), key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        invalidationBus.publishAll(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = super.invalidate();
+        invalidationBus.publishAll(getName());
+        return notEmpty;
+    }
+}
@@ -0,0 +1,79 @@
+package com.frist.assesspro.config;
+
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Кэши Spring на Caffeine. Набор кэшей фиксирован настройками app.cache.caches:
+ * обращение к неописанному имени не создаёт кэш со случайными параметрами.
+ * Статистика попаданий каждого кэша публикуется в Micrometer (cache.gets, cache.puts, cache.evictions),
+ * сбросы рассылаются другим узлам через шину инвалидации.
+ * Кэширование включается здесь, а не на классе приложения, чтобы срезы @WebMvcTest и @DataJpaTest
+ * без этой конфигурации не требовали CacheManager.
+ */
+@Configuration
+@EnableCaching
+@Slf4j
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(CacheSpecProperties properties,
+                                     MeterRegistry meterRegistry,
+                                     CacheInvalidationBus invalidationBus) {
+        List<BroadcastingCaffeineCache> caches = new ArrayList<>();
+        properties.getCaches().forEach((name, spec) -> {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = build(name, spec);
+            // Те же теги, что у автоматической регистрации кэшей Spring Boot: повторная регистрация не дублирует метрики
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "cache.manager", "cacheManager");
+            caches.add(new BroadcastingCaffeineCache(name, cache, invalidationBus));
+            log.info("Кэш {}: maximumSize={}, maximumWeight={}, expireAfterWrite={}",
+                    name, spec.getMaximumSize(), spec.getMaximumWeight(), spec.getExpireAfterWrite());
+        });
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(caches);
+        return cacheManager;
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> build(String name, CacheSpecProperties.Spec spec) {
+        if ((spec.getMaximumSize() > 0) == (spec.getMaximumWeight() > 0)) {
+            throw new IllegalStateException("Для кэша " + name + " нужно задать ровно одно из maximum-size и maximum-weight");
+        }
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(spec.getExpireAfterWrite())
+                .recordStats();
+        if (spec.getMaximumWeight() > 0) {
+            builder.maximumWeight(spec.getMaximumWeight()).weigher((key, value) -> weight(value));
+        } else {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Вес значения - число элементов списка или страницы, иначе 1
+     */
+    private static int weight(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Slice<?> slice) {
+            return Math.max(1, slice.getNumberOfElements());
+        }
+        return 1;
+    }
+}
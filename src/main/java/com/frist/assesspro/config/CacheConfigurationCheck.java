@@ -0,0 +1,74 @@
+package com.frist.assesspro.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.cache.interceptor.CacheOperationSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Проверка при старте: каждое имя кэша из аннотаций кэширования бинов приложения
+ * должно быть описано в app.cache.caches, иначе приложение не запускается.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheConfigurationCheck implements SmartInitializingSingleton {
+
+    private static final String APPLICATION_PACKAGE = "com.frist.assesspro.";
+
+    private final ListableBeanFactory beanFactory;
+    private final CacheOperationSource cacheOperationSource;
+    private final CacheManager cacheManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Имя кэша -> методы, которые к нему обращаются
+        Map<String, Set<String>> missing = new TreeMap<>();
+        int operations = 0;
+
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> type = beanFactory.getType(beanName, false);
+            if (type == null) {
+                continue;
+            }
+            Class<?> beanClass = ClassUtils.getUserClass(type);
+            if (!beanClass.getName().startsWith(APPLICATION_PACKAGE)) {
+                continue;
+            }
+            int[] found = {0};
+            ReflectionUtils.doWithMethods(beanClass, method -> {
+                Collection<CacheOperation> cacheOperations = cacheOperationSource.getCacheOperations(method, beanClass);
+                if (cacheOperations == null) {
+                    return;
+                }
+                for (CacheOperation operation : cacheOperations) {
+                    found[0]++;
+                    for (String cacheName : operation.getCacheNames()) {
+                        if (cacheManager.getCache(cacheName) == null) {
+                            missing.computeIfAbsent(cacheName, name -> new TreeSet<>())
+                                    .add(beanClass.getSimpleName() + "." + method.getName());
+                        }
+                    }
+                }
+            }, ReflectionUtils.USER_DECLARED_METHODS);
+            operations += found[0];
+        }
+
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Кэши не описаны в app.cache.caches: " + missing);
+        }
+        log.info("Проверка кэшей: {} аннотаций, все кэши описаны: {}", operations, cacheManager.getCacheNames());
+    }
+}
@@ -0,0 +1,50 @@
+package com.frist.assesspro.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки именованных кэшей Spring и регионов кэша второго уровня Hibernate:
+ * у каждого кэша свой размер и срок жизни.
+ * Кэш, не описанный здесь, не создаётся - проверка при старте требует описания
+ * для каждого имени из @Cacheable и @CacheEvict, Hibernate - для каждого региона из @Cache.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+@Getter @Setter
+public class CacheSpecProperties {
+
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    // Регионы кэша второго уровня Hibernate; для них допускается только maximumSize
+    private Map<String, Spec> regions = new LinkedHashMap<>();
+
+    private Invalidation invalidation = new Invalidation();
+
+    @Getter @Setter
+    public static class Spec {
+        // Ограничение по числу записей
+        private long maximumSize;
+        // Ограничение по суммарному числу элементов в закэшированных списках и страницах;
+        // используется вместо maximumSize для кэшей, значения которых сильно различаются по размеру
+        private long maximumWeight;
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Getter @Setter
+    public static class Invalidation {
+        // Рассылка инвалидаций локальных кэшей другим узлам через NOTIFY PostgreSQL
+        private boolean enabled = false;
+        private String channel = "assesspro_cache_invalidation";
+        private long pollIntervalMs = 100;
+        // Проверка соединения LISTEN: оборванное соединение без запроса не обнаруживается
+        private long healthCheckSeconds = 10;
+        private long reconnectDelaySeconds = 5;
+    }
+}
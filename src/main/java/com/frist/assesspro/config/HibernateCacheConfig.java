@@ -0,0 +1,81 @@
+package com.frist.assesspro.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.OptionalLong;
+
+/**
+ * Кэш второго уровня Hibernate на JCache поверх Caffeine. Регионы создаются заранее
+ * по настройкам app.cache.regions; регион из @Cache, не описанный там, не даёт запустить приложение.
+ * Попадания и промахи каждого региона публикуются в Micrometer с меткой cache.manager=hibernate.
+ */
+@Configuration
+@Slf4j
+public class HibernateCacheConfig {
+
+    private static final String CACHE_MANAGER_TAG = "hibernate";
+
+    /**
+     * Собственный провайдер на контекст: менеджер провайдера по умолчанию общий для JVM,
+     * и второй контекст приложения (например, в тестах) не смог бы создать те же регионы
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(CacheSpecProperties properties, MeterRegistry meterRegistry) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+
+        properties.getRegions().forEach((name, spec) -> {
+            if (spec.getMaximumSize() <= 0 || spec.getMaximumWeight() > 0) {
+                throw new IllegalStateException("Для региона " + name + " нужно задать только maximum-size");
+            }
+            CaffeineConfiguration<Object, Object> configuration = configuration();
+            configuration.setMaximumSize(OptionalLong.of(spec.getMaximumSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(spec.getExpireAfterWrite().toNanos()));
+            monitor(cacheManager.createCache(name, configuration), name, meterRegistry);
+            log.info("Регион Hibernate {}: maximumSize={}, expireAfterWrite={}",
+                    name, spec.getMaximumSize(), spec.getExpireAfterWrite());
+        });
+
+        // Метки изменения таблиц не вытесняются и не истекают: без метки Hibernate
+        // считает закэшированный результат запроса актуальным. Записей - по одной на таблицу
+        String timestamps = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+        monitor(cacheManager.createCache(timestamps, configuration()), timestamps, meterRegistry);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * Hibernate сам хранит разобранное состояние сущностей, копирование значений JCache не нужно
+     */
+    private static CaffeineConfiguration<Object, Object> configuration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setNativeStatisticsEnabled(true);
+        return configuration;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void monitor(Cache<Object, Object> cache, String name, MeterRegistry meterRegistry) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeine =
+                cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+        CaffeineCacheMetrics.monitor(meterRegistry, caffeine, name, "cache.manager", CACHE_MANAGER_TAG);
+    }
+}
@@ -0,0 +1,25 @@
+package com.frist.assesspro.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройки диспетчера transactional outbox
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.outbox")
+@Getter @Setter
+public class OutboxProperties {
+
+    private boolean enabled = true;
+    private long intervalMs = 1000;
+    private int batchSize = 100;
+    // После исчерпания попыток событие помечается FAILED
+    private int maxAttempts = 10;
+    private long retryBaseDelayMs = 1000;
+    private long retryMaxDelayMs = 600_000;
+    // Срок хранения обработанных событий
+    private int retentionDays = 7;
+}
@@ -0,0 +1,72 @@
+package com.frist.assesspro.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройки предагрегированной статистики
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.statistics")
+@Getter @Setter
+public class StatisticsProperties {
+
+    private Rollup rollup = new Rollup();
+    private Items items = new Items();
+    private Daily daily = new Daily();
+    private Leaderboard leaderboard = new Leaderboard();
+    private Monitor monitor = new Monitor();
+    private Columnar columnar = new Columnar();
+
+    @Getter @Setter
+    public static class Rollup {
+        // Сводка по паре (тест, тестировщик) обновляется при старте и завершении попытки;
+        // периодическое перестроение исправляет расхождения и заполняет пропуски
+        private boolean rebuildEnabled = true;
+        private String rebuildCron = "0 0 4 * * *";
+    }
+
+    @Getter @Setter
+    public static class Items {
+        // Счётчики вопросов и вариантов обновляются при сохранении ответа;
+        // пересчёт исправляет расхождения и обновляет индекс дискриминации
+        private boolean recomputeEnabled = true;
+        private String recomputeCron = "0 30 4 * * *";
+    }
+
+    @Getter @Setter
+    public static class Daily {
+        // Старт и завершение попытки пишут приращения в журнал;
+        // перенос в дневную сводку - периодически, чтение учитывает ещё не перенесённое
+        private boolean compactEnabled = true;
+        private long compactIntervalMs = 60_000;
+    }
+
+    @Getter @Setter
+    public static class Leaderboard {
+        // Число мест в рейтинге теста и проекта
+        private int size = 10;
+        // Загрузка всех рейтингов при старте; без прогрева рейтинг загружается при первом обращении
+        private boolean warmUpEnabled = true;
+    }
+
+    @Getter @Setter
+    public static class Monitor {
+        // События прохождения копятся в памяти и уходят наблюдателям одним кадром за интервал
+        private long frameIntervalMs = 1000;
+        // Попытка без активности дольше этого срока не считается идущей
+        private int idleTimeoutMinutes = 120;
+    }
+
+    @Getter @Setter
+    public static class Columnar {
+        // Сводки по тесту считаются по попыткам в памяти вместо агрегирующего запроса
+        private boolean enabled = false;
+        // Сумма попыток всех загруженных тестов; при превышении вытесняются редко используемые тесты
+        private long maxRows = 5_000_000;
+        // Загруженный тест перечитывается из БД не реже этого срока
+        private int reloadMinutes = 60;
+    }
+}
@@ -0,0 +1,36 @@
+package com.frist.assesspro.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройки горячего пути прохождения тестов
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.taking")
+@Getter @Setter
+public class TakingProperties {
+
+    private WriteBehind writeBehind = new WriteBehind();
+    private Reaper reaper = new Reaper();
+
+    @Getter @Setter
+    public static class WriteBehind {
+        // Буферизация ответов с пакетной записью в БД; при аварийной остановке несброшенные ответы теряются
+        private boolean enabled = false;
+        private long flushIntervalMs = 500;
+        private int maxBatchSize = 500;
+    }
+
+    @Getter @Setter
+    public static class Reaper {
+        // Закрытие попыток с истёкшим временем на стороне сервера
+        private boolean enabled = true;
+        private long intervalMs = 30_000;
+        private int batchSize = 500;
+        // Запас на автоотправку ответов JS-таймером после окончания времени
+        private long graceSeconds = 30;
+    }
+}
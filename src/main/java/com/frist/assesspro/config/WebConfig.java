@@ -1,8 +1,7 @@
 package com.frist.assesspro.config;
 
 import com.frist.assesspro.interceptor.ProfileInterceptor;
-import com.frist.assesspro.service.ProfileService;
-import com.frist.assesspro.service.UserService;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -12,12 +11,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
-    private final ProfileService profileService;
-    private final UserService userService;
+    private final PrincipalSnapshotCache principalSnapshots;
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new ProfileInterceptor(profileService, userService))
+        registry.addInterceptor(new ProfileInterceptor(principalSnapshots))
                 .addPathPatterns("/**")
                 .excludePathPatterns(
                         "/login", "/register", "/logout",
@@ -1,6 +1,7 @@
 package com.frist.assesspro.controllers;
 
-import com.frist.assesspro.service.TestPassingService;
+import com.frist.assesspro.security.PrincipalSnapshot;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -12,7 +13,7 @@ import java.security.Principal;
 public class GlobalControllerAdvice {
 
     @Autowired(required = false)
-    private TestPassingService testPassingService;
+    private PrincipalSnapshotCache principalSnapshots;
 
     @ModelAttribute("currentUri")
     public String getCurrentUri(HttpServletRequest request) {
@@ -21,8 +22,10 @@ public class GlobalControllerAdvice {
 
     @ModelAttribute("hasActiveAttempt")
     public boolean hasActiveAttempt(Principal principal) {
-        if (principal != null && testPassingService != null) {
-            return testPassingService.hasActiveAttempt(principal.getName());
+        if (principal != null && principalSnapshots != null) {
+            return principalSnapshots.get(principal.getName())
+                    .map(PrincipalSnapshot::hasActiveAttempt)
+                    .orElse(false);
         }
         return false;
     }
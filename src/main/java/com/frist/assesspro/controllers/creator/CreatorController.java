@@ -19,6 +19,7 @@ import com.frist.assesspro.repository.UserRepository;
 import com.frist.assesspro.service.*;
 import com.frist.assesspro.service.export.AsyncPdfExportService;
 import com.frist.assesspro.service.export.StatisticsExportService;
+import com.frist.assesspro.service.statistics.DailyStatisticsService;
 import com.frist.assesspro.util.PaginationUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -29,6 +30,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.*;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -44,6 +46,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -65,6 +68,7 @@ public class CreatorController {
     private final UserRepository userRepository;
     private final AsyncPdfExportService asyncPdfExportService;
     private final TestMapper testMapper;
+    private final DailyStatisticsService dailyStatisticsService;
 
     @ModelAttribute("currentUri")
     public String getCurrentUri(HttpServletRequest request) {
@@ -511,4 +515,29 @@ public class CreatorController {
         }
     }
 
+    @Operation(summary = "Попытки по дням за период (JSON)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "400", description = "Некорректный период"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    })
+    @GetMapping("/statistics/daily")
+    @PreAuthorize("hasRole('CREATOR')")
+    @ResponseBody
+    public ResponseEntity<?> getDailyAttempts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long testId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        LocalDate periodTo = to != null ? to : LocalDate.now();
+        LocalDate periodFrom = from != null ? from : periodTo.minusDays(29);
+        try {
+            return ResponseEntity.ok(dailyStatisticsService.getCreatorDailyAttempts(
+                    userDetails.getUsername(), periodFrom, periodTo, testId));
+        } catch (RuntimeException e) {
+            log.warn("Ошибка получения попыток по дням: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
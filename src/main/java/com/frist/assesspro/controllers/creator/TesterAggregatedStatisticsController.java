@@ -13,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -43,6 +44,8 @@ public class TesterAggregatedStatisticsController {
             @PathVariable Long testId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "lastAttemptDate") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateFrom,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dateTo,
             @AuthenticationPrincipal UserDetails userDetails,
@@ -51,7 +54,8 @@ public class TesterAggregatedStatisticsController {
         try {
             Test test = testService.getTestByIdWithoutOwnershipCheck(testId);
 
-            Pageable pageable = PageRequest.of(page, size);
+            Sort.Direction sortDirection = Sort.Direction.fromOptionalString(direction).orElse(Sort.Direction.DESC);
+            Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
             Page<TesterAggregatedStatsDTO> aggregatedTestersPage = testerStatisticsService
                     .getAggregatedTestersByTest(testId, userDetails.getUsername(), pageable, dateFrom, dateTo);
 
@@ -62,6 +66,8 @@ public class TesterAggregatedStatisticsController {
             model.addAttribute("totalItems", aggregatedTestersPage.getTotalElements());
             model.addAttribute("dateFrom", dateFrom);
             model.addAttribute("dateTo", dateTo);
+            model.addAttribute("sort", sort);
+            model.addAttribute("direction", sortDirection.name().toLowerCase());
 
             return "creator/aggregated-testers-statistics";
 
@@ -12,6 +12,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
@@ -19,11 +21,8 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/creator/testers")
@@ -56,68 +55,60 @@ public class TesterOverallStatisticsController {
             if (!"ROLE_TESTER".equals(tester.getRole())) {
                 throw new RuntimeException("Пользователь не является тестировщиком");
             }
-            // Получаем все попытки тестировщика
-            List<TesterAttemptDTO> allAttempts = testerStatisticsService.getAllAttemptsByTester(tester.getUsername());
-            // Агрегируем статистику по тестам
-            Map<Long, List<TesterAttemptDTO>> attemptsByTest = allAttempts.stream()
-                    .collect(Collectors.groupingBy(TesterAttemptDTO::getTestId));
+            // Сводка по тестам и итоги одним запросом
+            TesterOverviewDTO overview = testerStatisticsService.getTesterOverview(testerId);
 
-            // Создаем список статистики по каждому тесту
-            List<TestTesterStatisticsDTO> testStatistics = new ArrayList<>();
-            for (Map.Entry<Long, List<TesterAttemptDTO>> entry : attemptsByTest.entrySet()) {
-                Long testId = entry.getKey();
-                List<TesterAttemptDTO> testAttempts = entry.getValue();
-
-                // Получаем информацию о тесте
-                Test test = testService.getTestByIdWithoutOwnershipCheckOptional(testId)
-                        .orElse(null);
+            model.addAttribute("tester", tester);
+            model.addAttribute("testStatistics", overview.getTestStatistics());
+            model.addAttribute("totalAttempts", overview.getTotalAttempts());
+            model.addAttribute("completedAttempts", overview.getCompletedAttempts());
+            model.addAttribute("overallAverage", overview.getOverallAverage());
 
-                if (test != null) {
-                    TestTesterStatisticsDTO stat = new TestTesterStatisticsDTO();
-                    stat.setTestId(testId);
-                    stat.setTestTitle(test.getTitle());
-                    stat.setAttempts(testAttempts);
-                    stat.setTotalAttempts((long) testAttempts.size());
+            return "creator/tester-statistics";
 
-                    // Вычисляем статистику
-                    double avgPercentage = testAttempts.stream()
-                            .mapToDouble(TesterAttemptDTO::getPercentage)
-                            .average()
-                            .orElse(0.0);
-                    stat.setAveragePercentage(avgPercentage);
+        } catch (Exception e) {
+            log.error("Ошибка при загрузке статистики тестировщика", e);
+            model.addAttribute("errorMessage", "Ошибка: " + e.getMessage());
+            return "redirect:/creator/testers";
+        }
+    }
 
-                    double bestPercentage = testAttempts.stream()
-                            .mapToDouble(TesterAttemptDTO::getPercentage)
-                            .max()
-                            .orElse(0.0);
-                    stat.setBestPercentage(bestPercentage);
+    @Operation(summary = "Получение попыток тестировщика по тесту")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    @GetMapping("/{testerId}/statistics/tests/{testId}")
+    public String getTesterAttemptsByTest(
+            @PathVariable Long testerId,
+            @PathVariable Long testId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            Model model) {
 
-                    testStatistics.add(stat);
-                }
-            }
+        try {
+            User tester = userService.getUserById(testerId)
+                    .orElseThrow(() -> new RuntimeException("Тестировщик не найден"));
+            Test test = testService.getTestByIdWithoutOwnershipCheckOptional(testId)
+                    .orElseThrow(() -> new RuntimeException("Тест не найден"));
 
-            // Общая статистика по всем тестам
-            long totalAttempts = allAttempts.size();
-            long completedAttempts = allAttempts.stream()
-                    .filter(a -> a.getEndTime() != null)
-                    .count();
-            double overallAverage = allAttempts.stream()
-                    .mapToDouble(TesterAttemptDTO::getPercentage)
-                    .average()
-                    .orElse(0.0);
+            Page<TesterAttemptDTO> attemptsPage = testerStatisticsService.getTesterAttemptsByTest(
+                    testerId, testId, PageRequest.of(page, size));
 
             model.addAttribute("tester", tester);
-            model.addAttribute("testStatistics", testStatistics);
-            model.addAttribute("totalAttempts", totalAttempts);
-            model.addAttribute("completedAttempts", completedAttempts);
-            model.addAttribute("overallAverage", overallAverage);
+            model.addAttribute("test", test);
+            model.addAttribute("attempts", attemptsPage.getContent());
+            model.addAttribute("currentPage", attemptsPage.getNumber());
+            model.addAttribute("totalPages", attemptsPage.getTotalPages());
+            model.addAttribute("totalItems", attemptsPage.getTotalElements());
+            model.addAttribute("pageSize", size);
 
-            return "creator/tester-statistics";
+            return "creator/tester-test-attempts";
 
         } catch (Exception e) {
-            log.error("Ошибка при загрузке статистики тестировщика", e);
-            model.addAttribute("errorMessage", "Ошибка: " + e.getMessage());
-            return "redirect:/creator/testers";
+            log.error("Ошибка при загрузке попыток тестировщика ID: {} по тесту ID: {}", testerId, testId, e);
+            return "redirect:/creator/testers/" + testerId + "/statistics";
         }
     }
-}
\ No newline at end of file
+}
@@ -4,11 +4,16 @@ package com.frist.assesspro.controllers.creator;
 import com.frist.assesspro.dto.statistics.*;
 import com.frist.assesspro.entity.Test;
 import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.AttemptCursor;
 import com.frist.assesspro.service.CooldownService;
 import com.frist.assesspro.service.TestService;
 import com.frist.assesspro.service.TesterStatisticsService;
 import com.frist.assesspro.service.UserService;
 import com.frist.assesspro.service.export.AsyncPdfExportService;
+import com.frist.assesspro.service.statistics.ItemAnalysisService;
+import com.frist.assesspro.service.statistics.ItemStatsRecompute;
+import com.frist.assesspro.service.statistics.LeaderboardService;
+import com.frist.assesspro.service.statistics.LiveExamMonitor;
 import com.itextpdf.io.font.FontProgram;
 import com.itextpdf.io.font.FontProgramFactory;
 import com.itextpdf.io.font.PdfEncodings;
@@ -32,6 +37,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -40,11 +46,14 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -60,6 +69,10 @@ public class TesterStatisticsController {
     private final TestService testService;
     private final UserService userService;
     private final AsyncPdfExportService asyncPdfExportService;
+    private final ItemAnalysisService itemAnalysisService;
+    private final ItemStatsRecompute itemStatsRecompute;
+    private final LeaderboardService leaderboardService;
+    private final LiveExamMonitor liveExamMonitor;
 
 
     @Operation(summary = "Список тестировщиков для статистики")
@@ -74,6 +87,7 @@ public class TesterStatisticsController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
             @AuthenticationPrincipal UserDetails userDetails,
             Model model) {
 
@@ -82,17 +96,35 @@ public class TesterStatisticsController {
 
             TestSummaryDTO testSummary = testerStatisticsService.getTestSummary(testId, userDetails.getUsername());
 
-            Pageable pageable = PageRequest.of(page, size);
-            Page<TesterAttemptDTO> attemptsPage = testerStatisticsService.getTestersByTest(
-                    testId, userDetails.getUsername(),search, pageable);
+            if (cursor != null) {
+                // Режим курсора: переход только вперёд, без номеров страниц и подсчёта записей
+                Slice<TesterAttemptDTO> slice = testerStatisticsService.getTestersByTestAfter(
+                        testId, userDetails.getUsername(), search,
+                        cursor.isEmpty() ? null : AttemptCursor.decode(cursor), size);
+                List<TesterAttemptDTO> testers = slice.getContent();
+
+                model.addAttribute("testers", testers);
+                model.addAttribute("cursorMode", true);
+                model.addAttribute("nextCursor", slice.hasNext()
+                        ? new AttemptCursor(testers.get(testers.size() - 1).getStartTime(),
+                        testers.get(testers.size() - 1).getAttemptId()).encode()
+                        : null);
+            } else {
+                Pageable pageable = PageRequest.of(page, size);
+                Page<TesterAttemptDTO> attemptsPage = testerStatisticsService.getTestersByTest(
+                        testId, userDetails.getUsername(), search, pageable);
+
+                model.addAttribute("testers", attemptsPage.getContent());
+                model.addAttribute("currentPage", attemptsPage.getNumber());
+                model.addAttribute("totalPages", attemptsPage.getTotalPages());
+                model.addAttribute("totalItems", attemptsPage.getTotalElements());
+            }
 
             model.addAttribute("test", test);
-            model.addAttribute("testers", attemptsPage.getContent());
-            model.addAttribute("currentPage", attemptsPage.getNumber());
-            model.addAttribute("totalPages", attemptsPage.getTotalPages());
-            model.addAttribute("totalItems", attemptsPage.getTotalElements());
+            model.addAttribute("pageSize", size);
             model.addAttribute("search", search);
             model.addAttribute("testSummary", testSummary);
+            model.addAttribute("leaderboard", leaderboardService.getTestLeaderboard(testId));
 
             return "creator/tester-statistics-main";
 
@@ -182,8 +214,128 @@ public class TesterStatisticsController {
                 attemptId, userDetails.getUsername());
     }
 
-}
+    @Operation(summary = "Анализ вопросов теста")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    @GetMapping("/items")
+    public String getItemAnalysis(
+            @PathVariable Long testId,
+            Model model) {
+
+        try {
+            Test test = testService.getTestByIdWithoutOwnershipCheck(testId);
+
+            model.addAttribute("test", test);
+            model.addAttribute("items", itemAnalysisService.getItemAnalysis(testId));
+
+            return "creator/item-analysis";
+
+        } catch (Exception e) {
+            log.error("Ошибка при загрузке анализа вопросов", e);
+            model.addAttribute("errorMessage", "Ошибка: " + e.getMessage());
+            return "redirect:/creator/tests/" + testId + "/statistics/testers";
+        }
+    }
 
+    @Operation(summary = "Анализ вопросов теста (JSON)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    @GetMapping("/items/data")
+    @ResponseBody
+    public List<ItemAnalysisDTO> getItemAnalysisData(@PathVariable Long testId) {
+        return itemAnalysisService.getItemAnalysis(testId);
+    }
 
+    @Operation(summary = "Рейтинг тестировщиков теста (JSON)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    })
+    @GetMapping("/leaderboard")
+    @ResponseBody
+    public List<LeaderboardEntryDTO> getLeaderboard(@PathVariable Long testId) {
+        return leaderboardService.getTestLeaderboard(testId);
+    }
 
+    @Operation(summary = "Поток обновлений рейтинга тестировщиков теста (SSE)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    })
+    @GetMapping("/leaderboard/stream")
+    public SseEmitter getLeaderboardStream(@PathVariable Long testId) {
+        return leaderboardService.subscribeTest(testId);
+    }
 
+    @Operation(summary = "Живой мониторинг прохождения теста")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    })
+    @GetMapping("/live")
+    public String getLiveMonitor(
+            @PathVariable Long testId,
+            Model model) {
+
+        try {
+            Test test = testService.getTestByIdWithoutOwnershipCheck(testId);
+
+            model.addAttribute("test", test);
+            model.addAttribute("frame", liveExamMonitor.getFrame(testId));
+
+            return "creator/live-monitor";
+
+        } catch (Exception e) {
+            log.error("Ошибка при загрузке мониторинга теста", e);
+            model.addAttribute("errorMessage", "Ошибка: " + e.getMessage());
+            return "redirect:/creator/tests/" + testId + "/statistics/testers";
+        }
+    }
+
+    @Operation(summary = "Текущее состояние прохождения теста (JSON)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    })
+    @GetMapping("/live/data")
+    @ResponseBody
+    public LiveExamFrameDTO getLiveMonitorData(@PathVariable Long testId) {
+        return liveExamMonitor.getFrame(testId);
+    }
+
+    @Operation(summary = "Поток кадров мониторинга прохождения теста (SSE)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    })
+    @GetMapping("/live/stream")
+    public SseEmitter getLiveMonitorStream(@PathVariable Long testId) {
+        return liveExamMonitor.subscribe(testId);
+    }
+
+    @Operation(summary = "Пересчёт анализа вопросов теста")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "302", description = "Перенаправление на страницу анализа"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен")
+    })
+    @PostMapping("/items/recompute")
+    public String recomputeItemAnalysis(
+            @PathVariable Long testId,
+            RedirectAttributes redirectAttributes) {
+
+        try {
+            itemStatsRecompute.recompute(testId);
+            redirectAttributes.addFlashAttribute("successMessage", "Анализ вопросов пересчитан");
+        } catch (Exception e) {
+            log.error("Ошибка пересчёта анализа вопросов для теста ID: {}", testId, e);
+            redirectAttributes.addFlashAttribute("errorMessage", "Ошибка пересчёта: " + e.getMessage());
+        }
+        return "redirect:/creator/tests/" + testId + "/statistics/items";
+    }
+}
@@ -2,6 +2,7 @@ package com.frist.assesspro.controllers.manager;
 
 import com.frist.assesspro.dto.EventDTO;
 import com.frist.assesspro.dto.manager.ProjectDTO;
+import com.frist.assesspro.dto.statistics.LeaderboardEntryDTO;
 import com.frist.assesspro.dto.statistics.ProjectAggregatedStatsDTO;
 import com.frist.assesspro.dto.statistics.TesterAttemptDTO;
 import com.frist.assesspro.dto.statistics.TesterProjectStatsDTO;
@@ -12,8 +13,11 @@ import com.frist.assesspro.service.EventService;
 import com.frist.assesspro.service.ManagerService;
 import com.frist.assesspro.service.ProjectService;
 import com.frist.assesspro.service.export.AsyncPdfExportService;
+import com.frist.assesspro.service.statistics.DailyStatisticsService;
+import com.frist.assesspro.service.statistics.LeaderboardService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -23,8 +27,12 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.security.Principal;
+import java.time.LocalDate;
 import java.util.*;
 
 @Controller
@@ -38,6 +46,8 @@ public class ManagerController {
     private final ManagerService managerService;
     private final EventService eventService;
     private final AsyncPdfExportService  pdfExportService;
+    private final DailyStatisticsService dailyStatisticsService;
+    private final LeaderboardService leaderboardService;
 
     @GetMapping("/dashboard")
     public String dashboard(Model model, Principal principal) {
@@ -52,12 +62,7 @@ public class ManagerController {
 
     @GetMapping("/projects/{id}")
     public String projectStatistics(@PathVariable Long id, Model model, Principal principal) {
-        // Проверка доступа: проект должен принадлежать текущему менеджеру
-        List<ProjectDTO> projects = managerService.getManagerProjects(principal.getName());
-        ProjectDTO currentProject = projects.stream()
-                .filter(p -> p.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Проект не найден или доступ запрещен"));
+        ProjectDTO currentProject = getManagerProject(id, principal);
 
         ProjectAggregatedStatsDTO stats = managerService.getProjectAggregatedStats(id);
         long testersCount = managerService.getTesterCount(id);
@@ -68,10 +73,32 @@ public class ManagerController {
         model.addAttribute("completedAttempts", stats.getCompletedAttempts());
         model.addAttribute("averageScore", stats.getAverageScore());
         model.addAttribute("testers", testers);
+        model.addAttribute("leaderboard", leaderboardService.getProjectLeaderboard(id));
 
         return "manager/project-statistics";
     }
 
+    @GetMapping("/projects/{id}/leaderboard")
+    @ResponseBody
+    public List<LeaderboardEntryDTO> projectLeaderboard(@PathVariable Long id, Principal principal) {
+        getManagerProject(id, principal);
+        return leaderboardService.getProjectLeaderboard(id);
+    }
+
+    @GetMapping("/projects/{id}/leaderboard/stream")
+    public SseEmitter projectLeaderboardStream(@PathVariable Long id, Principal principal) {
+        getManagerProject(id, principal);
+        return leaderboardService.subscribeProject(id);
+    }
+
+    // Проверка доступа: проект должен принадлежать текущему менеджеру
+    private ProjectDTO getManagerProject(Long id, Principal principal) {
+        return managerService.getManagerProjects(principal.getName()).stream()
+                .filter(p -> p.getId().equals(id))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Проект не найден или доступ запрещен"));
+    }
+
     @GetMapping("/tester/{testerUsername}/full-statistics/export")
     @Transactional
     public ResponseEntity<Map<String, String>> exportTesterFullStatistics(
@@ -90,6 +117,24 @@ public class ManagerController {
         return ResponseEntity.ok(Map.of("requestId", requestId, "message", "Полный отчёт по тестировщику готовится..."));
     }
 
+    @GetMapping("/statistics/daily")
+    public ResponseEntity<?> getDailyAttempts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long projectId,
+            Principal principal) {
+
+        LocalDate periodTo = to != null ? to : LocalDate.now();
+        LocalDate periodFrom = from != null ? from : periodTo.minusDays(29);
+        try {
+            return ResponseEntity.ok(dailyStatisticsService.getManagerDailyAttempts(
+                    principal.getName(), periodFrom, periodTo, projectId));
+        } catch (RuntimeException e) {
+            log.warn("Ошибка получения попыток по дням: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/calendar")
     public String calendar() {
         return "manager/calendar";
@@ -23,6 +23,8 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -32,6 +34,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.ArrayList;
@@ -46,6 +49,8 @@ import java.util.stream.Collectors;
 @Tag(name = "Тестер",description = "API для тестеров")
 public class TesterController {
 
+    private static final int MAX_ANSWERS_PER_BATCH = 500;
+
     private final TestPassingService testPassingService;
     private final DashboardService dashboardService;
     private final TestAttemptRepository testAttemptRepository;
@@ -226,6 +231,38 @@ public class TesterController {
         }
     }
 
+    @Operation(summary = "Пакетное сохранение ответов")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    @PostMapping("/attempt/{attemptId}/answers")
+    @ResponseBody
+    public String saveAnswers(
+            @PathVariable Long attemptId,
+            @RequestBody List<TestPassingDTO> answers,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (answers == null || answers.size() > MAX_ANSWERS_PER_BATCH) {
+            return "{\"status\": \"error\", \"message\": \"Некорректные данные\"}";
+        }
+
+        try {
+            answers.forEach(answer -> answer.setAttemptId(attemptId));
+            testPassingService.saveAnswers(attemptId, answers, userDetails.getUsername());
+
+            TestAttempt attempt = testAttemptRepository.findById(attemptId).orElse(null);
+            boolean isCompleted = attempt != null && attempt.getStatus() == TestAttempt.AttemptStatus.COMPLETED;
+
+            return String.format("{\"status\": \"success\", \"message\": \"Ответы сохранены\", \"saved\": %d, \"completed\": %b}",
+                    answers.size(), isCompleted);
+        } catch (Exception e) {
+            log.error("Ошибка при пакетном сохранении ответов", e);
+            return "{\"status\": \"error\", \"message\": \"" + e.getMessage() + "\"}";
+        }
+    }
+
     @Operation(summary = "Завершение теста")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Успешно"),
@@ -399,6 +436,40 @@ public class TesterController {
         }
     }
 
+    @Operation(summary = "Вопрос попытки по индексу (JSON)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Успешно"),
+            @ApiResponse(responseCode = "304", description = "Не изменился"),
+            @ApiResponse(responseCode = "404", description = "Попытка или вопрос не найдены")
+    })
+    @GetMapping("/attempt/{attemptId}/questions/{questionIndex}")
+    @ResponseBody
+    public ResponseEntity<AttemptQuestionDTO> getAttemptQuestion(
+            @PathVariable Long attemptId,
+            @PathVariable Integer questionIndex,
+            @AuthenticationPrincipal UserDetails userDetails,
+            WebRequest webRequest) {
+
+        Optional<AttemptQuestionDTO> question = testPassingService.getAttemptQuestion(
+                attemptId, questionIndex, userDetails.getUsername());
+        if (question.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        AttemptQuestionDTO dto = question.get();
+        String etag = String.format("\"%d-%d-%d-%d-%d\"",
+                dto.getAttemptId(), dto.getTestVersion(), dto.getQuestionIndex(),
+                dto.getAnsweredQuestions(), dto.getChosenAnswerOptionId() != null ? dto.getChosenAnswerOptionId() : 0L);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(dto);
+    }
+
     @Operation(summary = "Дашборд тестера")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Успешно"),
@@ -0,0 +1,7 @@
+package com.frist.assesspro.dto.statistics;
+
+public interface ActiveAttemptProjection {
+    Long getId();
+    Integer getAnsweredCount();
+    Integer getTotalQuestions();
+}
@@ -0,0 +1,21 @@
+package com.frist.assesspro.dto.statistics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка списка попыток: только поля, нужные для TesterAttemptDTO
+ */
+public interface AttemptListProjection {
+    Long getId();
+    Long getTestId();
+    String getTestTitle();
+    Integer getQuestionCount();
+    String getUsername();
+    String getLastName();
+    String getFirstName();
+    String getMiddleName();
+    LocalDateTime getStartTime();
+    LocalDateTime getEndTime();
+    Integer getTotalScore();
+    Integer getTotalQuestions();
+}
@@ -12,5 +12,8 @@ import java.time.LocalDate;
 public class DailyAttemptsDTO {
     private LocalDate date;
     private Long attemptsCount;
+    private Long completedCount;
     private Double averageScore;
+    private Double averagePercentage;
+    private Long totalMinutes;
 }
@@ -0,0 +1,16 @@
+package com.frist.assesspro.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DistractorStatsDTO {
+    private Long optionId;
+    private String optionText;
+    private Boolean isCorrect;
+    private Long chosenCount;
+    private Double frequency; // Доля ответов на вопрос с этим вариантом, 0..1
+}
@@ -0,0 +1,27 @@
+package com.frist.assesspro.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Анализ вопроса теста: трудность (доля верных ответов, 0..1),
+ * индекс дискриминации (-1..1) и частоты выбора вариантов
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemAnalysisDTO {
+    private Long questionId;
+    private String questionText;
+    private Integer orderIndex;
+    private Long answerCount;
+    private Long correctCount;
+    private Double difficulty; // null - ответов ещё нет
+    private Double discrimination; // null - тест ещё не пересчитан или мало завершённых попыток
+    private LocalDateTime recomputedAt;
+    private List<DistractorStatsDTO> options;
+}
@@ -0,0 +1,17 @@
+package com.frist.assesspro.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaderboardEntryDTO {
+    private int rank;
+    private Long userId;
+    private String username;
+    private String fullName;
+    private Double percentage;
+    private Long completedAttempts;
+}
@@ -0,0 +1,19 @@
+package com.frist.assesspro.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LiveExamFrameDTO {
+    private Long testId;
+    private Integer inProgress;
+    private Long answersSubmitted;
+    private Long completedAttempts;
+    private Double averageProgress;
+    private LocalDateTime updatedAt;
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -17,6 +19,13 @@ public class TestSummaryDTO {
     private Long uniqueTesters;
     private Double averageScore;
     private Double bestScore;
+    private Double medianScore;
+    private Double p90Score;
+
+    /**
+     * Число завершённых попыток по корзинам результата: 0-10%, 10-20%, ..., 90-100%
+     */
+    private List<Long> scoreDistribution;
 
     /**
      * Получает процент отвеченных вопросов
@@ -1,14 +1,16 @@
 package com.frist.assesspro.dto.statistics;
 
 import lombok.Data;
-import java.util.List;
+
+import java.time.LocalDateTime;
 
 @Data
 public class TestTesterStatisticsDTO {
     private Long testId;
     private String testTitle;
-    private List<TesterAttemptDTO> attempts;
     private Long totalAttempts;
+    private Long completedAttempts;
     private Double averagePercentage;
     private Double bestPercentage;
-}
\ No newline at end of file
+    private LocalDateTime lastAttemptTime;
+}
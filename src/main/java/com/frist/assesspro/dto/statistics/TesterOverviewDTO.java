@@ -0,0 +1,21 @@
+package com.frist.assesspro.dto.statistics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Общая статистика тестировщика: итоги по всем попыткам и сводка по каждому тесту
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TesterOverviewDTO {
+    private Long testerId;
+    private Long totalAttempts;
+    private Long completedAttempts;
+    private Double overallAverage;
+    private List<TestTesterStatisticsDTO> testStatistics;
+}
@@ -0,0 +1,16 @@
+package com.frist.assesspro.dto.statistics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сводка попыток тестировщика по одному тесту
+ */
+public interface TesterTestStatsProjection {
+    Long getTestId();
+    String getTestTitle();
+    Long getTotalAttempts();
+    Long getCompletedAttempts();
+    Double getAveragePercentage();
+    Double getBestPercentage();
+    LocalDateTime getLastAttemptTime();
+}
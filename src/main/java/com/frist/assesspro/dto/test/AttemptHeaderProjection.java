@@ -0,0 +1,11 @@
+package com.frist.assesspro.dto.test;
+
+import com.frist.assesspro.entity.TestAttempt;
+
+public interface AttemptHeaderProjection {
+    Long getId();
+    Long getTestId();
+    String getUsername();
+    TestAttempt.AttemptStatus getStatus();
+    Long getQuestionSeed();
+}
@@ -0,0 +1,21 @@
+package com.frist.assesspro.dto.test;
+
+import lombok.Data;
+
+/**
+ * Один вопрос попытки для навигации без перерисовки страницы
+ */
+@Data
+public class AttemptQuestionDTO {
+    private Long attemptId;
+    private Long testId;
+    private String testTitle;
+    private Long testVersion;
+    private Integer questionIndex;
+    private Integer totalQuestions;
+    private Integer answeredQuestions;
+    private Integer remainingQuestions;
+    private QuestionForTakingDTO question;
+    private Boolean answered;
+    private Long chosenAnswerOptionId;
+}
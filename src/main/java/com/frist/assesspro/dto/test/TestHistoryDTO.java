@@ -20,11 +20,12 @@ public class TestHistoryDTO {
     private Integer totalScore;
     private Long maxPossibleScore;
     private Integer progressPercentage;
+    private Integer answeredCount;
 
     public TestHistoryDTO(Long attemptId, Long testId, String testTitle,
                           LocalDateTime startTime, LocalDateTime endTime,
                           TestAttempt.AttemptStatus status, Integer totalScore,
-                          Long maxPossibleScore) {
+                          Long maxPossibleScore, Integer answeredCount) {
         this.attemptId = attemptId;
         this.testId = testId;
         this.testTitle = testTitle;
@@ -33,6 +34,7 @@ public class TestHistoryDTO {
         this.status = status;
         this.totalScore = totalScore;
         this.maxPossibleScore = maxPossibleScore;
+        this.answeredCount = answeredCount;
     }
 
 
@@ -7,4 +7,5 @@ public class TestPassingDTO {
     private Long attemptId;
     private Long questionId;
     private Long answerOptionId;
+    private Long sequence;
 }
\ No newline at end of file
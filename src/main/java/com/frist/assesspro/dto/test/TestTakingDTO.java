@@ -12,6 +12,8 @@ public class TestTakingDTO {
     private String testTitle;
     private Integer timeLimitMinutes;
     private List<QuestionForTakingDTO> questions = new ArrayList<>();
+    // Индексы вопросов страницы в порядке попытки (для JSON-навигации)
+    private List<Integer> questionIndexes = new ArrayList<>();
     private Integer currentQuestionIndex = 0;
     private Integer totalQuestions;
 
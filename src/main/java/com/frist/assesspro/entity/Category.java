@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -27,6 +28,7 @@ import java.util.List;
         }
 )
 @Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
 public class Category {
 
     @Id
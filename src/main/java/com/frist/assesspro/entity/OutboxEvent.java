@@ -0,0 +1,73 @@
+package com.frist.assesspro.entity;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие transactional outbox: пишется в одной транзакции с изменением,
+ * побочные эффекты (уведомления, SSE, email) выполняет фоновый диспетчер
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private EventType eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;          // ID объекта события (попытка)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = this.createdAt;
+        }
+    }
+
+    public enum EventType {
+        ATTEMPT_COMPLETED          // менеджерам: тестировщик завершил попытку
+    }
+
+    public enum Status {
+        PENDING,
+        DONE,
+        FAILED                     // попытки доставки исчерпаны
+    }
+}
@@ -11,6 +11,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
@@ -35,6 +36,7 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "questions")
 public class Question {
 
     @Id
@@ -61,6 +63,7 @@ public class Question {
             fetch = FetchType.LAZY)
     @BatchSize(size = 20)
     @ToString.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "questionAnswerOptions")
     private List<AnswerOption> answerOptions = new ArrayList<>();
 
     // ВЕРНУТЬ LIST
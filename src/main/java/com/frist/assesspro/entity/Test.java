@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -45,6 +46,7 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tests")
 public class Test {
 
     @Id
@@ -93,6 +95,7 @@ public class Test {
     @Size(max = 100, message = "Максимальное количество вопросов в тесте - 100")
     @ToString.Exclude
     @BatchSize(size = 20)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "testQuestions")
     private List<Question> questions;
 
     @OneToMany(mappedBy = "test", fetch = FetchType.LAZY)
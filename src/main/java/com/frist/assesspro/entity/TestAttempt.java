@@ -7,7 +7,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -30,7 +30,6 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Cacheable
 public class TestAttempt {
 
     @Id
@@ -54,6 +53,14 @@ public class TestAttempt {
     @Column(name = "end_time")
     private LocalDateTime endTime;
 
+    // Крайний срок по лимиту времени теста; null - без ограничения
+    @Column(name = "deadline_at")
+    private LocalDateTime deadlineAt;
+
+    // Зерно перемешивания вопросов, фиксируется при создании попытки
+    @Column(name = "question_seed", updatable = false)
+    private Long questionSeed;
+
     @Min(value = 0, message = "Количество баллов не может быть отрицательным")
     @Column(name = "total_score")
     private Integer totalScore = 0;
@@ -61,6 +68,15 @@ public class TestAttempt {
     @Column(name="total_questions",nullable=false)
     private Integer totalQuestions;
 
+    // Счётчики поддерживаются SQL-запросом вместе с UPSERT ответа, JPA их не записывает
+    @ColumnDefault("0")
+    @Column(name = "answered_count", nullable = false, insertable = false, updatable = false)
+    private Integer answeredCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "running_score", nullable = false, insertable = false, updatable = false)
+    private Integer runningScore = 0;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private AttemptStatus status = AttemptStatus.IN_PROGRESS;
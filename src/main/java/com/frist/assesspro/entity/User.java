@@ -6,7 +6,6 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.*;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -23,7 +22,6 @@ import java.util.List;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @AllArgsConstructor
 @NoArgsConstructor
-@Cacheable
 public class User implements UserDetails {
 
     @Id
@@ -104,6 +102,13 @@ public class User implements UserDetails {
      */
     @Transient
     public String getFullName() {
+        return fullName(username, lastName, firstName, middleName);
+    }
+
+    /**
+     * Полное имя «Фамилия Имя Отчество» без пустых частей, при отсутствии всех частей - логин
+     */
+    public static String fullName(String username, String lastName, String firstName, String middleName) {
         StringBuilder fullName = new StringBuilder();
         if (lastName != null && !lastName.isEmpty()) {
             fullName.append(lastName);
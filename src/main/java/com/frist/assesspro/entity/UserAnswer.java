@@ -7,7 +7,6 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "user_answers",
@@ -18,7 +17,6 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Cacheable
 public class UserAnswer {
 
     @Id
@@ -45,4 +43,8 @@ public class UserAnswer {
     @Min(value = 0, message = "Количество баллов не может быть отрицательным")
     @Column(name = "points_earned")
     private Integer pointsEarned = 0;
+
+    // Порядковый номер ответа на клиенте: повтор или устаревший ответ не перезаписывает более новый
+    @Column(name = "client_seq")
+    private Long clientSeq;
 }
@@ -1,7 +1,7 @@
 package com.frist.assesspro.interceptor;
 
-import com.frist.assesspro.service.ProfileService;
-import com.frist.assesspro.service.UserService;
+import com.frist.assesspro.security.PrincipalSnapshot;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -13,13 +13,13 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @RequiredArgsConstructor
 public class ProfileInterceptor implements HandlerInterceptor {
 
-    private final ProfileService profileService;
-    private final UserService userService;
+    private final PrincipalSnapshotCache principalSnapshots;
 
     // URL-ы, которые не требуют проверки профиля
     private static final List<String> PUBLIC_URLS = Arrays.asList(
@@ -55,14 +55,15 @@ public class ProfileInterceptor implements HandlerInterceptor {
             username = auth.getPrincipal().toString();
         }
 
-
-        if (!userService.existsByUsername(username)) {
+        // Снимок пользователя из кэша; тот же снимок получат совет контроллеров и сервисы запроса
+        Optional<PrincipalSnapshot> snapshot = principalSnapshots.get(username);
+        if (snapshot.isEmpty()) {
             log.warn("Пользователь {} не найден в БД", username);
             return true;
         }
 
         // Проверяем заполненность профиля
-        if (!profileService.isProfileComplete(username)) {
+        if (!snapshot.get().profileComplete()) {
             log.debug("Пользователь {} не заполнил профиль, перенаправление на /profile/complete", username);
             response.sendRedirect("/profile/complete");
             return false;
@@ -70,4 +71,4 @@ public class ProfileInterceptor implements HandlerInterceptor {
 
         return true;
     }
-}
\ No newline at end of file
+}
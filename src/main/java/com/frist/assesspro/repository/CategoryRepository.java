@@ -3,17 +3,23 @@ package com.frist.assesspro.repository;
 import com.frist.assesspro.dto.category.CategoryDTO;
 import com.frist.assesspro.entity.Category;
 import com.frist.assesspro.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Запросы списка активных категорий кэшируются в кэше запросов Hibernate:
+ * результат сбрасывается при любом изменении таблиц categories и tests
+ */
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
@@ -35,6 +41,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
             "WHERE c.isActive = true " +
             "GROUP BY c.id, c.name, c.description, c.createdAt " +
             "ORDER BY c.name")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Page<CategoryDTO> findAllActiveCategoryDTOs(Pageable pageable);
 
     @Query("SELECT new com.frist.assesspro.dto.category.CategoryDTO(" +
@@ -45,6 +52,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
             "WHERE c.isActive = true " +
             "GROUP BY c.id, c.name, c.description, c.createdAt " +
             "ORDER BY c.name")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<CategoryDTO> findAllActiveCategoryDTOs();
 
 }
\ No newline at end of file
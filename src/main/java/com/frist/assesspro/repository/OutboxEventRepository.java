@@ -0,0 +1,33 @@
+package com.frist.assesspro.repository;
+
+import com.frist.assesspro.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Захват события для обработки; событие, захваченное другим узлом, пропускается (SKIP LOCKED)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id = :id AND e.status = 'PENDING'")
+    Optional<OutboxEvent> lockPendingById(@Param("id") Long id);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = 'PENDING'")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DONE' AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
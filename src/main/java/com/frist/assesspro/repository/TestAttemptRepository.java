@@ -1,8 +1,12 @@
 package com.frist.assesspro.repository;
 
+import com.frist.assesspro.dto.statistics.ActiveAttemptProjection;
+import com.frist.assesspro.dto.statistics.AttemptListProjection;
 import com.frist.assesspro.dto.statistics.ProjectAggregatedStatsDTO;
 import com.frist.assesspro.dto.statistics.TesterProjectStatsDTO;
 import com.frist.assesspro.dto.statistics.TesterProjectStatsProjection;
+import com.frist.assesspro.dto.statistics.TesterTestStatsProjection;
+import com.frist.assesspro.dto.test.AttemptHeaderProjection;
 import com.frist.assesspro.dto.test.TestHistoryDTO;
 import com.frist.assesspro.entity.TestAttempt;
 import com.frist.assesspro.entity.User;
@@ -15,12 +19,12 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 @Repository
-public interface TestAttemptRepository extends JpaRepository<TestAttempt, Long> {
+public interface TestAttemptRepository extends JpaRepository<TestAttempt, Long>, TestAttemptRepositoryCustom {
 
     @EntityGraph(value = "TestAttempt.withTest", type = EntityGraph.EntityGraphType.LOAD)
     Optional<TestAttempt> findByTestIdAndUserIdAndStatus(
@@ -28,6 +32,47 @@ public interface TestAttemptRepository extends JpaRepository<TestAttempt, Long>
 
     List<TestAttempt> findByUserId(Long userId);
 
+    /**
+     * Сводка попыток тестировщика по тестам одним запросом.
+     * Процент попытки считается от total_questions, при его отсутствии - от числа вопросов теста.
+     */
+    @Query("SELECT t.id AS testId, t.title AS testTitle, " +
+            "COUNT(ta) AS totalAttempts, COUNT(ta.endTime) AS completedAttempts, " +
+            "AVG(COALESCE(COALESCE(ta.totalScore, 0) * 100.0 / " +
+            "    COALESCE(NULLIF(ta.totalQuestions, 0), NULLIF(t.questionCount, 0)), 0.0)) AS averagePercentage, " +
+            "MAX(COALESCE(COALESCE(ta.totalScore, 0) * 100.0 / " +
+            "    COALESCE(NULLIF(ta.totalQuestions, 0), NULLIF(t.questionCount, 0)), 0.0)) AS bestPercentage, " +
+            "MAX(ta.startTime) AS lastAttemptTime " +
+            "FROM TestAttempt ta JOIN ta.test t " +
+            "WHERE ta.user.id = :userId " +
+            "GROUP BY t.id, t.title " +
+            "ORDER BY MAX(ta.startTime) DESC")
+    List<TesterTestStatsProjection> findTestStatsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT ta.runningScore FROM TestAttempt ta WHERE ta.id = :attemptId")
+    Integer findRunningScoreById(@Param("attemptId") Long attemptId);
+
+    /**
+     * Незавершённые попытки теста, которые ещё могут продолжаться:
+     * срок не истёк, а без срока - начаты не раньше startedAfter
+     */
+    @Query("SELECT ta.id AS id, ta.answeredCount AS answeredCount, ta.totalQuestions AS totalQuestions " +
+            "FROM TestAttempt ta " +
+            "WHERE ta.test.id = :testId AND ta.status = 'IN_PROGRESS' " +
+            "AND ((ta.deadlineAt IS NOT NULL AND ta.deadlineAt > :now) " +
+            "OR (ta.deadlineAt IS NULL AND ta.startTime > :startedAfter))")
+    List<ActiveAttemptProjection> findActiveAttemptsByTestId(@Param("testId") Long testId,
+                                                             @Param("now") LocalDateTime now,
+                                                             @Param("startedAfter") LocalDateTime startedAfter);
+
+    @Query("SELECT ta.answeredCount FROM TestAttempt ta WHERE ta.id = :attemptId")
+    Integer findAnsweredCountById(@Param("attemptId") Long attemptId);
+
+    @Query("SELECT ta.id AS id, t.id AS testId, u.username AS username, ta.status AS status, " +
+            "ta.questionSeed AS questionSeed " +
+            "FROM TestAttempt ta JOIN ta.test t JOIN ta.user u WHERE ta.id = :attemptId")
+    Optional<AttemptHeaderProjection> findHeaderById(@Param("attemptId") Long attemptId);
+
     @Query("SELECT COUNT(ta) FROM TestAttempt ta WHERE ta.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
 
@@ -65,34 +110,26 @@ public interface TestAttemptRepository extends JpaRepository<TestAttempt, Long>
             nativeQuery = true)
     List<Object[]> findAggregatedStatsByCreator(@Param("creatorId") Long creatorId);
 
-    @Query("SELECT ta FROM TestAttempt ta " +
-            "JOIN FETCH ta.user " +
-            "JOIN FETCH ta.test " +
-            "LEFT JOIN FETCH ta.test.questions " +
-            "WHERE ta.test.id = :testId " +
-            "ORDER BY ta.startTime DESC")
-    Page<TestAttempt> findByTestIdWithUser(@Param("testId") Long testId, Pageable pageable);
+    /**
+     * Вторая фаза постраничного списка: строки попыток страницы по идентификаторам
+     * из findAttemptIdPage / findAttemptIdsAfter, порядок восстанавливает вызывающий
+     */
+    @Query("SELECT ta.id AS id, t.id AS testId, t.title AS testTitle, t.questionCount AS questionCount, " +
+            "u.username AS username, u.lastName AS lastName, u.firstName AS firstName, u.middleName AS middleName, " +
+            "ta.startTime AS startTime, ta.endTime AS endTime, " +
+            "ta.totalScore AS totalScore, ta.totalQuestions AS totalQuestions " +
+            "FROM TestAttempt ta JOIN ta.test t JOIN ta.user u " +
+            "WHERE ta.id IN :ids")
+    List<AttemptListProjection> findListRowsByIdIn(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT ta FROM TestAttempt ta " +
             "JOIN FETCH ta.user " +
-            "WHERE ta.test.id = :testId " +
-            "AND (LOWER(ta.user.username) LIKE LOWER(CONCAT('%', :search, '%')) " +
-            "     OR LOWER(ta.user.lastName) LIKE LOWER(CONCAT('%', :search, '%')) " +
-            "     OR LOWER(ta.user.firstName) LIKE LOWER(CONCAT('%', :search, '%'))) " +
-            "ORDER BY ta.startTime DESC")
-    Page<TestAttempt> searchByTestIdWithUser(@Param("testId") Long testId,
-                                             @Param("search") String search,
-                                             Pageable pageable);
+            "JOIN FETCH ta.test " +
+            "WHERE ta.id IN :ids")
+    List<TestAttempt> findWithUserAndTestByIdIn(@Param("ids") Collection<Long> ids);
 
     long countByTestIdAndUserIdAndStatus(Long testId, Long userId, TestAttempt.AttemptStatus status);
 
-    @Query("SELECT ta FROM TestAttempt ta " +
-            "JOIN FETCH ta.user " +
-            "JOIN FETCH ta.test " +
-            "WHERE ta.test.id = :testId " +
-            "ORDER BY ta.startTime DESC")
-    Page<TestAttempt> findAttemptsByTestIdWithUserAndTest(@Param("testId") Long testId, Pageable pageable);
-
     @Query("SELECT ta FROM TestAttempt ta " +
             "WHERE ta.test.id = :testId AND ta.user.id = :userId AND ta.status = :status " +
             "ORDER BY ta.endTime DESC")
@@ -109,6 +146,20 @@ public interface TestAttemptRepository extends JpaRepository<TestAttempt, Long>
                                                @Param("dateToIsNull") boolean dateToIsNull,
                                                @Param("dateTo") LocalDateTime dateTo);
 
+    @Query("SELECT ta FROM TestAttempt ta " +
+            "JOIN FETCH ta.user " +
+            "JOIN FETCH ta.test " +
+            "WHERE ta.test.id = :testId AND ta.user.id IN :userIds " +
+            "AND (:dateFromIsNull = true OR ta.startTime >= :dateFrom) " +
+            "AND (:dateToIsNull = true OR ta.startTime <= :dateTo) " +
+            "ORDER BY ta.startTime DESC")
+    List<TestAttempt> findByTestIdAndUserIdsAndDateRange(@Param("testId") Long testId,
+                                                         @Param("userIds") Collection<Long> userIds,
+                                                         @Param("dateFromIsNull") boolean dateFromIsNull,
+                                                         @Param("dateFrom") LocalDateTime dateFrom,
+                                                         @Param("dateToIsNull") boolean dateToIsNull,
+                                                         @Param("dateTo") LocalDateTime dateTo);
+
     @Query(value = "SELECT " +
             "COALESCE(AVG(total_score), 0), " +
             "COALESCE(SUM(EXTRACT(EPOCH FROM (end_time - start_time)) / 60), 0) " +
@@ -144,31 +195,33 @@ public interface TestAttemptRepository extends JpaRepository<TestAttempt, Long>
             "GROUP BY u.id, u.username, u.first_name, u.last_name", nativeQuery = true)
     List<TesterProjectStatsProjection> findTesterStatsByProjectId(@Param("projectId") Long projectId);
 
-    @Query("SELECT ta FROM TestAttempt ta " +
-            "JOIN FETCH ta.user " +
-            "JOIN FETCH ta.test " +
-            "WHERE ta.test.id = :testId AND ta.user.id IN :userIds " +
-            "ORDER BY ta.startTime DESC")
-    Page<TestAttempt> findAttemptsByTestIdAndUserIds(@Param("testId") Long testId,
-                                                     @Param("userIds") Set<Long> userIds,
-                                                     Pageable pageable);
-
-    @Query("SELECT ta FROM TestAttempt ta JOIN FETCH ta.test JOIN FETCH ta.user WHERE ta.user.id IN :userIds ORDER BY ta.startTime DESC")
-    List<TestAttempt> findTopByUserIdsOrderByStartTimeDesc(@Param("userIds") Set<Long> userIds);
+    /**
+     * Последние попытки пользователей проектов менеджера, число строк ограничивает pageable
+     */
+    @Query("SELECT ta FROM TestAttempt ta JOIN FETCH ta.test JOIN FETCH ta.user u " +
+            "WHERE u.project.manager.id = :managerId ORDER BY ta.startTime DESC")
+    List<TestAttempt> findRecentByManagerId(@Param("managerId") Long managerId, Pageable pageable);
 
-    @Query("SELECT a FROM TestAttempt a WHERE a.test.id = :testId AND a.user.id IN :userIds ORDER BY a.startTime DESC")
-    List<TestAttempt> findByTestIdAndUserIds(@Param("testId") Long testId, @Param("userIds") Set<Long> userIds);
+    @Query("SELECT ta FROM TestAttempt ta JOIN FETCH ta.test JOIN FETCH ta.user u " +
+            "WHERE ta.test.id = :testId AND u.project.manager.id = :managerId ORDER BY ta.startTime DESC")
+    List<TestAttempt> findByTestIdAndManagerId(@Param("testId") Long testId, @Param("managerId") Long managerId);
 
     boolean existsByUserIdAndStatus(Long userId, TestAttempt.AttemptStatus status);
 
+    /**
+     * Последняя незавершённая попытка пользователя, null - таких нет
+     */
+    @Query("SELECT MAX(ta.id) FROM TestAttempt ta WHERE ta.user.id = :userId AND ta.status = 'IN_PROGRESS'")
+    Long findActiveAttemptIdByUserId(@Param("userId") Long userId);
+
     @Query("SELECT new com.frist.assesspro.dto.test.TestHistoryDTO(" +
             "ta.id, t.id, t.title, ta.startTime, ta.endTime, ta.status, ta.totalScore, " +
-            "COUNT(q.id)) " +
+            "COUNT(q.id), ta.answeredCount) " +
             "FROM TestAttempt ta " +
             "JOIN ta.test t " +
             "LEFT JOIN t.questions q " +
             "WHERE ta.user.id = :userId " +
-            "GROUP BY ta.id, t.id, t.title, ta.startTime, ta.endTime, ta.status, ta.totalScore " +
+            "GROUP BY ta.id, t.id, t.title, ta.startTime, ta.endTime, ta.status, ta.totalScore, ta.answeredCount " +
             "ORDER BY ta.startTime DESC")
     Page<TestHistoryDTO> findTestHistoryDTOsByUserId(@Param("userId") Long userId, Pageable pageable);
 
@@ -0,0 +1,265 @@
+package com.frist.assesspro.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface TestAttemptRepositoryCustom {
+
+    /**
+     * Число корзин гистограммы баллов, шаг - 10% от числа вопросов
+     */
+    int SCORE_BUCKETS = 10;
+
+    /**
+     * Порция незавершённых попыток с крайним сроком раньше cutoff, без блокировки
+     */
+    List<Long> findExpiredAttemptIds(LocalDateTime cutoff, int limit);
+
+    /**
+     * Закрытие попыток из порции, у которых истёк крайний срок:
+     * статус TIMEOUT, итоговый балл из running_score, время окончания - крайний срок.
+     * Попытки, заблокированные другими транзакциями, пропускаются до следующего прохода.
+     */
+    List<ReapedAttempt> timeoutExpiredAttempts(Collection<Long> attemptIds, LocalDateTime cutoff);
+
+    /**
+     * Пересчёт строк test_tester_stats для пар (тест, тестировщик), к которым относятся попытки.
+     * Строка пересчитывается целиком по попыткам пары, поэтому повторный вызов безопасен.
+     *
+     * @return пары (тест, тестировщик), строки которых пересчитаны
+     */
+    Set<TesterStatsKey> refreshTesterStats(Collection<Long> attemptIds);
+
+    /**
+     * Полное перестроение сводки по тесту: лишние строки удаляются, остальные пересчитываются
+     */
+    int rebuildTesterStats(Long testId);
+
+    /**
+     * Страница сводной статистики тестировщиков по тесту, сортировка и пагинация в SQL.
+     * Без периода данные берутся из test_tester_stats, с периодом - агрегируются по попыткам.
+     */
+    Page<TesterStatsRow> findTesterStats(Long testId, LocalDateTime dateFrom, LocalDateTime dateTo, Pageable pageable);
+
+    Optional<TesterStatsRow> findTesterStats(Long testId, Long userId);
+
+    /**
+     * Сводка баллов по тесту одним агрегирующим запросом: число попыток и тестировщиков,
+     * средний, лучший, медианный и 90-й перцентиль балла завершённых попыток,
+     * гистограмма из 10 корзин по доле от числа вопросов.
+     *
+     * @param scope тестировщики, по которым строится сводка
+     */
+    TestScoreSummary summarizeTestScores(Long testId, int questionCount, TesterScope scope);
+
+    /**
+     * Первая фаза постраничного списка попыток теста: только идентификаторы страницы,
+     * порядок - от новых к старым (start_time, id).
+     *
+     * @param search подстрока логина, фамилии или имени; null - без поиска
+     */
+    Page<Long> findAttemptIdPage(Long testId, String search, TesterScope scope, Pageable pageable);
+
+    /**
+     * Курсорная выборка идентификаторов: попытки строго после курсора в том же порядке.
+     * Стоимость не зависит от глубины, общее число записей не считается.
+     *
+     * @param after null - с начала списка
+     */
+    List<Long> findAttemptIdsAfter(Long testId, String search, TesterScope scope,
+                                   AttemptCursor after, int limit);
+
+    /**
+     * Запись приращений дневной сводки по попыткам: при старте - по дню начала,
+     * при завершении - по дню окончания (балл и процент только у COMPLETED, минуты - у любой закрытой).
+     * Строки только добавляются в журнал, в daily_attempt_rollup их переносит {@link #compactDailyRollup()}.
+     *
+     * @param finished false - старт попыток, true - завершение
+     */
+    int appendDailyRollupDeltas(Collection<Long> attemptIds, boolean finished);
+
+    /**
+     * Перенос журнала приращений в daily_attempt_rollup одним запросом.
+     * Параллельный перенос безопасен: удалённые другой транзакцией строки журнала пропускаются.
+     *
+     * @return число вставленных или обновлённых строк дневной сводки
+     */
+    int compactDailyRollup();
+
+    /**
+     * Дневные итоги за период включительно: диапазон по первичному ключу сводки
+     * плюс ещё не перенесённые строки журнала. Дни без попыток не возвращаются.
+     */
+    List<DailyRollupRow> findDailyRollup(LocalDate from, LocalDate to, DailyRollupFilter filter);
+
+    /**
+     * Лучшие тестировщики по тестам: лучший процент по test_tester_stats, не более limit строк на тест.
+     *
+     * @param testId null - рейтинги всех тестов одним запросом
+     */
+    List<LeaderboardRow> findTestLeaderboards(Long testId, int limit);
+
+    /**
+     * Лучшие тестировщики по проектам: средний процент по всем тестам, не более limit строк на проект.
+     *
+     * @param projectId null - рейтинги всех проектов одним запросом
+     */
+    List<LeaderboardRow> findProjectLeaderboards(Long projectId, int limit);
+
+    /**
+     * Текущие показатели тестировщика попытки для рейтинга её теста и его проекта
+     */
+    Optional<LeaderboardUpdate> findLeaderboardUpdate(Long attemptId);
+
+    /**
+     * Построчное чтение всех попыток теста в порядке id, без сборки списка результатов
+     */
+    void scanAttemptColumns(Long testId, AttemptColumnSink sink);
+
+    void scanAttemptColumns(Collection<Long> attemptIds, AttemptColumnSink sink);
+
+    /**
+     * Круг тестировщиков выборки: все, явный список или пользователи проектов менеджера.
+     * Для менеджера фильтр строится соединением с проектами, без списка идентификаторов в запросе.
+     */
+    record TesterScope(Collection<Long> userIds, Long managerId) {
+
+        private static final TesterScope ALL = new TesterScope(null, null);
+
+        public static TesterScope all() {
+            return ALL;
+        }
+
+        public static TesterScope testers(Collection<Long> userIds) {
+            return new TesterScope(userIds, null);
+        }
+
+        public static TesterScope manager(Long managerId) {
+            return new TesterScope(null, managerId);
+        }
+
+        /**
+         * Пустой явный список - выборка заведомо пуста
+         */
+        public boolean isEmpty() {
+            return userIds != null && userIds.isEmpty();
+        }
+    }
+
+    /**
+     * Отбор строк дневной сводки: тесты создателя или проекты менеджера, при необходимости - один тест или проект
+     */
+    record DailyRollupFilter(Long creatorId, Long testId, Long managerId, Long projectId) {
+
+        public static DailyRollupFilter creator(Long creatorId, Long testId) {
+            return new DailyRollupFilter(creatorId, testId, null, null);
+        }
+
+        public static DailyRollupFilter manager(Long managerId, Long projectId) {
+            return new DailyRollupFilter(null, null, managerId, projectId);
+        }
+    }
+
+    record DailyRollupRow(LocalDate day,
+                          long startedCount,
+                          long completedCount,
+                          long scoreSum,
+                          double percentageSum,
+                          long totalMinutes) {
+    }
+
+    /**
+     * Строка рейтинга; boardId - тест или проект, percentage - показатель, по которому строится рейтинг
+     */
+    record LeaderboardRow(Long boardId,
+                          Long userId,
+                          String username,
+                          String firstName,
+                          String lastName,
+                          double percentage,
+                          long completedAttempts) {
+    }
+
+    /**
+     * @param projectRow null - тестировщик вне проекта
+     */
+    record LeaderboardUpdate(LeaderboardRow testRow, LeaderboardRow projectRow) {
+    }
+
+    /**
+     * Приёмник строк попыток в примитивах; score имеет смысл только при completed
+     */
+    @FunctionalInterface
+    interface AttemptColumnSink {
+        void accept(long attemptId, long testId, long userId, boolean completed, int score);
+    }
+
+    record ReapedAttempt(Long attemptId, LocalDateTime deadlineAt) {
+    }
+
+    record TesterStatsKey(Long testId, Long testerId) {
+    }
+
+    record TesterStatsRow(Long testerId,
+                          String testerUsername,
+                          long totalAttempts,
+                          long completedAttempts,
+                          double averagePercentage,
+                          double bestPercentage,
+                          double worstPercentage,
+                          long totalDurationMinutes,
+                          LocalDateTime firstAttemptDate,
+                          LocalDateTime lastAttemptDate) {
+    }
+
+    /**
+     * Баллы - в единицах правильных ответов, scoreDistribution - число завершённых попыток в каждой корзине
+     */
+    record TestScoreSummary(int questionCount,
+                            long totalAttempts,
+                            long uniqueTesters,
+                            long completedAttempts,
+                            double averageScore,
+                            double bestScore,
+                            double medianScore,
+                            double p90Score,
+                            List<Long> scoreDistribution) {
+
+        public static TestScoreSummary empty(int questionCount) {
+            return new TestScoreSummary(questionCount, 0, 0, 0, 0, 0, 0, 0,
+                    Collections.nCopies(SCORE_BUCKETS, 0L));
+        }
+    }
+
+    /**
+     * Позиция в списке попыток - ключ сортировки последней показанной попытки.
+     * В URL передаётся строкой «start_time_id».
+     */
+    record AttemptCursor(LocalDateTime startTime, Long id) {
+
+        public String encode() {
+            return startTime + "_" + id;
+        }
+
+        public static AttemptCursor decode(String value) {
+            int separator = value != null ? value.lastIndexOf('_') : -1;
+            if (separator <= 0) {
+                throw new RuntimeException("Некорректный курсор: " + value);
+            }
+            try {
+                return new AttemptCursor(LocalDateTime.parse(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Некорректный курсор: " + value, e);
+            }
+        }
+    }
+}
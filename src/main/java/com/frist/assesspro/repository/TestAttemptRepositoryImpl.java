@@ -0,0 +1,629 @@
+package com.frist.assesspro.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+
+@RequiredArgsConstructor
+public class TestAttemptRepositoryImpl implements TestAttemptRepositoryCustom {
+
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+
+    // Выборка идёт по частичному индексу (deadline_at) WHERE status = 'IN_PROGRESS'
+    private static final String FIND_EXPIRED =
+            "SELECT id FROM test_attempts" +
+            " WHERE status = 'IN_PROGRESS' AND deadline_at IS NOT NULL AND deadline_at < ?" +
+            " ORDER BY deadline_at" +
+            " LIMIT ?";
+
+    private static final String TIMEOUT_EXPIRED_HEAD =
+            "WITH expired AS (" +
+            "  SELECT id FROM test_attempts" +
+            "  WHERE status = 'IN_PROGRESS' AND deadline_at IS NOT NULL AND deadline_at < ?" +
+            "  AND id IN (";
+
+    private static final String TIMEOUT_EXPIRED_TAIL =
+            ")" +
+            "  FOR UPDATE SKIP LOCKED" +
+            ") UPDATE test_attempts t" +
+            " SET status = 'TIMEOUT'," +
+            " end_time = t.deadline_at," +
+            " total_score = GREATEST(t.running_score, 0)" +
+            " FROM expired e WHERE t.id = e.id" +
+            " RETURNING t.id, t.deadline_at";
+
+    // Процент считается только по завершённым попыткам с ненулевым баллом,
+    // знаменатель - число вопросов на момент попытки, иначе текущее число вопросов теста
+    private static final String STATS_AGGREGATE =
+            "SELECT ta.test_id, ta.user_id," +
+            " COUNT(*) AS attempt_count," +
+            " COUNT(*) FILTER (WHERE ta.status = 'COMPLETED') AS completed_count," +
+            " COUNT(p.percentage) AS scored_count," +
+            " COALESCE(SUM(p.percentage), 0) AS percentage_sum," +
+            " MAX(p.percentage) AS best_percentage," +
+            " MIN(p.percentage) AS worst_percentage," +
+            " COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (ta.end_time - ta.start_time)) / 60)), 0)::bigint" +
+            "   AS total_duration_minutes," +
+            " MIN(ta.start_time) AS first_attempt_at," +
+            " MAX(ta.start_time) AS last_attempt_at" +
+            " FROM test_attempts ta" +
+            " JOIN tests t ON t.id = ta.test_id" +
+            " CROSS JOIN LATERAL (" +
+            "   SELECT CASE WHEN ta.status = 'COMPLETED' AND ta.total_score > 0" +
+            "                AND COALESCE(NULLIF(ta.total_questions, 0), t.question_count) > 0" +
+            "          THEN ta.total_score * 100.0 / COALESCE(NULLIF(ta.total_questions, 0), t.question_count)" +
+            "          END AS percentage" +
+            " ) p";
+
+    private static final String STATS_UPSERT_HEAD =
+            "INSERT INTO test_tester_stats (test_id, user_id, attempt_count, completed_count, scored_count," +
+            " percentage_sum, best_percentage, worst_percentage, total_duration_minutes," +
+            " first_attempt_at, last_attempt_at) ";
+
+    private static final String STATS_UPSERT_TAIL =
+            " GROUP BY ta.test_id, ta.user_id" +
+            " ON CONFLICT (test_id, user_id) DO UPDATE SET" +
+            " attempt_count = EXCLUDED.attempt_count," +
+            " completed_count = EXCLUDED.completed_count," +
+            " scored_count = EXCLUDED.scored_count," +
+            " percentage_sum = EXCLUDED.percentage_sum," +
+            " best_percentage = EXCLUDED.best_percentage," +
+            " worst_percentage = EXCLUDED.worst_percentage," +
+            " total_duration_minutes = EXCLUDED.total_duration_minutes," +
+            " first_attempt_at = EXCLUDED.first_attempt_at," +
+            " last_attempt_at = EXCLUDED.last_attempt_at," +
+            " updated_at = now()";
+
+    private static final String DELETE_ORPHAN_STATS =
+            "DELETE FROM test_tester_stats s WHERE s.test_id = ?" +
+            " AND NOT EXISTS (SELECT 1 FROM test_attempts ta WHERE ta.test_id = s.test_id AND ta.user_id = s.user_id)";
+
+    private static final String STATS_COLUMNS =
+            "SELECT s.user_id, u.username, s.attempt_count, s.completed_count," +
+            " CASE WHEN s.scored_count > 0 THEN s.percentage_sum / s.scored_count ELSE 0 END AS average_percentage," +
+            " COALESCE(s.best_percentage, 0) AS best_percentage," +
+            " COALESCE(s.worst_percentage, 0) AS worst_percentage," +
+            " s.total_duration_minutes, s.first_attempt_at, s.last_attempt_at";
+
+    // Допустимые поля сортировки: имя свойства TesterAggregatedStatsDTO -> выражение SQL
+    private static final Map<String, String> STATS_SORT_COLUMNS = Map.of(
+            "testerUsername", "u.username",
+            "totalAttempts", "s.attempt_count",
+            "completedAttempts", "s.completed_count",
+            "averagePercentage", "average_percentage",
+            "bestPercentage", "best_percentage",
+            "worstPercentage", "worst_percentage",
+            "totalDurationMinutes", "s.total_duration_minutes",
+            "firstAttemptDate", "s.first_attempt_at",
+            "lastAttemptDate", "s.last_attempt_at");
+
+    private static final String DEFAULT_STATS_ORDER = "s.last_attempt_at DESC NULLS LAST";
+
+    // Балл есть только у завершённых попыток: percentile_cont и AVG пропускают NULL.
+    // Корзина 1..10 по доле от числа вопросов, полный балл попадает в последнюю корзину
+    private static final String SCORE_SUMMARY = "SELECT COUNT(*) AS total_attempts," +
+            " COUNT(DISTINCT ta.user_id) AS unique_testers," +
+            " COUNT(sc.score) AS completed_attempts," +
+            " AVG(sc.score) AS average_score," +
+            " MAX(sc.score) AS best_score," +
+            " percentile_cont(0.5) WITHIN GROUP (ORDER BY sc.score) AS median_score," +
+            " percentile_cont(0.9) WITHIN GROUP (ORDER BY sc.score) AS p90_score" +
+            bucketColumns() +
+            " FROM test_attempts ta" +
+            " CROSS JOIN LATERAL (" +
+            "   SELECT CASE WHEN ta.status = 'COMPLETED' THEN COALESCE(ta.total_score, 0) END AS score" +
+            " ) sc" +
+            " CROSS JOIN LATERAL (" +
+            "   SELECT CASE WHEN sc.score IS NOT NULL AND ? > 0" +
+            "          THEN LEAST(GREATEST(width_bucket(sc.score * 100.0 / ?, 0, 100, " + SCORE_BUCKETS + "), 1), " +
+            SCORE_BUCKETS + ")" +
+            "          END AS bucket" +
+            " ) b" +
+            " WHERE ta.test_id = ?";
+
+    // Порядок списка попыток совпадает с индексом idx_test_attempts_test_start
+    private static final String ATTEMPT_LIST_ORDER = " ORDER BY ta.start_time DESC, ta.id DESC";
+
+    private static final String DAILY_DELTA_HEAD =
+            "INSERT INTO daily_attempt_rollup_delta (day, test_id, project_id, started_count, completed_count," +
+            " score_sum, percentage_sum, total_minutes) ";
+
+    private static final String DAILY_DELTA_STARTED = DAILY_DELTA_HEAD +
+            "SELECT CAST(ta.start_time AS date), ta.test_id, COALESCE(u.project_id, 0), 1, 0, 0, 0, 0" +
+            " FROM test_attempts ta" +
+            " JOIN users u ON u.id = ta.user_id" +
+            " WHERE ta.start_time IS NOT NULL AND ta.id = ANY(?)";
+
+    // Знаменатель процента - как в сводке тестировщиков, но без пропуска нулевого балла:
+    // средний процент за день делится на число завершённых попыток
+    private static final String DAILY_DELTA_FINISHED = DAILY_DELTA_HEAD +
+            "SELECT CAST(ta.end_time AS date), ta.test_id, COALESCE(u.project_id, 0), 0," +
+            " CASE WHEN ta.status = 'COMPLETED' THEN 1 ELSE 0 END," +
+            " CASE WHEN ta.status = 'COMPLETED' THEN COALESCE(ta.total_score, 0) ELSE 0 END," +
+            " CASE WHEN ta.status = 'COMPLETED' AND COALESCE(NULLIF(ta.total_questions, 0), t.question_count) > 0" +
+            "      THEN COALESCE(ta.total_score, 0) * 100.0 / COALESCE(NULLIF(ta.total_questions, 0), t.question_count)" +
+            "      ELSE 0 END," +
+            " GREATEST(FLOOR(EXTRACT(EPOCH FROM (ta.end_time - ta.start_time)) / 60), 0)::bigint" +
+            " FROM test_attempts ta" +
+            " JOIN users u ON u.id = ta.user_id" +
+            " JOIN tests t ON t.id = ta.test_id" +
+            " WHERE ta.end_time IS NOT NULL AND ta.start_time IS NOT NULL AND ta.id = ANY(?)";
+
+    // Упорядоченная вставка по ключу: параллельные переносы блокируют строки сводки в одном порядке
+    private static final String DAILY_COMPACT =
+            "WITH moved AS (" +
+            "  DELETE FROM daily_attempt_rollup_delta" +
+            "  RETURNING day, test_id, project_id, started_count, completed_count, score_sum, percentage_sum, total_minutes" +
+            ") INSERT INTO daily_attempt_rollup (day, test_id, project_id, started_count, completed_count," +
+            " score_sum, percentage_sum, total_minutes, updated_at)" +
+            " SELECT day, test_id, project_id, SUM(started_count), SUM(completed_count), SUM(score_sum)," +
+            " SUM(percentage_sum), SUM(total_minutes), now()" +
+            " FROM moved" +
+            " GROUP BY day, test_id, project_id" +
+            " ORDER BY day, test_id, project_id" +
+            " ON CONFLICT (day, test_id, project_id) DO UPDATE SET" +
+            " started_count = daily_attempt_rollup.started_count + EXCLUDED.started_count," +
+            " completed_count = daily_attempt_rollup.completed_count + EXCLUDED.completed_count," +
+            " score_sum = daily_attempt_rollup.score_sum + EXCLUDED.score_sum," +
+            " percentage_sum = daily_attempt_rollup.percentage_sum + EXCLUDED.percentage_sum," +
+            " total_minutes = daily_attempt_rollup.total_minutes + EXCLUDED.total_minutes," +
+            " updated_at = now()";
+
+    private static final String DAILY_COLUMNS =
+            " day, test_id, project_id, started_count, completed_count, score_sum, percentage_sum, total_minutes";
+
+    // Место в рейтинге теста - лучший процент среди завершённых попыток, при равенстве - меньший id
+    private static final String TEST_LEADERBOARD_RANKED =
+            "SELECT s.test_id AS board_id, s.user_id, COALESCE(s.best_percentage, 0) AS percentage," +
+            " s.completed_count," +
+            " ROW_NUMBER() OVER (PARTITION BY s.test_id ORDER BY COALESCE(s.best_percentage, 0) DESC, s.user_id)" +
+            "   AS position" +
+            " FROM test_tester_stats s" +
+            " WHERE s.completed_count > 0";
+
+    // Средний процент тестировщика по всем тестам - как averagePercentage в сводке тестировщиков
+    private static final String PROJECT_SCORE =
+            "SELECT u.project_id, s.user_id," +
+            " CASE WHEN SUM(s.scored_count) > 0 THEN SUM(s.percentage_sum) / SUM(s.scored_count) ELSE 0 END" +
+            "   AS percentage," +
+            " SUM(s.completed_count) AS completed_count" +
+            " FROM test_tester_stats s" +
+            " JOIN users u ON u.id = s.user_id" +
+            " WHERE u.project_id IS NOT NULL AND u.role = 'ROLE_TESTER'";
+
+    private static final String LEADERBOARD_COLUMNS =
+            "SELECT r.board_id, r.user_id, u.username, u.first_name, u.last_name, r.percentage, r.completed_count";
+
+    private static final String LEADERBOARD_UPDATE =
+            "SELECT ta.test_id, u.project_id, u.role, u.id AS user_id, u.username, u.first_name, u.last_name," +
+            " COALESCE(s.best_percentage, 0) AS test_percentage, s.completed_count AS test_completed," +
+            " p.percentage AS project_percentage, p.completed_count AS project_completed" +
+            " FROM test_attempts ta" +
+            " JOIN users u ON u.id = ta.user_id" +
+            " JOIN test_tester_stats s ON s.test_id = ta.test_id AND s.user_id = ta.user_id" +
+            " CROSS JOIN LATERAL (" +
+            "   SELECT CASE WHEN SUM(x.scored_count) > 0 THEN SUM(x.percentage_sum) / SUM(x.scored_count) ELSE 0 END" +
+            "     AS percentage," +
+            "   SUM(x.completed_count) AS completed_count" +
+            "   FROM test_tester_stats x WHERE x.user_id = ta.user_id" +
+            " ) p" +
+            " WHERE ta.id = ?";
+
+    private static final String ATTEMPT_COLUMNS =
+            "SELECT ta.id, ta.test_id, ta.user_id," +
+            " CASE WHEN ta.status = 'COMPLETED' THEN COALESCE(ta.total_score, 0) END AS score" +
+            " FROM test_attempts ta";
+
+    private static final RowMapper<LeaderboardRow> LEADERBOARD_ROW_MAPPER = (rs, rowNum) -> new LeaderboardRow(
+            rs.getLong("board_id"),
+            rs.getLong("user_id"),
+            rs.getString("username"),
+            rs.getString("first_name"),
+            rs.getString("last_name"),
+            rs.getDouble("percentage"),
+            rs.getLong("completed_count"));
+
+    private static final RowMapper<TesterStatsRow> TESTER_STATS_ROW_MAPPER = (rs, rowNum) -> new TesterStatsRow(
+            rs.getLong("user_id"),
+            rs.getString("username"),
+            rs.getLong("attempt_count"),
+            rs.getLong("completed_count"),
+            rs.getDouble("average_percentage"),
+            rs.getDouble("best_percentage"),
+            rs.getDouble("worst_percentage"),
+            rs.getLong("total_duration_minutes"),
+            toLocalDateTime(rs.getTimestamp("first_attempt_at")),
+            toLocalDateTime(rs.getTimestamp("last_attempt_at")));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> findExpiredAttemptIds(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.queryForList(FIND_EXPIRED, Long.class, Timestamp.valueOf(cutoff), limit);
+    }
+
+    @Override
+    public List<ReapedAttempt> timeoutExpiredAttempts(Collection<Long> attemptIds, LocalDateTime cutoff) {
+        if (attemptIds.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(attemptIds.size() + 1);
+        args.add(Timestamp.valueOf(cutoff));
+        args.addAll(attemptIds);
+        return jdbcTemplate.query(TIMEOUT_EXPIRED_HEAD + placeholders(attemptIds.size()) + TIMEOUT_EXPIRED_TAIL,
+                (rs, rowNum) -> new ReapedAttempt(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime()),
+                args.toArray());
+    }
+
+    @Override
+    public Set<TesterStatsKey> refreshTesterStats(Collection<Long> attemptIds) {
+        List<Long> ids = new ArrayList<>(attemptIds);
+        Set<TesterStatsKey> keys = new LinkedHashSet<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_STATEMENT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, ids.size()));
+            String sql = STATS_UPSERT_HEAD + STATS_AGGREGATE +
+                    " WHERE (ta.test_id, ta.user_id) IN (" +
+                    "   SELECT test_id, user_id FROM test_attempts WHERE id IN (" + placeholders(chunk.size()) + "))" +
+                    STATS_UPSERT_TAIL +
+                    " RETURNING test_id, user_id";
+            keys.addAll(jdbcTemplate.query(sql,
+                    (rs, rowNum) -> new TesterStatsKey(rs.getLong("test_id"), rs.getLong("user_id")),
+                    chunk.toArray()));
+        }
+        return keys;
+    }
+
+    @Override
+    public int rebuildTesterStats(Long testId) {
+        jdbcTemplate.update(DELETE_ORPHAN_STATS, testId);
+        return jdbcTemplate.update(STATS_UPSERT_HEAD + STATS_AGGREGATE + " WHERE ta.test_id = ?" + STATS_UPSERT_TAIL,
+                testId);
+    }
+
+    @Override
+    public Page<TesterStatsRow> findTesterStats(Long testId, LocalDateTime dateFrom, LocalDateTime dateTo,
+                                                Pageable pageable) {
+        String source;
+        String filter;
+        List<Object> args = new ArrayList<>();
+        if (dateFrom == null && dateTo == null) {
+            source = " FROM test_tester_stats s";
+            filter = " WHERE s.test_id = ?";
+            args.add(testId);
+        } else {
+            // Сводка хранится за всё время, для периода агрегируем попытки на лету
+            StringBuilder live = new StringBuilder(" FROM (").append(STATS_AGGREGATE).append(" WHERE ta.test_id = ?");
+            args.add(testId);
+            if (dateFrom != null) {
+                live.append(" AND ta.start_time >= ?");
+                args.add(Timestamp.valueOf(dateFrom));
+            }
+            if (dateTo != null) {
+                live.append(" AND ta.start_time <= ?");
+                args.add(Timestamp.valueOf(dateTo));
+            }
+            source = live.append(" GROUP BY ta.test_id, ta.user_id) s").toString();
+            filter = "";
+        }
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*)" + source + filter, Long.class, args.toArray());
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(Collections.emptyList(), pageable, total != null ? total : 0);
+        }
+
+        String sql = STATS_COLUMNS + source + " JOIN users u ON u.id = s.user_id" + filter +
+                " ORDER BY " + orderBy(pageable.getSort()) +
+                " LIMIT ? OFFSET ?";
+        List<Object> pageArgs = new ArrayList<>(args);
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<TesterStatsRow> rows = jdbcTemplate.query(sql, TESTER_STATS_ROW_MAPPER, pageArgs.toArray());
+        return new PageImpl<>(rows, pageable, total);
+    }
+
+    @Override
+    public Optional<TesterStatsRow> findTesterStats(Long testId, Long userId) {
+        return jdbcTemplate.query(STATS_COLUMNS +
+                        " FROM test_tester_stats s JOIN users u ON u.id = s.user_id" +
+                        " WHERE s.test_id = ? AND s.user_id = ?",
+                TESTER_STATS_ROW_MAPPER, testId, userId).stream().findFirst();
+    }
+
+    @Override
+    public TestScoreSummary summarizeTestScores(Long testId, int questionCount, TesterScope scope) {
+        if (scope.isEmpty()) {
+            return TestScoreSummary.empty(questionCount);
+        }
+        List<Object> args = new ArrayList<>(List.of(questionCount, questionCount, testId));
+        String sql = SCORE_SUMMARY + scopeFilter(scope, args);
+        return jdbcTemplate.query(sql, bind(args), rs -> {
+            rs.next();
+            List<Long> distribution = new ArrayList<>(SCORE_BUCKETS);
+            for (int bucket = 1; bucket <= SCORE_BUCKETS; bucket++) {
+                distribution.add(rs.getLong("bucket_" + bucket));
+            }
+            return new TestScoreSummary(
+                    questionCount,
+                    rs.getLong("total_attempts"),
+                    rs.getLong("unique_testers"),
+                    rs.getLong("completed_attempts"),
+                    rs.getDouble("average_score"),
+                    rs.getDouble("best_score"),
+                    rs.getDouble("median_score"),
+                    rs.getDouble("p90_score"),
+                    distribution);
+        });
+    }
+
+    @Override
+    public Page<Long> findAttemptIdPage(Long testId, String search, TesterScope scope, Pageable pageable) {
+        if (scope.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        List<Object> args = new ArrayList<>();
+        String filter = attemptListFilter(testId, search, scope, args);
+
+        Long total = jdbcTemplate.query("SELECT COUNT(*)" + filter, bind(args),
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new PageImpl<>(Collections.emptyList(), pageable, total != null ? total : 0);
+        }
+
+        args.add(pageable.getPageSize());
+        args.add(pageable.getOffset());
+        List<Long> ids = jdbcTemplate.query("SELECT ta.id" + filter + ATTEMPT_LIST_ORDER + " LIMIT ? OFFSET ?",
+                bind(args), (rs, rowNum) -> rs.getLong(1));
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    @Override
+    public List<Long> findAttemptIdsAfter(Long testId, String search, TesterScope scope,
+                                          AttemptCursor after, int limit) {
+        if (scope.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ta.id").append(attemptListFilter(testId, search, scope, args));
+        if (after != null) {
+            sql.append(" AND (ta.start_time, ta.id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.startTime()));
+            args.add(after.id());
+        }
+        sql.append(ATTEMPT_LIST_ORDER).append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), bind(args), (rs, rowNum) -> rs.getLong(1));
+    }
+
+    @Override
+    public int appendDailyRollupDeltas(Collection<Long> attemptIds, boolean finished) {
+        if (attemptIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(finished ? DAILY_DELTA_FINISHED : DAILY_DELTA_STARTED,
+                bind(List.of(attemptIds)));
+    }
+
+    @Override
+    public int compactDailyRollup() {
+        return jdbcTemplate.update(DAILY_COMPACT);
+    }
+
+    @Override
+    public List<DailyRollupRow> findDailyRollup(LocalDate from, LocalDate to, DailyRollupFilter filter) {
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to),
+                Date.valueOf(from), Date.valueOf(to)));
+        StringBuilder sql = new StringBuilder("SELECT r.day, SUM(r.started_count) AS started_count," +
+                " SUM(r.completed_count) AS completed_count, SUM(r.score_sum) AS score_sum," +
+                " SUM(r.percentage_sum) AS percentage_sum, SUM(r.total_minutes) AS total_minutes" +
+                " FROM (SELECT" + DAILY_COLUMNS + " FROM daily_attempt_rollup WHERE day BETWEEN ? AND ?" +
+                "   UNION ALL" +
+                "   SELECT" + DAILY_COLUMNS + " FROM daily_attempt_rollup_delta WHERE day BETWEEN ? AND ?) r");
+        if (filter.creatorId() != null) {
+            sql.append(" JOIN tests t ON t.id = r.test_id AND t.created_by = ?");
+            args.add(filter.creatorId());
+        }
+        sql.append(" WHERE 1 = 1");
+        if (filter.testId() != null) {
+            sql.append(" AND r.test_id = ?");
+            args.add(filter.testId());
+        }
+        if (filter.managerId() != null) {
+            sql.append(" AND r.project_id IN (SELECT p.id FROM projects p WHERE p.manager_id = ?)");
+            args.add(filter.managerId());
+        }
+        if (filter.projectId() != null) {
+            sql.append(" AND r.project_id = ?");
+            args.add(filter.projectId());
+        }
+        sql.append(" GROUP BY r.day ORDER BY r.day");
+        return jdbcTemplate.query(sql.toString(), bind(args), (rs, rowNum) -> new DailyRollupRow(
+                rs.getDate("day").toLocalDate(),
+                rs.getLong("started_count"),
+                rs.getLong("completed_count"),
+                rs.getLong("score_sum"),
+                rs.getDouble("percentage_sum"),
+                rs.getLong("total_minutes")));
+    }
+
+    @Override
+    public List<LeaderboardRow> findTestLeaderboards(Long testId, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder ranked = new StringBuilder(TEST_LEADERBOARD_RANKED);
+        if (testId != null) {
+            ranked.append(" AND s.test_id = ?");
+            args.add(testId);
+        }
+        args.add(limit);
+        return jdbcTemplate.query(LEADERBOARD_COLUMNS + " FROM (" + ranked + ") r" +
+                        " JOIN users u ON u.id = r.user_id" +
+                        " WHERE r.position <= ?" +
+                        " ORDER BY r.board_id, r.position",
+                LEADERBOARD_ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public List<LeaderboardRow> findProjectLeaderboards(Long projectId, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder scores = new StringBuilder(PROJECT_SCORE);
+        if (projectId != null) {
+            scores.append(" AND u.project_id = ?");
+            args.add(projectId);
+        }
+        scores.append(" GROUP BY u.project_id, s.user_id HAVING SUM(s.completed_count) > 0");
+        args.add(limit);
+        return jdbcTemplate.query(LEADERBOARD_COLUMNS + " FROM (" +
+                        "   SELECT p.project_id AS board_id, p.user_id, p.percentage, p.completed_count," +
+                        "   ROW_NUMBER() OVER (PARTITION BY p.project_id ORDER BY p.percentage DESC, p.user_id)" +
+                        "     AS position" +
+                        "   FROM (" + scores + ") p" +
+                        " ) r" +
+                        " JOIN users u ON u.id = r.user_id" +
+                        " WHERE r.position <= ?" +
+                        " ORDER BY r.board_id, r.position",
+                LEADERBOARD_ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public Optional<LeaderboardUpdate> findLeaderboardUpdate(Long attemptId) {
+        return jdbcTemplate.query(LEADERBOARD_UPDATE, (rs, rowNum) -> {
+            Long userId = rs.getLong("user_id");
+            String username = rs.getString("username");
+            String firstName = rs.getString("first_name");
+            String lastName = rs.getString("last_name");
+            LeaderboardRow testRow = new LeaderboardRow(rs.getLong("test_id"), userId, username, firstName, lastName,
+                    rs.getDouble("test_percentage"), rs.getLong("test_completed"));
+            long projectId = rs.getLong("project_id");
+            LeaderboardRow projectRow = !rs.wasNull() && "ROLE_TESTER".equals(rs.getString("role"))
+                    ? new LeaderboardRow(projectId, userId, username, firstName, lastName,
+                    rs.getDouble("project_percentage"), rs.getLong("project_completed"))
+                    : null;
+            return new LeaderboardUpdate(testRow, projectRow);
+        }, attemptId).stream().findFirst();
+    }
+
+    @Override
+    public void scanAttemptColumns(Long testId, AttemptColumnSink sink) {
+        jdbcTemplate.query(ATTEMPT_COLUMNS + " WHERE ta.test_id = ? ORDER BY ta.id",
+                bind(List.of(testId)), attemptColumnHandler(sink));
+    }
+
+    @Override
+    public void scanAttemptColumns(Collection<Long> attemptIds, AttemptColumnSink sink) {
+        if (attemptIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(ATTEMPT_COLUMNS + " WHERE ta.id = ANY(?) ORDER BY ta.id",
+                bind(List.of(attemptIds)), attemptColumnHandler(sink));
+    }
+
+    private static RowCallbackHandler attemptColumnHandler(AttemptColumnSink sink) {
+        return rs -> {
+            int score = rs.getInt("score");
+            boolean completed = !rs.wasNull();
+            sink.accept(rs.getLong("id"), rs.getLong("test_id"), rs.getLong("user_id"), completed, score);
+        };
+    }
+
+    private static String attemptListFilter(Long testId, String search, TesterScope scope, List<Object> args) {
+        StringBuilder filter = new StringBuilder(" FROM test_attempts ta");
+        if (search != null) {
+            filter.append(" JOIN users u ON u.id = ta.user_id");
+        }
+        filter.append(" WHERE ta.test_id = ?");
+        args.add(testId);
+        if (search != null) {
+            String pattern = "%" + search.toLowerCase() + "%";
+            filter.append(" AND (LOWER(u.username) LIKE ? OR LOWER(u.last_name) LIKE ? OR LOWER(u.first_name) LIKE ?)");
+            args.add(pattern);
+            args.add(pattern);
+            args.add(pattern);
+        }
+        return filter.append(scopeFilter(scope, args)).toString();
+    }
+
+    /**
+     * Условие на круг тестировщиков; для менеджера - полусоединение с его проектами
+     */
+    private static String scopeFilter(TesterScope scope, List<Object> args) {
+        StringBuilder filter = new StringBuilder();
+        if (scope.userIds() != null) {
+            filter.append(" AND ta.user_id = ANY(?)");
+            args.add(scope.userIds());
+        }
+        if (scope.managerId() != null) {
+            filter.append(" AND EXISTS (SELECT 1 FROM users su JOIN projects sp ON sp.id = su.project_id" +
+                    " WHERE su.id = ta.user_id AND sp.manager_id = ?)");
+            args.add(scope.managerId());
+        }
+        return filter.toString();
+    }
+
+    /**
+     * Параметры запроса; коллекция идентификаторов передаётся массивом bigint
+     */
+    private static PreparedStatementSetter bind(List<Object> args) {
+        return ps -> {
+            for (int i = 0; i < args.size(); i++) {
+                Object arg = args.get(i);
+                if (arg instanceof Collection<?> ids) {
+                    ps.setArray(i + 1, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+                } else {
+                    StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, arg);
+                }
+            }
+        };
+    }
+
+    private static String bucketColumns() {
+        StringBuilder columns = new StringBuilder();
+        for (int bucket = 1; bucket <= SCORE_BUCKETS; bucket++) {
+            columns.append(", COUNT(*) FILTER (WHERE b.bucket = ").append(bucket).append(") AS bucket_").append(bucket);
+        }
+        return columns.toString();
+    }
+
+    private static String orderBy(Sort sort) {
+        StringJoiner order = new StringJoiner(", ");
+        for (Sort.Order sortOrder : sort) {
+            String column = STATS_SORT_COLUMNS.get(sortOrder.getProperty());
+            if (column != null) {
+                order.add(column + (sortOrder.isAscending() ? " ASC" : " DESC") + " NULLS LAST");
+            }
+        }
+        if (order.length() == 0) {
+            order.add(DEFAULT_STATS_ORDER);
+        }
+        // Стабильный порядок страниц при равных значениях
+        return order.add("s.user_id").toString();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -10,12 +10,14 @@ import com.frist.assesspro.entity.Question;
 import com.frist.assesspro.entity.Test;
 
 import com.frist.assesspro.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -80,6 +82,7 @@ public interface TestRepository extends JpaRepository<Test, Long>, JpaSpecificat
             "t.createdBy.id, t.createdBy.username) " +
             "FROM Test t " +
             "WHERE t.id = :testId")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<TestPreviewDTO> findTestPreviewDTO(@Param("testId") Long testId);
 
     @Query("SELECT new com.frist.assesspro.dto.test.QuestionPreviewDTO(" +
@@ -87,6 +90,7 @@ public interface TestRepository extends JpaRepository<Test, Long>, JpaSpecificat
             "FROM Question q " +
             "WHERE q.test.id = :testId " +
             "ORDER BY q.orderIndex")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<QuestionPreviewDTO> findQuestionPreviewDTOs(@Param("testId") Long testId);
 
     @Query("SELECT new com.frist.assesspro.dto.test.AnswerPreviewDTO(" +
@@ -94,6 +98,7 @@ public interface TestRepository extends JpaRepository<Test, Long>, JpaSpecificat
             "FROM AnswerOption a " +
             "WHERE a.question.id = :questionId " +
             "ORDER BY a.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<AnswerPreviewDTO> findAnswerPreviewDTOs(@Param("questionId") Long questionId);
 
     @Query("SELECT new com.frist.assesspro.dto.TestDTO(" +
@@ -166,6 +171,18 @@ public interface TestRepository extends JpaRepository<Test, Long>, JpaSpecificat
             "ORDER BY t.createdAt DESC")
     List<TestInfoDTO> findAllPublishedTestInfoDTOsWithDates(@Param("now") LocalDateTime now);
 
+    /**
+     * Ближайшее начало доступности среди опубликованных тестов, ещё не открытых
+     */
+    @Query("SELECT MIN(t.availableFrom) FROM Test t WHERE t.isPublished = true AND t.availableFrom > :now")
+    LocalDateTime findNextAvailableFrom(@Param("now") LocalDateTime now);
+
+    /**
+     * Ближайший конец доступности среди опубликованных тестов, ещё не закрытых
+     */
+    @Query("SELECT MIN(t.availableTo) FROM Test t WHERE t.isPublished = true AND t.availableTo >= :now")
+    LocalDateTime findNextAvailableTo(@Param("now") LocalDateTime now);
+
     @Query("SELECT new com.frist.assesspro.dto.test.TestInfoDTO(" +
             "t.id, t.title, t.description, t.questionCount, t.timeLimitMinutes, t.createdAt, " +
             "t.category.id, t.category.name, t.availableFrom, t.availableTo) " +
@@ -233,6 +250,9 @@ public interface TestRepository extends JpaRepository<Test, Long>, JpaSpecificat
     @Query("SELECT t.id, t.retakeTest.id FROM Test t WHERE t.id IN :ids AND t.retakeTest IS NOT NULL")
     List<Object[]> findRetakeTestIdsByIds(@Param("ids") List<Long> ids);
 
+    @Query("SELECT t.id FROM Test t ORDER BY t.id")
+    List<Long> findAllIds();
+
     @Query("SELECT COUNT(q) FROM Question q WHERE q.test.id = :testId")
     int countQuestionsByTestId(@Param("testId") Long testId);
 
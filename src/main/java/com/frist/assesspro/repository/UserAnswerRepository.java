@@ -3,7 +3,6 @@ package com.frist.assesspro.repository;
 import com.frist.assesspro.entity.UserAnswer;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -11,7 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-public interface UserAnswerRepository extends JpaRepository<UserAnswer,Long> {
+public interface UserAnswerRepository extends JpaRepository<UserAnswer,Long>, UserAnswerRepositoryCustom {
 
     List<UserAnswer> findByAttemptId(Long attemptId);
 
@@ -31,25 +30,19 @@ public interface UserAnswerRepository extends JpaRepository<UserAnswer,Long> {
     @Query("SELECT COUNT(ua) FROM UserAnswer ua WHERE ua.attempt.id = :attemptId")
     long countByAttemptId(@Param("attemptId") Long attemptId);
 
-    @Modifying
-    @Query(value = "INSERT INTO user_answers (attempt_id, question_id, chosen_answer_option_id, is_correct, points_earned) " +
-            "VALUES (:attemptId, :questionId, :answerOptionId, :isCorrect, :points) " +
-            "ON CONFLICT (attempt_id, question_id) DO UPDATE SET " +
-            "chosen_answer_option_id = EXCLUDED.chosen_answer_option_id, " +
-            "is_correct = EXCLUDED.is_correct, " +
-            "points_earned = EXCLUDED.points_earned",
-            nativeQuery = true)
-    void upsertAnswer(@Param("attemptId") Long attemptId,
-                      @Param("questionId") Long questionId,
-                      @Param("answerOptionId") Long answerOptionId,
-                      @Param("isCorrect") Boolean isCorrect,
-                      @Param("points") Integer points);
-
     @Query("SELECT ua.attempt.id, COUNT(ua) FROM UserAnswer ua " +
             "WHERE ua.attempt.id IN :attemptIds " +
             "GROUP BY ua.attempt.id")
     List<Object[]> countByAttemptIds(@Param("attemptIds") List<Long> attemptIds);
 
+    @Query("SELECT ua.question.id FROM UserAnswer ua WHERE ua.attempt.id = :attemptId")
+    List<Long> findAnsweredQuestionIdsByAttemptId(@Param("attemptId") Long attemptId);
+
+    @Query("SELECT ua.question.id, o.id FROM UserAnswer ua " +
+            "LEFT JOIN ua.chosenAnswerOption o " +
+            "WHERE ua.attempt.id = :attemptId")
+    List<Object[]> findChosenOptionsByAttemptId(@Param("attemptId") Long attemptId);
+
     @Query("SELECT COUNT(ua) FROM UserAnswer ua WHERE ua.attempt.id = :attemptId AND ua.isCorrect = true")
     int countCorrectAnswersByAttemptId(@Param("attemptId") Long attemptId);
 }
@@ -0,0 +1,63 @@
+package com.frist.assesspro.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UserAnswerRepositoryCustom {
+
+    /**
+     * Пакетный UPSERT ответов одним многострочным INSERT ... ON CONFLICT.
+     * В том же запросе обновляются answered_count и running_score попыток
+     * и счётчики вопросов и вариантов ответа (question_stats, answer_option_stats);
+     * строка счётчика выбирается по попытке, чтение суммирует строки ключа.
+     */
+    void upsertAnswers(List<AnswerUpsert> answers);
+
+    /**
+     * UPSERT одного ответа с обновлением счётчиков попытки.
+     * Возвращает количество отвеченных вопросов попытки.
+     */
+    int upsertAnswerAndCount(AnswerUpsert answer);
+
+    /**
+     * Пересчёт счётчиков вопросов и вариантов теста по сохранённым ответам
+     * и индекса дискриминации по завершённым попыткам; строки счётчика сводятся в одну.
+     * Возвращает количество пересчитанных вопросов.
+     */
+    int recomputeItemStats(Long testId);
+
+    /**
+     * Счётчики всех вопросов теста в порядке вопросов; вопрос без ответов - с нулевыми счётчиками
+     */
+    List<QuestionStatsRow> findQuestionStats(Long testId);
+
+    List<OptionStatsRow> findAnswerOptionStats(Long testId);
+
+    /**
+     * Ответ для UPSERT. sequence - порядковый номер ответа на клиенте (может отсутствовать):
+     * ответ с меньшим номером не перезаписывает уже сохранённый более новый
+     */
+    record AnswerUpsert(Long attemptId, Long questionId, Long answerOptionId,
+                        Boolean isCorrect, Integer points, Long sequence) {
+
+        public AnswerUpsert(Long attemptId, Long questionId, Long answerOptionId,
+                            Boolean isCorrect, Integer points) {
+            this(attemptId, questionId, answerOptionId, isCorrect, points, null);
+        }
+
+        public boolean isOlderThan(AnswerUpsert other) {
+            return sequence != null && other.sequence() != null && sequence < other.sequence();
+        }
+    }
+
+    /**
+     * discrimination отсутствует, пока тест не пересчитан или завершённых попыток меньше двух
+     */
+    record QuestionStatsRow(Long questionId, String text, int orderIndex,
+                            long answerCount, long correctCount,
+                            Double discrimination, LocalDateTime recomputedAt) {
+    }
+
+    record OptionStatsRow(Long optionId, Long questionId, String text, boolean correct, long chosenCount) {
+    }
+}
@@ -0,0 +1,286 @@
+package com.frist.assesspro.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+
+@RequiredArgsConstructor
+public class UserAnswerRepositoryImpl implements UserAnswerRepositoryCustom {
+
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+
+    // Счётчики вопросов и вариантов разбиты на строки (ключ, slot); строка выбирается по попытке,
+    // и параллельные сохранения ответов на один вопрос не ждут друг друга. Чтение суммирует строки
+    static final int COUNTER_SLOTS = 16;
+
+    private static final String SLOT = " % " + COUNTER_SLOTS;
+
+    private static final String INPUT_ROW =
+            "(CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BOOLEAN), CAST(? AS INTEGER), CAST(? AS BIGINT))";
+
+    // Прежние баллы и вариант берутся до UPSERT, разница применяется к счётчикам попытки,
+    // вопроса и вариантов. Строки счётчиков обновляются в порядке ключа и slot - без взаимных блокировок
+    private static final String UPSERT_WITH_COUNTERS_TAIL =
+            "), previous AS (" +
+            "  SELECT ua.attempt_id, ua.question_id, ua.chosen_answer_option_id, ua.is_correct, ua.points_earned" +
+            "  FROM user_answers ua" +
+            "  JOIN input i ON i.attempt_id = ua.attempt_id AND i.question_id = ua.question_id" +
+            "), upserted AS (" +
+            "  INSERT INTO user_answers (attempt_id, question_id, chosen_answer_option_id, is_correct, points_earned, client_seq)" +
+            "  SELECT i.attempt_id, i.question_id, i.chosen_answer_option_id, i.is_correct, i.points_earned, i.client_seq" +
+            "  FROM input i" +
+            // Ответы завершённой или закрытой по времени попытки (запоздавший сброс буфера) не записываются
+            "  JOIN test_attempts ta ON ta.id = i.attempt_id AND ta.status = 'IN_PROGRESS'" +
+            "  ON CONFLICT (attempt_id, question_id) DO UPDATE SET" +
+            "  chosen_answer_option_id = EXCLUDED.chosen_answer_option_id," +
+            "  is_correct = EXCLUDED.is_correct," +
+            "  points_earned = EXCLUDED.points_earned," +
+            "  client_seq = EXCLUDED.client_seq" +
+            // Повтор или устаревший ответ не перезаписывает более новый: строка не попадает в RETURNING
+            "  WHERE EXCLUDED.client_seq IS NULL OR user_answers.client_seq IS NULL" +
+            "     OR EXCLUDED.client_seq > user_answers.client_seq" +
+            "  RETURNING attempt_id, question_id, chosen_answer_option_id, is_correct, points_earned" +
+            "), question_delta AS (" +
+            "  SELECT u.question_id, u.attempt_id" + SLOT + " AS slot," +
+            "         COUNT(*) - COUNT(p.question_id) AS answered_delta," +
+            "         COUNT(*) FILTER (WHERE u.is_correct) - COUNT(*) FILTER (WHERE p.is_correct) AS correct_delta" +
+            "  FROM upserted u" +
+            "  LEFT JOIN previous p ON p.attempt_id = u.attempt_id AND p.question_id = u.question_id" +
+            "  GROUP BY u.question_id, u.attempt_id" + SLOT +
+            "), question_counters AS (" +
+            "  INSERT INTO question_stats (question_id, slot, answer_count, correct_count)" +
+            "  SELECT question_id, slot, answered_delta, correct_delta FROM question_delta" +
+            "  WHERE answered_delta <> 0 OR correct_delta <> 0" +
+            "  ORDER BY question_id, slot" +
+            "  ON CONFLICT (question_id, slot) DO UPDATE SET" +
+            "  answer_count = question_stats.answer_count + EXCLUDED.answer_count," +
+            "  correct_count = question_stats.correct_count + EXCLUDED.correct_count" +
+            "), option_delta AS (" +
+            "  SELECT c.option_id, c.slot, SUM(c.change) AS chosen_delta FROM (" +
+            "    SELECT u.chosen_answer_option_id AS option_id, u.attempt_id" + SLOT + " AS slot, 1 AS change" +
+            "    FROM upserted u" +
+            "    UNION ALL" +
+            "    SELECT p.chosen_answer_option_id, p.attempt_id" + SLOT + ", -1 FROM previous p" +
+            "    JOIN upserted u ON u.attempt_id = p.attempt_id AND u.question_id = p.question_id" +
+            "  ) c" +
+            "  WHERE c.option_id IS NOT NULL" +
+            "  GROUP BY c.option_id, c.slot" +
+            "), option_counters AS (" +
+            "  INSERT INTO answer_option_stats (answer_option_id, slot, chosen_count)" +
+            "  SELECT option_id, slot, chosen_delta FROM option_delta" +
+            "  WHERE chosen_delta <> 0" +
+            "  ORDER BY option_id, slot" +
+            "  ON CONFLICT (answer_option_id, slot) DO UPDATE SET" +
+            "  chosen_count = answer_option_stats.chosen_count + EXCLUDED.chosen_count" +
+            "), delta AS (" +
+            "  SELECT u.attempt_id," +
+            "         COUNT(*) - COUNT(p.question_id) AS answered_delta," +
+            "         COALESCE(SUM(u.points_earned), 0) - COALESCE(SUM(p.points_earned), 0) AS score_delta" +
+            "  FROM upserted u" +
+            "  LEFT JOIN previous p ON p.attempt_id = u.attempt_id AND p.question_id = u.question_id" +
+            "  GROUP BY u.attempt_id" +
+            ") UPDATE test_attempts t" +
+            " SET answered_count = t.answered_count + d.answered_delta," +
+            " running_score = t.running_score + d.score_delta" +
+            " FROM delta d WHERE t.id = d.attempt_id";
+
+    // Блокировка строк счётчиков теста отдельным запросом: агрегирующий запрос
+    // после неё видит ответы, сохранённые параллельными транзакциями
+    private static final String LOCK_QUESTION_STATS =
+            "SELECT qs.question_id FROM question_stats qs" +
+            " JOIN questions q ON q.id = qs.question_id" +
+            " WHERE q.test_id = ? ORDER BY qs.question_id, qs.slot FOR UPDATE OF qs";
+
+    private static final String LOCK_OPTION_STATS =
+            "SELECT s.answer_option_id FROM answer_option_stats s" +
+            " JOIN answer_options o ON o.id = s.answer_option_id" +
+            " JOIN questions q ON q.id = o.question_id" +
+            " WHERE q.test_id = ? ORDER BY s.answer_option_id, s.slot FOR UPDATE OF s";
+
+    // Индекс дискриминации: доля верных ответов в верхних 27% завершённых попыток по баллу
+    // минус доля в нижних 27%; неотвеченный вопрос считается неверным.
+    // Счётчик сводится в строку slot = 0; остальные строки удаляются тем же запросом -
+    // с одним снимком удалённые строки и посчитанные ответы совпадают
+    private static final String RECOMPUTE_QUESTION_STATS =
+            "WITH merged_slots AS (" +
+            "  DELETE FROM question_stats qs USING questions q" +
+            "  WHERE q.id = qs.question_id AND q.test_id = ? AND qs.slot <> 0" +
+            "), ranked AS (" +
+            "  SELECT ta.id," +
+            "         ROW_NUMBER() OVER (ORDER BY ta.total_score DESC, ta.id) AS rn," +
+            "         CEIL(COUNT(*) OVER () * 0.27) AS group_size," +
+            "         COUNT(*) OVER () AS total" +
+            "  FROM test_attempts ta" +
+            "  WHERE ta.test_id = ? AND ta.status = 'COMPLETED'" +
+            "), grouped AS (" +
+            "  SELECT id, group_size," +
+            "         CASE WHEN rn <= group_size THEN 1 WHEN rn > total - group_size THEN -1 END AS grp" +
+            "  FROM ranked" +
+            "  WHERE total >= 2" +
+            "), discrimination AS (" +
+            "  SELECT ua.question_id," +
+            "         (COUNT(*) FILTER (WHERE g.grp = 1 AND ua.is_correct)" +
+            "          - COUNT(*) FILTER (WHERE g.grp = -1 AND ua.is_correct))::double precision" +
+            "           / MAX(g.group_size) AS value" +
+            "  FROM user_answers ua" +
+            "  JOIN grouped g ON g.id = ua.attempt_id AND g.grp IS NOT NULL" +
+            "  GROUP BY ua.question_id" +
+            ") INSERT INTO question_stats (question_id, slot, answer_count, correct_count, discrimination, recomputed_at)" +
+            " SELECT q.id, 0, COUNT(ua.id), COUNT(ua.id) FILTER (WHERE ua.is_correct)," +
+            "        CASE WHEN EXISTS (SELECT 1 FROM grouped) THEN COALESCE(MAX(d.value), 0) END," +
+            "        now()" +
+            " FROM questions q" +
+            " LEFT JOIN user_answers ua ON ua.question_id = q.id" +
+            " LEFT JOIN discrimination d ON d.question_id = q.id" +
+            " WHERE q.test_id = ?" +
+            " GROUP BY q.id" +
+            " ORDER BY q.id" +
+            " ON CONFLICT (question_id, slot) DO UPDATE SET" +
+            " answer_count = EXCLUDED.answer_count," +
+            " correct_count = EXCLUDED.correct_count," +
+            " discrimination = EXCLUDED.discrimination," +
+            " recomputed_at = EXCLUDED.recomputed_at";
+
+    private static final String RECOMPUTE_OPTION_STATS =
+            "WITH merged_slots AS (" +
+            "  DELETE FROM answer_option_stats s USING answer_options o, questions q" +
+            "  WHERE o.id = s.answer_option_id AND q.id = o.question_id AND q.test_id = ? AND s.slot <> 0" +
+            ") INSERT INTO answer_option_stats (answer_option_id, slot, chosen_count)" +
+            " SELECT o.id, 0, COUNT(ua.id)" +
+            " FROM answer_options o" +
+            " JOIN questions q ON q.id = o.question_id" +
+            " LEFT JOIN user_answers ua ON ua.chosen_answer_option_id = o.id" +
+            " WHERE q.test_id = ?" +
+            " GROUP BY o.id" +
+            " ORDER BY o.id" +
+            " ON CONFLICT (answer_option_id, slot) DO UPDATE SET chosen_count = EXCLUDED.chosen_count";
+
+    private static final String FIND_QUESTION_STATS =
+            "SELECT q.id, q.text, q.order_index," +
+            " COALESCE(SUM(qs.answer_count), 0) AS answer_count," +
+            " COALESCE(SUM(qs.correct_count), 0) AS correct_count," +
+            " MAX(qs.discrimination) AS discrimination, MAX(qs.recomputed_at) AS recomputed_at" +
+            " FROM questions q" +
+            " LEFT JOIN question_stats qs ON qs.question_id = q.id" +
+            " WHERE q.test_id = ?" +
+            " GROUP BY q.id, q.text, q.order_index" +
+            " ORDER BY q.order_index, q.id";
+
+    private static final String FIND_OPTION_STATS =
+            "SELECT o.id, o.question_id, o.text, o.is_correct," +
+            " COALESCE(SUM(s.chosen_count), 0) AS chosen_count" +
+            " FROM answer_options o" +
+            " JOIN questions q ON q.id = o.question_id" +
+            " LEFT JOIN answer_option_stats s ON s.answer_option_id = o.id" +
+            " WHERE q.test_id = ?" +
+            " GROUP BY o.id, o.question_id, o.text, o.is_correct" +
+            " ORDER BY o.question_id, o.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAnswers(List<AnswerUpsert> answers) {
+        // Одна строка на пару (попытка, вопрос): PostgreSQL не допускает
+        // повторного обновления строки в рамках одного INSERT ... ON CONFLICT
+        Map<List<Long>, AnswerUpsert> latest = new LinkedHashMap<>();
+        for (AnswerUpsert answer : answers) {
+            latest.merge(List.of(answer.attemptId(), answer.questionId()), answer,
+                    (current, candidate) -> candidate.isOlderThan(current) ? current : candidate);
+        }
+        answers = new ArrayList<>(latest.values());
+
+        for (int from = 0; from < answers.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<AnswerUpsert> chunk = answers.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, answers.size()));
+            lockAttempts(chunk);
+
+            List<Object> args = new ArrayList<>(chunk.size() * 6);
+            jdbcTemplate.update(buildUpsert(chunk, args), args.toArray());
+        }
+    }
+
+    @Override
+    public int upsertAnswerAndCount(AnswerUpsert answer) {
+        List<AnswerUpsert> single = List.of(answer);
+        lockAttempts(single);
+
+        List<Object> args = new ArrayList<>(6);
+        List<Integer> answeredCount = jdbcTemplate.queryForList(
+                buildUpsert(single, args) + " RETURNING t.answered_count", Integer.class, args.toArray());
+        if (answeredCount.isEmpty()) {
+            // Ответ отброшен как устаревший - счётчики не менялись
+            answeredCount = jdbcTemplate.queryForList(
+                    "SELECT answered_count FROM test_attempts WHERE id = ?", Integer.class, answer.attemptId());
+        }
+        return answeredCount.isEmpty() || answeredCount.get(0) == null ? 0 : answeredCount.get(0);
+    }
+
+    @Override
+    public int recomputeItemStats(Long testId) {
+        jdbcTemplate.queryForList(LOCK_QUESTION_STATS, Long.class, testId);
+        jdbcTemplate.queryForList(LOCK_OPTION_STATS, Long.class, testId);
+        int questions = jdbcTemplate.update(RECOMPUTE_QUESTION_STATS, testId, testId, testId);
+        jdbcTemplate.update(RECOMPUTE_OPTION_STATS, testId, testId);
+        return questions;
+    }
+
+    @Override
+    public List<QuestionStatsRow> findQuestionStats(Long testId) {
+        return jdbcTemplate.query(FIND_QUESTION_STATS, (rs, rowNum) -> {
+            Timestamp recomputedAt = rs.getTimestamp("recomputed_at");
+            return new QuestionStatsRow(
+                    rs.getLong("id"),
+                    rs.getString("text"),
+                    rs.getInt("order_index"),
+                    rs.getLong("answer_count"),
+                    rs.getLong("correct_count"),
+                    rs.getObject("discrimination", Double.class),
+                    recomputedAt != null ? recomputedAt.toLocalDateTime() : null);
+        }, testId);
+    }
+
+    @Override
+    public List<OptionStatsRow> findAnswerOptionStats(Long testId) {
+        return jdbcTemplate.query(FIND_OPTION_STATS, (rs, rowNum) -> new OptionStatsRow(
+                rs.getLong("id"),
+                rs.getLong("question_id"),
+                rs.getString("text"),
+                rs.getBoolean("is_correct"),
+                rs.getLong("chosen_count")), testId);
+    }
+
+    /**
+     * Блокировка строк попыток отдельным запросом: следующий запрос получает
+     * свежий снимок, и прежние баллы ответа читаются без гонки
+     */
+    private void lockAttempts(List<AnswerUpsert> answers) {
+        Object[] attemptIds = answers.stream()
+                .map(AnswerUpsert::attemptId)
+                .distinct()
+                .sorted()
+                .toArray();
+        String placeholders = String.join(", ", Collections.nCopies(attemptIds.length, "?"));
+        jdbcTemplate.queryForList(
+                "SELECT id FROM test_attempts WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+                Long.class, attemptIds);
+    }
+
+    private String buildUpsert(List<AnswerUpsert> answers, List<Object> args) {
+        StringBuilder sql = new StringBuilder(
+                "WITH input (attempt_id, question_id, chosen_answer_option_id, is_correct, points_earned, client_seq) AS (VALUES ");
+        for (int i = 0; i < answers.size(); i++) {
+            AnswerUpsert answer = answers.get(i);
+            sql.append(i == 0 ? INPUT_ROW : ", " + INPUT_ROW);
+            args.add(answer.attemptId());
+            args.add(answer.questionId());
+            args.add(new SqlParameterValue(Types.BIGINT, answer.answerOptionId()));
+            args.add(answer.isCorrect());
+            args.add(answer.points());
+            args.add(new SqlParameterValue(Types.BIGINT, answer.sequence()));
+        }
+        return sql.append(UPSERT_WITH_COUNTERS_TAIL).toString();
+    }
+}
@@ -98,5 +98,11 @@ public interface UserRepository extends JpaRepository<User,Long> {
 
     List<User> findByProjectId(Long projectId);
 
+    /**
+     * Пользователи всех проектов менеджера одним запросом
+     */
+    @Query("SELECT u.id FROM User u WHERE u.project.manager.id = :managerId")
+    List<Long> findIdsByProjectManagerId(@Param("managerId") Long managerId);
+
     List<User> findAllByRoleAndIsActive(String role, Boolean isActive);
 }
\ No newline at end of file
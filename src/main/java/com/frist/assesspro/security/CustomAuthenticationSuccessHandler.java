@@ -3,6 +3,7 @@ package com.frist.assesspro.security;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -11,9 +12,11 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class CustomAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
 
+    private final PrincipalSnapshotCache principalSnapshots;
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request,
@@ -26,6 +29,8 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
 
         log.info("Успешный вход пользователя: {} (IP: {}, sessionId: {})", username, remoteAddr, sessionId);
 
+        // Снимок строится при входе, дальше запросы сессии берут его из кэша
+        principalSnapshots.refresh(username);
 
         response.sendRedirect("/dashboard");
     }
@@ -0,0 +1,19 @@
+package com.frist.assesspro.security;
+
+/**
+ * Сведения о вошедшем пользователе, нужные почти каждому запросу:
+ * проверке профиля, навигации и сервисам, которым достаточно id пользователя.
+ *
+ * @param activeAttemptId последняя незавершённая попытка, null - таких нет
+ */
+public record PrincipalSnapshot(Long userId,
+                                String username,
+                                String role,
+                                Long projectId,
+                                boolean profileComplete,
+                                Long activeAttemptId) {
+
+    public boolean hasActiveAttempt() {
+        return activeAttemptId != null;
+    }
+}
@@ -0,0 +1,207 @@
+package com.frist.assesspro.security;
+
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Снимки вошедших пользователей по id с индексом логинов. Снимок строится при входе и живёт, пока пользователь
+ * обращается к приложению; в пределах HTTP-запроса он дополнительно запоминается в атрибуте запроса,
+ * чтобы перехватчик, совет контроллеров и сервисы не обращались к кэшу повторно.
+ * Изменение пользователя, начало и завершение попытки сбрасывают снимок; владелец активной попытки
+ * находится по индексу попыток, поэтому сброс не перебирает кэш.
+ */
+@Component
+@Slf4j
+public class PrincipalSnapshotCache {
+
+    private static final String INVALIDATION_CACHE = "principals";
+    private static final String USER_KEY = "user:";
+    private static final String ATTEMPT_KEY = "attempt:";
+    private static final String REQUEST_ATTRIBUTE = PrincipalSnapshotCache.class.getName();
+    private static final int MAX_CACHED_PRINCIPALS = 10_000;
+    // Совпадает с временем жизни сессии по умолчанию
+    private static final Duration IDLE_TTL = Duration.ofMinutes(30);
+    // Отметка закрытой попытки в индексе: снимок, прочитанный до закрытия, не кэшируется
+    private static final Long CLOSED_ATTEMPT = -1L;
+
+    private final UserRepository userRepository;
+    private final TestAttemptRepository testAttemptRepository;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final VersionedCache<Long, PrincipalSnapshot> snapshots = new VersionedCache<>(Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_PRINCIPALS)
+            .expireAfterAccess(IDLE_TTL)
+            .build());
+
+    // Логин пользователя не меняется, поэтому индекс логинов не инвалидируется
+    private final Cache<String, Long> userIds = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_PRINCIPALS)
+            .expireAfterAccess(IDLE_TTL)
+            .build();
+
+    // Активная попытка -> id владельца
+    private final Cache<Long, Long> attemptOwners = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_PRINCIPALS)
+            .expireAfterWrite(IDLE_TTL)
+            .build();
+
+    public PrincipalSnapshotCache(UserRepository userRepository,
+                                  TestAttemptRepository testAttemptRepository,
+                                  CacheInvalidationBus invalidationBus) {
+        this.userRepository = userRepository;
+        this.testAttemptRepository = testAttemptRepository;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(INVALIDATION_CACHE, keys -> {
+            if (keys == null) {
+                evictAll();
+                return;
+            }
+            for (String key : keys) {
+                if (key.startsWith(USER_KEY)) {
+                    evictUser(Long.valueOf(key.substring(USER_KEY.length())));
+                } else if (key.startsWith(ATTEMPT_KEY)) {
+                    evictAttempt(Long.valueOf(key.substring(ATTEMPT_KEY.length())));
+                }
+            }
+        });
+    }
+
+    /**
+     * Снимок пользователя; пусто, если пользователя нет в БД
+     */
+    public Optional<PrincipalSnapshot> get(String username) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof PrincipalSnapshot memo
+                && memo.username().equals(username)) {
+            return Optional.of(memo);
+        }
+
+        Long userId = userIds.getIfPresent(username);
+        PrincipalSnapshot snapshot = userId != null ? snapshots.getIfPresent(userId) : null;
+        if (snapshot == null) {
+            snapshot = load(username);
+        }
+        if (snapshot != null && request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, snapshot, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Снимок пользователя, который обязан существовать
+     */
+    public PrincipalSnapshot getRequired(String username) {
+        return get(username).orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+    }
+
+    /**
+     * Построение снимка заново при входе: данные прошлой сессии не переиспользуются
+     */
+    public void refresh(String username) {
+        Long userId = userIds.getIfPresent(username);
+        if (userId != null) {
+            snapshots.evict(userId);
+        }
+        get(username);
+    }
+
+    /**
+     * Сброс снимка после изменения пользователя, его проекта или попыток.
+     * Внутри транзакции сброс повторяется после коммита, другие узлы сбрасывают снимок после коммита.
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidationBus.publish(INVALIDATION_CACHE, USER_KEY + userId);
+        VersionedCache.evictNowAndAfterCommit(() -> evictUser(userId));
+    }
+
+    /**
+     * Сброс снимков пользователей, у которых закрыты попытки (например, по истечении времени)
+     */
+    public void invalidateAttempts(Collection<Long> attemptIds) {
+        if (attemptIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(attemptIds);
+        ids.forEach(attemptId -> invalidationBus.publish(INVALIDATION_CACHE, ATTEMPT_KEY + attemptId));
+        VersionedCache.evictNowAndAfterCommit(() -> ids.forEach(this::evictAttempt));
+    }
+
+    private PrincipalSnapshot load(String username) {
+        long stamp = snapshots.stamp();
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        // id проекта берётся из прокси без загрузки проекта
+        PrincipalSnapshot snapshot = new PrincipalSnapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getRole(),
+                user.getProject() != null ? user.getProject().getId() : null,
+                user.isProfileComplete(),
+                testAttemptRepository.findActiveAttemptIdByUserId(user.getId()));
+
+        userIds.put(username, user.getId());
+        if (snapshot.activeAttemptId() != null
+                && CLOSED_ATTEMPT.equals(attemptOwners.asMap().putIfAbsent(snapshot.activeAttemptId(), user.getId()))) {
+            // Попытка закрыта после чтения: снимок верен только для этого запроса
+            return snapshot;
+        }
+        snapshots.put(user.getId(), snapshot, stamp);
+        return snapshot;
+    }
+
+    private void evictUser(Long userId) {
+        snapshots.evict(userId);
+        // Запомненный снимок текущего запроса тоже устарел
+        PrincipalSnapshot memo = requestMemo();
+        if (memo != null && userId.equals(memo.userId())) {
+            clearRequestMemo();
+        }
+    }
+
+    private void evictAttempt(Long attemptId) {
+        Long owner = attemptOwners.asMap().put(attemptId, CLOSED_ATTEMPT);
+        if (owner != null && !CLOSED_ATTEMPT.equals(owner)) {
+            snapshots.evict(owner);
+        }
+        PrincipalSnapshot memo = requestMemo();
+        if (memo != null && attemptId.equals(memo.activeAttemptId())) {
+            clearRequestMemo();
+        }
+    }
+
+    private void evictAll() {
+        snapshots.evictAll();
+        log.debug("Кэш снимков пользователей сброшен");
+    }
+
+    private static PrincipalSnapshot requestMemo() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof PrincipalSnapshot memo
+                ? memo : null;
+    }
+
+    private static void clearRequestMemo() {
+        RequestContextHolder.currentRequestAttributes().removeAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -8,6 +8,8 @@ import com.frist.assesspro.entity.TestAttempt;
 import com.frist.assesspro.entity.User;
 import com.frist.assesspro.mapper.UserMapper;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.manager.ManagerScopeIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -34,6 +36,8 @@ public class AdminService {
     private final PasswordEncoder passwordEncoder;
     private final ProjectRepository projectRepository;
     private final UserMapper  userMapper;
+    private final ManagerScopeIndex managerScopeIndex;
+    private final PrincipalSnapshotCache principalSnapshots;
 
     // ============= УПРАВЛЕНИЕ ПОЛЬЗОВАТЕЛЯМИ =============
 
@@ -108,6 +112,9 @@ public class AdminService {
         user.setIsActive(true);
 
         User savedUser = userRepository.save(user);
+        if (savedUser.getProject() != null) {
+            managerScopeIndex.invalidateAll();
+        }
         log.info("Пользователь {} создан с ID: {}", savedUser.getUsername(), savedUser.getId());
 
         return savedUser;
@@ -151,6 +158,8 @@ public class AdminService {
             user.setProject(null);
         }
         User updatedUser = userRepository.save(user);
+        managerScopeIndex.invalidateAll();
+        principalSnapshots.invalidateUser(updatedUser.getId());
         log.info("Пользователь {} обновлён, проект: {}",
                 updatedUser.getUsername(),
                 updatedUser.getProject() != null ? updatedUser.getProject().getName() : "нет");
@@ -173,6 +182,7 @@ public class AdminService {
 
         user.setIsActive(active);
         User updatedUser = userRepository.save(user);
+        principalSnapshots.invalidateUser(updatedUser.getId());
 
         log.info("Администратор {} {} пользователя {}",
                 adminUsername, active ? "активировал" : "деактивировал", user.getUsername());
@@ -198,6 +208,7 @@ public class AdminService {
 
         log.info("Администратор {} удаляет пользователя: {}", adminUsername, user.getUsername());
         userRepository.delete(user);
+        principalSnapshots.invalidateUser(user.getId());
     }
 
     // ============= СТАТИСТИКА ПРИЛОЖЕНИЯ =============
@@ -21,7 +21,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
 
 
-    @CacheEvict(value = {"creatorStats", "testerStats"}, allEntries = true)
+    @CacheEvict(value = "creatorStats", allEntries = true)
     @Transactional
     public User registerUser(RegistrationDTO registrationDTO) {
         log.info("Начало регистрации пользователя: {}", registrationDTO.getUsername());
@@ -35,7 +35,7 @@ public class CategoryService {
      * Создание новой категории
      */
     @Transactional
-    @CacheEvict(value = {"categories", "activeCategories"}, allEntries = true)
+    @CacheEvict(value = "activeCategories", allEntries = true)
     public Category createCategory(CategoryCreateDTO categoryCreateDTO, String username) {
         validateCategoryName(categoryCreateDTO.getName());
 
@@ -94,7 +94,7 @@ public class CategoryService {
      * Обновление категории
      */
     @Transactional
-    @CacheEvict(value = {"categories", "activeCategories"}, allEntries = true)
+    @CacheEvict(value = "activeCategories", allEntries = true)
     public Category updateCategory(Long categoryId, CategoryUpdateDTO updateDTO, String username) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new RuntimeException("Категория не найдена"));
@@ -131,7 +131,7 @@ public class CategoryService {
      * Удаление категории (мягкое удаление)
      */
     @Transactional
-    @CacheEvict(value = {"categories", "activeCategories"}, allEntries = true)
+    @CacheEvict(value = "activeCategories", allEntries = true)
     public void deleteCategory(Long categoryId, String username) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new RuntimeException("Категория не найдена"));
@@ -3,25 +3,27 @@ package com.frist.assesspro.service;
 
 import com.frist.assesspro.dto.manager.ProjectDTO;
 import com.frist.assesspro.dto.statistics.*;
-import com.frist.assesspro.entity.Project;
 import com.frist.assesspro.entity.Test;
 import com.frist.assesspro.entity.TestAttempt;
 import com.frist.assesspro.entity.User;
 import com.frist.assesspro.mapper.ProjectMapper;
 import com.frist.assesspro.repository.ProjectRepository;
 import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterScope;
 import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.manager.ManagerScopeIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,12 +36,12 @@ public class ManagerService {
     private final TestAttemptRepository testAttemptRepository;
     private final ProjectRepository projectRepository;
     private final TesterStatisticsService testerStatisticsService;
+    private final ManagerScopeIndex managerScopeIndex;
+    private final PrincipalSnapshotCache principalSnapshots;
 
     @Transactional(readOnly = true)
     public List<ProjectDTO> getManagerProjects(String username) {
-        User manager = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Менеджер не найден"));
-        return projectRepository.findByManagerId(manager.getId())
+        return projectRepository.findByManagerId(getManagerId(username))
                 .stream().map(projectMapper::toDto)
                 .collect(Collectors.toList());
     }
@@ -59,33 +61,25 @@ public class ManagerService {
         return testAttemptRepository.findTesterStatsByProjectId(projectId);
     }
 
-    @Transactional(readOnly = true)
-    public Set<Long> getManagerTestersIds(String username) {
-        User manager = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Менеджер не найден"));
-
-        List<Project> projects = projectRepository.findByManagerId(manager.getId());
-        Set<Long> testerIds = new HashSet<>();
-        for (Project project : projects) {
-            List<User> testers = userRepository.findByProjectId(project.getId());
-            testers.stream().map(User::getId).forEach(testerIds::add);
-        }
-        return testerIds;
+    private Long getManagerId(String username) {
+        return principalSnapshots.get(username)
+                .orElseThrow(() -> new RuntimeException("Менеджер не найден"))
+                .userId();
     }
 
     @Transactional(readOnly = true)
     public Page<TesterAttemptDTO> getFilteredTestersByTest(Long testId, String managerUsername, Pageable pageable) {
-        Set<Long> testerIds = getManagerTestersIds(managerUsername);
-        Page<TestAttempt> attemptsPage = testAttemptRepository.findAttemptsByTestIdAndUserIds(testId, testerIds, pageable);
-        return attemptsPage.map(testerStatisticsService::convertToTesterAttemptDTO);
+        Page<Long> idPage = testAttemptRepository.findAttemptIdPage(
+                testId, null, TesterScope.manager(getManagerId(managerUsername)), pageable);
+        return new PageImpl<>(testerStatisticsService.loadAttemptDTOs(idPage.getContent()),
+                pageable, idPage.getTotalElements());
     }
 
     @Transactional(readOnly = true)
     public TesterDetailedAnswersDTO getFilteredTesterDetailedAnswers(Long attemptId, String managerUsername) {
         TestAttempt attempt = testAttemptRepository.findById(attemptId)
                 .orElseThrow(() -> new RuntimeException("Попытка не найдена"));
-        Set<Long> testerIds = getManagerTestersIds(managerUsername);
-        if (!testerIds.contains(attempt.getUser().getId())) {
+        if (!managerScopeIndex.contains(getManagerId(managerUsername), attempt.getUser().getId())) {
             throw new RuntimeException("Доступ запрещён");
         }
         return testerStatisticsService.getTesterDetailedAnswers(attemptId, managerUsername);
@@ -93,33 +87,24 @@ public class ManagerService {
 
     @Transactional(readOnly = true)
     public TestSummaryDTO getFilteredTestSummary(Long testId, String managerUsername) {
-        Set<Long> testerIds = getManagerTestersIds(managerUsername);
-        List<TestAttempt> attempts = testAttemptRepository.findByTestId(testId).stream()
-                .filter(a -> testerIds.contains(a.getUser().getId()))
-                .collect(Collectors.toList());
-        return testerStatisticsService.getFilteredTestSummary(testId, testerIds);
+        return testerStatisticsService.getFilteredTestSummary(testId, TesterScope.manager(getManagerId(managerUsername)));
     }
 
     @Transactional(readOnly = true)
     public List<TesterAttemptDTO> getRecentAttemptsForManager(String managerUsername, int limit) {
-        Set<Long> testerIds = getManagerTestersIds(managerUsername);
-        if (testerIds.isEmpty()) {
-            return List.of();
-        }
-
-        List<TestAttempt> attempts = testAttemptRepository.findTopByUserIdsOrderByStartTimeDesc(testerIds);
+        List<TestAttempt> attempts = testAttemptRepository.findRecentByManagerId(
+                getManagerId(managerUsername), PageRequest.of(0, limit));
         return attempts.stream()
-                .limit(limit)
                 .map(testerStatisticsService::convertToTesterAttemptDTO)
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public User getTesterWithAccessCheck(String testerUsername, String managerUsername) {
-        Set<Long> testerIds = getManagerTestersIds(managerUsername);
+        Long managerId = getManagerId(managerUsername);
         User tester = userRepository.findByUsername(testerUsername)
                 .orElseThrow(() -> new RuntimeException("Тестировщик не найден"));
-        if (!testerIds.contains(tester.getId())) {
+        if (!managerScopeIndex.contains(managerId, tester.getId())) {
             throw new RuntimeException("Нет доступа к статистике этого тестировщика");
         }
         return tester;
@@ -127,8 +112,8 @@ public class ManagerService {
 
     @Transactional(readOnly = true)
     public List<TesterAttemptDTO> getAllFilteredTestersByTest(Long testId, String managerUsername) {
-        Set<Long> testerIds = getManagerTestersIds(managerUsername);
-        List<TestAttempt> attempts = testAttemptRepository.findByTestIdAndUserIds(testId, testerIds);
+        List<TestAttempt> attempts = testAttemptRepository.findByTestIdAndManagerId(
+                testId, getManagerId(managerUsername));
         return attempts.stream()
                 .map(testerStatisticsService::convertToTesterAttemptDTO)
                 .collect(Collectors.toList());
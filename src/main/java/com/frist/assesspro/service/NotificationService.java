@@ -7,6 +7,7 @@ import com.frist.assesspro.entity.User;
 import com.frist.assesspro.mapper.NotificationMapper;
 import com.frist.assesspro.repository.NotificationRepository;
 import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -52,6 +53,13 @@ public class NotificationService {
         NotificationDTO dto = notificationMapper.toDto(notification);
         dto.setTargetUrl(buildTargetUrl(type, relatedEntityId));
 
+        // SSE и email - только после коммита: при откате уведомления нет, и повтор не даст дубликатов
+        TransactionUtils.afterCommit(() -> deliver(recipient, message, dto));
+
+        return dto;
+    }
+
+    private void deliver(User recipient, String message, NotificationDTO dto) {
         try {
             sseService.sendToUser(recipient.getId(), dto);
 
@@ -69,8 +77,6 @@ public class NotificationService {
         } catch (Exception e) {
             log.error("Не удалось отправить SSE-уведомление пользователю {}: {}", recipient.getId(), e.getMessage());
         }
-
-        return dto;
     }
 
     @Transactional(readOnly = true)
@@ -3,6 +3,7 @@ package com.frist.assesspro.service;
 import com.frist.assesspro.dto.profile.ProfileCompletionDTO;
 import com.frist.assesspro.entity.User;
 import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -14,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class ProfileService {
 
     private final UserRepository userRepository;
+    private final PrincipalSnapshotCache principalSnapshots;
 
     /**
      * Заполнение профиля пользователя (ФИО)
@@ -41,6 +43,7 @@ public class ProfileService {
         user.setIsProfileComplete(true);
 
         User savedUser = userRepository.save(user);
+        principalSnapshots.invalidateUser(savedUser.getId());
         log.info("Профиль пользователя {} успешно заполнен", username);
 
         return savedUser;
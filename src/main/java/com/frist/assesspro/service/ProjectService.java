@@ -10,6 +10,8 @@ import com.frist.assesspro.entity.User;
 import com.frist.assesspro.mapper.ProjectMapper;
 import com.frist.assesspro.repository.ProjectRepository;
 import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.manager.ManagerScopeIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +34,8 @@ public class ProjectService {
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
     private final ProjectMapper projectMapper;
+    private final ManagerScopeIndex managerScopeIndex;
+    private final PrincipalSnapshotCache principalSnapshots;
 
     /**
      * Получить все проекты с пагинацией и поиском по названию.
@@ -109,6 +113,7 @@ public class ProjectService {
         }
 
         Project updated = projectRepository.save(project);
+        managerScopeIndex.invalidateAll();
         log.info("Обновлён проект '{}' (ID: {})", updated.getName(), updated.getId());
         return updated;
     }
@@ -171,6 +176,7 @@ public class ProjectService {
         }
         project.setManager(manager);
         projectRepository.save(project);
+        managerScopeIndex.invalidateAll();
         log.info("Менеджер {} назначен на проект {}", manager.getUsername(), project.getName());
     }
 
@@ -192,6 +198,8 @@ public class ProjectService {
             tester.setProject(project);
         }
         userRepository.saveAll(testers);
+        managerScopeIndex.invalidateAll();
+        testers.forEach(tester -> principalSnapshots.invalidateUser(tester.getId()));
         log.info("Добавлены тестеры в проект {}: {}", project.getName(), testers.stream().map(User::getUsername).toList());
 
 
@@ -209,6 +217,8 @@ public class ProjectService {
         }
         tester.setProject(null);
         userRepository.save(tester);
+        managerScopeIndex.invalidateAll();
+        principalSnapshots.invalidateUser(tester.getId());
         log.info("Тестер {} удалён из проекта", tester.getUsername());
     }
 
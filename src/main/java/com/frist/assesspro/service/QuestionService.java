@@ -8,6 +8,8 @@ import com.frist.assesspro.entity.Test;
 import com.frist.assesspro.mapper.AnswerOptionMapper;
 import com.frist.assesspro.mapper.QuestionMapper;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.service.taking.CatalogCache;
+import com.frist.assesspro.service.taking.CompiledTestCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -25,6 +27,8 @@ public class QuestionService {
     private final TestRepository testRepository;
     private final QuestionMapper questionMapper;
     private final AnswerOptionMapper answerOptionMapper;
+    private final CompiledTestCache compiledTestCache;
+    private final CatalogCache catalogCache;
 
     /**
      * Создание вопроса из DTO
@@ -56,6 +60,8 @@ public class QuestionService {
         }
 
         Question savedQuestion = questionRepository.save(question);
+        compiledTestCache.invalidate(testId);
+        catalogCache.invalidate();
 
         log.info("Создан вопрос ID: {} с {} вариантами ответов",
                 savedQuestion.getId(), savedQuestion.getAnswerOptions().size());
@@ -93,6 +99,8 @@ public class QuestionService {
         }
 
         Question updatedQuestion = questionRepository.save(existingQuestion);
+        compiledTestCache.invalidate(existingQuestion.getTest().getId());
+        catalogCache.invalidate();
 
         log.info("Обновлен вопрос ID: {} с {} вариантами ответов",
                 questionId, updatedQuestion.getAnswerOptions().size());
@@ -156,6 +164,8 @@ public class QuestionService {
         }
 
         questionRepository.delete(question);
+        compiledTestCache.invalidate(test.getId());
+        catalogCache.invalidate();
         log.info("Удален вопрос ID: {} из теста ID: {}", questionId, test.getId());
     }
 
@@ -18,13 +18,20 @@ public class SseService {
 
     private final Map<Long, List<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
 
+    // Подписки на общие потоки, например рейтинг теста или проекта
+    private final Map<String, List<SseEmitter>> topicEmitters = new ConcurrentHashMap<>();
+
     public SseEmitter subscribe(Long userId) {
-        SseEmitter emitter = new SseEmitter(0L); // без таймаута
-        userEmitters.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>()).add(emitter);
-        emitter.onCompletion(() -> remove(userId, emitter));
-        emitter.onTimeout(() -> remove(userId, emitter));
-        emitter.onError(e -> remove(userId, emitter));
-        return emitter;
+        return register(userEmitters, userId);
+    }
+
+    public SseEmitter subscribe(String topic) {
+        return register(topicEmitters, topic);
+    }
+
+    public boolean hasSubscribers(String topic) {
+        List<SseEmitter> emitters = topicEmitters.get(topic);
+        return emitters != null && !emitters.isEmpty();
     }
 
     @Async
@@ -36,18 +43,42 @@ public class SseService {
                     emitter.send(SseEmitter.event().data(data));
                 } catch (IOException e) {
                     log.warn("Ошибка отправки SSE пользователю {}: {}", userId, e.getMessage());
-                    remove(userId, emitter);
+                    remove(userEmitters, userId, emitter);
                 }
             }
         }
     }
 
-    private void remove(Long userId, SseEmitter emitter) {
-        List<SseEmitter> emitters = userEmitters.get(userId);
+    @Async
+    public void sendToTopic(String topic, String eventName, Object data) {
+        List<SseEmitter> emitters = topicEmitters.get(topic);
+        if (emitters != null) {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name(eventName).data(data));
+                } catch (IOException e) {
+                    log.debug("Ошибка отправки SSE в поток {}: {}", topic, e.getMessage());
+                    remove(topicEmitters, topic, emitter);
+                }
+            }
+        }
+    }
+
+    private <K> SseEmitter register(Map<K, List<SseEmitter>> emittersByKey, K key) {
+        SseEmitter emitter = new SseEmitter(0L); // без таймаута
+        emittersByKey.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> remove(emittersByKey, key, emitter));
+        emitter.onTimeout(() -> remove(emittersByKey, key, emitter));
+        emitter.onError(e -> remove(emittersByKey, key, emitter));
+        return emitter;
+    }
+
+    private <K> void remove(Map<K, List<SseEmitter>> emittersByKey, K key, SseEmitter emitter) {
+        List<SseEmitter> emitters = emittersByKey.get(key);
         if (emitters != null) {
             emitters.remove(emitter);
             if (emitters.isEmpty()) {
-                userEmitters.remove(userId);
+                emittersByKey.remove(key);
             }
         }
     }
@@ -7,16 +7,28 @@ import com.frist.assesspro.dto.category.CategoryDTO;
 import com.frist.assesspro.dto.test.*;
 import com.frist.assesspro.entity.*;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.AnswerUpsert;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.outbox.OutboxService;
+import com.frist.assesspro.service.statistics.DailyAttemptRollup;
+import com.frist.assesspro.service.statistics.LiveExamMonitor;
+import com.frist.assesspro.service.statistics.TesterStatsRollup;
+import com.frist.assesspro.service.taking.AnswerWriteBehindBuffer;
+import com.frist.assesspro.service.taking.AttemptView;
+import com.frist.assesspro.service.taking.AttemptViewCache;
+import com.frist.assesspro.service.taking.CatalogCache;
+import com.frist.assesspro.service.taking.CompiledTest;
+import com.frist.assesspro.service.taking.CompiledTestCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,36 +40,36 @@ public class TestPassingService {
     private final TestAttemptRepository testAttemptRepository;
     private final UserAnswerRepository userAnswerRepository;
     private final UserRepository userRepository;
-    private final QuestionRepository questionRepository;
-    private final AnswerOptionRepository answerOptionRepository;
     private final CategoryService categoryService;
     private final ProfileService profileService;
     private final CooldownService cooldownService;
     private final ProjectService projectService;
-    private final NotificationService notificationService;
-    private final ManagerService managerService;
+    private final CompiledTestCache compiledTestCache;
+    private final CatalogCache catalogCache;
+    private final AnswerWriteBehindBuffer answerWriteBehindBuffer;
+    private final AttemptViewCache attemptViewCache;
+    private final OutboxService outboxService;
+    private final TesterStatsRollup testerStatsRollup;
+    private final DailyAttemptRollup dailyAttemptRollup;
+    private final LiveExamMonitor liveExamMonitor;
+    private final PrincipalSnapshotCache principalSnapshots;
 
 
     /**
      * Получение ВСЕХ доступных тестов С ПАГИНАЦИЕЙ (для каталога)
-     * Кэширование с учетом страницы и размера
+     * Кэширование с учетом страницы и размера до ближайшей границы окна доступности
      */
-    @Cacheable(value = "publishedTests",
-            key = "'all-tests-page-' + #page + '-' + #size",
-            unless = "#result == null or #result.isEmpty()")
     @Transactional(readOnly = true)
     public Page<TestInfoDTO> getAllAvailableTestsDTOPaginated(int page, int size) {
         log.info("Запрос всех доступных тестов (страница: {}, размер: {})", page, size);
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return testRepository.findPublishedTestInfoDTOsWithDates(LocalDateTime.now(),pageable);
+        return catalogCache.get("all-tests-page-" + page + "-" + size,
+                now -> testRepository.findPublishedTestInfoDTOsWithDates(now, pageable));
     }
     /**
      *  Получение тестов ПО КАТЕГОРИИ С ПАГИНАЦИЕЙ
      * Кэширование по ID категории + страница + размер
      */
-    @Cacheable(value = "publishedTests",
-            key = "'category-tests-page-' + #categoryId + '-' + #page + '-' + #size",
-            unless = "#result == null or #result.isEmpty()")
     @Transactional(readOnly = true)
     public Page<TestInfoDTO> getAvailableTestsByCategoryDTOPaginated(Long categoryId, int page, int size) {
         log.info("Запрос тестов категории ID: {} (страница: {}, размер: {})", categoryId, page, size);
@@ -65,10 +77,11 @@ public class TestPassingService {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
 
         if (categoryId == null) {
-            return testRepository.findPublishedTestInfoDTOsWithDates(LocalDateTime.now(),pageable);
+            return getAllAvailableTestsDTOPaginated(page, size);
         }
 
-        return testRepository.findPublishedTestInfoDTOsByCategoryIdWithDates(categoryId,LocalDateTime.now(), pageable);
+        return catalogCache.get("category-tests-page-" + categoryId + "-" + page + "-" + size,
+                now -> testRepository.findPublishedTestInfoDTOsByCategoryIdWithDates(categoryId, now, pageable));
     }
     /**
      * Получение теста для прохождения как DTO
@@ -80,39 +93,33 @@ public class TestPassingService {
             throw new RuntimeException("Для прохождения тестов необходимо заполнить профиль (ФИО)");
         }
 
-        // Загружаем тест без вопросов, чтобы узнать, retake ли он
-        Test testCheck = testRepository.findById(testId).orElse(null);
-        if (testCheck == null) {
+        // Снимок теста из кэша: вопросы, варианты и параметры доступности
+        CompiledTest compiled = compiledTestCache.get(testId).orElse(null);
+        if (compiled == null) {
             return Optional.empty();
         }
-        boolean isRetake = Boolean.TRUE.equals(testCheck.getRetake());
+        boolean isRetake = compiled.isRetake();
 
         if (!isRetake) {
             LocalDateTime now = LocalDateTime.now();
-            if (testCheck.getAvailableFrom() != null && testCheck.getAvailableFrom().isAfter(now)) {
-                throw new TestNotAvailableException("Тест станет доступен " + formatDateTime(testCheck.getAvailableFrom()));
+            if (compiled.getAvailableFrom() != null && compiled.getAvailableFrom().isAfter(now)) {
+                throw new TestNotAvailableException("Тест станет доступен " + formatDateTime(compiled.getAvailableFrom()));
+            }
+            if (compiled.getAvailableTo() != null && compiled.getAvailableTo().isBefore(now)) {
+                throw new TestNotAvailableException("Тест был доступен до " + formatDateTime(compiled.getAvailableTo()));
             }
-            if (testCheck.getAvailableTo() != null && testCheck.getAvailableTo().isBefore(now)) {
-                throw new TestNotAvailableException("Тест был доступен до " + formatDateTime(testCheck.getAvailableTo()));
+            if (!compiled.isPublished()) {
+                return Optional.empty();
             }
         }
 
-        // Загружаем тест с вопросами в зависимости от типа
-        Test test;
-        if (isRetake) {
-            test = testRepository.findByIdWithQuestions(testId).orElse(null);
-        } else {
-            test = testRepository.findByIdAndIsPublishedTrueWithQuestions(testId).orElse(null);
-        }
-        if (test == null) {
-            return Optional.empty();
-        }
+        Test test = testRepository.getReferenceById(testId);
 
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
 
-        // Проверка кулдауна только для обычных тестов
-        if (!isRetake && !cooldownService.canUserTakeTest(test, user)) {
+        // Проверка кулдауна только для обычных тестов с ограничением на повтор
+        if (!isRetake && compiled.isRetryCooldown() && !cooldownService.canUserTakeTest(test, user)) {
             LocalDateTime nextAvailable = cooldownService.getNextAvailableTime(test, user);
             String message = String.format(
                     "Вы уже проходили этот тест. Следующая попытка доступна %s",
@@ -131,64 +138,65 @@ public class TestPassingService {
         if (existingAttempt.isPresent()) {
             attempt = existingAttempt.get();
             attemptId = attempt.getId();
+            answerWriteBehindBuffer.flush(attemptId);
             log.info("Продолжение попытки ID: {}", attemptId);
         } else {
             attempt = new TestAttempt();
             attempt.setTest(test);
             attempt.setUser(user);
             attempt.setStartTime(LocalDateTime.now());
+            if (compiled.getTimeLimitMinutes() != null && compiled.getTimeLimitMinutes() > 0) {
+                attempt.setDeadlineAt(attempt.getStartTime().plusMinutes(compiled.getTimeLimitMinutes()));
+            }
             attempt.setStatus(TestAttempt.AttemptStatus.IN_PROGRESS);
+            attempt.setQuestionSeed(ThreadLocalRandom.current().nextLong());
             attempt.setTotalScore(0);
-            int questionCount = test.getQuestions() != null ? test.getQuestions().size() : 0;
-            attempt.setTotalQuestions(questionCount);
+            attempt.setTotalQuestions(compiled.getQuestionCount());
 
             TestAttempt savedAttempt = testAttemptRepository.save(attempt);
             attemptId = savedAttempt.getId();
             attempt = savedAttempt;
+            testerStatsRollup.refresh(List.of(attemptId));
+            dailyAttemptRollup.recordStarted(List.of(attemptId));
+            principalSnapshots.invalidateUser(user.getId());
             log.info("Создана новая попытка теста ID: {}", testId);
         }
 
-        List<Question> allQuestions = test.getQuestions();
-        Set<Long> answeredQuestionIds = userAnswerRepository.findByAttemptId(attemptId).stream()
-                .map(userAnswer -> userAnswer.getQuestion().getId())
-                .collect(Collectors.toSet());
+        // Порядок вопросов и отвеченные вопросы - из представления попытки
+        AttemptView view = attemptViewCache.get(attemptId)
+                .orElseThrow(() -> new RuntimeException("Попытка не найдена"));
 
-        log.info("Вопросов всего: {}, отвечено: {}", allQuestions.size(), answeredQuestionIds.size());
+        // На странице только неотвеченные вопросы; индексы в представлении нужны для JSON-навигации
+        List<QuestionForTakingDTO> questionDTOs = new ArrayList<>();
+        List<Integer> questionIndexes = new ArrayList<>();
+        for (int i = 0; i < view.getQuestionCount(); i++) {
+            CompiledTest.CompiledQuestion question = view.questionAt(i);
+            if (!view.isAnswered(question.id())) {
+                questionDTOs.add(convertToQuestionForTakingDTO(question));
+                questionIndexes.add(i);
+            }
+        }
 
-        List<Question> unansweredQuestions = allQuestions.stream()
-                .filter(q -> !answeredQuestionIds.contains(q.getId()))
-                .collect(Collectors.toList());
+        log.info("Вопросов всего: {}, отвечено: {}", view.getQuestionCount(), view.getAnsweredCount());
+        liveExamMonitor.attemptProgress(view.getTestId(), attemptId, view.getQuestionCount(),
+                view.getAnsweredCount(), 0);
 
-        if (unansweredQuestions.isEmpty()) {
+        if (questionDTOs.isEmpty()) {
             log.info("Все вопросы уже отвечены, тест следует завершить через кнопку");
             return Optional.empty();
         }
 
-        List<Question> shuffledUnanswered = new ArrayList<>(unansweredQuestions);
-        Collections.shuffle(shuffledUnanswered);
-
-        List<QuestionForTakingDTO> questionDTOs = shuffledUnanswered.stream()
-                .map(this::convertToQuestionForTakingDTO)
-                .collect(Collectors.toList());
-
-        questionDTOs = questionDTOs.stream()
-                .peek(question -> {
-                    if (question.getAnswerOptions() == null) {
-                        question.setAnswerOptions(new ArrayList<>());
-                    }
-                })
-                .collect(Collectors.toList());
-
         TestTakingDTO dto = new TestTakingDTO();
         dto.setAttemptId(attemptId);
-        dto.setTestId(test.getId());
-        dto.setTestTitle(test.getTitle());
-        dto.setTimeLimitMinutes(test.getTimeLimitMinutes());
+        dto.setTestId(view.getTestId());
+        dto.setTestTitle(view.getCompiled().getTitle());
+        dto.setTimeLimitMinutes(view.getCompiled().getTimeLimitMinutes());
         dto.setQuestions(questionDTOs);
-        dto.setTotalQuestions(allQuestions.size());
+        dto.setQuestionIndexes(questionIndexes);
+        dto.setTotalQuestions(view.getQuestionCount());
         dto.setCurrentQuestionIndex(0);
-        dto.setAnsweredQuestions(answeredQuestionIds.size());
-        dto.setRemainingQuestions(unansweredQuestions.size());
+        dto.setAnsweredQuestions(view.getAnsweredCount());
+        dto.setRemainingQuestions(questionDTOs.size());
 
         return Optional.of(dto);
     }
@@ -205,20 +213,49 @@ public class TestPassingService {
         return getTestForTaking(attempt.getTest().getId(), username);
     }
 
+    /**
+     * Один вопрос попытки по индексу из кэшированного представления попытки.
+     * Пусто, если попытка не найдена, завершена, чужая или индекс вне диапазона.
+     */
+    public Optional<AttemptQuestionDTO> getAttemptQuestion(Long attemptId, int questionIndex, String username) {
+        AttemptView view = attemptViewCache.get(attemptId).orElse(null);
+        if (view == null || !view.getUsername().equals(username)
+                || questionIndex < 0 || questionIndex >= view.getQuestionCount()) {
+            return Optional.empty();
+        }
+
+        CompiledTest.CompiledQuestion question = view.questionAt(questionIndex);
+        int answered = view.getAnsweredCount();
+
+        AttemptQuestionDTO dto = new AttemptQuestionDTO();
+        dto.setAttemptId(attemptId);
+        dto.setTestId(view.getTestId());
+        dto.setTestTitle(view.getCompiled().getTitle());
+        dto.setTestVersion(view.getCompiled().getVersion());
+        dto.setQuestionIndex(questionIndex);
+        dto.setTotalQuestions(view.getQuestionCount());
+        dto.setAnsweredQuestions(answered);
+        dto.setRemainingQuestions(view.getQuestionCount() - answered);
+        dto.setQuestion(convertToQuestionForTakingDTO(question));
+        dto.setAnswered(view.isAnswered(question.id()));
+        dto.setChosenAnswerOptionId(view.chosenOptionOf(question.id()));
+        return Optional.of(dto);
+    }
+
     private String formatDateTime(LocalDateTime dateTime) {
         java.time.format.DateTimeFormatter formatter =
                 java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
         return dateTime.format(formatter);
     }
 
-    private QuestionForTakingDTO convertToQuestionForTakingDTO(Question question) {
+    private QuestionForTakingDTO convertToQuestionForTakingDTO(CompiledTest.CompiledQuestion question) {
         QuestionForTakingDTO dto = new QuestionForTakingDTO();
-        dto.setId(question.getId());
-        dto.setText(question.getText());
-        dto.setOrderIndex(question.getOrderIndex());
+        dto.setId(question.id());
+        dto.setText(question.text());
+        dto.setOrderIndex(question.orderIndex());
 
-        if (question.getAnswerOptions() != null && !question.getAnswerOptions().isEmpty()) {
-            List<QuestionForTakingDTO.AnswerOptionForTakingDTO> answerDTOs = question.getAnswerOptions().stream()
+        if (!question.options().isEmpty()) {
+            List<QuestionForTakingDTO.AnswerOptionForTakingDTO> answerDTOs = question.options().stream()
                     .map(this::convertToAnswerOptionForTakingDTO)
                     .collect(Collectors.toList());
             dto.setAnswerOptions(answerDTOs);
@@ -227,10 +264,10 @@ public class TestPassingService {
         return dto;
     }
 
-    private QuestionForTakingDTO.AnswerOptionForTakingDTO convertToAnswerOptionForTakingDTO(AnswerOption answer) {
+    private QuestionForTakingDTO.AnswerOptionForTakingDTO convertToAnswerOptionForTakingDTO(CompiledTest.CompiledOption answer) {
         QuestionForTakingDTO.AnswerOptionForTakingDTO dto = new QuestionForTakingDTO.AnswerOptionForTakingDTO();
-        dto.setId(answer.getId());
-        dto.setText(answer.getText());
+        dto.setId(answer.id());
+        dto.setText(answer.text());
         return dto;
     }
 
@@ -251,41 +288,41 @@ public class TestPassingService {
             return;
         }
 
-        Question question = questionRepository.findById(testPassingDTO.getQuestionId())
-                .orElseThrow(() -> new RuntimeException("Вопрос не найден"));
+        CompiledTest compiled = compiledTestCache.get(attempt.getTest().getId())
+                .orElseThrow(() -> new RuntimeException("Тест не найден"));
 
-        if (!question.getTest().getId().equals(attempt.getTest().getId())) {
-            throw new RuntimeException("Вопрос не принадлежит этому тесту");
-        }
+        AnswerUpsert answer = toAnswerUpsert(attempt.getId(), testPassingDTO, compiled);
 
-        AnswerOption chosenAnswer = null;
-        Boolean isCorrect = false;
-        Integer points = 0;
+        if (answerWriteBehindBuffer.isEnabled()) {
+            Long attemptId = attempt.getId();
+            int answeredCount = answerWriteBehindBuffer.enqueue(answer, attempt.getDeadlineAt(),
+                    () -> userAnswerRepository.findAnsweredQuestionIdsByAttemptId(attemptId));
+            log.debug("Ответ поставлен в буфер для attemptId: {}, questionId: {}", attemptId, answer.questionId());
+            attemptViewCache.recordAnswers(attemptId, List.of(answer));
+            liveExamMonitor.attemptProgress(attempt.getTest().getId(), attemptId, compiled.getQuestionCount(),
+                    answeredCount, 1);
 
-        if (testPassingDTO.getAnswerOptionId() != null) {
-            chosenAnswer = answerOptionRepository.findById(testPassingDTO.getAnswerOptionId())
-                    .orElseThrow(() -> new RuntimeException("Вариант ответа не найден!"));
-            isCorrect = chosenAnswer.getIsCorrect();
-            points = isCorrect ? 1 : 0;
+            if (answeredCount >= compiled.getQuestionCount()) {
+                finishTestAndGetResults(attemptId, username);
+                log.info("Тест автоматически завершен после ответа на последний вопрос");
+            }
+            return;
         }
 
+        long answeredCount;
         try {
-            userAnswerRepository.upsertAnswer(
-                    attempt.getId(),
-                    question.getId(),
-                    testPassingDTO.getAnswerOptionId(),
-                    isCorrect,
-                    points
-            );
+            answeredCount = userAnswerRepository.upsertAnswerAndCount(answer);
             log.debug("Ответ сохранен через UPSERT для attemptId: {}, questionId: {}",
-                    attempt.getId(), question.getId());
+                    attempt.getId(), answer.questionId());
+            attemptViewCache.recordAnswers(attempt.getId(), List.of(answer));
+            liveExamMonitor.attemptProgress(attempt.getTest().getId(), attempt.getId(), compiled.getQuestionCount(),
+                    (int) answeredCount, 1);
         } catch (Exception e) {
             log.error("Ошибка при UPSERT ответа", e);
             throw new RuntimeException("Не удалось сохранить ответ", e);
         }
 
-        long answeredCount = userAnswerRepository.countByAttemptId(attempt.getId());
-        long totalQuestions = attempt.getTest().getQuestions().size();
+        long totalQuestions = compiled.getQuestionCount();
 
         if (answeredCount >= totalQuestions) {
             finishTestAndGetResults(attempt.getId(), username);
@@ -293,25 +330,98 @@ public class TestPassingService {
         }
 
     }
+
+    /**
+     * Пакетное сохранение ответов в одной транзакции одним UPSERT.
+     * Ответы с номерами последовательности, не превышающими сохранённые, игнорируются,
+     * поэтому повторная отправка пакета безопасна.
+     */
+    @Transactional
+    public void saveAnswers(Long attemptId, List<TestPassingDTO> answers, String username) {
+        TestAttempt attempt = testAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new RuntimeException("Попытка не найдена!"));
+
+        if (!attempt.getUser().getUsername().equals(username)) {
+            throw new RuntimeException("Нет прав доступа к этой попытке!");
+        }
+
+        if (attempt.getStatus() != TestAttempt.AttemptStatus.IN_PROGRESS) {
+            log.info("Попытка ID: {} уже завершена, пропускаем сохранение {} ответов", attemptId, answers.size());
+            return;
+        }
+
+        if (answers.isEmpty()) {
+            return;
+        }
+
+        CompiledTest compiled = compiledTestCache.get(attempt.getTest().getId())
+                .orElseThrow(() -> new RuntimeException("Тест не найден"));
+
+        List<AnswerUpsert> upserts = answers.stream()
+                .map(dto -> toAnswerUpsert(attemptId, dto, compiled))
+                .toList();
+
+        int answeredCount = 0;
+        if (answerWriteBehindBuffer.isEnabled()) {
+            for (AnswerUpsert upsert : upserts) {
+                answeredCount = answerWriteBehindBuffer.enqueue(upsert, attempt.getDeadlineAt(),
+                        () -> userAnswerRepository.findAnsweredQuestionIdsByAttemptId(attemptId));
+            }
+        } else {
+            try {
+                userAnswerRepository.upsertAnswers(upserts);
+            } catch (Exception e) {
+                log.error("Ошибка при пакетном UPSERT ответов", e);
+                throw new RuntimeException("Не удалось сохранить ответы", e);
+            }
+            Integer persistedCount = testAttemptRepository.findAnsweredCountById(attemptId);
+            answeredCount = persistedCount != null ? persistedCount : 0;
+        }
+        log.debug("Сохранено {} ответов пакетом для attemptId: {}", upserts.size(), attemptId);
+        attemptViewCache.recordAnswers(attemptId, upserts);
+        liveExamMonitor.attemptProgress(attempt.getTest().getId(), attemptId, compiled.getQuestionCount(),
+                answeredCount, upserts.size());
+
+        if (answeredCount >= compiled.getQuestionCount()) {
+            finishTestAndGetResults(attemptId, username);
+            log.info("Тест автоматически завершен после пакета с последним ответом");
+        }
+    }
+
+    private AnswerUpsert toAnswerUpsert(Long attemptId, TestPassingDTO testPassingDTO, CompiledTest compiled) {
+        Long questionId = testPassingDTO.getQuestionId();
+        if (questionId == null || !compiled.containsQuestion(questionId)) {
+            throw new RuntimeException("Вопрос не принадлежит этому тесту");
+        }
+
+        Boolean isCorrect = false;
+        Integer points = 0;
+
+        if (testPassingDTO.getAnswerOptionId() != null) {
+            if (!compiled.isOptionOfQuestion(testPassingDTO.getAnswerOptionId(), questionId)) {
+                throw new RuntimeException("Вариант ответа не найден!");
+            }
+            isCorrect = compiled.isOptionCorrect(testPassingDTO.getAnswerOptionId());
+            points = isCorrect ? 1 : 0;
+        }
+
+        return new AnswerUpsert(attemptId, questionId, testPassingDTO.getAnswerOptionId(),
+                isCorrect, points, testPassingDTO.getSequence());
+    }
+
     /**
      * Получение ВСЕХ доступных тестов (без пагинации, для дашборда)
      * С кэшированием - ключ 'all-tests-list'
      */
-    @Cacheable(value = "publishedTests",
-            key = "'all-tests-list'",
-            unless = "#result == null or #result.isEmpty()")
     @Transactional(readOnly = true)
     public List<TestInfoDTO> getAllAvailableTestsDTO() {
         log.info("Запрос всех доступных тестов (список)");
-        return testRepository.findAllPublishedTestInfoDTOsWithDates(LocalDateTime.now());
+        return catalogCache.get("all-tests-list", testRepository::findAllPublishedTestInfoDTOsWithDates);
     }
     /**
      * Получение тестов ПО КАТЕГОРИИ (без пагинации)
      * Кэширование по ID категории
      */
-    @Cacheable(value = "publishedTests",
-            key = "'category-tests-list-' + #categoryId",
-            unless = "#result == null or #result.isEmpty()")
     @Transactional(readOnly = true)
     public List<TestInfoDTO> getAvailableTestsByCategoryDTO(Long categoryId) {
         log.info("Запрос тестов категории ID: {} (список)", categoryId);
@@ -320,7 +430,8 @@ public class TestPassingService {
             return getAllAvailableTestsDTO();
         }
 
-        return testRepository.findPublishedTestInfoDTOsByCategoryIdWithDates(categoryId,LocalDateTime.now());
+        return catalogCache.get("category-tests-list-" + categoryId,
+                now -> testRepository.findPublishedTestInfoDTOsByCategoryIdWithDates(categoryId, now));
     }
     /**
      * Завершение теста и получение результатов как DTO
@@ -334,48 +445,32 @@ public class TestPassingService {
             throw new RuntimeException("Нет доступа к этой попытке");
         }
 
-        if (attempt.getStatus() == TestAttempt.AttemptStatus.COMPLETED) {
-            log.info("Попытка ID: {} уже завершена, возвращаем результаты", attemptId);
+        // Попытка могла быть закрыта по истечении времени (TIMEOUT) - результат уже зафиксирован
+        if (attempt.getStatus() != TestAttempt.AttemptStatus.IN_PROGRESS) {
+            log.info("Попытка ID: {} уже завершена ({}), возвращаем результаты", attemptId, attempt.getStatus());
             return getTestResults(attemptId, username);
         }
 
-        // Пересчитываем totalScore из ответов
-        int recalculatedTotalScore = userAnswerRepository.sumPointsEarnedByAttemptId(attemptId);
-        if (recalculatedTotalScore < 0) recalculatedTotalScore = 0;
+        // Буферизованные ответы должны попасть в БД до подсчёта результата
+        answerWriteBehindBuffer.flush(attemptId);
+
+        // Итоговый балл из счётчика попытки, поддерживаемого при UPSERT ответов
+        int recalculatedTotalScore = currentRunningScore(attemptId);
         attempt.setTotalScore(recalculatedTotalScore);
 
         attempt.setStatus(TestAttempt.AttemptStatus.COMPLETED);
         attempt.setEndTime(LocalDateTime.now());
         testAttemptRepository.save(attempt);
+        testerStatsRollup.refresh(List.of(attemptId));
+        dailyAttemptRollup.recordFinished(List.of(attemptId));
+        liveExamMonitor.attemptsFinished(List.of(attemptId));
+        principalSnapshots.invalidateUser(attempt.getUser().getId());
         log.info("Завершена попытка теста ID: {}, итоговый балл: {}", attempt.getTest().getId(), recalculatedTotalScore);
+        answerWriteBehindBuffer.discard(attemptId);
+        attemptViewCache.evict(attemptId);
 
-        // ==== Уведомление менеджеров ====
-        List<User> managers = managerService.getManagersForTester(attempt.getUser().getId());
-        if (managers != null && !managers.isEmpty()) {
-            String fullName = attempt.getUser().getFirstName() + " " + attempt.getUser().getLastName();
-            Test test = attempt.getTest();
-            int totalQuestions = attempt.getTotalQuestions() != null
-                    ? attempt.getTotalQuestions()
-                    : test.getQuestions().size();
-            double percentage = totalQuestions > 0
-                    ? (double) recalculatedTotalScore / totalQuestions * 100
-                    : 0;
-
-            for (User manager : managers) {
-                notificationService.createNotification(
-                        manager,
-                        String.format("Тестировщик %s завершил тест «%s» с результатом %d/%d (%.1f%%)",
-                                fullName,
-                                test.getTitle(),
-                                recalculatedTotalScore,
-                                totalQuestions,
-                                percentage),
-                        Notification.NotificationType.ATTEMPT_COMPLETED,
-                        attempt.getId()      // relatedEntityId = attemptId
-                );
-            }
-        }
-        // =============================================
+        // Уведомления менеджеров доставляются фоново из outbox, вне транзакции завершения
+        outboxService.enqueue(OutboxEvent.EventType.ATTEMPT_COMPLETED, attemptId);
 
         return getTestResults(attemptId, username);
     }
@@ -392,15 +487,16 @@ public class TestPassingService {
             throw new RuntimeException("Нет доступа к этой попытке");
         }
 
-        Test test = attempt.getTest();
+        CompiledTest compiled = compiledTestCache.get(attempt.getTest().getId())
+                .orElseThrow(() -> new RuntimeException("Тест не найден"));
 
         List<UserAnswer> userAnswers = userAnswerRepository.findByAttemptId(attemptId);
 
         List<QuestionResultDTO> questionResults = userAnswers.stream()
-                .map(this::convertToQuestionResultDTO)
+                .map(userAnswer -> convertToQuestionResultDTO(userAnswer, compiled))
                 .collect(Collectors.toList());
 
-        int totalQuestions = test.getQuestions().size();
+        int totalQuestions = compiled.getQuestionCount();
         int answeredQuestions = userAnswers.size();
         int correctAnswers = (int) userAnswers.stream()
                 .filter(answer -> Boolean.TRUE.equals(answer.getIsCorrect()))
@@ -408,24 +504,23 @@ public class TestPassingService {
         int maxPossibleScore = totalQuestions;
 
 
-        // Пересчитываем totalScore из ответов (сумма баллов)
-        int recalculatedTotalScore = userAnswerRepository.sumPointsEarnedByAttemptId(attemptId);
-        if (recalculatedTotalScore < 0) recalculatedTotalScore = 0;
+        // Сумма баллов из счётчика попытки
+        int recalculatedTotalScore = currentRunningScore(attemptId);
 
 
         TestResultsDTO dto = new TestResultsDTO();
-        if (test.getPassThresholdPercent() != null && test.getPassThresholdPercent() > 0
-                && test.getReTestOnFail() != null && test.getReTestOnFail()
-                && test.getRetakeTest() != null) {
+        if (compiled.getPassThresholdPercent() != null && compiled.getPassThresholdPercent() > 0
+                && compiled.isReTestOnFail()
+                && compiled.getRetakeTestId() != null) {
             double percentage = (double) correctAnswers / totalQuestions * 100.0;
-            if (percentage < test.getPassThresholdPercent()) {
+            if (percentage < compiled.getPassThresholdPercent()) {
                 dto.setBelowThreshold(true);
-                dto.setRetakeTestId(test.getRetakeTest().getId());
+                dto.setRetakeTestId(compiled.getRetakeTestId());
             }
         }
         dto.setAttemptId(attempt.getId());
-        dto.setTestId(test.getId());
-        dto.setTestTitle(test.getTitle());
+        dto.setTestId(compiled.getTestId());
+        dto.setTestTitle(compiled.getTitle());
         dto.setStartTime(attempt.getStartTime());
         dto.setEndTime(attempt.getEndTime());
         dto.setTotalScore(recalculatedTotalScore);
@@ -438,33 +533,44 @@ public class TestPassingService {
         return dto;
     }
 
-    private QuestionResultDTO convertToQuestionResultDTO(UserAnswer userAnswer) {
+    /**
+     * Текущий балл попытки. Читается запросом, а не из сущности:
+     * счётчик обновляется SQL-запросом в обход контекста персистентности
+     */
+    private int currentRunningScore(Long attemptId) {
+        Integer runningScore = testAttemptRepository.findRunningScoreById(attemptId);
+        return runningScore != null && runningScore > 0 ? runningScore : 0;
+    }
+
+    private QuestionResultDTO convertToQuestionResultDTO(UserAnswer userAnswer, CompiledTest compiled) {
         QuestionResultDTO dto = new QuestionResultDTO();
 
-        if (userAnswer.getQuestion() == null) {
-            dto.setQuestionId(null);
+        CompiledTest.CompiledQuestion question = userAnswer.getQuestion() != null
+                ? compiled.findQuestion(userAnswer.getQuestion().getId())
+                : null;
+
+        if (question == null) {
+            dto.setQuestionId(userAnswer.getQuestion() != null ? userAnswer.getQuestion().getId() : null);
             dto.setQuestionText("Вопрос не найден");
         } else {
-            dto.setQuestionId(userAnswer.getQuestion().getId());
-            dto.setQuestionText(userAnswer.getQuestion().getText());
+            dto.setQuestionId(question.id());
+            dto.setQuestionText(question.text());
         }
 
         if (userAnswer.getChosenAnswerOption() != null) {
-            dto.setChosenAnswerId(userAnswer.getChosenAnswerOption().getId());
-            dto.setChosenAnswerText(userAnswer.getChosenAnswerOption().getText());
+            Long chosenId = userAnswer.getChosenAnswerOption().getId();
+            String chosenText = compiled.findOptionText(chosenId);
+            dto.setChosenAnswerId(chosenId);
+            dto.setChosenAnswerText(chosenText != null ? chosenText : userAnswer.getChosenAnswerOption().getText());
         } else {
             dto.setChosenAnswerId(null);
             dto.setChosenAnswerText("Ответ не предоставлен");
         }
 
-        if (userAnswer.getQuestion() != null && userAnswer.getQuestion().getAnswerOptions() != null) {
-            Optional<AnswerOption> correctAnswer = userAnswer.getQuestion().getAnswerOptions().stream()
-                    .filter(AnswerOption::getIsCorrect)
-                    .findFirst();
-
-            if (correctAnswer.isPresent()) {
-                dto.setCorrectAnswerId(correctAnswer.get().getId());
-                dto.setCorrectAnswerText(correctAnswer.get().getText());
+        if (question != null && !question.options().isEmpty()) {
+            if (question.hasCorrectOption()) {
+                dto.setCorrectAnswerId(question.correctOptionId());
+                dto.setCorrectAnswerText(question.correctOptionText());
             } else {
                 dto.setCorrectAnswerId(null);
                 dto.setCorrectAnswerText("Правильный ответ не указан");
@@ -485,11 +591,10 @@ public class TestPassingService {
      */
     @Transactional(readOnly = true)
     public Page<TestHistoryDTO> getUserTestHistory(String username, int page, int size, String status) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+        Long userId = principalSnapshots.getRequired(username).userId();
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("startTime").descending());
-        Page<TestHistoryDTO> historyPage = testAttemptRepository.findTestHistoryDTOsByUserId(user.getId(), pageable);
+        Page<TestHistoryDTO> historyPage = testAttemptRepository.findTestHistoryDTOsByUserId(userId, pageable);
 
         if (status != null && !status.isEmpty()) {
             try {
@@ -500,32 +605,15 @@ public class TestPassingService {
                 historyPage = new PageImpl<>(filtered, pageable, filtered.size());
             } catch (IllegalArgumentException e) {
                 // Если передан некорректный статус – возвращаем все
-                historyPage = testAttemptRepository.findTestHistoryDTOsByUserId(user.getId(), pageable);
+                historyPage = testAttemptRepository.findTestHistoryDTOsByUserId(userId, pageable);
             }
         }
 
 
-// Собираем ID только незавершённых попыток
-        List<Long> inProgressIds = historyPage.getContent().stream()
-                .filter(dto -> dto.getStatus() == TestAttempt.AttemptStatus.IN_PROGRESS)
-                .map(TestHistoryDTO::getAttemptId)
-                .collect(Collectors.toList());
-
-// Получаем количество ответов для этих попыток
-        Map<Long, Long> answeredCounts = new HashMap<>();
-        if (!inProgressIds.isEmpty()) {
-            List<Object[]> results = userAnswerRepository.countByAttemptIds(inProgressIds);
-            for (Object[] row : results) {
-                answeredCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
-            }
-        }
-
-// Заполняем прогресс
+        // Прогресс незавершённых попыток по счётчику отвеченных вопросов
         for (TestHistoryDTO dto : historyPage.getContent()) {
             if (dto.getStatus() == TestAttempt.AttemptStatus.IN_PROGRESS) {
-                Long answered = answeredCounts.getOrDefault(dto.getAttemptId(), 0L);
-                Long total = dto.getMaxPossibleScore();
-                dto.setProgressPercentage(total != null && total > 0 ? (int) (answered * 100 / total) : 0);
+                dto.setProgressPercentage(calculateProgress(dto));
             } else {
                 dto.setProgressPercentage(100);
             }
@@ -538,37 +626,14 @@ public class TestPassingService {
      */
     @Transactional(readOnly = true)
     public List<TestHistoryDTO> getUserTestHistory(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+        Long userId = principalSnapshots.getRequired(username).userId();
 
         Pageable pageable = PageRequest.of(0, 10, Sort.by("startTime").descending());
-        Page<TestHistoryDTO> historyPage = testAttemptRepository.findTestHistoryDTOsByUserId(user.getId(), pageable);
-
-        List<Long> attemptIds = historyPage.getContent().stream()
-                .map(TestHistoryDTO::getAttemptId)
-                .collect(Collectors.toList());
-
-        Map<Long, Long> answeredCounts = new HashMap<>();
-        if (!attemptIds.isEmpty()) {
-            List<Object[]> results = userAnswerRepository.countByAttemptIds(attemptIds);
-            for (Object[] result : results) {
-                if (result.length >= 2) {
-                    Long attemptId = ((Number) result[0]).longValue();
-                    Long count = ((Number) result[1]).longValue();
-                    answeredCounts.put(attemptId, count);
-                }
-            }
-        }
+        Page<TestHistoryDTO> historyPage = testAttemptRepository.findTestHistoryDTOsByUserId(userId, pageable);
 
         for (TestHistoryDTO dto : historyPage.getContent()) {
             if (dto.getStatus() == TestAttempt.AttemptStatus.IN_PROGRESS) {
-                Long answered = answeredCounts.getOrDefault(dto.getAttemptId(), 0L);
-                Long total = dto.getMaxPossibleScore();
-                if (total != null && total > 0) {
-                    dto.setProgressPercentage((int) (answered * 100 / total));
-                } else {
-                    dto.setProgressPercentage(0);
-                }
+                dto.setProgressPercentage(calculateProgress(dto));
             } else {
                 dto.setProgressPercentage(100);
             }
@@ -577,23 +642,28 @@ public class TestPassingService {
         return historyPage.getContent();
     }
 
+    private int calculateProgress(TestHistoryDTO dto) {
+        long answered = dto.getAnsweredCount() != null ? dto.getAnsweredCount() : 0;
+        Long total = dto.getMaxPossibleScore();
+        return total != null && total > 0 ? (int) (answered * 100 / total) : 0;
+    }
+
     /**
      * Получение статистики пользователя
      */
     @Transactional(readOnly = true)
     public UserStatisticsDTO getUserStatistics(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+        Long userId = principalSnapshots.getRequired(username).userId();
 
         UserStatisticsDTO statistics = new UserStatisticsDTO();
 
-        statistics.setTotalAttempts(testAttemptRepository.countByUserId(user.getId()));
+        statistics.setTotalAttempts(testAttemptRepository.countByUserId(userId));
         statistics.setCompletedAttempts(testAttemptRepository.countByUserIdAndStatus(
-                user.getId(), TestAttempt.AttemptStatus.COMPLETED));
+                userId, TestAttempt.AttemptStatus.COMPLETED));
         statistics.setInProgressAttempts(testAttemptRepository.countByUserIdAndStatus(
-                user.getId(), TestAttempt.AttemptStatus.IN_PROGRESS));
+                userId, TestAttempt.AttemptStatus.IN_PROGRESS));
 
-        Double averageScore = testAttemptRepository.findAverageScoreByUserId(user.getId());
+        Double averageScore = testAttemptRepository.findAverageScoreByUserId(userId);
         statistics.setAverageScore(averageScore != null ? averageScore : 0.0);
 
         return statistics;
@@ -635,11 +705,8 @@ public class TestPassingService {
     /**
      * Активно ли прохождение теста
      */
-    @Transactional(readOnly = true)
     public boolean hasActiveAttempt(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
-        return testAttemptRepository.existsByUserIdAndStatus(user.getId(), TestAttempt.AttemptStatus.IN_PROGRESS);
+        return principalSnapshots.getRequired(username).hasActiveAttempt();
     }
 
 }
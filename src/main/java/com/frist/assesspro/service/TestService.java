@@ -8,10 +8,11 @@ import com.frist.assesspro.entity.*;
 import com.frist.assesspro.mapper.TestMapper;
 import com.frist.assesspro.repository.*;
 import com.frist.assesspro.repository.specification.TestSpecifications;
+import com.frist.assesspro.service.taking.CatalogCache;
+import com.frist.assesspro.service.taking.CompiledTestCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -35,6 +36,8 @@ public class TestService {
     private final CategoryRepository categoryRepository;
     private final TestMapper testMapper;
     private final NotificationService notificationService;
+    private final CompiledTestCache compiledTestCache;
+    private final CatalogCache catalogCache;
 
     private static final int MAX_TITLE_LENGTH = 200;
     private static final int MAX_DESCRIPTION_LENGTH = 1000;
@@ -170,7 +173,6 @@ public class TestService {
     /**
      * Обновление теста
      */
-    @CacheEvict(value = "publishedTests", allEntries = true)
     @Transactional
     public Test updateTest(Long testId, TestUpdateDTO updateDTO, String username) {
         Test existingTest = testRepository.findById(testId)
@@ -231,6 +233,8 @@ public class TestService {
 
 
         Test updatedTest = testRepository.save(existingTest);
+        compiledTestCache.invalidate(testId);
+        catalogCache.invalidate();
         log.info("Обновлен тест: {}, ограничение на повтор: {}",
                 updatedTest.getTitle(), updatedTest.getRetryCooldownDisplay());
 
@@ -240,7 +244,6 @@ public class TestService {
     /**
      * Публикация/снятие с публикации теста
      */
-    @CacheEvict(value = "publishedTests", allEntries = true)
     @Transactional
     public Test switchPublishStatus(Long testId, String username, boolean publish) {
         User creator = userRepository.findByUsername(username)
@@ -283,7 +286,10 @@ public class TestService {
         }
 
         test.setIsPublished(publish);
-        return testRepository.save(test);
+        Test savedTest = testRepository.save(test);
+        compiledTestCache.invalidate(testId);
+        catalogCache.invalidate();
+        return savedTest;
     }
 
 
@@ -323,6 +329,8 @@ public class TestService {
         }
 
         testRepository.delete(test);
+        compiledTestCache.invalidate(testId);
+        catalogCache.invalidate();
 
         log.info("Тест '{}' (ID: {}) успешно удален", test.getTitle(), testId);
     }
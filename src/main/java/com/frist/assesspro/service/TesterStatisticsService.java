@@ -3,12 +3,22 @@ package com.frist.assesspro.service;
 import com.frist.assesspro.dto.statistics.*;
 import com.frist.assesspro.entity.*;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.AttemptCursor;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterScope;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterStatsRow;
+import com.frist.assesspro.service.statistics.AttemptColumnStore;
+import com.frist.assesspro.service.statistics.TestSummaryCache;
+import com.frist.assesspro.service.statistics.TesterOverviewCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +41,9 @@ public class TesterStatisticsService {
     private final TestRepository testRepository;
     private final UserRepository userRepository;
     private final RetryCooldownExceptionRepository exceptionRepository;
+    private final TestSummaryCache testSummaryCache;
+    private final TesterOverviewCache testerOverviewCache;
+    private final AttemptColumnStore attemptColumnStore;
 
     /**
      * 1. Получить список всех тестировщиков, проходивших тест
@@ -52,14 +66,74 @@ public class TesterStatisticsService {
                                                    Pageable pageable) {
         validateTestExists(testId, creatorUsername);
 
-        Page<TestAttempt> attemptsPage;
-        if (search != null && !search.trim().isEmpty()) {
-            attemptsPage = testAttemptRepository.searchByTestIdWithUser(testId, search.trim(), pageable);
-        } else {
-            attemptsPage = testAttemptRepository.findByTestIdWithUser(testId, pageable);
+        Page<Long> idPage = testAttemptRepository.findAttemptIdPage(testId, normalizeSearch(search), TesterScope.all(), pageable);
+        return new PageImpl<>(loadAttemptDTOs(idPage.getContent()), pageable, idPage.getTotalElements());
+    }
+
+    /**
+     * Список попыток теста в режиме курсора: следующие size попыток после cursor (null - с начала).
+     * Глубокие страницы стоят столько же, сколько первая; общее число записей не считается.
+     */
+    @Transactional(readOnly = true)
+    public Slice<TesterAttemptDTO> getTestersByTestAfter(Long testId,
+                                                         String creatorUsername,
+                                                         String search,
+                                                         AttemptCursor cursor,
+                                                         int size) {
+        validateTestExists(testId, creatorUsername);
+
+        // Лишняя запись показывает, есть ли следующая порция
+        List<Long> ids = testAttemptRepository.findAttemptIdsAfter(
+                testId, normalizeSearch(search), TesterScope.all(), cursor, size + 1);
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        return new SliceImpl<>(loadAttemptDTOs(pageIds), PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Вторая фаза списка попыток: строки страницы одним запросом в порядке идентификаторов
+     */
+    @Transactional(readOnly = true)
+    public List<TesterAttemptDTO> loadAttemptDTOs(List<Long> attemptIds) {
+        if (attemptIds.isEmpty()) {
+            return List.of();
         }
+        Map<Long, AttemptListProjection> rows = testAttemptRepository.findListRowsByIdIn(attemptIds).stream()
+                .collect(Collectors.toMap(AttemptListProjection::getId, Function.identity()));
+        return attemptIds.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToTesterAttemptDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Конвертация строки списка попыток в TesterAttemptDTO
+     */
+    public TesterAttemptDTO convertToTesterAttemptDTO(AttemptListProjection row) {
+        TesterAttemptDTO dto = new TesterAttemptDTO();
+        dto.setAttemptId(row.getId());
+        dto.setTestId(row.getTestId());
+        dto.setTestTitle(row.getTestTitle());
+        dto.setTesterUsername(row.getUsername());
+        dto.setTesterFullName(User.fullName(row.getUsername(), row.getLastName(), row.getFirstName(), row.getMiddleName()));
+        dto.setStartTime(row.getStartTime());
+        dto.setEndTime(row.getEndTime());
+        dto.setScore(row.getTotalScore() != null ? row.getTotalScore() : 0);
+
+        Integer questionCount = row.getTotalQuestions();
+        if (questionCount == null || questionCount == 0) {
+            questionCount = row.getQuestionCount() != null ? row.getQuestionCount() : 0;
+        }
+        dto.setMaxScore(questionCount);
+        dto.setPercentage(questionCount > 0 ? (double) dto.getScore() / questionCount * 100 : 0.0);
+        dto.setDurationMinutes(calculateDurationMinutes(dto.getStartTime(), dto.getEndTime()));
+
+        return dto;
+    }
 
-        return attemptsPage.map(this::convertToTesterAttemptDTO);
+    private static String normalizeSearch(String search) {
+        return search != null && !search.trim().isEmpty() ? search.trim() : null;
     }
 
     /**
@@ -146,46 +220,22 @@ public class TesterStatisticsService {
     @Transactional(readOnly = true)
     public TestSummaryDTO getTestSummary(Long testId, String creatorUsername) {
         validateTestExists(testId, creatorUsername);
-        Test test = testRepository.findById(testId)
-                .orElseThrow(() -> new RuntimeException("Тест не найден"));
-        List<TestAttempt> attempts = testAttemptRepository.findByTestId(testId);
-
-        long totalAttempts = attempts.size();
-        long uniqueTesters = attempts.stream()
-                .map(attempt -> attempt.getUser().getId())
-                .distinct()
-                .count();
-
-        List<TestAttempt> completedAttempts = attempts.stream()
-                .filter(a -> a.getStatus() == TestAttempt.AttemptStatus.COMPLETED)
-                .collect(Collectors.toList());
-
-        double averageScore = completedAttempts.stream()
-                .mapToInt(a -> a.getTotalScore() != null ? a.getTotalScore() : 0)
-                .average()
-                .orElse(0.0);
-
-        double bestScore = completedAttempts.stream()
-                .mapToInt(a -> a.getTotalScore() != null ? a.getTotalScore() : 0)
-                .max()
-                .orElse(0);
-
-        int maxPossibleScore = test.getQuestionCount();
-        double averagePercentage = maxPossibleScore > 0 ? (averageScore / maxPossibleScore) * 100 : 0;
-        double bestPercentage = maxPossibleScore > 0 ? (bestScore / maxPossibleScore) * 100 : 0;
-
-        TestSummaryDTO summary = calculateTestSummary(test, attempts);
-
-        summary.setTotalAttempts(totalAttempts);
-        summary.setUniqueTesters(uniqueTesters);
-        summary.setAverageScore(averagePercentage);
-        summary.setBestScore(bestPercentage);
+        // Число вопросов считается по самим вопросам: колонка question_count при их изменении не обновляется
+        int questionCount = testRepository.countQuestionsByTestId(testId);
 
-        return summary;
+        TestScoreSummary scores;
+        if (attemptColumnStore.isEnabled()) {
+            scores = attemptColumnStore.summarize(testId, questionCount, TesterScope.all());
+        } else {
+            scores = testSummaryCache.get(testId, questionCount,
+                    () -> testAttemptRepository.summarizeTestScores(testId, questionCount, TesterScope.all()));
+        }
+        return toTestSummaryDTO(scores);
     }
 
     /**
-     * 6. Агрегированная статистика по тестировщикам (группировка всех попыток одного тестировщика)
+     * 6. Агрегированная статистика по тестировщикам (группировка всех попыток одного тестировщика).
+     * Страница и сортировка - из сводки test_tester_stats, попытки загружаются только для тестировщиков страницы
      */
     @Transactional(readOnly = true)
     public Page<TesterAggregatedStatsDTO> getAggregatedTestersByTest(
@@ -197,25 +247,22 @@ public class TesterStatisticsService {
 
         validateTestExists(testId, creatorUsername);
 
-        boolean fromNull = (dateFrom == null);
-        boolean toNull = (dateTo == null);
-        List<TestAttempt> allAttempts = testAttemptRepository.findByTestIdAndDateRange(testId,fromNull,dateFrom,toNull,dateTo);
-
-        Map<User, List<TestAttempt>> attemptsByTester = allAttempts.stream()
-                .collect(Collectors.groupingBy(TestAttempt::getUser));
+        Page<TesterStatsRow> statsPage = testAttemptRepository.findTesterStats(testId, dateFrom, dateTo, pageable);
+        if (statsPage.isEmpty()) {
+            return statsPage.map(row -> toAggregatedStatsDTO(row, List.of()));
+        }
 
-        List<TesterAggregatedStatsDTO> aggregatedList = attemptsByTester.entrySet().stream()
-                .map(entry -> buildTesterAggregatedStats(entry.getKey(), entry.getValue()))
+        List<Long> testerIds = statsPage.getContent().stream()
+                .map(TesterStatsRow::testerId)
                 .collect(Collectors.toList());
-
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), aggregatedList.size());
-
-        return new PageImpl<>(
-                aggregatedList.subList(start, end),
-                pageable,
-                aggregatedList.size()
-        );
+        Map<Long, List<TestAttempt>> attemptsByTester = testAttemptRepository
+                .findByTestIdAndUserIdsAndDateRange(testId, testerIds,
+                        dateFrom == null, dateFrom, dateTo == null, dateTo)
+                .stream()
+                .collect(Collectors.groupingBy(attempt -> attempt.getUser().getId()));
+
+        return statsPage.map(row -> toAggregatedStatsDTO(row,
+                attemptsByTester.getOrDefault(row.testerId(), List.of())));
     }
 
     /**
@@ -232,98 +279,44 @@ public class TesterStatisticsService {
         User tester = userRepository.findByUsername(testerUsername)
                 .orElseThrow(() -> new RuntimeException("Тестировщик не найден"));
 
-        List<TestAttempt> testerAttempts = testAttemptRepository.findByTestId(testId).stream()
-                .filter(attempt -> attempt.getUser().getId().equals(tester.getId()))
-                .collect(Collectors.toList());
-
-        return buildTesterAggregatedStats(tester, testerAttempts);
+        List<TestAttempt> testerAttempts = testAttemptRepository.findByTestIdAndUserIdsAndDateRange(
+                testId, List.of(tester.getId()), true, null, true, null);
+
+        return testAttemptRepository.findTesterStats(testId, tester.getId())
+                .map(row -> toAggregatedStatsDTO(row, testerAttempts))
+                .orElseGet(() -> new TesterAggregatedStatsDTO(
+                        tester.getUsername(),
+                        tester.getId(),
+                        0L, 0L, 0.0, 0.0, 0.0, 0L,
+                        null, null, List.of(), List.of()
+                ));
     }
 
     /**
-     * 8. Построение агрегированной статистики тестировщика
+     * 8. Построение агрегированной статистики тестировщика из строки сводки и его попыток
+     * (попытки отсортированы по времени начала, новые первыми)
      */
-    private TesterAggregatedStatsDTO buildTesterAggregatedStats(User tester, List<TestAttempt> attempts) {
-        if (attempts.isEmpty()) {
-            return new TesterAggregatedStatsDTO(
-                    tester.getUsername(),
-                    tester.getId(),
-                    0L, 0L, 0.0, 0.0, 0.0, 0L,
-                    null, null, List.of(), List.of()
-            );
-        }
-
-        long totalAttempts = attempts.size();
-        long completedAttempts = attempts.stream()
-                .filter(a -> a.getStatus() == TestAttempt.AttemptStatus.COMPLETED)
-                .count();
-
-        List<Double> percentages = attempts.stream()
-                .filter(a -> a.getStatus() == TestAttempt.AttemptStatus.COMPLETED)
-                .map(attempt -> {
-                    int totalQuestions = attempt.getTest().getQuestions() != null ?
-                            attempt.getTest().getQuestions().size() : 0;
-                    if (totalQuestions > 0) {
-                        return (double) (attempt.getTotalScore() != null ? attempt.getTotalScore() : 0)
-                                / totalQuestions * 100;
-                    }
-                    return 0.0;
-                })
-                .filter(p -> p > 0)
-                .collect(Collectors.toList());
-
-        Double averagePercentage = percentages.stream()
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-
-        Double bestPercentage = percentages.stream()
-                .mapToDouble(Double::doubleValue)
-                .max()
-                .orElse(0.0);
-
-        Double worstPercentage = percentages.stream()
-                .mapToDouble(Double::doubleValue)
-                .min()
-                .orElse(0.0);
-
-        Long totalDurationMinutes = attempts.stream()
-                .filter(a -> a.getStartTime() != null && a.getEndTime() != null)
-                .mapToLong(a -> Duration.between(a.getStartTime(), a.getEndTime()).toMinutes())
-                .sum();
-
-        LocalDateTime firstAttemptDate = attempts.stream()
-                .map(TestAttempt::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-
-        LocalDateTime lastAttemptDate = attempts.stream()
-                .map(TestAttempt::getStartTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-
+    private TesterAggregatedStatsDTO toAggregatedStatsDTO(TesterStatsRow row, List<TestAttempt> attempts) {
         List<Long> attemptIds = attempts.stream()
                 .map(TestAttempt::getId)
                 .collect(Collectors.toList());
 
         List<TesterAttemptDTO> recentAttempts = attempts.stream()
-                .sorted((a1, a2) -> a2.getStartTime().compareTo(a1.getStartTime()))
                 .limit(3)
                 .map(this::convertToTesterAttemptDTO)
                 .collect(Collectors.toList());
 
         return new TesterAggregatedStatsDTO(
-                tester.getUsername(),
-                tester.getId(),
-                totalAttempts,
-                completedAttempts,
-                averagePercentage,
-                bestPercentage,
-                worstPercentage,
-                totalDurationMinutes,
-                firstAttemptDate,
-                lastAttemptDate,
+                row.testerUsername(),
+                row.testerId(),
+                row.totalAttempts(),
+                row.completedAttempts(),
+                row.averagePercentage(),
+                row.bestPercentage(),
+                row.worstPercentage(),
+                row.totalDurationMinutes(),
+                row.firstAttemptDate(),
+                row.lastAttemptDate(),
                 attemptIds,
                 recentAttempts
         );
@@ -359,6 +352,53 @@ public class TesterStatisticsService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Общая статистика тестировщика: одна сгруппированная выборка по тестам, итоги считаются по её строкам
+     */
+    @Transactional(readOnly = true)
+    public TesterOverviewDTO getTesterOverview(Long testerId) {
+        return testerOverviewCache.get(testerId, () -> calculateTesterOverview(testerId));
+    }
+
+    private TesterOverviewDTO calculateTesterOverview(Long testerId) {
+        List<TestTesterStatisticsDTO> testStatistics = testAttemptRepository.findTestStatsByUserId(testerId).stream()
+                .map(this::convertToTestTesterStatisticsDTO)
+                .collect(Collectors.toList());
+
+        long totalAttempts = 0;
+        long completedAttempts = 0;
+        double percentageSum = 0;
+        for (TestTesterStatisticsDTO stat : testStatistics) {
+            totalAttempts += stat.getTotalAttempts();
+            completedAttempts += stat.getCompletedAttempts();
+            percentageSum += stat.getAveragePercentage() * stat.getTotalAttempts();
+        }
+        double overallAverage = totalAttempts > 0 ? percentageSum / totalAttempts : 0.0;
+
+        return new TesterOverviewDTO(testerId, totalAttempts, completedAttempts, overallAverage, testStatistics);
+    }
+
+    private TestTesterStatisticsDTO convertToTestTesterStatisticsDTO(TesterTestStatsProjection row) {
+        TestTesterStatisticsDTO dto = new TestTesterStatisticsDTO();
+        dto.setTestId(row.getTestId());
+        dto.setTestTitle(row.getTestTitle());
+        dto.setTotalAttempts(row.getTotalAttempts());
+        dto.setCompletedAttempts(row.getCompletedAttempts());
+        dto.setAveragePercentage(row.getAveragePercentage() != null ? row.getAveragePercentage() : 0.0);
+        dto.setBestPercentage(row.getBestPercentage() != null ? row.getBestPercentage() : 0.0);
+        dto.setLastAttemptTime(row.getLastAttemptTime());
+        return dto;
+    }
+
+    /**
+     * Попытки тестировщика по одному тесту постранично, новые сначала
+     */
+    @Transactional(readOnly = true)
+    public Page<TesterAttemptDTO> getTesterAttemptsByTest(Long testerId, Long testId, Pageable pageable) {
+        Page<Long> idPage = testAttemptRepository.findAttemptIdPage(testId, null, TesterScope.testers(List.of(testerId)), pageable);
+        return new PageImpl<>(loadAttemptDTOs(idPage.getContent()), pageable, idPage.getTotalElements());
+    }
+
     @Transactional(readOnly = true)
     public Page<TesterStatisticsDTO> getTestersStatistics(Long testId,
                                                           String creatorUsername,
@@ -366,24 +406,23 @@ public class TesterStatisticsService {
                                                           Pageable pageable) {
         validateTestExists(testId, creatorUsername);
 
-        Page<TestAttempt> attemptsPage;
-        if (search != null && !search.trim().isEmpty()) {
-            attemptsPage = testAttemptRepository.searchByTestIdWithUser(testId, search.trim(), pageable);
-        } else {
-            attemptsPage = testAttemptRepository.findByTestIdWithUser(testId, pageable);
-        }
-
-        if (attemptsPage.isEmpty()) {
+        Page<Long> idPage = testAttemptRepository.findAttemptIdPage(testId, normalizeSearch(search), TesterScope.all(), pageable);
+        if (idPage.isEmpty()) {
             return Page.empty(pageable);
         }
 
+        Map<Long, TestAttempt> attemptsById = testAttemptRepository.findWithUserAndTestByIdIn(idPage.getContent())
+                .stream()
+                .collect(Collectors.toMap(TestAttempt::getId, Function.identity()));
         Set<Long> userIdsWithExceptions = exceptionRepository.findUserIdsWithExceptions(testId);
 
-        List<TesterStatisticsDTO> dtos = attemptsPage.getContent().stream()
+        List<TesterStatisticsDTO> dtos = idPage.getContent().stream()
+                .map(attemptsById::get)
+                .filter(Objects::nonNull)
                 .map(attempt -> convertToTesterStatisticsDTO(attempt, userIdsWithExceptions))
                 .collect(Collectors.toList());
 
-        return new PageImpl<>(dtos, pageable, attemptsPage.getTotalElements());
+        return new PageImpl<>(dtos, pageable, idPage.getTotalElements());
     }
 
     public TesterStatisticsDTO convertToTesterStatisticsDTO(TestAttempt attempt, Set<Long> userIdsWithExceptions) {
@@ -401,8 +440,9 @@ public class TesterStatisticsService {
         dto.setTesterFullName(user.getFullName());
         dto.setProfileComplete(user.isProfileComplete());
 
-        int maxScore = attempt.getTest().getQuestions() != null ?
-                attempt.getTest().getQuestions().size() : 0;
+        int maxScore = attempt.getTotalQuestions() != null && attempt.getTotalQuestions() > 0
+                ? attempt.getTotalQuestions()
+                : Objects.requireNonNullElse(attempt.getTest().getQuestionCount(), 0);
         dto.setMaxScore(maxScore);
 
         if (maxScore > 0) {
@@ -535,34 +575,33 @@ public class TesterStatisticsService {
         return summary;
     }
 
-    private TestSummaryDTO calculateTestSummary(Test test, List<TestAttempt> attempts) {
+    /**
+     * Баллы сводки переводятся в проценты от числа вопросов теста
+     */
+    private TestSummaryDTO toTestSummaryDTO(TestScoreSummary scores) {
+        int questionCount = scores.questionCount();
         TestSummaryDTO summary = new TestSummaryDTO();
 
-        int totalQuestions = test.getQuestions() != null ? test.getQuestions().size() : 0;
-        long totalAttempts = attempts.size();
-        long completedAttempts = attempts.stream()
-                .filter(a -> a.getStatus() == TestAttempt.AttemptStatus.COMPLETED)
-                .count();
-
-        double totalScore = attempts.stream()
-                .filter(a -> a.getStatus() == TestAttempt.AttemptStatus.COMPLETED)
-                .mapToInt(a -> a.getTotalScore() != null ? a.getTotalScore() : 0)
-                .average()
-                .orElse(0.0);
+        summary.setTotalQuestions(questionCount);
+        summary.setTotalScore((int) scores.averageScore());
+        summary.setCorrectAnswers((int) scores.averageScore());
+        summary.setPercentage(scores.completedAttempts() > 0 ? toPercentage(scores.averageScore(), questionCount) : 0.0);
 
-        summary.setTotalQuestions(totalQuestions);
-        summary.setTotalScore((int) totalScore);
-        summary.setCorrectAnswers((int) totalScore);
-
-        if (completedAttempts > 0 && totalQuestions > 0) {
-            summary.setPercentage(totalScore / totalQuestions * 100);
-        } else {
-            summary.setPercentage(0.0);
-        }
+        summary.setTotalAttempts(scores.totalAttempts());
+        summary.setUniqueTesters(scores.uniqueTesters());
+        summary.setAverageScore(toPercentage(scores.averageScore(), questionCount));
+        summary.setBestScore(toPercentage(scores.bestScore(), questionCount));
+        summary.setMedianScore(toPercentage(scores.medianScore(), questionCount));
+        summary.setP90Score(toPercentage(scores.p90Score(), questionCount));
+        summary.setScoreDistribution(scores.scoreDistribution());
 
         return summary;
     }
 
+    private static double toPercentage(double score, int questionCount) {
+        return questionCount > 0 ? score / questionCount * 100 : 0;
+    }
+
     private void validateTestExists(Long testId, String creatorUsername) {
         if (!testRepository.existsById(testId)) {
             throw new RuntimeException("Тест не найден");
@@ -577,12 +616,15 @@ public class TesterStatisticsService {
         return userRepository.countAllTesters();
     }
 
+    /**
+     * Сводка по тесту для части тестировщиков, без кэша сводок
+     */
     @Transactional(readOnly = true)
-    public TestSummaryDTO getFilteredTestSummary(Long testId, Set<Long> userIds) {
-        Test test = testRepository.findById(testId).orElseThrow();
-        List<TestAttempt> attempts = testAttemptRepository.findByTestId(testId).stream()
-                .filter(a -> userIds.contains(a.getUser().getId()))
-                .collect(Collectors.toList());
-        return calculateTestSummary(test, attempts);
+    public TestSummaryDTO getFilteredTestSummary(Long testId, TesterScope scope) {
+        validateTestExists(testId, null);
+        int questionCount = testRepository.countQuestionsByTestId(testId);
+        return toTestSummaryDTO(attemptColumnStore.isEnabled()
+                ? attemptColumnStore.summarize(testId, questionCount, scope)
+                : testAttemptRepository.summarizeTestScores(testId, questionCount, scope));
     }
 }
\ No newline at end of file
@@ -0,0 +1,500 @@
+package com.frist.assesspro.service.cache;
+
+import com.frist.assesspro.config.CacheSpecProperties;
+import com.frist.assesspro.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Шина инвалидации локальных кэшей между узлами приложения через LISTEN/NOTIFY PostgreSQL.
+ * Кэш регистрирует обработчик, сбрасывающий только локальные данные, и публикует свои инвалидации:
+ * внутри транзакции события копятся и после коммита передаются потоку отправки.
+ * Поток отправки объединяет накопившиеся события в одно сообщение и шлёт его через собственное
+ * соединение: вызывающие потоки не ждут БД и не занимают соединения пула.
+ * Сообщения узла нумеруются; пропуск номера, как и переподключение соединения LISTEN,
+ * приводит к полному сбросу всех зарегистрированных кэшей.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    /**
+     * Локальный сброс кэша по ключам; keys == null - сброс целиком
+     */
+    @FunctionalInterface
+    public interface InvalidationHandler {
+        void invalidate(Set<String> keys);
+    }
+
+    // Ограничение NOTIFY - 8000 байт; сообщение длиннее заменяется сбросом кэшей целиком
+    static final int MAX_PAYLOAD_BYTES = 7_900;
+    private static final String VERSION = "v1";
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Environment environment;
+    private final CacheSpecProperties.Invalidation properties;
+    private final Clock clock;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, InvalidationHandler> handlers = new ConcurrentHashMap<>();
+
+    // События, ожидающие отправки; очередь и флаг остановки защищены outgoingLock
+    private final Object outgoingLock = new Object();
+    private Pending outgoing = new Pending();
+    private boolean stopping;
+    private Thread sender;
+
+    // Номер и соединение NOTIFY используются только потоком отправки: сообщения узла приходят по порядку
+    private long sequence;
+    private Connection notifyConnection;
+
+    // Состояние соединения LISTEN используется только потоком опроса
+    private final Map<String, Long> lastSequences = new HashMap<>();
+    private Connection listenConnection;
+    private long nextConnectAttemptMillis;
+    private long nextHealthCheckMillis;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter receivedCounter;
+    private final Counter gapResyncCounter;
+    private final Counter reconnectResyncCounter;
+    private final Timer lagTimer;
+
+    public CacheInvalidationBus(Environment environment,
+                                CacheSpecProperties properties,
+                                Clock clock,
+                                MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.properties = properties.getInvalidation();
+        this.clock = clock;
+        if (!CHANNEL_NAME.matcher(this.properties.getChannel()).matches()) {
+            throw new IllegalStateException("Недопустимое имя канала инвалидации: " + this.properties.getChannel());
+        }
+        this.publishedCounter = Counter.builder("assesspro.cache.invalidation.published")
+                .description("Сообщения инвалидации, отправленные другим узлам")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("assesspro.cache.invalidation.failed")
+                .description("Сообщения инвалидации, которые не удалось отправить")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("assesspro.cache.invalidation.received")
+                .description("Сообщения инвалидации, полученные от других узлов")
+                .register(meterRegistry);
+        this.gapResyncCounter = Counter.builder("assesspro.cache.invalidation.resyncs")
+                .description("Полные сбросы локальных кэшей")
+                .tag("reason", "gap")
+                .register(meterRegistry);
+        this.reconnectResyncCounter = Counter.builder("assesspro.cache.invalidation.resyncs")
+                .description("Полные сбросы локальных кэшей")
+                .tag("reason", "reconnect")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("assesspro.cache.invalidation.lag")
+                .description("Задержка от отправки инвалидации до применения на другом узле")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Регистрация локального обработчика кэша; имя кэша уникально в пределах приложения
+     */
+    public void register(String cache, InvalidationHandler handler) {
+        if (handlers.putIfAbsent(cache, handler) != null) {
+            throw new IllegalStateException("Обработчик инвалидации кэша " + cache + " уже зарегистрирован");
+        }
+    }
+
+    /**
+     * Публикация инвалидации ключа для других узлов. Вызывается из транзакции, в которой
+     * изменены данные (не из afterCommit): событие передаётся на отправку после коммита
+     */
+    public void publish(String cache, Object key) {
+        enqueue(cache, key == null ? null : String.valueOf(key));
+    }
+
+    /**
+     * Публикация сброса кэша целиком
+     */
+    public void publishAll(String cache) {
+        enqueue(cache, null);
+    }
+
+    private void enqueue(String cache, String key) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Pending single = new Pending();
+            single.add(cache, key);
+            submit(single);
+            return;
+        }
+
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionUtils.afterCommit(() -> {
+                created.sent = true;
+                if (!created.events.isEmpty()) {
+                    submit(created);
+                }
+            });
+            TransactionUtils.afterCompletion(status -> TransactionSynchronizationManager.unbindResourceIfPossible(this));
+            pending = created;
+        }
+        if (pending.sent) {
+            // Публикация из обработчика afterCommit той же транзакции
+            Pending single = new Pending();
+            single.add(cache, key);
+            submit(single);
+        } else {
+            pending.add(cache, key);
+        }
+    }
+
+    /**
+     * Передача событий потоку отправки: события, ещё не отправленные, объединяются с новыми
+     */
+    private void submit(Pending pending) {
+        synchronized (outgoingLock) {
+            if (stopping) {
+                log.warn("Инвалидация кэшей {} после остановки шины не отправлена", pending.events.keySet());
+                return;
+            }
+            outgoing.addAll(pending);
+            if (sender == null) {
+                sender = new Thread(this::sendLoop, "cache-invalidation-sender");
+                sender.setDaemon(true);
+                sender.start();
+            }
+            outgoingLock.notifyAll();
+        }
+    }
+
+    private void sendLoop() {
+        while (true) {
+            Pending batch;
+            synchronized (outgoingLock) {
+                while (outgoing.events.isEmpty() && !stopping) {
+                    try {
+                        outgoingLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        stopping = true;
+                    }
+                }
+                if (outgoing.events.isEmpty()) {
+                    break;
+                }
+                batch = outgoing;
+                outgoing = new Pending();
+            }
+            send(batch.events);
+        }
+        closeNotifyConnection();
+    }
+
+    private void send(Map<String, Set<String>> events) {
+        long seq = ++sequence;
+        String payload = header(seq) + encodeEvents(events);
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            Map<String, Set<String>> all = new LinkedHashMap<>();
+            events.keySet().forEach(cache -> all.put(cache, null));
+            payload = header(seq) + encodeEvents(all);
+        }
+        try {
+            if (notifyConnection == null) {
+                notifyConnection = openConnection();
+            }
+            try (PreparedStatement statement = notifyConnection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                statement.setString(1, properties.getChannel());
+                statement.setString(2, payload);
+                statement.execute();
+            }
+            publishedCounter.increment();
+        } catch (SQLException | RuntimeException e) {
+            // Другие узлы увидят пропуск номера и сбросят свои кэши целиком;
+            // следующее сообщение откроет соединение заново
+            failedCounter.increment();
+            log.error("Ошибка отправки инвалидации кэшей {} (сообщение {})", events.keySet(), seq, e);
+            closeNotifyConnection();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-interval-ms:100}")
+    public void poll() {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        try {
+            if (listenConnection == null) {
+                if (now < nextConnectAttemptMillis) {
+                    return;
+                }
+                connect();
+            }
+            if (now >= nextHealthCheckMillis) {
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                nextHealthCheckMillis = now + Duration.ofSeconds(properties.getHealthCheckSeconds()).toMillis();
+            }
+            PGNotification[] notifications = listenConnection.unwrap(PGConnection.class).getNotifications();
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    try {
+                        receive(notification.getParameter());
+                    } catch (RuntimeException e) {
+                        log.error("Ошибка разбора сообщения инвалидации, полный сброс кэшей", e);
+                        resync();
+                        gapResyncCounter.increment();
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Соединение LISTEN для инвалидации кэшей потеряно, переподключение через {} с",
+                    properties.getReconnectDelaySeconds(), e);
+            closeListenConnection();
+            nextConnectAttemptMillis = now + Duration.ofSeconds(properties.getReconnectDelaySeconds()).toMillis();
+        }
+    }
+
+    private void connect() throws SQLException {
+        Connection connection = openConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + properties.getChannel());
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        listenConnection = connection;
+        nextHealthCheckMillis = clock.millis() + Duration.ofSeconds(properties.getHealthCheckSeconds()).toMillis();
+        // Сообщения, отправленные без подписки (до старта или во время обрыва), потеряны
+        resync();
+        reconnectResyncCounter.increment();
+        log.info("Подписка на инвалидации кэшей установлена (канал {}, узел {})", properties.getChannel(), nodeId);
+    }
+
+    /**
+     * Применение сообщения другого узла
+     */
+    void receive(String payload) {
+        String[] lines = payload.split("\n", -1);
+        String[] header = lines[0].split("\\|");
+        if (header.length != 4 || !VERSION.equals(header[0])) {
+            log.warn("Неизвестный формат сообщения инвалидации: {}", lines[0]);
+            return;
+        }
+        String node = header[1];
+        if (nodeId.equals(node)) {
+            return;
+        }
+        long seq = Long.parseLong(header[2]);
+        long sentAt = Long.parseLong(header[3]);
+        receivedCounter.increment();
+        lagTimer.record(Duration.ofMillis(Math.max(0, clock.millis() - sentAt)));
+
+        Long last = lastSequences.put(node, seq);
+        if (last != null && seq != last + 1) {
+            log.warn("Пропущены сообщения инвалидации узла {} ({} -> {}), полный сброс кэшей", node, last, seq);
+            resync();
+            lastSequences.put(node, seq);
+            gapResyncCounter.increment();
+            return;
+        }
+
+        for (int i = 1; i < lines.length; i++) {
+            if (lines[i].isEmpty()) {
+                continue;
+            }
+            String[] parts = lines[i].split("\t");
+            String cache = decode(parts[0]);
+            Set<String> keys = null;
+            if (parts.length > 1) {
+                keys = new LinkedHashSet<>();
+                for (String key : Arrays.asList(parts).subList(1, parts.length)) {
+                    keys.add(decode(key));
+                }
+            }
+            apply(cache, keys);
+        }
+    }
+
+    private void apply(String cache, Set<String> keys) {
+        InvalidationHandler handler = handlers.get(cache);
+        if (handler == null) {
+            log.debug("Инвалидация незарегистрированного кэша {} пропущена", cache);
+            return;
+        }
+        try {
+            handler.invalidate(keys);
+        } catch (RuntimeException e) {
+            log.error("Ошибка инвалидации кэша {} по ключам {}, кэш сброшен целиком", cache, keys, e);
+            handler.invalidate(null);
+        }
+    }
+
+    private void resync() {
+        lastSequences.clear();
+        handlers.forEach((cache, handler) -> {
+            try {
+                handler.invalidate(null);
+            } catch (RuntimeException e) {
+                log.error("Ошибка полного сброса кэша {}", cache, e);
+            }
+        });
+        log.info("Локальные кэши сброшены целиком: {}", handlers.keySet());
+    }
+
+    /**
+     * Собственное соединение шины в режиме автокоммита, вне пула приложения
+     */
+    Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(
+                environment.getRequiredProperty("spring.datasource.url"),
+                environment.getProperty("spring.datasource.username"),
+                environment.getProperty("spring.datasource.password"));
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Остановка: накопленные события отправляются, затем соединения закрываются
+     */
+    @PreDestroy
+    public void shutdown() {
+        Thread thread;
+        synchronized (outgoingLock) {
+            stopping = true;
+            thread = sender;
+            outgoingLock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join(SHUTDOWN_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeListenConnection();
+    }
+
+    private void closeNotifyConnection() {
+        if (notifyConnection == null) {
+            return;
+        }
+        try {
+            notifyConnection.close();
+        } catch (SQLException e) {
+            log.debug("Ошибка закрытия соединения NOTIFY", e);
+        }
+        notifyConnection = null;
+    }
+
+    private void closeListenConnection() {
+        if (listenConnection == null) {
+            return;
+        }
+        try {
+            listenConnection.close();
+        } catch (SQLException e) {
+            log.debug("Ошибка закрытия соединения LISTEN", e);
+        }
+        listenConnection = null;
+    }
+
+    private String header(long seq) {
+        return VERSION + "|" + nodeId + "|" + seq + "|" + clock.millis();
+    }
+
+    /**
+     * Строка на кэш: имя и ключи через табуляцию, без ключей - сброс целиком
+     */
+    private static String encodeEvents(Map<String, Set<String>> events) {
+        StringBuilder body = new StringBuilder();
+        events.forEach((cache, keys) -> {
+            body.append('\n').append(encode(cache));
+            if (keys != null) {
+                keys.forEach(key -> body.append('\t').append(encode(key)));
+            }
+        });
+        return body.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * События транзакции: по кэшу - ключи, null - сброс целиком
+     */
+    private static final class Pending {
+
+        private final Map<String, Set<String>> events = new LinkedHashMap<>();
+        private boolean sent;
+
+        void addAll(Pending other) {
+            other.events.forEach((cache, keys) -> {
+                if (keys == null) {
+                    add(cache, null);
+                } else {
+                    keys.forEach(key -> add(cache, key));
+                }
+            });
+        }
+
+        void add(String cache, String key) {
+            if (key == null) {
+                events.put(cache, null);
+                return;
+            }
+            if (events.containsKey(cache) && events.get(cache) == null) {
+                return;
+            }
+            events.computeIfAbsent(cache, name -> new LinkedHashSet<>()).add(key);
+        }
+    }
+}
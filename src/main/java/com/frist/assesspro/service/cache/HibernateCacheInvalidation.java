@@ -0,0 +1,100 @@
+package com.frist.assesspro.service.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Инвалидация кэша второго уровня Hibernate на других узлах. Изменение кэшируемой сущности
+ * публикуется ключом "сущность#id"; получатель удаляет сущность из своего региона, а также
+ * сбрасывает регионы коллекций и запросов: метки изменения таблиц у каждого узла свои,
+ * и без сброса закэшированный результат запроса остался бы актуальным.
+ */
+@Component
+@Slf4j
+public class HibernateCacheInvalidation implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    private static final String INVALIDATION_CACHE = "hibernate";
+    private static final String ID_SEPARATOR = "#";
+
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheImplementor cache;
+
+    public HibernateCacheInvalidation(EntityManagerFactory entityManagerFactory,
+                                      CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cache = sessionFactory.getCache();
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+
+        invalidationBus.register(INVALIDATION_CACHE, this::evict);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getPersister(), event.getId());
+    }
+
+    /**
+     * События обрабатываются во время flush внутри транзакции: шина отправит их после коммита
+     */
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void publish(EntityPersister persister, Object id) {
+        if (persister.canWriteToCache()) {
+            invalidationBus.publish(INVALIDATION_CACHE, persister.getEntityName() + ID_SEPARATOR + id);
+        }
+    }
+
+    private void evict(Set<String> keys) {
+        if (keys == null) {
+            cache.evictAllRegions();
+            log.debug("Кэш второго уровня Hibernate сброшен целиком");
+            return;
+        }
+        for (String key : keys) {
+            int separator = key.lastIndexOf(ID_SEPARATOR);
+            String entityName = key.substring(0, separator);
+            EntityPersister persister = cache.getSessionFactory().getMappingMetamodel()
+                    .getEntityDescriptor(entityName);
+            cache.evictEntityData(entityName, persister.getIdentifierMapping().getJavaType()
+                    .fromString(key.substring(separator + 1)));
+        }
+        // Связи изменённых сущностей в коллекциях и результатах запросов не отслеживаются по id
+        cache.evictCollectionData();
+        cache.evictQueryRegions();
+        cache.evictDefaultQueryRegion();
+        log.debug("Из кэша второго уровня Hibernate удалены {}", keys);
+    }
+}
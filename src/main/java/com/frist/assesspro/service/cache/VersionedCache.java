@@ -0,0 +1,97 @@
+package com.frist.assesspro.service.cache;
+
+import com.frist.assesspro.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caffeine-кэш с защитой от устаревших значений: перед загрузкой берётся отметка,
+ * и значение не попадает в кэш, если его ключ или весь кэш сброшены после отметки.
+ * Отметки только растут, поэтому отметку загрузки можно хранить в самом значении как его версию.
+ */
+public final class VersionedCache<K, V> {
+
+    // Больше сброшенных ключей не отслеживается: при переполнении они сворачиваются в общий сброс
+    static final int MAX_TRACKED_KEYS = 10_000;
+
+    private final Cache<K, V> cache;
+
+    // Отметки загрузок, сбросов ключей и сбросов целиком берутся из одного счётчика
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicLong resetVersion = new AtomicLong();
+    private final ConcurrentHashMap<K, Long> keyVersions = new ConcurrentHashMap<>();
+
+    public VersionedCache(Cache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    public V getIfPresent(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Отметка перед загрузкой значения; передаётся в {@link #put}.
+     * Ключ может быть ещё неизвестен: он нужен только при вставке
+     */
+    public long stamp() {
+        return counter.get();
+    }
+
+    /**
+     * Вставка значения, загруженного после отметки stamp; если ключ с тех пор сброшен, значение не кэшируется
+     */
+    public void put(K key, V value, long stamp) {
+        if (evictedAfter(key, stamp)) {
+            return;
+        }
+        cache.put(key, value);
+        if (evictedAfter(key, stamp)) {
+            // Инвалидация произошла между проверкой и вставкой
+            cache.asMap().remove(key, value);
+        }
+    }
+
+    public void evict(K key) {
+        long version = counter.incrementAndGet();
+        keyVersions.merge(key, version, Math::max);
+        if (keyVersions.size() > MAX_TRACKED_KEYS) {
+            // Загрузки, начатые до этого сброса, не попадут в кэш ни по какому ключу: лишний промах вместо роста карты
+            raiseReset(version);
+        }
+        cache.invalidate(key);
+    }
+
+    public void evictAll() {
+        raiseReset(counter.incrementAndGet());
+        cache.invalidateAll();
+    }
+
+    int trackedKeys() {
+        return keyVersions.size();
+    }
+
+    private void raiseReset(long version) {
+        long reset = resetVersion.accumulateAndGet(version, Math::max);
+        // Сбросы ключей до общего сброса больше ничего не решают
+        keyVersions.values().removeIf(own -> own <= reset);
+    }
+
+    private boolean evictedAfter(K key, long stamp) {
+        Long own = keyVersions.get(key);
+        return resetVersion.get() > stamp || (own != null && own > stamp);
+    }
+
+    /**
+     * Сброс сейчас и, внутри транзакции, повторно после коммита:
+     * параллельное чтение не закэширует данные, которые транзакция ещё меняет
+     */
+    public static void evictNowAndAfterCommit(Runnable evict) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+        }
+        TransactionUtils.afterCommit(evict);
+    }
+}
@@ -0,0 +1,74 @@
+package com.frist.assesspro.service.manager;
+
+import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Кэш принадлежности тестировщиков менеджерам: по менеджеру - сжатое битовое множество
+ * идентификаторов пользователей его проектов. Используется для проверок доступа;
+ * выборки попыток фильтруются соединением с проектами в SQL и от кэша не зависят.
+ * Состав проектов меняется редко, поэтому любое изменение сбрасывает кэш целиком.
+ */
+@Component
+@Slf4j
+public class ManagerScopeIndex {
+
+    private static final String INVALIDATION_CACHE = "managerScopes";
+    private static final int MAX_CACHED_MANAGERS = 1_000;
+
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final VersionedCache<Long, Roaring64Bitmap> scopes = new VersionedCache<>(Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_MANAGERS)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build());
+
+    public ManagerScopeIndex(UserRepository userRepository, CacheInvalidationBus invalidationBus) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(INVALIDATION_CACHE, keys -> evictAll());
+    }
+
+    /**
+     * Пользователи проектов менеджера. Возвращаемое множество общее для всех вызовов и не изменяется.
+     */
+    public Roaring64Bitmap testerIds(Long managerId) {
+        Roaring64Bitmap cached = scopes.getIfPresent(managerId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = scopes.stamp();
+        Roaring64Bitmap bitmap = new Roaring64Bitmap();
+        userRepository.findIdsByProjectManagerId(managerId).forEach(bitmap::addLong);
+        bitmap.runOptimize();
+        scopes.put(managerId, bitmap, version);
+        return bitmap;
+    }
+
+    public boolean contains(Long managerId, Long testerId) {
+        return testerId != null && testerIds(managerId).contains(testerId);
+    }
+
+    /**
+     * Сброс кэша после изменения состава проектов или их менеджеров;
+     * внутри транзакции сброс повторяется после коммита, другие узлы сбрасывают кэш после коммита
+     */
+    public void invalidateAll() {
+        invalidationBus.publishAll(INVALIDATION_CACHE);
+        VersionedCache.evictNowAndAfterCommit(this::evictAll);
+    }
+
+    private void evictAll() {
+        scopes.evictAll();
+        log.debug("Кэш тестировщиков менеджеров сброшен");
+    }
+}
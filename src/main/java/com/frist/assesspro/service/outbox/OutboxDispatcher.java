@@ -0,0 +1,242 @@
+package com.frist.assesspro.service.outbox;
+
+import com.frist.assesspro.config.OutboxProperties;
+import com.frist.assesspro.entity.Notification;
+import com.frist.assesspro.entity.OutboxEvent;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.TestAttempt;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.OutboxEventRepository;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.service.ManagerService;
+import com.frist.assesspro.service.NotificationService;
+import com.frist.assesspro.service.statistics.LeaderboardService;
+import com.frist.assesspro.service.taking.CompiledTest;
+import com.frist.assesspro.service.taking.CompiledTestCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая доставка событий outbox: уведомления (с SSE и email) выполняются
+ * вне транзакции, в которой произошло изменение. Каждое событие обрабатывается
+ * в своей транзакции; при ошибке - повтор с экспоненциальной задержкой.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TestAttemptRepository testAttemptRepository;
+    private final ManagerService managerService;
+    private final NotificationService notificationService;
+    private final CompiledTestCache compiledTestCache;
+    private final LeaderboardService leaderboardService;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+    private final Clock clock;
+
+    private final Counter dispatchedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+    private final AtomicLong oldestPendingSeconds;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            TestAttemptRepository testAttemptRepository,
+                            ManagerService managerService,
+                            NotificationService notificationService,
+                            CompiledTestCache compiledTestCache,
+                            LeaderboardService leaderboardService,
+                            TransactionTemplate transactionTemplate,
+                            OutboxProperties properties,
+                            Clock clock,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.testAttemptRepository = testAttemptRepository;
+        this.managerService = managerService;
+        this.notificationService = notificationService;
+        this.compiledTestCache = compiledTestCache;
+        this.leaderboardService = leaderboardService;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.clock = clock;
+        this.dispatchedCounter = Counter.builder("assesspro.outbox.dispatched")
+                .description("Количество доставленных событий outbox")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("assesspro.outbox.retried")
+                .description("Количество неудачных попыток доставки, назначенных на повтор")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("assesspro.outbox.failed")
+                .description("Количество событий outbox, исчерпавших попытки доставки")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("assesspro.outbox.lag")
+                .description("Задержка от записи события до его доставки")
+                .register(meterRegistry);
+        this.oldestPendingSeconds = meterRegistry.gauge("assesspro.outbox.pending.oldest.seconds", new AtomicLong(0));
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.interval-ms:1000}")
+    public void dispatch() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        List<Long> dueIds = outboxEventRepository.findDueIds(
+                LocalDateTime.now(clock), PageRequest.of(0, Math.max(1, properties.getBatchSize())));
+        for (Long eventId : dueIds) {
+            dispatchOne(eventId);
+        }
+
+        LocalDateTime oldestPending = outboxEventRepository.findOldestPendingCreatedAt();
+        oldestPendingSeconds.set(oldestPending != null
+                ? Math.max(0, Duration.between(oldestPending, LocalDateTime.now(clock)).toSeconds())
+                : 0);
+    }
+
+    /**
+     * Удаление обработанных событий старше срока хранения
+     */
+    @Scheduled(cron = "${app.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeProcessed() {
+        LocalDateTime before = LocalDateTime.now(clock).minusDays(properties.getRetentionDays());
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deleteProcessedBefore(before));
+        if (deleted != null && deleted > 0) {
+            log.info("Удалено обработанных событий outbox: {}", deleted);
+        }
+    }
+
+    void dispatchOne(Long eventId) {
+        OutboxEvent delivered;
+        try {
+            delivered = transactionTemplate.execute(status -> outboxEventRepository.lockPendingById(eventId)
+                    .map(event -> {
+                        handle(event);
+                        event.setStatus(OutboxEvent.Status.DONE);
+                        event.setAttempts(event.getAttempts() + 1);
+                        event.setProcessedAt(LocalDateTime.now(clock));
+                        event.setLastError(null);
+                        return event;
+                    })
+                    .orElse(null));
+        } catch (RuntimeException e) {
+            log.warn("Ошибка доставки события outbox ID: {}: {}", eventId, e.getMessage());
+            recordFailure(eventId, e);
+            return;
+        }
+
+        // null - событие уже обработано или захвачено другим узлом
+        if (delivered != null) {
+            dispatchedCounter.increment();
+            lagTimer.record(Duration.between(delivered.getCreatedAt(), delivered.getProcessedAt()));
+        }
+    }
+
+    private void handle(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case ATTEMPT_COMPLETED -> {
+                notifyManagersAboutAttempt(event.getAggregateId());
+                updateLeaderboards(event.getAggregateId());
+            }
+            default -> log.warn("Неизвестный тип события outbox: {}", event.getEventType());
+        }
+    }
+
+    private void notifyManagersAboutAttempt(Long attemptId) {
+        TestAttempt attempt = testAttemptRepository.findById(attemptId).orElse(null);
+        if (attempt == null) {
+            log.warn("Попытка ID: {} из события outbox не найдена, уведомление пропущено", attemptId);
+            return;
+        }
+
+        User tester = attempt.getUser();
+        List<User> managers = managerService.getManagersForTester(tester.getId());
+        if (managers == null || managers.isEmpty()) {
+            return;
+        }
+
+        String fullName = tester.getFirstName() + " " + tester.getLastName();
+        Test test = attempt.getTest();
+        int totalScore = attempt.getTotalScore() != null ? attempt.getTotalScore() : 0;
+        int totalQuestions = attempt.getTotalQuestions() != null
+                ? attempt.getTotalQuestions()
+                : compiledTestCache.get(test.getId()).map(CompiledTest::getQuestionCount).orElse(0);
+        double percentage = totalQuestions > 0
+                ? (double) totalScore / totalQuestions * 100
+                : 0;
+        String action = attempt.getStatus() == TestAttempt.AttemptStatus.TIMEOUT
+                ? "не успел завершить тест «%s» до истечения времени, результат"
+                : "завершил тест «%s» с результатом";
+
+        // Повтор доставки безопасен: уже сохранённые уведомления не создаются повторно,
+        // а SSE и email NotificationService отправляет только после коммита этой транзакции
+        for (User manager : managers) {
+            notificationService.createNotification(
+                    manager,
+                    String.format("Тестировщик %s " + action + " %d/%d (%.1f%%)",
+                            fullName,
+                            test.getTitle(),
+                            totalScore,
+                            totalQuestions,
+                            percentage),
+                    Notification.NotificationType.ATTEMPT_COMPLETED,
+                    attemptId
+            );
+        }
+    }
+
+    /**
+     * Рейтинги в памяти - вспомогательное представление: ошибка обновления не приводит к повтору доставки
+     */
+    private void updateLeaderboards(Long attemptId) {
+        try {
+            leaderboardService.onAttemptCompleted(attemptId);
+        } catch (RuntimeException e) {
+            log.warn("Ошибка обновления рейтингов по попытке ID: {}: {}", attemptId, e.getMessage());
+        }
+    }
+
+    private void recordFailure(Long eventId, RuntimeException error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(eventId)
+                    .filter(event -> event.getStatus() == OutboxEvent.Status.PENDING)
+                    .ifPresent(event -> {
+                        int attempts = event.getAttempts() + 1;
+                        event.setAttempts(attempts);
+                        event.setLastError(truncate(String.valueOf(error.getMessage())));
+                        if (attempts >= properties.getMaxAttempts()) {
+                            event.setStatus(OutboxEvent.Status.FAILED);
+                            failedCounter.increment();
+                            log.error("Событие outbox ID: {} не доставлено после {} попыток", eventId, attempts);
+                        } else {
+                            event.setNextAttemptAt(LocalDateTime.now(clock).plus(retryDelay(attempts)));
+                            retriedCounter.increment();
+                        }
+                    }));
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить ошибку доставки события outbox ID: {}", eventId, e);
+        }
+    }
+
+    Duration retryDelay(int attempts) {
+        long delay = properties.getRetryBaseDelayMs() << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, properties.getRetryMaxDelayMs()));
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,42 @@
+package com.frist.assesspro.service.outbox;
+
+import com.frist.assesspro.entity.OutboxEvent;
+import com.frist.assesspro.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * Запись событий в outbox. Вызывается только внутри транзакции изменения,
+ * чтобы событие и изменение фиксировались или откатывались вместе.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxEvent.EventType type, Long aggregateId) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(type)
+                .aggregateId(aggregateId)
+                .build());
+        log.debug("Событие {} для объекта ID: {} записано в outbox", type, aggregateId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(OutboxEvent.EventType type, Collection<Long> aggregateIds) {
+        outboxEventRepository.saveAll(aggregateIds.stream()
+                .map(id -> OutboxEvent.builder()
+                        .eventType(type)
+                        .aggregateId(id)
+                        .build())
+                .toList());
+    }
+}
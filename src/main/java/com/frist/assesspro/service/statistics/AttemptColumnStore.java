@@ -0,0 +1,317 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterScope;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.manager.ManagerScopeIndex;
+import com.frist.assesspro.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+import static com.frist.assesspro.repository.TestAttemptRepositoryCustom.SCORE_BUCKETS;
+
+/**
+ * Колоночное хранилище попыток в памяти: по тесту - примитивные массивы id попытки,
+ * индекса тестировщика и балла, около 16 байт на попытку вместо сущностей Hibernate.
+ * Тест загружается из БД при первом обращении, старт и завершение попыток дописываются после коммита,
+ * при превышении суммарного числа строк вытесняются редко используемые тесты.
+ * Сводка баллов по тесту считается одним проходом по массивам, без запроса к БД.
+ */
+@Component
+@Slf4j
+public class AttemptColumnStore {
+
+    private static final String INVALIDATION_CACHE = "attemptColumns";
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final ManagerScopeIndex managerScopeIndex;
+    private final StatisticsProperties properties;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Cache<Long, TestColumns> columns;
+    private final Timer loadTimer;
+
+    public AttemptColumnStore(TestAttemptRepository testAttemptRepository,
+                              ManagerScopeIndex managerScopeIndex,
+                              StatisticsProperties properties,
+                              CacheInvalidationBus invalidationBus,
+                              MeterRegistry meterRegistry) {
+        this.testAttemptRepository = testAttemptRepository;
+        this.managerScopeIndex = managerScopeIndex;
+        this.properties = properties;
+        this.invalidationBus = invalidationBus;
+        long reloadNanos = Duration.ofMinutes(properties.getColumnar().getReloadMinutes()).toNanos();
+        // Срок отсчитывается от загрузки: дописывание попыток его не продлевает,
+        // поэтому удалённые в обход хранилища попытки со временем исчезают
+        this.columns = Caffeine.newBuilder()
+                .maximumWeight(properties.getColumnar().getMaxRows())
+                .weigher((Long testId, TestColumns test) -> Math.max(1, test.size()))
+                .expireAfter(new Expiry<Long, TestColumns>() {
+                    @Override
+                    public long expireAfterCreate(Long testId, TestColumns test, long currentTime) {
+                        return reloadNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long testId, TestColumns test, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long testId, TestColumns test, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.loadTimer = Timer.builder("assesspro.statistics.columnar.load")
+                .description("Время загрузки попыток теста в колоночное хранилище")
+                .register(meterRegistry);
+        // Другие узлы дописывают изменённые попытки так же, перечитывая их строки из БД
+        invalidationBus.register(INVALIDATION_CACHE, keys -> {
+            if (keys == null) {
+                columns.invalidateAll();
+            } else if (isEnabled()) {
+                apply(keys.stream().map(Long::valueOf).toList());
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return properties.getColumnar().isEnabled();
+    }
+
+    /**
+     * Сводка баллов по тесту с тем же смыслом полей, что у агрегирующего запроса
+     */
+    public TestScoreSummary summarize(Long testId, int questionCount, TesterScope scope) {
+        if (scope.isEmpty()) {
+            return TestScoreSummary.empty(questionCount);
+        }
+        return columns.get(testId, this::load).summarize(questionCount, userFilter(scope));
+    }
+
+    /**
+     * Попытки, изменённые в текущей транзакции: после коммита их строки перечитываются
+     * и дописываются в уже загруженные тесты
+     */
+    public void record(Collection<Long> attemptIds) {
+        if (!isEnabled() || attemptIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(attemptIds);
+        ids.forEach(attemptId -> invalidationBus.publish(INVALIDATION_CACHE, attemptId));
+        TransactionUtils.afterCommit(() -> apply(ids));
+    }
+
+    private void apply(List<Long> attemptIds) {
+        try {
+            // Сначала читаем строки, затем применяем: ожидание идущей загрузки теста не держит соединение
+            Map<Long, TestColumns> changes = new HashMap<>();
+            testAttemptRepository.scanAttemptColumns(attemptIds, (attemptId, testId, userId, completed, score) ->
+                    changes.computeIfAbsent(testId, id -> new TestColumns())
+                            .append(attemptId, userId, completed, score));
+            // Загрузка, начатая до коммита, завершится раньше: computeIfPresent ждёт её
+            changes.forEach((testId, change) -> columns.asMap().computeIfPresent(testId, (id, test) -> {
+                test.merge(change);
+                return test;
+            }));
+        } catch (RuntimeException e) {
+            log.error("Ошибка обновления колоночного хранилища попыток, хранилище сброшено", e);
+            columns.invalidateAll();
+        }
+    }
+
+    private TestColumns load(Long testId) {
+        Timer.Sample sample = Timer.start();
+        TestColumns test = new TestColumns();
+        testAttemptRepository.scanAttemptColumns(testId, (attemptId, attemptTestId, userId, completed, score) ->
+                test.append(attemptId, userId, completed, score));
+        sample.stop(loadTimer);
+        log.debug("Попытки теста ID: {} загружены в колоночное хранилище: {}", testId, test.size());
+        return test;
+    }
+
+    private LongPredicate userFilter(TesterScope scope) {
+        LongPredicate filter = null;
+        if (scope.userIds() != null) {
+            Set<Long> userIds = new HashSet<>(scope.userIds());
+            filter = userIds::contains;
+        }
+        if (scope.managerId() != null) {
+            Roaring64Bitmap managerTesters = managerScopeIndex.testerIds(scope.managerId());
+            filter = filter != null ? filter.and(managerTesters::contains) : managerTesters::contains;
+        }
+        return filter;
+    }
+
+    /**
+     * Попытки одного теста. Строки упорядочены по id, новые дописываются в конец;
+     * тестировщики хранятся словарём, в строке - индекс в нём.
+     */
+    static final class TestColumns {
+
+        private static final int INITIAL_CAPACITY = 16;
+        private static final int NOT_COMPLETED = -1;
+
+        private long[] attemptIds = new long[INITIAL_CAPACITY];
+        private int[] userIndexes = new int[INITIAL_CAPACITY];
+        private int[] scores = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private long[] userIds = new long[INITIAL_CAPACITY];
+        private int userCount;
+        private final Map<Long, Integer> userIndexById = new HashMap<>();
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void append(long attemptId, long userId, boolean completed, int score) {
+            if (size == attemptIds.length) {
+                int capacity = size + (size >> 1);
+                attemptIds = Arrays.copyOf(attemptIds, capacity);
+                userIndexes = Arrays.copyOf(userIndexes, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+            }
+            attemptIds[size] = attemptId;
+            userIndexes[size] = userIndex(userId);
+            scores[size] = completed ? Math.max(score, 0) : NOT_COMPLETED;
+            size++;
+        }
+
+        /**
+         * Новые попытки дописываются, известные - обновляются. Обновляется обычно недавняя попытка,
+         * поэтому поиск идёт с конца
+         */
+        synchronized void merge(TestColumns change) {
+            for (int i = 0; i < change.size; i++) {
+                long attemptId = change.attemptIds[i];
+                long userId = change.userIds[change.userIndexes[i]];
+                int score = change.scores[i];
+                int row = size > 0 && attemptId > attemptIds[size - 1] ? -1 : findRow(attemptId);
+                if (row >= 0) {
+                    scores[row] = score;
+                } else {
+                    append(attemptId, userId, score != NOT_COMPLETED, score);
+                }
+            }
+        }
+
+        TestScoreSummary summarize(int questionCount, LongPredicate userFilter) {
+            int[] completedScores;
+            int completed = 0;
+            long totalAttempts = 0;
+            long scoreSum = 0;
+            long[] buckets = new long[SCORE_BUCKETS];
+            BitSet testers;
+
+            synchronized (this) {
+                // Фильтр проверяется один раз на тестировщика, а не на каждую попытку
+                boolean[] included = null;
+                if (userFilter != null) {
+                    included = new boolean[userCount];
+                    for (int user = 0; user < userCount; user++) {
+                        included[user] = userFilter.test(userIds[user]);
+                    }
+                }
+                testers = new BitSet(userCount);
+                completedScores = new int[size];
+                for (int row = 0; row < size; row++) {
+                    int user = userIndexes[row];
+                    if (included != null && !included[user]) {
+                        continue;
+                    }
+                    totalAttempts++;
+                    testers.set(user);
+                    int score = scores[row];
+                    if (score == NOT_COMPLETED) {
+                        continue;
+                    }
+                    completedScores[completed++] = score;
+                    scoreSum += score;
+                    if (questionCount > 0) {
+                        buckets[bucket(score, questionCount) - 1]++;
+                    }
+                }
+            }
+
+            List<Long> distribution = Arrays.stream(buckets).boxed().toList();
+            if (completed == 0) {
+                return new TestScoreSummary(questionCount, totalAttempts, testers.cardinality(), 0,
+                        0, 0, 0, 0, distribution);
+            }
+            Arrays.sort(completedScores, 0, completed);
+            return new TestScoreSummary(
+                    questionCount,
+                    totalAttempts,
+                    testers.cardinality(),
+                    completed,
+                    (double) scoreSum / completed,
+                    completedScores[completed - 1],
+                    percentile(completedScores, completed, 0.5),
+                    percentile(completedScores, completed, 0.9),
+                    distribution);
+        }
+
+        private int findRow(long attemptId) {
+            for (int row = size - 1; row >= 0; row--) {
+                if (attemptIds[row] == attemptId) {
+                    return row;
+                }
+            }
+            return -1;
+        }
+
+        private int userIndex(long userId) {
+            Integer index = userIndexById.get(userId);
+            if (index != null) {
+                return index;
+            }
+            if (userCount == userIds.length) {
+                userIds = Arrays.copyOf(userIds, userCount + (userCount >> 1));
+            }
+            userIds[userCount] = userId;
+            userIndexById.put(userId, userCount);
+            return userCount++;
+        }
+
+        /**
+         * Корзина 1..10 как у width_bucket: шаг 10% от числа вопросов, полный балл - в последней
+         */
+        private static int bucket(int score, int questionCount) {
+            long bucket = Math.floorDiv(score * 10L, questionCount) + 1;
+            return (int) Math.min(Math.max(bucket, 1), SCORE_BUCKETS);
+        }
+
+        /**
+         * Перцентиль с линейной интерполяцией, как percentile_cont
+         */
+        private static double percentile(int[] sorted, int count, double fraction) {
+            double position = fraction * (count - 1);
+            int lower = (int) Math.floor(position);
+            int upper = (int) Math.ceil(position);
+            return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+
+/**
+ * Дневная сводка попыток по (день, тест, проект) в таблице daily_attempt_rollup.
+ * Старт и завершение попытки в своей транзакции только добавляют строку в журнал приращений,
+ * периодический перенос суммирует журнал в сводку одним запросом.
+ */
+@Component
+@Slf4j
+public class DailyAttemptRollup {
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatisticsProperties properties;
+
+    private final Timer compactTimer;
+
+    public DailyAttemptRollup(TestAttemptRepository testAttemptRepository,
+                              TransactionTemplate transactionTemplate,
+                              StatisticsProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.testAttemptRepository = testAttemptRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.compactTimer = Timer.builder("assesspro.statistics.daily.compact")
+                .description("Время переноса журнала приращений в дневную сводку")
+                .register(meterRegistry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStarted(Collection<Long> attemptIds) {
+        append(attemptIds, false);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordFinished(Collection<Long> attemptIds) {
+        append(attemptIds, true);
+    }
+
+    private void append(Collection<Long> attemptIds, boolean finished) {
+        if (attemptIds.isEmpty()) {
+            return;
+        }
+        // Изменения попытки через JPA должны попасть в БД до выборки SQL-запросом
+        testAttemptRepository.flush();
+        testAttemptRepository.appendDailyRollupDeltas(attemptIds, finished);
+    }
+
+    @Scheduled(fixedDelayString = "${app.statistics.daily.compact-interval-ms:60000}")
+    public void compact() {
+        if (!properties.getDaily().isCompactEnabled()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            Integer rows = transactionTemplate.execute(status -> testAttemptRepository.compactDailyRollup());
+            if (rows != null && rows > 0) {
+                log.debug("Журнал дневной сводки перенесён: строк сводки {}", rows);
+            }
+        } catch (RuntimeException e) {
+            log.error("Ошибка переноса журнала дневной сводки", e);
+        } finally {
+            sample.stop(compactTimer);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.dto.statistics.DailyAttemptsDTO;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.DailyRollupFilter;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.DailyRollupRow;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Временные ряды попыток для панелей создателя и менеджера по дневной сводке:
+ * один запрос на период, дни без попыток дополняются нулями
+ */
+@Service
+@RequiredArgsConstructor
+public class DailyStatisticsService {
+
+    // Ограничение длины ряда в ответе, около пяти лет
+    static final int MAX_RANGE_DAYS = 1_830;
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final PrincipalSnapshotCache principalSnapshots;
+
+    /**
+     * Ряд по тестам создателя; чужой тест даёт нулевой ряд
+     */
+    @Transactional(readOnly = true)
+    public List<DailyAttemptsDTO> getCreatorDailyAttempts(String creatorUsername, LocalDate from, LocalDate to,
+                                                          Long testId) {
+        return getDailyAttempts(from, to, DailyRollupFilter.creator(getUserId(creatorUsername), testId));
+    }
+
+    /**
+     * Ряд по проектам менеджера; чужой проект даёт нулевой ряд
+     */
+    @Transactional(readOnly = true)
+    public List<DailyAttemptsDTO> getManagerDailyAttempts(String managerUsername, LocalDate from, LocalDate to,
+                                                          Long projectId) {
+        return getDailyAttempts(from, to, DailyRollupFilter.manager(getUserId(managerUsername), projectId));
+    }
+
+    private List<DailyAttemptsDTO> getDailyAttempts(LocalDate from, LocalDate to, DailyRollupFilter filter) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Начало периода позже окончания");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new RuntimeException("Период не должен превышать " + MAX_RANGE_DAYS + " дней");
+        }
+
+        Map<LocalDate, DailyRollupRow> rows = testAttemptRepository.findDailyRollup(from, to, filter).stream()
+                .collect(Collectors.toMap(DailyRollupRow::day, Function.identity()));
+
+        List<DailyAttemptsDTO> series = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailyRollupRow row = rows.get(day);
+            series.add(row != null ? toDailyAttemptsDTO(row) : new DailyAttemptsDTO(day, 0L, 0L, 0.0, 0.0, 0L));
+        }
+        return series;
+    }
+
+    private DailyAttemptsDTO toDailyAttemptsDTO(DailyRollupRow row) {
+        long completed = row.completedCount();
+        return new DailyAttemptsDTO(
+                row.day(),
+                row.startedCount(),
+                completed,
+                completed > 0 ? (double) row.scoreSum() / completed : 0.0,
+                completed > 0 ? row.percentageSum() / completed : 0.0,
+                row.totalMinutes());
+    }
+
+    private Long getUserId(String username) {
+        return principalSnapshots.getRequired(username).userId();
+    }
+}
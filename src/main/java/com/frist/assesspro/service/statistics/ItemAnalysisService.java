@@ -0,0 +1,65 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.dto.statistics.DistractorStatsDTO;
+import com.frist.assesspro.dto.statistics.ItemAnalysisDTO;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.OptionStatsRow;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.QuestionStatsRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Анализ вопросов теста по счётчикам question_stats и answer_option_stats:
+ * два запроса на тест независимо от числа ответов
+ */
+@Service
+@RequiredArgsConstructor
+public class ItemAnalysisService {
+
+    private final UserAnswerRepository userAnswerRepository;
+    private final TestRepository testRepository;
+
+    @Transactional(readOnly = true)
+    public List<ItemAnalysisDTO> getItemAnalysis(Long testId) {
+        if (!testRepository.existsById(testId)) {
+            throw new RuntimeException("Тест не найден");
+        }
+
+        Map<Long, List<OptionStatsRow>> optionsByQuestion = userAnswerRepository.findAnswerOptionStats(testId)
+                .stream()
+                .collect(Collectors.groupingBy(OptionStatsRow::questionId));
+
+        return userAnswerRepository.findQuestionStats(testId).stream()
+                .map(row -> toItemAnalysisDTO(row, optionsByQuestion.getOrDefault(row.questionId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private ItemAnalysisDTO toItemAnalysisDTO(QuestionStatsRow row, List<OptionStatsRow> options) {
+        long answerCount = row.answerCount();
+        List<DistractorStatsDTO> distractors = options.stream()
+                .map(option -> new DistractorStatsDTO(
+                        option.optionId(),
+                        option.text(),
+                        option.correct(),
+                        option.chosenCount(),
+                        answerCount > 0 ? (double) option.chosenCount() / answerCount : 0.0))
+                .collect(Collectors.toList());
+
+        return new ItemAnalysisDTO(
+                row.questionId(),
+                row.text(),
+                row.orderIndex(),
+                answerCount,
+                row.correctCount(),
+                answerCount > 0 ? (double) row.correctCount() / answerCount : null,
+                row.discrimination(),
+                row.recomputedAt(),
+                distractors);
+    }
+}
@@ -0,0 +1,80 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Пересчёт счётчиков анализа вопросов по сохранённым ответам.
+ * Счётчики обновляются при каждом сохранении ответа; пересчёт исправляет
+ * расхождения (удалённые попытки, ручные правки) и обновляет индекс дискриминации,
+ * которому нужны итоговые баллы попыток.
+ */
+@Component
+@Slf4j
+public class ItemStatsRecompute {
+
+    private final UserAnswerRepository userAnswerRepository;
+    private final TestRepository testRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatisticsProperties properties;
+
+    private final Timer recomputeTimer;
+
+    public ItemStatsRecompute(UserAnswerRepository userAnswerRepository,
+                              TestRepository testRepository,
+                              TransactionTemplate transactionTemplate,
+                              StatisticsProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.userAnswerRepository = userAnswerRepository;
+        this.testRepository = testRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.recomputeTimer = Timer.builder("assesspro.statistics.items.recompute")
+                .description("Время пересчёта счётчиков анализа вопросов")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Пересчёт одного теста по запросу создателя
+     */
+    public int recompute(Long testId) {
+        Integer questions = transactionTemplate.execute(status -> userAnswerRepository.recomputeItemStats(testId));
+        log.info("Счётчики анализа вопросов пересчитаны для теста ID: {}, вопросов {}", testId, questions);
+        return questions != null ? questions : 0;
+    }
+
+    @Scheduled(cron = "${app.statistics.items.recompute-cron:0 30 4 * * *}")
+    public void recomputeAll() {
+        if (!properties.getItems().isRecomputeEnabled()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        List<Long> testIds = testRepository.findAllIds();
+        int questions = 0;
+        int failed = 0;
+        // Каждый тест в своей транзакции: сохранение ответов ждёт блокировку счётчиков недолго
+        for (Long testId : testIds) {
+            try {
+                Integer recomputed = transactionTemplate.execute(status -> userAnswerRepository.recomputeItemStats(testId));
+                questions += recomputed != null ? recomputed : 0;
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Ошибка пересчёта анализа вопросов для теста ID: {}", testId, e);
+            }
+        }
+        sample.stop(recomputeTimer);
+
+        log.info("Счётчики анализа вопросов пересчитаны: тестов {}, вопросов {}, ошибок {}",
+                testIds.size(), questions, failed);
+    }
+}
@@ -0,0 +1,91 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.dto.statistics.LeaderboardEntryDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Ограниченный рейтинг из K лучших: упорядоченное множество записей и индекс по тестировщику.
+ * Обновление одного тестировщика - O(log K) без пересчёта остальных мест.
+ * Вытесненные участники в памяти не хранятся, поэтому если показатель участника снизился
+ * и он оказался на последнем месте полного рейтинга, рейтинг помечается устаревшим -
+ * кто-то за его пределами мог обойти участника, и рейтинг нужно перечитать из БД.
+ */
+public class Leaderboard {
+
+    public enum Change {
+        UNCHANGED, CHANGED, STALE
+    }
+
+    record Entry(Long userId, String username, String fullName, double percentage, long completedAttempts) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingDouble(Entry::percentage).reversed()
+            .thenComparing(Entry::userId);
+
+    private final int capacity;
+    private final TreeSet<Entry> ranked = new TreeSet<>(ORDER);
+    private final Map<Long, Entry> byUser = new HashMap<>();
+
+    // Есть участники за пределами рейтинга
+    private boolean truncated;
+
+    public Leaderboard(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Рейтинг из первых мест, прочитанных из БД; полный список означает, что за ним могут быть ещё участники
+     */
+    public static Leaderboard of(int capacity, List<Entry> entries) {
+        Leaderboard board = new Leaderboard(capacity);
+        entries.forEach(board::offer);
+        board.truncated = entries.size() >= board.capacity;
+        return board;
+    }
+
+    public synchronized Change offer(Entry entry) {
+        Entry existing = byUser.get(entry.userId());
+        if (existing != null) {
+            if (existing.equals(entry)) {
+                return Change.UNCHANGED;
+            }
+            ranked.remove(existing);
+            ranked.add(entry);
+            byUser.put(entry.userId(), entry);
+            boolean dropped = ORDER.compare(entry, existing) > 0;
+            return dropped && truncated && ranked.last() == entry ? Change.STALE : Change.CHANGED;
+        }
+
+        if (ranked.size() < capacity) {
+            ranked.add(entry);
+            byUser.put(entry.userId(), entry);
+            return Change.CHANGED;
+        }
+        truncated = true;
+        if (ORDER.compare(entry, ranked.last()) >= 0) {
+            return Change.UNCHANGED;
+        }
+        ranked.add(entry);
+        byUser.put(entry.userId(), entry);
+        byUser.remove(Objects.requireNonNull(ranked.pollLast()).userId());
+        return Change.CHANGED;
+    }
+
+    public synchronized List<LeaderboardEntryDTO> snapshot() {
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(ranked.size());
+        int rank = 0;
+        for (Entry entry : ranked) {
+            entries.add(new LeaderboardEntryDTO(++rank, entry.userId(), entry.username(), entry.fullName(),
+                    entry.percentage(), entry.completedAttempts()));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,205 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.dto.statistics.LeaderboardEntryDTO;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.LeaderboardRow;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.LeaderboardUpdate;
+import com.frist.assesspro.service.SseService;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Живые рейтинги тестировщиков: по тесту - лучший процент, по проекту - средний процент по всем тестам.
+ * Рейтинги хранятся в памяти как ограниченные top-K и обновляются по событию завершения попытки из outbox,
+ * изменения рассылаются подписчикам через SSE. При старте все рейтинги загружаются из БД двумя запросами.
+ */
+@Service
+@Slf4j
+public class LeaderboardService {
+
+    static final String SSE_EVENT = "leaderboard";
+
+    private static final String INVALIDATION_CACHE = "leaderboards";
+    private static final int MAX_CACHED_BOARDS = 10_000;
+
+    enum Scope {
+        TEST, PROJECT
+    }
+
+    record BoardKey(Scope scope, Long id) {
+
+        String topic() {
+            return "leaderboard:" + scope.name().toLowerCase() + ":" + id;
+        }
+    }
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final SseService sseService;
+    private final StatisticsProperties properties;
+    private final CacheInvalidationBus invalidationBus;
+
+    // Обновления меняют рейтинг на месте, поэтому срок жизни от загрузки
+    // периодически сверяет рейтинг с БД после удаления попыток и смены проектов
+    private final Cache<BoardKey, Leaderboard> boards = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_BOARDS)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    public LeaderboardService(TestAttemptRepository testAttemptRepository,
+                              SseService sseService,
+                              StatisticsProperties properties,
+                              CacheInvalidationBus invalidationBus) {
+        this.testAttemptRepository = testAttemptRepository;
+        this.sseService = sseService;
+        this.properties = properties;
+        this.invalidationBus = invalidationBus;
+        // Событие outbox обрабатывает один узел; остальные обновляют свои рейтинги по той же попытке
+        invalidationBus.register(INVALIDATION_CACHE, attemptIds -> {
+            if (attemptIds == null) {
+                boards.invalidateAll();
+            } else {
+                attemptIds.forEach(attemptId -> update(Long.valueOf(attemptId)));
+            }
+        });
+    }
+
+    public List<LeaderboardEntryDTO> getTestLeaderboard(Long testId) {
+        return board(new BoardKey(Scope.TEST, testId)).snapshot();
+    }
+
+    public List<LeaderboardEntryDTO> getProjectLeaderboard(Long projectId) {
+        return board(new BoardKey(Scope.PROJECT, projectId)).snapshot();
+    }
+
+    public SseEmitter subscribeTest(Long testId) {
+        return subscribe(new BoardKey(Scope.TEST, testId));
+    }
+
+    public SseEmitter subscribeProject(Long projectId) {
+        return subscribe(new BoardKey(Scope.PROJECT, projectId));
+    }
+
+    /**
+     * Обновление рейтингов теста и проекта по завершённой попытке.
+     * Показатели читаются из БД целиком, поэтому повторная доставка события безопасна.
+     */
+    public void onAttemptCompleted(Long attemptId) {
+        update(attemptId);
+        invalidationBus.publish(INVALIDATION_CACHE, attemptId);
+    }
+
+    private void update(Long attemptId) {
+        LeaderboardUpdate update = testAttemptRepository.findLeaderboardUpdate(attemptId).orElse(null);
+        if (update == null) {
+            return;
+        }
+        apply(Scope.TEST, update.testRow());
+        if (update.projectRow() != null) {
+            apply(Scope.PROJECT, update.projectRow());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.getLeaderboard().isWarmUpEnabled()) {
+            return;
+        }
+        try {
+            int size = properties.getLeaderboard().getSize();
+            int tests = load(Scope.TEST, testAttemptRepository.findTestLeaderboards(null, size));
+            int projects = load(Scope.PROJECT, testAttemptRepository.findProjectLeaderboards(null, size));
+            log.info("Рейтинги загружены: тестов {}, проектов {}", tests, projects);
+        } catch (RuntimeException e) {
+            // Без прогрева рейтинги загрузятся при первом обращении
+            log.error("Ошибка загрузки рейтингов при старте", e);
+        }
+    }
+
+    private void apply(Scope scope, LeaderboardRow row) {
+        if (row.completedAttempts() == 0) {
+            return;
+        }
+        BoardKey key = new BoardKey(scope, row.boardId());
+        Leaderboard board = boards.getIfPresent(key);
+        if (board == null) {
+            // Загруженный рейтинг уже учитывает попытку
+            publish(key, board(key));
+            return;
+        }
+
+        switch (board.offer(toEntry(row))) {
+            case CHANGED -> publish(key, board);
+            case STALE -> {
+                Leaderboard reloaded = loadBoard(key);
+                boards.put(key, reloaded);
+                publish(key, reloaded);
+            }
+            case UNCHANGED -> {
+            }
+        }
+    }
+
+    private SseEmitter subscribe(BoardKey key) {
+        SseEmitter emitter = sseService.subscribe(key.topic());
+        try {
+            emitter.send(SseEmitter.event().name(SSE_EVENT).data(board(key).snapshot()));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private void publish(BoardKey key, Leaderboard board) {
+        sseService.sendToTopic(key.topic(), SSE_EVENT, board.snapshot());
+    }
+
+    private Leaderboard board(BoardKey key) {
+        return boards.get(key, this::loadBoard);
+    }
+
+    private Leaderboard loadBoard(BoardKey key) {
+        int size = properties.getLeaderboard().getSize();
+        List<LeaderboardRow> rows = key.scope() == Scope.TEST
+                ? testAttemptRepository.findTestLeaderboards(key.id(), size)
+                : testAttemptRepository.findProjectLeaderboards(key.id(), size);
+        return Leaderboard.of(size, rows.stream().map(LeaderboardService::toEntry).toList());
+    }
+
+    private int load(Scope scope, List<LeaderboardRow> rows) {
+        int size = properties.getLeaderboard().getSize();
+        Map<Long, List<Leaderboard.Entry>> entriesByBoard = rows.stream()
+                .collect(Collectors.groupingBy(LeaderboardRow::boardId,
+                        Collectors.mapping(LeaderboardService::toEntry, Collectors.toList())));
+        entriesByBoard.forEach((boardId, entries) ->
+                boards.put(new BoardKey(scope, boardId), Leaderboard.of(size, entries)));
+        return entriesByBoard.size();
+    }
+
+    private static Leaderboard.Entry toEntry(LeaderboardRow row) {
+        return new Leaderboard.Entry(row.userId(), row.username(), fullName(row), row.percentage(),
+                row.completedAttempts());
+    }
+
+    private static String fullName(LeaderboardRow row) {
+        StringBuilder sb = new StringBuilder();
+        if (row.lastName() != null) sb.append(row.lastName());
+        if (row.firstName() != null) {
+            if (!sb.isEmpty()) sb.append(" ");
+            sb.append(row.firstName());
+        }
+        return sb.isEmpty() ? row.username() : sb.toString();
+    }
+}
@@ -0,0 +1,214 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.dto.statistics.ActiveAttemptProjection;
+import com.frist.assesspro.dto.statistics.LiveExamFrameDTO;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.service.SseService;
+import com.frist.assesspro.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Живой мониторинг прохождения тестов: события старта, ответов и завершения попыток
+ * копятся в памяти по тесту, а наблюдателям раз в интервал уходит один кадр с текущим состоянием.
+ * Частота рассылки не зависит от числа тестировщиков: сотни ответов в секунду дают один кадр.
+ * При первом подключении наблюдателя состояние теста дополняется незавершёнными попытками из БД.
+ */
+@Component
+@Slf4j
+public class LiveExamMonitor {
+
+    static final String SSE_EVENT = "monitor";
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final SseService sseService;
+    private final StatisticsProperties properties;
+    private final Clock clock;
+
+    private final Counter framesCounter;
+
+    private final Map<Long, TestSession> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> testByAttempt = new ConcurrentHashMap<>();
+
+    public LiveExamMonitor(TestAttemptRepository testAttemptRepository,
+                           SseService sseService,
+                           StatisticsProperties properties,
+                           Clock clock,
+                           MeterRegistry meterRegistry) {
+        this.testAttemptRepository = testAttemptRepository;
+        this.sseService = sseService;
+        this.properties = properties;
+        this.clock = clock;
+        this.framesCounter = Counter.builder("assesspro.monitor.frames")
+                .description("Количество кадров мониторинга, отправленных наблюдателям")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Текущее число отвеченных вопросов попытки; submittedAnswers - сколько ответов пришло этим запросом.
+     * Внутри транзакции применяется после коммита.
+     */
+    public void attemptProgress(Long testId, Long attemptId, int questionCount, int answeredCount,
+                                int submittedAnswers) {
+        TransactionUtils.afterCommit(() -> {
+            testByAttempt.put(attemptId, testId);
+            session(testId).progress(attemptId, questionCount, answeredCount, submittedAnswers, LocalDateTime.now(clock));
+        });
+    }
+
+    public void attemptsFinished(Collection<Long> attemptIds) {
+        TransactionUtils.afterCommit(() -> attemptIds.forEach(attemptId -> {
+            Long testId = testByAttempt.remove(attemptId);
+            TestSession session = testId != null ? sessions.get(testId) : null;
+            if (session != null) {
+                session.finish(attemptId);
+            }
+        }));
+    }
+
+    public LiveExamFrameDTO getFrame(Long testId) {
+        return seededSession(testId).frame(testId, LocalDateTime.now(clock));
+    }
+
+    public SseEmitter subscribe(Long testId) {
+        TestSession session = seededSession(testId);
+        SseEmitter emitter = sseService.subscribe(topic(testId));
+        try {
+            emitter.send(SseEmitter.event().name(SSE_EVENT).data(session.frame(testId, LocalDateTime.now(clock))));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${app.statistics.monitor.frame-interval-ms:1000}")
+    public void publishFrames() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime idleBefore = now.minusMinutes(properties.getMonitor().getIdleTimeoutMinutes());
+        sessions.forEach((testId, session) -> {
+            session.pruneIdle(idleBefore, testByAttempt);
+            String topic = topic(testId);
+            if (!sseService.hasSubscribers(topic)) {
+                if (session.isEmpty()) {
+                    sessions.remove(testId, session);
+                }
+                return;
+            }
+            if (session.takeDirty()) {
+                sseService.sendToTopic(topic, SSE_EVENT, session.frame(testId, now));
+                framesCounter.increment();
+            }
+        });
+    }
+
+    private TestSession session(Long testId) {
+        return sessions.computeIfAbsent(testId, id -> new TestSession());
+    }
+
+    private TestSession seededSession(Long testId) {
+        TestSession session = session(testId);
+        if (session.markSeeded()) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            for (ActiveAttemptProjection attempt : testAttemptRepository.findActiveAttemptsByTestId(
+                    testId, now, now.minusMinutes(properties.getMonitor().getIdleTimeoutMinutes()))) {
+                if (session.seed(attempt, now)) {
+                    testByAttempt.putIfAbsent(attempt.getId(), testId);
+                }
+            }
+        }
+        return session;
+    }
+
+    private static String topic(Long testId) {
+        return "monitor:test:" + testId;
+    }
+
+    private record Progress(int answered, int total, LocalDateTime lastActivity) {
+    }
+
+    /**
+     * Состояние одного теста; счётчики ответов и завершений - с момента появления теста в мониторинге
+     */
+    static final class TestSession {
+
+        private final Map<Long, Progress> attempts = new ConcurrentHashMap<>();
+        private final LongAdder answersSubmitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final AtomicBoolean dirty = new AtomicBoolean(true);
+        private final AtomicBoolean seeded = new AtomicBoolean();
+
+        void progress(Long attemptId, int questionCount, int answeredCount, int submitted, LocalDateTime now) {
+            // Запросы одной попытки могут завершиться не по порядку - берём максимум
+            attempts.merge(attemptId, new Progress(answeredCount, questionCount, now),
+                    (old, current) -> new Progress(Math.max(old.answered(), current.answered()),
+                            current.total(), now));
+            answersSubmitted.add(submitted);
+            dirty.set(true);
+        }
+
+        void finish(Long attemptId) {
+            if (attempts.remove(attemptId) != null) {
+                completed.increment();
+                dirty.set(true);
+            }
+        }
+
+        boolean seed(ActiveAttemptProjection attempt, LocalDateTime now) {
+            int answered = attempt.getAnsweredCount() != null ? attempt.getAnsweredCount() : 0;
+            int total = attempt.getTotalQuestions() != null ? attempt.getTotalQuestions() : 0;
+            boolean added = attempts.putIfAbsent(attempt.getId(), new Progress(answered, total, now)) == null;
+            if (added) {
+                dirty.set(true);
+            }
+            return added;
+        }
+
+        void pruneIdle(LocalDateTime idleBefore, Map<Long, Long> testByAttempt) {
+            attempts.forEach((attemptId, progress) -> {
+                if (progress.lastActivity().isBefore(idleBefore) && attempts.remove(attemptId, progress)) {
+                    testByAttempt.remove(attemptId);
+                    dirty.set(true);
+                }
+            });
+        }
+
+        boolean markSeeded() {
+            return seeded.compareAndSet(false, true);
+        }
+
+        boolean takeDirty() {
+            return dirty.getAndSet(false);
+        }
+
+        boolean isEmpty() {
+            return attempts.isEmpty();
+        }
+
+        LiveExamFrameDTO frame(Long testId, LocalDateTime now) {
+            int inProgress = 0;
+            double progressSum = 0;
+            for (Progress progress : attempts.values()) {
+                inProgress++;
+                if (progress.total() > 0) {
+                    progressSum += Math.min(progress.answered(), progress.total()) * 100.0 / progress.total();
+                }
+            }
+            return new LiveExamFrameDTO(testId, inProgress, answersSubmitted.sum(), completed.sum(),
+                    inProgress > 0 ? progressSum / inProgress : 0.0, now);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Кэш сводки баллов по тесту (все тестировщики).
+ * Инвалидируется при старте, завершении и закрытии попытки по времени;
+ * сводка, посчитанная по устаревшей версии или другому числу вопросов, не используется.
+ */
+@Component
+@Slf4j
+public class TestSummaryCache {
+
+    private static final String INVALIDATION_CACHE = "testSummaries";
+    private static final int MAX_CACHED_TESTS = 1_000;
+
+    private final VersionedCache<Long, TestScoreSummary> summaries = new VersionedCache<>(Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TESTS)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build());
+
+    private final CacheInvalidationBus invalidationBus;
+
+    public TestSummaryCache(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(INVALIDATION_CACHE, keys -> {
+            if (keys == null) {
+                summaries.evictAll();
+            } else {
+                keys.forEach(testId -> evict(Long.valueOf(testId)));
+            }
+        });
+    }
+
+    /**
+     * Получение сводки (расчёт при промахе)
+     */
+    public TestScoreSummary get(Long testId, int questionCount, Supplier<TestScoreSummary> loader) {
+        TestScoreSummary cached = summaries.getIfPresent(testId);
+        if (cached != null && cached.questionCount() == questionCount) {
+            return cached;
+        }
+
+        long version = summaries.stamp();
+        TestScoreSummary summary = loader.get();
+        summaries.put(testId, summary, version);
+        return summary;
+    }
+
+    /**
+     * Инвалидация сводки теста. Внутри транзакции инвалидация повторяется
+     * после коммита, чтобы параллельное чтение не закэшировало старые данные.
+     * Другие узлы инвалидируют сводку после коммита.
+     */
+    public void invalidate(Long testId) {
+        if (testId == null) {
+            return;
+        }
+        invalidationBus.publish(INVALIDATION_CACHE, testId);
+        VersionedCache.evictNowAndAfterCommit(() -> evict(testId));
+    }
+
+    private void evict(Long testId) {
+        summaries.evict(testId);
+        log.debug("Сводка баллов теста ID: {} инвалидирована", testId);
+    }
+}
@@ -0,0 +1,74 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.dto.statistics.TesterOverviewDTO;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Кэш общей статистики тестировщика.
+ * Инвалидируется вместе со строками test_tester_stats при старте, завершении
+ * и закрытии попытки по времени; переименование теста видно после истечения записи.
+ */
+@Component
+@Slf4j
+public class TesterOverviewCache {
+
+    private static final String INVALIDATION_CACHE = "testerOverviews";
+    private static final int MAX_CACHED_TESTERS = 10_000;
+
+    private final VersionedCache<Long, TesterOverviewDTO> overviews = new VersionedCache<>(Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TESTERS)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build());
+
+    private final CacheInvalidationBus invalidationBus;
+
+    public TesterOverviewCache(CacheInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(INVALIDATION_CACHE, keys -> {
+            if (keys == null) {
+                overviews.evictAll();
+            } else {
+                keys.forEach(testerId -> evict(Long.valueOf(testerId)));
+            }
+        });
+    }
+
+    /**
+     * Получение статистики (расчёт при промахе)
+     */
+    public TesterOverviewDTO get(Long testerId, Supplier<TesterOverviewDTO> loader) {
+        TesterOverviewDTO cached = overviews.getIfPresent(testerId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long version = overviews.stamp();
+        TesterOverviewDTO overview = loader.get();
+        overviews.put(testerId, overview, version);
+        return overview;
+    }
+
+    /**
+     * Инвалидация статистики тестировщика, внутри транзакции - повторно после коммита;
+     * другие узлы инвалидируют её после коммита
+     */
+    public void invalidate(Long testerId) {
+        if (testerId == null) {
+            return;
+        }
+        invalidationBus.publish(INVALIDATION_CACHE, testerId);
+        VersionedCache.evictNowAndAfterCommit(() -> evict(testerId));
+    }
+
+    private void evict(Long testerId) {
+        overviews.evict(testerId);
+        log.debug("Общая статистика тестировщика ID: {} инвалидирована", testerId);
+    }
+}
@@ -0,0 +1,147 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterStatsKey;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Сводная статистика по паре (тест, тестировщик) в таблице test_tester_stats.
+ * Строка пересчитывается в транзакции старта и завершения попытки,
+ * ночное перестроение по тестам заполняет пропуски и исправляет расхождения.
+ * Вместе со строками сводки инвалидируются кэш сводки баллов затронутых тестов
+ * и кэш общей статистики затронутых тестировщиков, закэшированные списки попыток этих тестов
+ * сбрасываются, попытки дописываются в колоночное хранилище.
+ */
+@Component
+@Slf4j
+public class TesterStatsRollup {
+
+    private static final String ATTEMPT_LIST_CACHE = "testerStatistics";
+    // Сброс списков попыток по id теста (префиксу ключа) на других узлах
+    private static final String ATTEMPT_LIST_INVALIDATION = "testerStatistics.tests";
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final TestRepository testRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TestSummaryCache testSummaryCache;
+    private final TesterOverviewCache testerOverviewCache;
+    private final AttemptColumnStore attemptColumnStore;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final StatisticsProperties properties;
+
+    private final Timer rebuildTimer;
+
+    public TesterStatsRollup(TestAttemptRepository testAttemptRepository,
+                             TestRepository testRepository,
+                             TransactionTemplate transactionTemplate,
+                             TestSummaryCache testSummaryCache,
+                             TesterOverviewCache testerOverviewCache,
+                             AttemptColumnStore attemptColumnStore,
+                             CacheManager cacheManager,
+                             CacheInvalidationBus invalidationBus,
+                             StatisticsProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.testAttemptRepository = testAttemptRepository;
+        this.testRepository = testRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.testSummaryCache = testSummaryCache;
+        this.testerOverviewCache = testerOverviewCache;
+        this.attemptColumnStore = attemptColumnStore;
+        this.cacheManager = cacheManager;
+        this.invalidationBus = invalidationBus;
+        this.properties = properties;
+        this.rebuildTimer = Timer.builder("assesspro.statistics.rollup.rebuild")
+                .description("Время полного перестроения сводки тестировщиков")
+                .register(meterRegistry);
+        // Полный сброс списков выполняет обработчик самого кэша testerStatistics
+        invalidationBus.register(ATTEMPT_LIST_INVALIDATION, testIds -> {
+            if (testIds != null) {
+                attemptListEviction(testIds.stream().map(Long::valueOf).collect(Collectors.toSet())).run();
+            }
+        });
+    }
+
+    /**
+     * Пересчёт строк сводки для попыток, изменённых в текущей транзакции
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Collection<Long> attemptIds) {
+        if (attemptIds.isEmpty()) {
+            return;
+        }
+        // Изменения попытки через JPA должны попасть в БД до пересчёта SQL-запросом
+        testAttemptRepository.flush();
+        Set<TesterStatsKey> keys = testAttemptRepository.refreshTesterStats(attemptIds);
+        keys.stream().map(TesterStatsKey::testId).distinct().forEach(testSummaryCache::invalidate);
+        evictAttemptLists(keys.stream().map(TesterStatsKey::testId).collect(Collectors.toSet()));
+        keys.stream().map(TesterStatsKey::testerId).distinct().forEach(testerOverviewCache::invalidate);
+        attemptColumnStore.record(attemptIds);
+    }
+
+    /**
+     * Закэшированные страницы списка попыток тестов (ключ начинается с id теста).
+     * Внутри транзакции сброс повторяется после коммита, как у кэша сводки;
+     * другие узлы сбрасывают списки после коммита.
+     */
+    private void evictAttemptLists(Set<Long> testIds) {
+        if (testIds.isEmpty()) {
+            return;
+        }
+        testIds.forEach(testId -> invalidationBus.publish(ATTEMPT_LIST_INVALIDATION, testId));
+        VersionedCache.evictNowAndAfterCommit(attemptListEviction(testIds));
+    }
+
+    private Runnable attemptListEviction(Set<Long> testIds) {
+        if (!(cacheManager.getCache(ATTEMPT_LIST_CACHE) instanceof CaffeineCache cache)) {
+            return () -> {
+            };
+        }
+        Set<String> prefixes = testIds.stream().map(testId -> testId + "_").collect(Collectors.toSet());
+        return () -> cache.getNativeCache().asMap().keySet()
+                .removeIf(key -> prefixes.stream().anyMatch(String.valueOf(key)::startsWith));
+    }
+
+    @Scheduled(cron = "${app.statistics.rollup.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        if (!properties.getRollup().isRebuildEnabled()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        List<Long> testIds = testRepository.findAllIds();
+        int rows = 0;
+        int failed = 0;
+        // Каждый тест в своей транзакции: блокировки строк сводки держатся недолго
+        for (Long testId : testIds) {
+            try {
+                Integer rebuilt = transactionTemplate.execute(status -> testAttemptRepository.rebuildTesterStats(testId));
+                rows += rebuilt != null ? rebuilt : 0;
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Ошибка перестроения сводки тестировщиков для теста ID: {}", testId, e);
+            }
+        }
+        sample.stop(rebuildTimer);
+
+        log.info("Сводка тестировщиков перестроена: тестов {}, строк {}, ошибок {}", testIds.size(), rows, failed);
+    }
+}
@@ -0,0 +1,452 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.config.TakingProperties;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.AnswerUpsert;
+import com.frist.assesspro.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Буфер отложенной (write-behind) записи ответов.
+ * Ответы копятся по попыткам и периодически записываются в БД
+ * многострочными UPSERT. Завершение попытки и остановка приложения
+ * принудительно сбрасывают буфер.
+ * Ответ, сохранённый внутри транзакции, попадает в буфер только после её коммита:
+ * до коммита его запишет лишь сброс этой попытки в той же транзакции.
+ * Буфер хранится в памяти узла: при аварийной остановке процесса теряются ответы,
+ * принятые после последнего сброса (до flush-interval-ms), хотя клиент уже получил подтверждение.
+ * Ответы после крайнего срока попытки с запасом reaper не принимаются: reaper сбрасывает
+ * ответы попыток до их закрытия, и поздний ответ не может попасть в буфер после этого сброса.
+ */
+@Component
+@Slf4j
+public class AnswerWriteBehindBuffer {
+
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.HOURS.toNanos(2);
+
+    private final UserAnswerRepository userAnswerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TakingProperties properties;
+    private final Clock clock;
+
+    // Записи ответов попытки идут под её блокировкой сброса, чтобы более старый ответ
+    // не перезаписал более новый при параллельных сбросах
+    private final Map<Long, AttemptBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingAnswers;
+    private final Counter flushedAnswersCounter;
+
+    public AnswerWriteBehindBuffer(UserAnswerRepository userAnswerRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   TakingProperties properties,
+                                   Clock clock,
+                                   MeterRegistry meterRegistry) {
+        this.userAnswerRepository = userAnswerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.clock = clock;
+        this.pendingAnswers = meterRegistry.gauge("assesspro.answers.buffered", new AtomicInteger(0));
+        this.flushedAnswersCounter = Counter.builder("assesspro.answers.flushed")
+                .description("Количество ответов, записанных из буфера")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.getWriteBehind().isEnabled();
+    }
+
+    /**
+     * Постановка ответа в буфер (внутри транзакции - после её коммита).
+     * Ответ, поступивший позже крайнего срока попытки с запасом reaper, отбрасывается.
+     * Возвращает количество отвеченных вопросов попытки с учётом этого ответа.
+     */
+    public int enqueue(AnswerUpsert answer, LocalDateTime deadlineAt, Supplier<Collection<Long>> persistedQuestionIds) {
+        AttemptSource source = new AttemptSource(deadlineAt, persistedQuestionIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return buffer(answer, source, true);
+        }
+        TransactionAnswers staged = transactionAnswers();
+        if (isLate(deadlineAt)) {
+            log.info("Ответ на вопрос ID: {} попытки ID: {} поступил после крайнего срока и отброшен",
+                    answer.questionId(), answer.attemptId());
+        } else {
+            staged.add(answer, source);
+        }
+        return answeredCount(answer.attemptId(), source, staged.questionIds(answer.attemptId()));
+    }
+
+    /**
+     * Принудительная запись ответов попытки в текущей транзакции (или в отдельной, если её нет).
+     * При откате транзакции ответы возвращаются в буфер.
+     */
+    public void flush(Long attemptId) {
+        flush(List.of(attemptId));
+    }
+
+    /**
+     * Запись ответов нескольких попыток одним пакетом, как {@link #flush(Long)}
+     */
+    public void flush(Collection<Long> attemptIds) {
+        TransactionAnswers staged = (TransactionAnswers) TransactionSynchronizationManager.getResource(this);
+        List<AttemptBuffer> locked = new ArrayList<>();
+        List<AnswerUpsert> uncommitted = new ArrayList<>();
+        // Блокировки попыток берутся в порядке ID, как при пакетной записи
+        for (Long attemptId : new TreeSet<>(attemptIds)) {
+            AttemptBuffer buffer = buffers.get(attemptId);
+            if (buffer != null) {
+                locked.add(buffer);
+            }
+            if (staged != null) {
+                uncommitted.addAll(staged.unwritten(attemptId));
+            }
+        }
+        if (locked.isEmpty() && uncommitted.isEmpty()) {
+            return;
+        }
+        locked.forEach(buffer -> buffer.flushLock.lock());
+        try {
+            List<AnswerUpsert> drained = new ArrayList<>();
+            locked.forEach(buffer -> drained.addAll(buffer.drain()));
+            List<AnswerUpsert> batch = new ArrayList<>(drained);
+            batch.addAll(uncommitted);
+            if (batch.isEmpty()) {
+                return;
+            }
+            boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+            try {
+                if (inTransaction) {
+                    userAnswerRepository.upsertAnswers(batch);
+                } else {
+                    transactionTemplate.executeWithoutResult(status -> userAnswerRepository.upsertAnswers(batch));
+                }
+            } catch (RuntimeException e) {
+                requeue(drained);
+                log.error("Ошибка записи буферизованных ответов попыток ID: {}", attemptIds, e);
+                throw new RuntimeException("Не удалось сохранить ответы", e);
+            }
+            if (staged != null) {
+                attemptIds.forEach(staged::markWritten);
+            }
+            if (inTransaction) {
+                TransactionUtils.afterRollback(() -> requeue(drained));
+            }
+            flushedAnswersCounter.increment(batch.size());
+            log.debug("Записано {} буферизованных ответов попыток ID: {}", batch.size(), attemptIds);
+        } finally {
+            locked.forEach(buffer -> buffer.flushLock.unlock());
+        }
+    }
+
+    /**
+     * Забыть состояние попытки после её завершения
+     */
+    public void discard(Long attemptId) {
+        TransactionAnswers staged = (TransactionAnswers) TransactionSynchronizationManager.getResource(this);
+        if (staged != null) {
+            staged.forget(attemptId);
+        }
+        AttemptBuffer buffer = buffers.remove(attemptId);
+        if (buffer == null) {
+            return;
+        }
+        buffer.lock.lock();
+        try {
+            buffer.closed = true;
+            if (!buffer.pending.isEmpty()) {
+                log.warn("Отброшено {} ответов, поступивших после завершения попытки ID: {}",
+                        buffer.pending.size(), attemptId);
+                pendingAnswers.addAndGet(-buffer.pending.size());
+                buffer.pending.clear();
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Периодическая пакетная запись всех накопленных ответов.
+     * Пакет собирается из целых попыток и блокирует только их: сброс других попыток не ждёт записи
+     */
+    @Scheduled(fixedDelayString = "${app.taking.write-behind.flush-interval-ms:500}")
+    public void flushAll() {
+        if (buffers.isEmpty()) {
+            return;
+        }
+        int batchSize = Math.max(1, properties.getWriteBehind().getMaxBatchSize());
+        List<AttemptBuffer> chunk = new ArrayList<>();
+        int chunkSize = 0;
+        // Блокировки попыток берутся в порядке ID - параллельные сбросы не блокируют друг друга взаимно
+        for (AttemptBuffer buffer : new TreeMap<>(buffers).values()) {
+            int size = buffer.size();
+            if (size == 0) {
+                continue;
+            }
+            chunk.add(buffer);
+            chunkSize += size;
+            if (chunkSize >= batchSize) {
+                if (!writeChunk(chunk)) {
+                    chunk.clear();
+                    break;
+                }
+                chunk = new ArrayList<>();
+                chunkSize = 0;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk);
+        }
+
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+        if (pendingAnswers.get() > 0) {
+            log.error("При остановке не удалось записать {} буферизованных ответов", pendingAnswers.get());
+        }
+    }
+
+    private boolean writeChunk(List<AttemptBuffer> chunk) {
+        chunk.forEach(buffer -> buffer.flushLock.lock());
+        try {
+            List<AnswerUpsert> batch = new ArrayList<>();
+            chunk.forEach(buffer -> batch.addAll(buffer.drain()));
+            if (batch.isEmpty()) {
+                return true;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> userAnswerRepository.upsertAnswers(batch));
+                flushedAnswersCounter.increment(batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                log.error("Ошибка пакетной записи {} ответов, повтор при следующем сбросе", batch.size(), e);
+                requeue(batch);
+                return false;
+            }
+        } finally {
+            chunk.forEach(buffer -> buffer.flushLock.unlock());
+        }
+    }
+
+    /**
+     * Ответ, принятый вне транзакции или после её коммита; pending = false - уже записан в БД
+     */
+    private int buffer(AnswerUpsert answer, AttemptSource source, boolean pending) {
+        while (true) {
+            AttemptBuffer buffer = buffers.computeIfAbsent(answer.attemptId(), id -> new AttemptBuffer());
+            buffer.lock.lock();
+            try {
+                if (buffer.closed) {
+                    continue;
+                }
+                if (buffer.answeredQuestionIds == null) {
+                    buffer.answeredQuestionIds = new HashSet<>(source.persistedQuestionIds().get());
+                }
+                // Проверка под блокировкой буфера: сброс попытки reaper после срока видит все принятые ответы
+                if (pending && isLate(source.deadlineAt())) {
+                    log.info("Ответ на вопрос ID: {} попытки ID: {} поступил после крайнего срока и отброшен",
+                            answer.questionId(), answer.attemptId());
+                    return buffer.answeredQuestionIds.size();
+                }
+                if (pending) {
+                    AnswerUpsert current = buffer.pending.get(answer.questionId());
+                    if (current == null) {
+                        buffer.pending.put(answer.questionId(), answer);
+                        pendingAnswers.incrementAndGet();
+                    } else if (!answer.isOlderThan(current)) {
+                        buffer.pending.put(answer.questionId(), answer);
+                    }
+                }
+                buffer.answeredQuestionIds.add(answer.questionId());
+                buffer.lastTouchedNanos = System.nanoTime();
+                return buffer.answeredQuestionIds.size();
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Число отвеченных вопросов попытки вместе с ответами текущей, ещё не закоммиченной транзакции
+     */
+    private int answeredCount(Long attemptId, AttemptSource source, Set<Long> uncommitted) {
+        while (true) {
+            AttemptBuffer buffer = buffers.computeIfAbsent(attemptId, id -> new AttemptBuffer());
+            buffer.lock.lock();
+            try {
+                if (buffer.closed) {
+                    continue;
+                }
+                if (buffer.answeredQuestionIds == null) {
+                    buffer.answeredQuestionIds = new HashSet<>(source.persistedQuestionIds().get());
+                }
+                buffer.lastTouchedNanos = System.nanoTime();
+                int count = buffer.answeredQuestionIds.size();
+                for (Long questionId : uncommitted) {
+                    if (!buffer.answeredQuestionIds.contains(questionId)) {
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+    }
+
+    private boolean isLate(LocalDateTime deadlineAt) {
+        return deadlineAt != null && LocalDateTime.now(clock)
+                .isAfter(deadlineAt.plusSeconds(properties.getReaper().getGraceSeconds()));
+    }
+
+    private TransactionAnswers transactionAnswers() {
+        TransactionAnswers staged = (TransactionAnswers) TransactionSynchronizationManager.getResource(this);
+        if (staged == null) {
+            TransactionAnswers created = new TransactionAnswers();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionUtils.afterCommit(created::commit);
+            TransactionUtils.afterCompletion(status -> TransactionSynchronizationManager.unbindResourceIfPossible(this));
+            staged = created;
+        }
+        return staged;
+    }
+
+    private void requeue(List<AnswerUpsert> answers) {
+        for (AnswerUpsert answer : answers) {
+            AttemptBuffer buffer = buffers.computeIfAbsent(answer.attemptId(), id -> new AttemptBuffer());
+            buffer.lock.lock();
+            try {
+                if (buffer.closed) {
+                    continue;
+                }
+                // Более новый ответ на тот же вопрос имеет приоритет
+                AnswerUpsert current = buffer.pending.get(answer.questionId());
+                if (current == null) {
+                    buffer.pending.put(answer.questionId(), answer);
+                    pendingAnswers.incrementAndGet();
+                } else if (current.isOlderThan(answer)) {
+                    buffer.pending.put(answer.questionId(), answer);
+                }
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        buffers.forEach((attemptId, buffer) -> {
+            if (now - buffer.lastTouchedNanos > IDLE_TIMEOUT_NANOS && buffer.lock.tryLock()) {
+                try {
+                    if (buffer.pending.isEmpty()) {
+                        buffer.closed = true;
+                        buffers.remove(attemptId, buffer);
+                    }
+                } finally {
+                    buffer.lock.unlock();
+                }
+            }
+        });
+    }
+
+    private final class AttemptBuffer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private final Map<Long, AnswerUpsert> pending = new LinkedHashMap<>();
+        private Set<Long> answeredQuestionIds;
+        private volatile long lastTouchedNanos = System.nanoTime();
+        private boolean closed;
+
+        private int size() {
+            lock.lock();
+            try {
+                return pending.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<AnswerUpsert> drain() {
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return List.of();
+                }
+                List<AnswerUpsert> drained = new ArrayList<>(pending.values());
+                pending.clear();
+                pendingAnswers.addAndGet(-drained.size());
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ответы текущей транзакции: передаются в буфер после коммита, при откате отбрасываются
+     */
+    private final class TransactionAnswers {
+        private final Map<Long, Map<Long, AnswerUpsert>> unwritten = new LinkedHashMap<>();
+        // Ответы, уже записанные сбросом попытки в этой же транзакции
+        private final Map<Long, Map<Long, AnswerUpsert>> written = new HashMap<>();
+        private final Map<Long, AttemptSource> sources = new HashMap<>();
+
+        private void add(AnswerUpsert answer, AttemptSource source) {
+            sources.putIfAbsent(answer.attemptId(), source);
+            unwritten.computeIfAbsent(answer.attemptId(), id -> new LinkedHashMap<>())
+                    .merge(answer.questionId(), answer,
+                            (current, candidate) -> candidate.isOlderThan(current) ? current : candidate);
+        }
+
+        private Set<Long> questionIds(Long attemptId) {
+            Set<Long> questionIds = new HashSet<>(unwritten.getOrDefault(attemptId, Map.of()).keySet());
+            questionIds.addAll(written.getOrDefault(attemptId, Map.of()).keySet());
+            return questionIds;
+        }
+
+        private List<AnswerUpsert> unwritten(Long attemptId) {
+            return List.copyOf(unwritten.getOrDefault(attemptId, Map.of()).values());
+        }
+
+        private void markWritten(Long attemptId) {
+            Map<Long, AnswerUpsert> answers = unwritten.remove(attemptId);
+            if (answers != null) {
+                written.computeIfAbsent(attemptId, id -> new LinkedHashMap<>()).putAll(answers);
+            }
+        }
+
+        private void forget(Long attemptId) {
+            unwritten.remove(attemptId);
+            written.remove(attemptId);
+        }
+
+        private void commit() {
+            unwritten.values().forEach(answers -> answers.values().forEach(answer ->
+                    buffer(answer, sources.get(answer.attemptId()), true)));
+            written.values().forEach(answers -> answers.values().forEach(answer ->
+                    buffer(answer, sources.get(answer.attemptId()), false)));
+        }
+    }
+
+    /**
+     * Крайний срок попытки и загрузка уже сохранённых в БД вопросов
+     */
+    private record AttemptSource(LocalDateTime deadlineAt, Supplier<Collection<Long>> persistedQuestionIds) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.config.TakingProperties;
+import com.frist.assesspro.entity.OutboxEvent;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.ReapedAttempt;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.outbox.OutboxService;
+import com.frist.assesspro.service.statistics.DailyAttemptRollup;
+import com.frist.assesspro.service.statistics.LiveExamMonitor;
+import com.frist.assesspro.service.statistics.TesterStatsRollup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Закрытие попыток, у которых истёк лимит времени теста.
+ * Попытки выбираются по индексу крайнего срока и закрываются порциями
+ * одним UPDATE на порцию: статус TIMEOUT, итоговый балл из running_score.
+ * Буферизованные ответы порции записываются перед её закрытием.
+ */
+@Component
+@Slf4j
+public class AttemptDeadlineReaper {
+
+    // Ограничение одного прохода, остаток закрывается следующим
+    private static final int MAX_CHUNKS_PER_RUN = 100;
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AnswerWriteBehindBuffer answerWriteBehindBuffer;
+    private final AttemptViewCache attemptViewCache;
+    private final OutboxService outboxService;
+    private final TesterStatsRollup testerStatsRollup;
+    private final DailyAttemptRollup dailyAttemptRollup;
+    private final LiveExamMonitor liveExamMonitor;
+    private final PrincipalSnapshotCache principalSnapshots;
+    private final TakingProperties properties;
+    private final Clock clock;
+
+    private final Counter reapedCounter;
+    private final Timer lagTimer;
+
+    public AttemptDeadlineReaper(TestAttemptRepository testAttemptRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 AnswerWriteBehindBuffer answerWriteBehindBuffer,
+                                 AttemptViewCache attemptViewCache,
+                                 OutboxService outboxService,
+                                 TesterStatsRollup testerStatsRollup,
+                                 DailyAttemptRollup dailyAttemptRollup,
+                                 LiveExamMonitor liveExamMonitor,
+                                 PrincipalSnapshotCache principalSnapshots,
+                                 TakingProperties properties,
+                                 Clock clock,
+                                 MeterRegistry meterRegistry) {
+        this.testAttemptRepository = testAttemptRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.answerWriteBehindBuffer = answerWriteBehindBuffer;
+        this.attemptViewCache = attemptViewCache;
+        this.outboxService = outboxService;
+        this.testerStatsRollup = testerStatsRollup;
+        this.dailyAttemptRollup = dailyAttemptRollup;
+        this.liveExamMonitor = liveExamMonitor;
+        this.principalSnapshots = principalSnapshots;
+        this.properties = properties;
+        this.clock = clock;
+        this.reapedCounter = Counter.builder("assesspro.attempts.reaped")
+                .description("Количество попыток, закрытых по истечении времени")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("assesspro.attempts.reaper.lag")
+                .description("Задержка закрытия попытки относительно крайнего срока")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.taking.reaper.interval-ms:30000}")
+    public void reapExpiredAttempts() {
+        TakingProperties.Reaper reaper = properties.getReaper();
+        if (!reaper.isEnabled()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, reaper.getBatchSize());
+        int total = 0;
+        for (int chunk = 0; chunk < MAX_CHUNKS_PER_RUN; chunk++) {
+            LocalDateTime now = LocalDateTime.now(clock);
+            LocalDateTime cutoff = now.minusSeconds(reaper.getGraceSeconds());
+
+            List<ReapedAttempt> reaped;
+            List<Long> expired;
+            try {
+                expired = testAttemptRepository.findExpiredAttemptIds(cutoff, batchSize);
+                if (expired.isEmpty()) {
+                    break;
+                }
+                // Ответы из буфера должны попасть в running_score до фиксации результата. Сброс идёт
+                // до блокировки строк попыток: буфер не принимает ответы позже срока с запасом,
+                // поэтому после сброса новых ответов этих попыток в нём не появится
+                if (answerWriteBehindBuffer.isEnabled()) {
+                    answerWriteBehindBuffer.flush(expired);
+                }
+                reaped = transactionTemplate.execute(status -> {
+                    List<ReapedAttempt> closed = testAttemptRepository.timeoutExpiredAttempts(expired, cutoff);
+                    // Уведомления о закрытых попытках - в той же транзакции через outbox
+                    if (!closed.isEmpty()) {
+                        List<Long> attemptIds = closed.stream().map(ReapedAttempt::attemptId).toList();
+                        outboxService.enqueueAll(OutboxEvent.EventType.ATTEMPT_COMPLETED, attemptIds);
+                        testerStatsRollup.refresh(attemptIds);
+                        dailyAttemptRollup.recordFinished(attemptIds);
+                        liveExamMonitor.attemptsFinished(attemptIds);
+                        principalSnapshots.invalidateAttempts(attemptIds);
+                    }
+                    return closed;
+                });
+            } catch (RuntimeException e) {
+                log.error("Ошибка закрытия попыток с истёкшим временем, повтор при следующем проходе", e);
+                break;
+            }
+            if (reaped == null || reaped.isEmpty()) {
+                // Попытки порции заблокированы другими транзакциями - до следующего прохода
+                break;
+            }
+
+            for (ReapedAttempt attempt : reaped) {
+                answerWriteBehindBuffer.discard(attempt.attemptId());
+                attemptViewCache.evict(attempt.attemptId());
+                lagTimer.record(Duration.between(attempt.deadlineAt(), now));
+            }
+            reapedCounter.increment(reaped.size());
+            total += reaped.size();
+
+            if (expired.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Закрыто по истечении времени попыток: {}", total);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.frist.assesspro.service.taking;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Представление незавершённой попытки для навигации по вопросам:
+ * снимок теста, зафиксированный порядок вопросов и выбранные варианты.
+ */
+@Getter
+public final class AttemptView {
+
+    // Отметка ответа без выбранного варианта
+    private static final long NO_OPTION = -1L;
+
+    private final long attemptId;
+    private final String username;
+    private final CompiledTest compiled;
+
+    // Позиции вопросов в compiled.getQuestions() в порядке показа
+    @Getter(AccessLevel.NONE)
+    private final int[] order;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, Long> chosenOptions = new ConcurrentHashMap<>();
+
+    AttemptView(long attemptId, String username, CompiledTest compiled, long seed) {
+        this.attemptId = attemptId;
+        this.username = username;
+        this.compiled = compiled;
+        this.order = shuffledOrder(compiled.getQuestions(), seed);
+    }
+
+    /**
+     * Порядок определяется зерном попытки и id вопросов: пересборка представления
+     * и смена порядковых номеров вопросов в тесте его не меняют
+     */
+    private static int[] shuffledOrder(List<CompiledTest.CompiledQuestion> questions, long seed) {
+        int[] order = IntStream.range(0, questions.size())
+                .boxed()
+                .sorted(Comparator.comparingLong(i -> questions.get(i).id()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        Random random = new Random(seed);
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    public long getTestId() {
+        return compiled.getTestId();
+    }
+
+    public int getQuestionCount() {
+        return order.length;
+    }
+
+    public CompiledTest.CompiledQuestion questionAt(int index) {
+        return compiled.getQuestions().get(order[index]);
+    }
+
+    public boolean isAnswered(long questionId) {
+        return chosenOptions.containsKey(questionId);
+    }
+
+    /**
+     * Выбранный вариант или null, если вопрос без ответа или ответ без варианта
+     */
+    public Long chosenOptionOf(long questionId) {
+        Long optionId = chosenOptions.get(questionId);
+        return optionId == null || optionId == NO_OPTION ? null : optionId;
+    }
+
+    public int getAnsweredCount() {
+        return chosenOptions.size();
+    }
+
+    void recordAnswer(long questionId, Long optionId) {
+        if (compiled.containsQuestion(questionId)) {
+            chosenOptions.put(questionId, optionId != null ? optionId : NO_OPTION);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.dto.test.AttemptHeaderProjection;
+import com.frist.assesspro.entity.TestAttempt;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.AnswerUpsert;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import com.frist.assesspro.util.TransactionUtils;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Кэш представлений незавершённых попыток.
+ * Ответы отражаются в представлении после коммита, завершение попытки его удаляет,
+ * а смена версии снимка теста приводит к пересборке. Другие узлы сбрасывают
+ * представление попытки при сохранении в ней ответа и при её завершении.
+ */
+@Component
+@Slf4j
+public class AttemptViewCache {
+
+    private static final String INVALIDATION_CACHE = "attemptViews";
+    private static final int MAX_CACHED_ATTEMPTS = 10_000;
+
+    private final TestAttemptRepository testAttemptRepository;
+    private final UserAnswerRepository userAnswerRepository;
+    private final CompiledTestCache compiledTestCache;
+    private final AnswerWriteBehindBuffer answerWriteBehindBuffer;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final VersionedCache<Long, AttemptView> views = new VersionedCache<>(Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_ATTEMPTS)
+            .expireAfterAccess(Duration.ofHours(2))
+            .build());
+
+    public AttemptViewCache(TestAttemptRepository testAttemptRepository,
+                            UserAnswerRepository userAnswerRepository,
+                            CompiledTestCache compiledTestCache,
+                            AnswerWriteBehindBuffer answerWriteBehindBuffer,
+                            CacheInvalidationBus invalidationBus) {
+        this.testAttemptRepository = testAttemptRepository;
+        this.userAnswerRepository = userAnswerRepository;
+        this.compiledTestCache = compiledTestCache;
+        this.answerWriteBehindBuffer = answerWriteBehindBuffer;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(INVALIDATION_CACHE, keys -> {
+            if (keys == null) {
+                views.evictAll();
+            } else {
+                keys.forEach(attemptId -> views.evict(Long.valueOf(attemptId)));
+            }
+        });
+    }
+
+    /**
+     * Представление попытки; пусто, если попытка не найдена или уже завершена
+     */
+    public Optional<AttemptView> get(Long attemptId) {
+        if (attemptId == null) {
+            return Optional.empty();
+        }
+        AttemptView view = views.getIfPresent(attemptId);
+        if (view != null) {
+            Optional<CompiledTest> compiled = compiledTestCache.get(view.getTestId());
+            if (compiled.isPresent() && compiled.get().getVersion() == view.getCompiled().getVersion()) {
+                return Optional.of(view);
+            }
+        }
+        return load(attemptId);
+    }
+
+    /**
+     * Учёт сохранённых ответов (внутри транзакции - после коммита); другие узлы сбрасывают представление
+     */
+    public void recordAnswers(Long attemptId, List<AnswerUpsert> answers) {
+        invalidationBus.publish(INVALIDATION_CACHE, attemptId);
+        TransactionUtils.afterCommit(() -> {
+            AttemptView view = views.getIfPresent(attemptId);
+            if (view != null) {
+                answers.forEach(answer -> view.recordAnswer(answer.questionId(), answer.answerOptionId()));
+            } else {
+                // Параллельная сборка могла прочитать ответы до коммита - её результат не кэшируется
+                views.evict(attemptId);
+            }
+        });
+    }
+
+    public void evict(Long attemptId) {
+        invalidationBus.publish(INVALIDATION_CACHE, attemptId);
+        VersionedCache.evictNowAndAfterCommit(() -> views.evict(attemptId));
+    }
+
+    private Optional<AttemptView> load(Long attemptId) {
+        // Отметка до чтения статуса: представление попытки, завершённой во время сборки, не кэшируется
+        long stamp = views.stamp();
+        Optional<AttemptHeaderProjection> header = testAttemptRepository.findHeaderById(attemptId);
+        if (header.isEmpty() || header.get().getStatus() != TestAttempt.AttemptStatus.IN_PROGRESS) {
+            views.evict(attemptId);
+            return Optional.empty();
+        }
+        Optional<CompiledTest> compiled = compiledTestCache.get(header.get().getTestId());
+        if (compiled.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Буферизованные ответы должны быть видны в представлении
+        answerWriteBehindBuffer.flush(attemptId);
+
+        // Попытки, созданные до появления зерна, перемешиваются по своему id
+        long seed = header.get().getQuestionSeed() != null ? header.get().getQuestionSeed() : attemptId;
+        AttemptView view = new AttemptView(attemptId, header.get().getUsername(), compiled.get(), seed);
+        for (Object[] row : userAnswerRepository.findChosenOptionsByAttemptId(attemptId)) {
+            view.recordAnswer(((Number) row[0]).longValue(), row[1] != null ? ((Number) row[1]).longValue() : null);
+        }
+        views.put(attemptId, view, stamp);
+        log.debug("Собрано представление попытки ID: {} (вопросов: {}, отвечено: {})",
+                attemptId, view.getQuestionCount(), view.getAnsweredCount());
+        return Optional.of(view);
+    }
+}
@@ -0,0 +1,116 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Кэш каталога опубликованных тестов для тестировщиков.
+ * Состав каталога зависит от текущего времени через окна доступности тестов, поэтому запись живёт
+ * до ближайшей границы окна среди опубликованных тестов: открытия ещё не доступного теста
+ * или закрытия доступного. Изменение, публикация и удаление теста сбрасывают кэш целиком.
+ */
+@Component
+@Slf4j
+public class CatalogCache {
+
+    private static final String INVALIDATION_CACHE = "catalog";
+    private static final int MAX_CACHED_ENTRIES = 2_000;
+    // Без ближайших границ запись всё равно перечитывается, чтобы расхождения не жили бесконечно
+    private static final Duration MAX_TTL = Duration.ofHours(6);
+    // Тест скрывается, когда текущее время становится больше availableTo; точность timestamp - микросекунда
+    private static final Duration AFTER_CLOSE = Duration.ofNanos(1_000);
+
+    private final TestRepository testRepository;
+    private final Clock clock;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final VersionedCache<String, Entry> entries;
+
+    public CatalogCache(TestRepository testRepository, Clock clock, CacheInvalidationBus invalidationBus) {
+        this.testRepository = testRepository;
+        this.clock = clock;
+        this.invalidationBus = invalidationBus;
+        this.entries = new VersionedCache<>(Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_ENTRIES)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return Math.max(0, Duration.between(LocalDateTime.now(clock), entry.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build());
+        invalidationBus.register(INVALIDATION_CACHE, keys -> evictAll());
+    }
+
+    /**
+     * Получение страницы или списка каталога; loader получает момент времени,
+     * на который строится каталог и от которого считается срок жизни записи
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Function<LocalDateTime, T> loader) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Entry cached = entries.getIfPresent(key);
+        // Caffeine сверяет срок по своему таймеру; граница по часам приложения проверяется явно
+        if (cached != null && now.isBefore(cached.expiresAt())) {
+            return (T) cached.value();
+        }
+
+        long version = entries.stamp();
+        T value = loader.apply(now);
+        LocalDateTime expiresAt = nextBoundary(now);
+
+        entries.put(key, new Entry(value, expiresAt), version);
+        log.debug("Каталог '{}' закэширован до {}", key, expiresAt);
+        return value;
+    }
+
+    /**
+     * Сброс всего каталога. Внутри транзакции сброс повторяется после коммита,
+     * чтобы параллельное чтение не закэшировало старые данные. Другие узлы сбрасывают каталог после коммита.
+     */
+    public void invalidate() {
+        invalidationBus.publishAll(INVALIDATION_CACHE);
+        VersionedCache.evictNowAndAfterCommit(this::evictAll);
+    }
+
+    private LocalDateTime nextBoundary(LocalDateTime now) {
+        LocalDateTime boundary = now.plus(MAX_TTL);
+        LocalDateTime nextOpen = testRepository.findNextAvailableFrom(now);
+        if (nextOpen != null && nextOpen.isBefore(boundary)) {
+            boundary = nextOpen;
+        }
+        LocalDateTime nextClose = testRepository.findNextAvailableTo(now);
+        if (nextClose != null && nextClose.plus(AFTER_CLOSE).isBefore(boundary)) {
+            boundary = nextClose.plus(AFTER_CLOSE);
+        }
+        return boundary;
+    }
+
+    private void evictAll() {
+        entries.evictAll();
+        log.debug("Кэш каталога тестов сброшен");
+    }
+
+    private record Entry(Object value, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.entity.AnswerOption;
+import com.frist.assesspro.entity.Question;
+import com.frist.assesspro.entity.Test;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Неизменяемый "скомпилированный" снимок теста для горячего пути прохождения.
+ * Содержит тексты вопросов и вариантов, а также примитивные таблицы
+ * для проверки принадлежности вопроса и правильности варианта без обращения к БД.
+ */
+@Getter
+public final class CompiledTest {
+
+    private final long testId;
+    private final long version;
+    private final String title;
+    private final Integer timeLimitMinutes;
+    private final boolean published;
+    private final boolean retake;
+    private final boolean retryCooldown;
+    private final LocalDateTime availableFrom;
+    private final LocalDateTime availableTo;
+    private final Integer passThresholdPercent;
+    private final boolean reTestOnFail;
+    private final Long retakeTestId;
+    private final List<CompiledQuestion> questions;
+
+    // Отсортированные id вопросов и их позиции в списке questions
+    @Getter(AccessLevel.NONE)
+    private final long[] questionIds;
+    @Getter(AccessLevel.NONE)
+    private final int[] questionPositions;
+
+    // Отсортированные id вариантов, вопрос-владелец и признак правильности
+    @Getter(AccessLevel.NONE)
+    private final long[] optionIds;
+    @Getter(AccessLevel.NONE)
+    private final long[] optionQuestionIds;
+    @Getter(AccessLevel.NONE)
+    private final boolean[] optionCorrect;
+
+    private CompiledTest(Test test, List<CompiledQuestion> questions, long version) {
+        this.testId = test.getId();
+        this.version = version;
+        this.title = test.getTitle();
+        this.timeLimitMinutes = test.getTimeLimitMinutes();
+        this.published = Boolean.TRUE.equals(test.getIsPublished());
+        this.retake = Boolean.TRUE.equals(test.getRetake());
+        this.retryCooldown = test.hasRetryCooldown();
+        this.availableFrom = test.getAvailableFrom();
+        this.availableTo = test.getAvailableTo();
+        this.passThresholdPercent = test.getPassThresholdPercent();
+        this.reTestOnFail = Boolean.TRUE.equals(test.getReTestOnFail());
+        this.retakeTestId = test.getRetakeTest() != null ? test.getRetakeTest().getId() : null;
+        this.questions = List.copyOf(questions);
+
+        Integer[] byQuestionId = new Integer[questions.size()];
+        for (int i = 0; i < byQuestionId.length; i++) {
+            byQuestionId[i] = i;
+        }
+        Arrays.sort(byQuestionId, Comparator.comparingLong(i -> questions.get(i).id()));
+        this.questionIds = new long[byQuestionId.length];
+        this.questionPositions = new int[byQuestionId.length];
+        for (int i = 0; i < byQuestionId.length; i++) {
+            questionIds[i] = questions.get(byQuestionId[i]).id();
+            questionPositions[i] = byQuestionId[i];
+        }
+
+        List<long[]> options = new ArrayList<>();
+        for (CompiledQuestion question : questions) {
+            for (CompiledOption option : question.options()) {
+                options.add(new long[]{option.id(), question.id(), option.id() == question.correctOptionId() ? 1 : 0});
+            }
+        }
+        options.sort(Comparator.comparingLong(o -> o[0]));
+        this.optionIds = new long[options.size()];
+        this.optionQuestionIds = new long[options.size()];
+        this.optionCorrect = new boolean[options.size()];
+        for (int i = 0; i < options.size(); i++) {
+            long[] option = options.get(i);
+            optionIds[i] = option[0];
+            optionQuestionIds[i] = option[1];
+            optionCorrect[i] = option[2] == 1;
+        }
+    }
+
+    /**
+     * Сборка снимка из сущности теста и его вопросов с загруженными вариантами
+     */
+    public static CompiledTest compile(Test test, List<Question> questions, long version) {
+        List<CompiledQuestion> compiledQuestions = questions.stream()
+                .sorted(Comparator.comparing(Question::getOrderIndex, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(CompiledTest::compileQuestion)
+                .toList();
+        return new CompiledTest(test, compiledQuestions, version);
+    }
+
+    private static CompiledQuestion compileQuestion(Question question) {
+        List<AnswerOption> answerOptions = question.getAnswerOptions() != null
+                ? question.getAnswerOptions()
+                : List.of();
+        long correctOptionId = -1;
+        List<CompiledOption> options = new ArrayList<>(answerOptions.size());
+        for (AnswerOption option : answerOptions) {
+            options.add(new CompiledOption(option.getId(), option.getText()));
+            if (correctOptionId < 0 && Boolean.TRUE.equals(option.getIsCorrect())) {
+                correctOptionId = option.getId();
+            }
+        }
+        return new CompiledQuestion(question.getId(), question.getText(),
+                question.getOrderIndex() != null ? question.getOrderIndex() : 0,
+                List.copyOf(options), correctOptionId);
+    }
+
+    public int getQuestionCount() {
+        return questions.size();
+    }
+
+    /**
+     * Вопрос теста по id или null, если вопрос не принадлежит тесту
+     */
+    public CompiledQuestion findQuestion(long questionId) {
+        int idx = Arrays.binarySearch(questionIds, questionId);
+        return idx >= 0 ? questions.get(questionPositions[idx]) : null;
+    }
+
+    public boolean containsQuestion(long questionId) {
+        return Arrays.binarySearch(questionIds, questionId) >= 0;
+    }
+
+    /**
+     * Проверяет, что вариант принадлежит указанному вопросу этого теста
+     */
+    public boolean isOptionOfQuestion(long optionId, long questionId) {
+        int idx = Arrays.binarySearch(optionIds, optionId);
+        return idx >= 0 && optionQuestionIds[idx] == questionId;
+    }
+
+    public boolean isOptionCorrect(long optionId) {
+        int idx = Arrays.binarySearch(optionIds, optionId);
+        return idx >= 0 && optionCorrect[idx];
+    }
+
+    /**
+     * Текст варианта ответа по id или null, если вариант не найден
+     */
+    public String findOptionText(long optionId) {
+        int idx = Arrays.binarySearch(optionIds, optionId);
+        if (idx < 0) {
+            return null;
+        }
+        CompiledQuestion question = findQuestion(optionQuestionIds[idx]);
+        if (question == null) {
+            return null;
+        }
+        for (CompiledOption option : question.options()) {
+            if (option.id() == optionId) {
+                return option.text();
+            }
+        }
+        return null;
+    }
+
+    public record CompiledQuestion(long id, String text, int orderIndex,
+                                   List<CompiledOption> options, long correctOptionId) {
+
+        public boolean hasCorrectOption() {
+            return correctOptionId >= 0;
+        }
+
+        public String correctOptionText() {
+            for (CompiledOption option : options) {
+                if (option.id() == correctOptionId) {
+                    return option.text();
+                }
+            }
+            return null;
+        }
+    }
+
+    public record CompiledOption(long id, String text) {
+    }
+}
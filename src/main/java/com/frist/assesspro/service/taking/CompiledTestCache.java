@@ -0,0 +1,96 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.entity.Question;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.repository.QuestionRepository;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.cache.VersionedCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Кэш скомпилированных тестов.
+ * Каждому тесту соответствует номер версии: инвалидация увеличивает его,
+ * а снимок, собранный по устаревшей версии, в кэш не попадает.
+ */
+@Component
+@Slf4j
+public class CompiledTestCache {
+
+    private static final String INVALIDATION_CACHE = "compiledTests";
+    private static final int MAX_CACHED_TESTS = 1_000;
+
+    private final TestRepository testRepository;
+    private final QuestionRepository questionRepository;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final VersionedCache<Long, CompiledTest> compiledTests = new VersionedCache<>(Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TESTS)
+            .expireAfterAccess(Duration.ofHours(12))
+            .build());
+
+    public CompiledTestCache(TestRepository testRepository,
+                             QuestionRepository questionRepository,
+                             CacheInvalidationBus invalidationBus) {
+        this.testRepository = testRepository;
+        this.questionRepository = questionRepository;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(INVALIDATION_CACHE, keys -> {
+            if (keys == null) {
+                compiledTests.evictAll();
+            } else {
+                keys.forEach(testId -> evict(Long.valueOf(testId)));
+            }
+        });
+    }
+
+    /**
+     * Получение снимка теста (сборка из БД при промахе)
+     */
+    public Optional<CompiledTest> get(Long testId) {
+        if (testId == null) {
+            return Optional.empty();
+        }
+        CompiledTest cached = compiledTests.getIfPresent(testId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long version = compiledTests.stamp();
+        Optional<Test> test = testRepository.findById(testId);
+        if (test.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Question> questions = questionRepository.findQuestionsWithAnswersByTestId(testId);
+        CompiledTest compiled = CompiledTest.compile(test.get(), questions, version);
+
+        compiledTests.put(testId, compiled, version);
+        log.debug("Скомпилирован тест ID: {} (версия {}, вопросов: {})",
+                testId, version, compiled.getQuestionCount());
+        return Optional.of(compiled);
+    }
+
+    /**
+     * Инвалидация снимка теста. Внутри транзакции инвалидация повторяется
+     * после коммита, чтобы параллельное чтение не закэшировало старые данные.
+     * Другие узлы инвалидируют снимок после коммита.
+     */
+    public void invalidate(Long testId) {
+        if (testId == null) {
+            return;
+        }
+        invalidationBus.publish(INVALIDATION_CACHE, testId);
+        VersionedCache.evictNowAndAfterCommit(() -> evict(testId));
+    }
+
+    private void evict(Long testId) {
+        compiledTests.evict(testId);
+        log.debug("Снимок теста ID: {} инвалидирован", testId);
+    }
+}
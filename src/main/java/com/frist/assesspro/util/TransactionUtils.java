@@ -0,0 +1,57 @@
+package com.frist.assesspro.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Действия, привязанные к завершению текущей транзакции
+ */
+public final class TransactionUtils {
+
+    private TransactionUtils() {
+    }
+
+    /**
+     * Выполнение после коммита текущей транзакции; вне транзакции - сразу
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Выполнение после отката текущей транзакции; вне транзакции откатывать нечего
+     */
+    public static void afterRollback(Runnable action) {
+        afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Выполнение по завершении текущей транзакции с её итогом (STATUS_COMMITTED, STATUS_ROLLED_BACK);
+     * вне транзакции действие не регистрируется
+     */
+    public static void afterCompletion(IntConsumer action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status);
+                }
+            });
+        }
+    }
+}
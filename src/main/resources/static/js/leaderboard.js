@@ -0,0 +1,50 @@
+// Живой рейтинг: подписка на SSE-поток и перерисовка строк при каждом обновлении
+document.querySelectorAll('[data-leaderboard]').forEach(function (card) {
+    const url = card.dataset.streamUrl;
+    if (!url || typeof EventSource === 'undefined') return;
+
+    const rows = card.querySelector('[data-leaderboard-rows]');
+    const live = card.querySelector('[data-leaderboard-live]');
+
+    function cell(text, className) {
+        const td = document.createElement('td');
+        td.textContent = text;
+        if (className) td.className = className;
+        return td;
+    }
+
+    function render(entries) {
+        rows.replaceChildren();
+        if (entries.length === 0) {
+            const empty = cell('Пока нет завершённых попыток', 'text-center text-muted small py-3');
+            empty.colSpan = 4;
+            const tr = document.createElement('tr');
+            tr.appendChild(empty);
+            rows.appendChild(tr);
+            return;
+        }
+        entries.forEach(function (entry) {
+            const tr = document.createElement('tr');
+            tr.appendChild(cell(entry.rank, 'ps-3'));
+            tr.appendChild(cell(entry.fullName));
+            tr.appendChild(cell(entry.percentage.toFixed(1) + '%', 'text-end'));
+            tr.appendChild(cell(entry.completedAttempts, 'text-end pe-3'));
+            rows.appendChild(tr);
+        });
+    }
+
+    const source = new EventSource(url);
+    source.addEventListener('leaderboard', function (event) {
+        render(JSON.parse(event.data));
+    });
+    source.onopen = function () {
+        live.classList.remove('d-none');
+    };
+    source.onerror = function () {
+        // Браузер переподключится сам
+        live.classList.add('d-none');
+    };
+    window.addEventListener('beforeunload', function () {
+        source.close();
+    });
+});
@@ -0,0 +1,36 @@
+// Живой мониторинг: сервер присылает не чаще раза в интервал один кадр с состоянием теста
+document.querySelectorAll('[data-monitor]').forEach(function (panel) {
+    const url = panel.dataset.streamUrl;
+    if (!url || typeof EventSource === 'undefined') return;
+
+    const live = document.querySelector('[data-monitor-live]');
+
+    function field(name) {
+        return document.querySelector('[data-monitor-field="' + name + '"]');
+    }
+
+    function render(frame) {
+        field('inProgress').textContent = frame.inProgress;
+        field('averageProgress').textContent = frame.averageProgress.toFixed(1) + '%';
+        field('answersSubmitted').textContent = frame.answersSubmitted;
+        field('completedAttempts').textContent = frame.completedAttempts;
+        if (frame.updatedAt) {
+            field('updatedAt').textContent = String(frame.updatedAt).substring(11, 19);
+        }
+    }
+
+    const source = new EventSource(url);
+    source.addEventListener('monitor', function (event) {
+        render(JSON.parse(event.data));
+    });
+    source.onopen = function () {
+        if (live) live.classList.remove('d-none');
+    };
+    source.onerror = function () {
+        // Браузер переподключится сам
+        if (live) live.classList.add('d-none');
+    };
+    window.addEventListener('beforeunload', function () {
+        source.close();
+    });
+});
@@ -1,25 +1,103 @@
-// Автосохранение ответов при прохождении теста
+// Автосохранение ответов при прохождении теста.
+// При batchSize > 1 ответы копятся и отправляются пакетом: каждые batchSize ответов,
+// раз в flushInterval мс и при уходе со страницы (sendBeacon).
+// Номер последовательности делает повторную отправку безопасной.
 class TestTakingManager {
-    constructor(attemptId, totalQuestions) {
+    constructor(attemptId, totalQuestions, options = {}) {
         this.attemptId = attemptId;
         this.totalQuestions = totalQuestions;
         this.saveStatus = document.getElementById('saveStatus');
+        this.batchSize = options.batchSize || 1;
+        this.flushInterval = options.flushInterval || 0;
+        this.pending = new Map();
+        this.inFlight = null;
+        this.inFlightBatch = [];
+        this.sequenceKey = `attempt-${attemptId}-sequence`;
         this.initAutoSave();
+        if (this.isBatching()) {
+            this.initBatching();
+        }
     }
 
     initAutoSave() {
         // Сохранение при изменении ответа
         document.querySelectorAll('input[type="radio"], input[type="checkbox"]').forEach(input => {
-            input.addEventListener('change', (e) => {
-                this.saveAnswer(e.target);
+            this.bindInput(input);
+        });
+    }
+
+    // Также используется для вариантов, отрисованных при навигации без перезагрузки
+    bindInput(input) {
+        input.addEventListener('change', (e) => {
+            this.saveAnswer(e.target);
+        });
+    }
+
+    initBatching() {
+        if (this.flushInterval > 0) {
+            setInterval(() => this.flush(), this.flushInterval);
+        }
+
+        // Перед завершением теста все ответы должны быть на сервере
+        document.querySelectorAll(`form[action$="/attempt/${this.attemptId}/finish"]`).forEach(form => {
+            form.addEventListener('submit', (e) => {
+                if (this.pending.size === 0 && !this.inFlight) return;
+                e.preventDefault();
+                this.flush().finally(() => form.submit());
             });
         });
+
+        window.addEventListener('pagehide', () => this.flushWithBeacon());
+        document.addEventListener('visibilitychange', () => {
+            if (document.visibilityState === 'hidden') {
+                this.flushWithBeacon();
+            }
+        });
+    }
+
+    isBatching() {
+        return this.batchSize > 1;
+    }
+
+    nextSequence() {
+        // Монотонно в пределах вкладки, в том числе между страницами вопросов
+        let last = 0;
+        try {
+            last = parseInt(sessionStorage.getItem(this.sequenceKey) || '0');
+        } catch (e) {
+            last = this.lastSequence || 0;
+        }
+        const next = Math.max(last + 1, Date.now());
+        this.lastSequence = next;
+        try {
+            sessionStorage.setItem(this.sequenceKey, String(next));
+        } catch (e) {
+            // sessionStorage недоступен - достаточно значения в памяти
+        }
+        return next;
     }
 
     saveAnswer(input) {
         const questionId = input.name.split('_')[1];
-        const answerId = input.value;
+        const answer = {
+            attemptId: this.attemptId,
+            questionId: questionId,
+            answerOptionId: input.value,
+            sequence: this.nextSequence()
+        };
 
+        if (!this.isBatching()) {
+            this.sendAnswer(answer);
+            return;
+        }
+
+        this.pending.set(questionId, answer);
+        if (this.pending.size >= this.batchSize) {
+            this.flush();
+        }
+    }
+
+    sendAnswer(answer) {
         this.updateStatus('saving');
 
         fetch(`/tester/attempt/${this.attemptId}/answer`, {
@@ -27,26 +105,83 @@ class TestTakingManager {
             headers: {
                 'Content-Type': 'application/json',
             },
-            body: JSON.stringify({
-                attemptId: this.attemptId,
-                questionId: questionId,
-                answerOptionId: answerId
-            })
+            body: JSON.stringify(answer)
         })
             .then(response => response.json())
-            .then(data => {
-                if (data.status === 'success') {
-                    this.updateStatus('saved');
-                } else {
-                    this.updateStatus('error');
-                }
-            })
+            .then(data => this.handleResponse(data))
             .catch(error => {
                 console.error('Error saving answer:', error);
                 this.updateStatus('error');
             });
     }
 
+    // Отправка накопленных ответов; пакеты уходят строго по одному
+    flush() {
+        if (this.inFlight) {
+            return this.inFlight.then(() => this.flush());
+        }
+        if (this.pending.size === 0) {
+            return Promise.resolve();
+        }
+
+        const batch = Array.from(this.pending.values());
+        this.pending.clear();
+        this.inFlightBatch = batch;
+        this.updateStatus('saving');
+
+        this.inFlight = fetch(`/tester/attempt/${this.attemptId}/answers`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json',
+            },
+            body: JSON.stringify(batch)
+        })
+            .then(response => response.json())
+            .then(data => this.handleResponse(data))
+            .catch(error => {
+                // Сетевая ошибка: вернуть пакет в очередь, более новые ответы не затираются
+                console.error('Error saving answers:', error);
+                this.requeue(batch);
+                this.updateStatus('error');
+            })
+            .finally(() => {
+                this.inFlight = null;
+                this.inFlightBatch = [];
+            });
+        return this.inFlight;
+    }
+
+    requeue(batch) {
+        batch.forEach(answer => {
+            const current = this.pending.get(answer.questionId);
+            if (!current || current.sequence < answer.sequence) {
+                this.pending.set(answer.questionId, answer);
+            }
+        });
+    }
+
+    flushWithBeacon() {
+        const batch = [...this.inFlightBatch, ...this.pending.values()];
+        if (batch.length === 0 || !navigator.sendBeacon) return;
+
+        const body = new Blob([JSON.stringify(batch)], { type: 'application/json' });
+        if (navigator.sendBeacon(`/tester/attempt/${this.attemptId}/answers`, body)) {
+            this.pending.clear();
+        }
+    }
+
+    handleResponse(data) {
+        if (data.status === 'success') {
+            this.updateStatus('saved');
+            // Если тест завершён, перенаправляем на страницу результатов
+            if (data.completed) {
+                window.location.href = `/tester/attempt/${this.attemptId}/results`;
+            }
+        } else {
+            this.updateStatus('error');
+        }
+    }
+
     updateStatus(status) {
         if (!this.saveStatus) return;
 
@@ -148,7 +283,11 @@ document.addEventListener('DOMContentLoaded', function() {
     const totalQuestions = parseInt(document.querySelector('[data-total-questions]')?.dataset.totalQuestions || '0');
 
     if (attemptId) {
-        new TestTakingManager(attemptId, totalQuestions);
+        const dataset = document.querySelector('[data-attempt-id]').dataset;
+        window.testTakingManager = new TestTakingManager(attemptId, totalQuestions, {
+            batchSize: parseInt(dataset.batchSize || '1'),
+            flushInterval: parseInt(dataset.flushInterval || '0')
+        });
     }
 
     const timerElement = document.getElementById('timer');
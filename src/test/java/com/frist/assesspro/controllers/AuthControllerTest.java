@@ -2,6 +2,7 @@ package com.frist.assesspro.controllers;
 
 import com.frist.assesspro.dto.RegistrationDTO;
 import com.frist.assesspro.entity.User;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import com.frist.assesspro.service.AuthService;
 import com.frist.assesspro.service.UserService;
 import com.frist.assesspro.service.metrics.MetricsService;
@@ -41,6 +42,9 @@ class AuthControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private PrincipalSnapshotCache principalSnapshots;
+
     @Test
     void loginPage_ShouldReturnLoginView() throws Exception {
         mockMvc.perform(get("/login"))
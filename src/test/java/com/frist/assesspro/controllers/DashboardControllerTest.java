@@ -1,5 +1,6 @@
 package com.frist.assesspro.controllers;
 
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import com.frist.assesspro.service.metrics.MetricsService;
 import com.frist.assesspro.service.ProfileService;
 import com.frist.assesspro.service.UserService;
@@ -32,6 +33,9 @@ class DashboardControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private PrincipalSnapshotCache principalSnapshots;
+
     @Test
     void dashboard_WhenNotAuthenticated_ShouldRedirectToLogin() throws Exception {
         mockMvc.perform(get("/dashboard"))
@@ -1,5 +1,6 @@
 package com.frist.assesspro.controllers;
 
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import com.frist.assesspro.service.ProfileService;
 import com.frist.assesspro.service.UserService;
 import org.junit.jupiter.api.Test;
@@ -28,6 +29,9 @@ class HomeControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private PrincipalSnapshotCache principalSnapshots;
+
     @Test
     void root_ShouldRedirectToHome() throws Exception {
         mockMvc.perform(get("/"))
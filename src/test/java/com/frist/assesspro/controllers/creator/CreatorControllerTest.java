@@ -3,6 +3,7 @@ package com.frist.assesspro.controllers.creator;
 import com.frist.assesspro.dto.DashboardStatsDTO;
 import com.frist.assesspro.dto.TestDTO;
 import com.frist.assesspro.dto.category.CategoryDTO;
+import com.frist.assesspro.dto.statistics.DailyAttemptsDTO;
 import com.frist.assesspro.dto.statistics.TesterAttemptDTO;
 import com.frist.assesspro.dto.test.TestTakingDTO;
 import com.frist.assesspro.dto.test.TestUpdateDTO;
@@ -11,6 +12,7 @@ import com.frist.assesspro.entity.User;
 import com.frist.assesspro.repository.UserRepository;
 import com.frist.assesspro.service.*;
 import com.frist.assesspro.service.export.StatisticsExportService;
+import com.frist.assesspro.service.statistics.DailyStatisticsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -27,6 +29,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -70,6 +73,9 @@ class CreatorControllerTest {
     @MockitoBean
     private UserRepository userRepository;
 
+    @MockitoBean
+    private DailyStatisticsService dailyStatisticsService;
+
     private final Long TEST_ID = 100L;
     private final String TEST_TITLE = "Sample Test";
     private final String CREATOR_USERNAME = "user";
@@ -527,4 +533,41 @@ class CreatorControllerTest {
                 .andExpect(view().name("creator/dashboard"))
                 .andExpect(model().attributeExists("errorMessage"));
     }
-}
\ No newline at end of file
+
+    // ---------- GET /creator/statistics/daily ----------
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("GET /creator/statistics/daily: должен вернуть JSON с рядом по дням")
+    void getDailyAttempts_Success_ShouldReturnJson() throws Exception {
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        LocalDate to = LocalDate.of(2026, 3, 2);
+        when(dailyStatisticsService.getCreatorDailyAttempts(CREATOR_USERNAME, from, to, TEST_ID))
+                .thenReturn(List.of(
+                        new DailyAttemptsDTO(from, 3L, 2L, 7.5, 75.0, 40L),
+                        new DailyAttemptsDTO(to, 0L, 0L, 0.0, 0.0, 0L)));
+
+        mockMvc.perform(get("/creator/statistics/daily")
+                        .param("from", "2026-03-01")
+                        .param("to", "2026-03-02")
+                        .param("testId", String.valueOf(TEST_ID))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].attemptsCount").value(3))
+                .andExpect(jsonPath("$[0].averagePercentage").value(75.0))
+                .andExpect(jsonPath("$[1].attemptsCount").value(0));
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("GET /creator/statistics/daily: некорректный период -> 400 с error")
+    void getDailyAttempts_InvalidRange_ShouldReturnBadRequest() throws Exception {
+        when(dailyStatisticsService.getCreatorDailyAttempts(eq(CREATOR_USERNAME), any(), any(), isNull()))
+                .thenThrow(new RuntimeException("Начало периода позже окончания"));
+
+        mockMvc.perform(get("/creator/statistics/daily")
+                        .param("from", "2026-03-02")
+                        .param("to", "2026-03-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+}
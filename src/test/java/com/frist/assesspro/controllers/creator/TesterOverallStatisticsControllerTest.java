@@ -2,6 +2,7 @@ package com.frist.assesspro.controllers.creator;
 
 import com.frist.assesspro.dto.statistics.TesterAttemptDTO;
 import com.frist.assesspro.dto.statistics.TestTesterStatisticsDTO;
+import com.frist.assesspro.dto.statistics.TesterOverviewDTO;
 import com.frist.assesspro.entity.Test;
 import com.frist.assesspro.entity.User;
 import com.frist.assesspro.service.TestService;
@@ -12,6 +13,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -82,23 +85,19 @@ class TesterOverallStatisticsControllerTest {
     @org.junit.jupiter.api.Test
     @DisplayName("GET /creator/testers/{testerId}/statistics: успешное получение статистики")
     void getTesterOverallStatistics_Success_ShouldReturnView() throws Exception {
-        // Создаем тестовые попытки
-        TesterAttemptDTO attempt1 = createAttempt(TEST_ID_1, 5, 10, 80.0, LocalDateTime.now().minusDays(1));
-        TesterAttemptDTO attempt2 = createAttempt(TEST_ID_1, 7, 10, 70.0, LocalDateTime.now().minusDays(2));
-        TesterAttemptDTO attempt3 = createAttempt(TEST_ID_2, 8, 10, 90.0, LocalDateTime.now().minusDays(3));
-        List<TesterAttemptDTO> allAttempts = List.of(attempt1, attempt2, attempt3);
+        TestTesterStatisticsDTO stat1 = createTestStat(TEST_ID_1, "Math Test", 2L, 75.0, 80.0);
+        TestTesterStatisticsDTO stat2 = createTestStat(TEST_ID_2, "Science Test", 1L, 90.0, 90.0);
+        TesterOverviewDTO overview = new TesterOverviewDTO(TESTER_ID, 3L, 3L, 80.0, List.of(stat1, stat2));
 
         // Настройка моков
         when(userService.getUserById(TESTER_ID)).thenReturn(Optional.of(tester));
-        when(testerStatisticsService.getAllAttemptsByTester(TESTER_USERNAME)).thenReturn(allAttempts);
-        when(testService.getTestBasicById(eq(TEST_ID_1), anyString())).thenReturn(Optional.of(test1));
-        when(testService.getTestBasicById(eq(TEST_ID_2), anyString())).thenReturn(Optional.of(test2));
+        when(testerStatisticsService.getTesterOverview(TESTER_ID)).thenReturn(overview);
 
         mockMvc.perform(get("/creator/testers/{testerId}/statistics", TESTER_ID))
                 .andExpect(status().isOk())
                 .andExpect(view().name("creator/tester-statistics"))
                 .andExpect(model().attribute("tester", tester))
-                .andExpect(model().attributeExists("testStatistics"))
+                .andExpect(model().attribute("testStatistics", List.of(stat1, stat2)))
                 .andExpect(model().attribute("totalAttempts", 3L))
                 .andExpect(model().attribute("completedAttempts", 3L))
                 .andExpect(model().attribute("overallAverage", 80.0));
@@ -130,7 +129,7 @@ class TesterOverallStatisticsControllerTest {
     @DisplayName("GET /creator/testers/{testerId}/statistics: общая ошибка сервиса -> редирект с ошибкой")
     void getTesterOverallStatistics_Error_ShouldRedirect() throws Exception {
         when(userService.getUserById(TESTER_ID)).thenReturn(Optional.of(tester));
-        when(testerStatisticsService.getAllAttemptsByTester(TESTER_USERNAME))
+        when(testerStatisticsService.getTesterOverview(TESTER_ID))
                 .thenThrow(new RuntimeException("Service error"));
 
         mockMvc.perform(get("/creator/testers/{testerId}/statistics", TESTER_ID))
@@ -138,8 +137,51 @@ class TesterOverallStatisticsControllerTest {
                 .andExpect(redirectedUrl("/creator/testers"));
     }
 
+    // ---------- GET /creator/testers/{testerId}/statistics/tests/{testId} ----------
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("GET /creator/testers/{testerId}/statistics/tests/{testId}: страница попыток по тесту")
+    void getTesterAttemptsByTest_Success_ShouldReturnView() throws Exception {
+        TesterAttemptDTO attempt = createAttempt(TEST_ID_1, 5, 10, 50.0, LocalDateTime.now().minusDays(1));
+
+        when(userService.getUserById(TESTER_ID)).thenReturn(Optional.of(tester));
+        when(testService.getTestByIdWithoutOwnershipCheckOptional(TEST_ID_1)).thenReturn(Optional.of(test1));
+        when(testerStatisticsService.getTesterAttemptsByTest(TESTER_ID, TEST_ID_1, PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(List.of(attempt), PageRequest.of(0, 10), 1));
+
+        mockMvc.perform(get("/creator/testers/{testerId}/statistics/tests/{testId}", TESTER_ID, TEST_ID_1))
+                .andExpect(status().isOk())
+                .andExpect(view().name("creator/tester-test-attempts"))
+                .andExpect(model().attribute("attempts", List.of(attempt)))
+                .andExpect(model().attribute("totalItems", 1L));
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("GET /creator/testers/{testerId}/statistics/tests/{testId}: тест не найден -> редирект на статистику")
+    void getTesterAttemptsByTest_TestNotFound_ShouldRedirect() throws Exception {
+        when(userService.getUserById(TESTER_ID)).thenReturn(Optional.of(tester));
+        when(testService.getTestByIdWithoutOwnershipCheckOptional(TEST_ID_1)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/creator/testers/{testerId}/statistics/tests/{testId}", TESTER_ID, TEST_ID_1))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/creator/testers/" + TESTER_ID + "/statistics"));
+    }
+
     // ---------- Вспомогательные методы ----------
 
+    private TestTesterStatisticsDTO createTestStat(Long testId, String title, long attempts,
+                                                   double average, double best) {
+        TestTesterStatisticsDTO dto = new TestTesterStatisticsDTO();
+        dto.setTestId(testId);
+        dto.setTestTitle(title);
+        dto.setTotalAttempts(attempts);
+        dto.setCompletedAttempts(attempts);
+        dto.setAveragePercentage(average);
+        dto.setBestPercentage(best);
+        dto.setLastAttemptTime(LocalDateTime.now().minusDays(1));
+        return dto;
+    }
+
     private TesterAttemptDTO createAttempt(Long testId, int score, int maxScore, double percentage, LocalDateTime startTime) {
         TesterAttemptDTO dto = new TesterAttemptDTO();
         dto.setTestId(testId);
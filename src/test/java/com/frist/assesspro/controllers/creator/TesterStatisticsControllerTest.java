@@ -6,6 +6,9 @@ import com.frist.assesspro.entity.User;
 import com.frist.assesspro.service.TestService;
 import com.frist.assesspro.service.TesterStatisticsService;
 import com.frist.assesspro.service.UserService;
+import com.frist.assesspro.service.statistics.ItemAnalysisService;
+import com.frist.assesspro.service.statistics.LeaderboardService;
+import com.frist.assesspro.service.statistics.LiveExamMonitor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -50,6 +53,15 @@ class TesterStatisticsControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private ItemAnalysisService itemAnalysisService;
+
+    @MockitoBean
+    private LeaderboardService leaderboardService;
+
+    @MockitoBean
+    private LiveExamMonitor liveExamMonitor;
+
     private final Long TEST_ID = 100L;
     private final Long ATTEMPT_ID = 1L;
     private final String TESTER_USERNAME = "tester1";
@@ -197,6 +209,57 @@ class TesterStatisticsControllerTest {
                 .andExpect(jsonPath("$.testerUsername").value(TESTER_USERNAME));
     }
 
+    // ---------- GET /creator/tests/{testId}/statistics/items/data ----------
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("GET /creator/tests/{testId}/statistics/items/data: должен вернуть анализ вопросов в JSON")
+    void getItemAnalysisData_Success_ShouldReturnJson() throws Exception {
+        DistractorStatsDTO option = new DistractorStatsDTO(11L, "4", true, 3L, 0.75);
+        ItemAnalysisDTO item = new ItemAnalysisDTO(10L, "2+2=?", 1, 4L, 3L, 0.75, 0.4, null, List.of(option));
+
+        when(itemAnalysisService.getItemAnalysis(TEST_ID)).thenReturn(List.of(item));
+
+        mockMvc.perform(get("/creator/tests/{testId}/statistics/items/data", TEST_ID)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].questionId").value(10))
+                .andExpect(jsonPath("$[0].difficulty").value(0.75))
+                .andExpect(jsonPath("$[0].options[0].frequency").value(0.75));
+    }
+
+    // ---------- GET /creator/tests/{testId}/statistics/leaderboard ----------
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("GET /creator/tests/{testId}/statistics/leaderboard: должен вернуть рейтинг в JSON")
+    void getLeaderboard_Success_ShouldReturnJson() throws Exception {
+        when(leaderboardService.getTestLeaderboard(TEST_ID)).thenReturn(List.of(
+                new LeaderboardEntryDTO(1, 7L, TESTER_USERNAME, "Doe John", 90.0, 2L)));
+
+        mockMvc.perform(get("/creator/tests/{testId}/statistics/leaderboard", TEST_ID)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].rank").value(1))
+                .andExpect(jsonPath("$[0].fullName").value("Doe John"))
+                .andExpect(jsonPath("$[0].percentage").value(90.0));
+    }
+
+    // ---------- GET /creator/tests/{testId}/statistics/live/data ----------
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("GET /creator/tests/{testId}/statistics/live/data: должен вернуть кадр мониторинга в JSON")
+    void getLiveMonitorData_Success_ShouldReturnJson() throws Exception {
+        when(liveExamMonitor.getFrame(TEST_ID)).thenReturn(
+                new LiveExamFrameDTO(TEST_ID, 3, 42L, 5L, 55.5, LocalDateTime.now()));
+
+        mockMvc.perform(get("/creator/tests/{testId}/statistics/live/data", TEST_ID)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inProgress").value(3))
+                .andExpect(jsonPath("$.answersSubmitted").value(42))
+                .andExpect(jsonPath("$.averageProgress").value(55.5));
+    }
+
     // ---------- Вспомогательные методы ----------
 
     private Page<TesterAttemptDTO> createTesterAttemptPage(int page, int size) {
@@ -273,6 +273,38 @@ class TesterControllerTest {
                 .andExpect(jsonPath("$.status").value("error"));
     }
 
+    // ---------- POST /tester/attempt/{attemptId}/answers ----------
+
+    @Test
+    @DisplayName("POST /tester/attempt/{id}/answers: пакет ответов сохраняется одним вызовом")
+    void saveAnswers_Success_ShouldReturnSuccessJson() throws Exception {
+        mockMvc.perform(post("/tester/attempt/{attemptId}/answers", TEST_ATTEMPT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"questionId\":1,\"answerOptionId\":2,\"sequence\":10}," +
+                                "{\"questionId\":3,\"answerOptionId\":4,\"sequence\":11}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("success"))
+                .andExpect(jsonPath("$.saved").value(2))
+                .andExpect(jsonPath("$.completed").value(false));
+
+        verify(testPassingService).saveAnswers(eq(TEST_ATTEMPT_ID), argThat(answers -> answers.size() == 2
+                && answers.get(0).getSequence() == 10L
+                && TEST_ATTEMPT_ID.equals(answers.get(1).getAttemptId())), eq(TEST_USERNAME));
+    }
+
+    @Test
+    @DisplayName("POST /tester/attempt/{id}/answers: при исключении сервиса возвращает ошибку")
+    void saveAnswers_WhenServiceThrowsException_ShouldReturnErrorJson() throws Exception {
+        doThrow(new RuntimeException("DB error"))
+                .when(testPassingService).saveAnswers(eq(TEST_ATTEMPT_ID), anyList(), eq(TEST_USERNAME));
+
+        mockMvc.perform(post("/tester/attempt/{attemptId}/answers", TEST_ATTEMPT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"questionId\":1,\"answerOptionId\":2,\"sequence\":10}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("error"));
+    }
+
     // ---------- POST /tester/attempt/{attemptId}/finish ----------
 
     @Test
@@ -391,6 +423,57 @@ class TesterControllerTest {
                 .andExpect(model().attribute("testTakingDTO", testTakingDTO));
     }
 
+    // ---------- GET /tester/attempt/{attemptId}/questions/{questionIndex} ----------
+
+    private AttemptQuestionDTO attemptQuestion() {
+        AttemptQuestionDTO dto = new AttemptQuestionDTO();
+        dto.setAttemptId(TEST_ATTEMPT_ID);
+        dto.setTestId(TEST_TEST_ID);
+        dto.setTestVersion(3L);
+        dto.setQuestionIndex(1);
+        dto.setTotalQuestions(5);
+        dto.setAnsweredQuestions(2);
+        dto.setRemainingQuestions(3);
+        dto.setQuestion(new QuestionForTakingDTO());
+        dto.setAnswered(true);
+        dto.setChosenAnswerOptionId(7L);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("GET /tester/attempt/{id}/questions/{index}: должен вернуть вопрос в JSON с ETag")
+    void getAttemptQuestion_ShouldReturnJsonWithEtag() throws Exception {
+        when(testPassingService.getAttemptQuestion(eq(TEST_ATTEMPT_ID), eq(1), eq(TEST_USERNAME)))
+                .thenReturn(Optional.of(attemptQuestion()));
+
+        mockMvc.perform(get("/tester/attempt/{attemptId}/questions/{questionIndex}", TEST_ATTEMPT_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + TEST_ATTEMPT_ID + "-3-1-2-7\""))
+                .andExpect(jsonPath("$.questionIndex").value(1))
+                .andExpect(jsonPath("$.chosenAnswerOptionId").value(7));
+    }
+
+    @Test
+    @DisplayName("GET /tester/attempt/{id}/questions/{index}: совпавший ETag -> 304")
+    void getAttemptQuestion_WithMatchingEtag_ShouldReturnNotModified() throws Exception {
+        when(testPassingService.getAttemptQuestion(eq(TEST_ATTEMPT_ID), eq(1), eq(TEST_USERNAME)))
+                .thenReturn(Optional.of(attemptQuestion()));
+
+        mockMvc.perform(get("/tester/attempt/{attemptId}/questions/{questionIndex}", TEST_ATTEMPT_ID, 1)
+                        .header("If-None-Match", "\"" + TEST_ATTEMPT_ID + "-3-1-2-7\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("GET /tester/attempt/{id}/questions/{index}: вопрос не найден -> 404")
+    void getAttemptQuestion_WhenMissing_ShouldReturnNotFound() throws Exception {
+        when(testPassingService.getAttemptQuestion(eq(TEST_ATTEMPT_ID), eq(99), eq(TEST_USERNAME)))
+                .thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/tester/attempt/{attemptId}/questions/{questionIndex}", TEST_ATTEMPT_ID, 99))
+                .andExpect(status().isNotFound());
+    }
+
     // ---------- GET /tester/history ----------
 
     @Test
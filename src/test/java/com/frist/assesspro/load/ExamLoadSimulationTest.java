@@ -0,0 +1,396 @@
+package com.frist.assesspro.load;
+
+import com.frist.assesspro.entity.AnswerOption;
+import com.frist.assesspro.entity.Question;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Симуляция пикового начала экзамена: N тестировщиков на виртуальных потоках
+ * одновременно проходят вход → старт теста → ответы на все вопросы → завершение
+ * против полного контекста Spring и PostgreSQL в контейнере.
+ * <p>
+ * Запуск: {@code mvn test -Pload-simulation -Dload.testers=200 -Dload.questions=30 -Dload.think-ms=100}
+ */
+@Tag("load")
+@Slf4j
+@Testcontainers
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayName("Нагрузочная симуляция прохождения экзамена")
+class ExamLoadSimulationTest {
+
+    private static final int TESTERS = Integer.getInteger("load.testers", 50);
+    private static final int QUESTIONS = Integer.getInteger("load.questions", 20);
+    private static final long THINK_MS = Long.getLong("load.think-ms", 50);
+    private static final int ANSWER_BATCH = Integer.getInteger("load.answer-batch", 5);
+    private static final long TIMEOUT_MINUTES = Long.getLong("load.timeout-minutes", 10);
+
+    private static final String PASSWORD = "load-test-password";
+    private static final Pattern ATTEMPT_LOCATION = Pattern.compile("/tester/attempt/(\\d+)");
+    private static final Pattern SESSION_COOKIE = Pattern.compile("(JSESSIONID=[^;]+)");
+
+    @Container
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine")
+            .withInitScript("load/init-schema.sql");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl()
+                + (postgres.getJdbcUrl().contains("?") ? "&" : "?") + "currentSchema=assess_pro_db");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> Integer.getInteger("load.db-pool", 40));
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        registry.add("spring.jpa.properties.hibernate.default_schema", () -> "assess_pro_db");
+        registry.add("spring.liquibase.enabled", () -> "true");
+        registry.add("spring.liquibase.change-log", () -> "classpath:db/changelog/master.yaml");
+        registry.add("spring.liquibase.default-schema", () -> "assess_pro_db");
+    }
+
+    @TestConfiguration
+    static class QueryCountingConfig {
+        @Bean
+        static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)
+                            ? new QueryCountingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final Map<String, EndpointStats> stats = new ConcurrentSkipListMap<>();
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("N тестировщиков одновременно проходят экзамен")
+    void simulateExamSpike() throws Exception {
+        Fixture fixture = seed();
+        QueryCountingDataSource.reset();
+
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> testers = new ArrayList<>(TESTERS);
+        long startedNanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String username : fixture.usernames()) {
+                testers.add(executor.submit(() -> {
+                    startGate.await();
+                    takeExam(username, fixture);
+                    return null;
+                }));
+            }
+            // Все тестировщики начинают одновременно, как в 9:00
+            startedNanos = System.nanoTime();
+            startGate.countDown();
+
+            for (Future<?> tester : testers) {
+                try {
+                    tester.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+                } catch (ExecutionException e) {
+                    log.error("Сценарий тестировщика прерван", e.getCause());
+                }
+            }
+        }
+        double wallSeconds = (System.nanoTime() - startedNanos) / 1e9;
+
+        report(wallSeconds);
+
+        long errors = stats.values().stream().mapToLong(s -> s.errors.get()).sum();
+        assertThat(errors).as("ошибки запросов").isZero();
+        assertThat(stats.get("7 results").latencies).hasSize(TESTERS);
+    }
+
+    private void takeExam(String username, Fixture fixture) throws Exception {
+        String session = login(username);
+
+        HttpResponse<String> start = call("2 start", get("/tester/test/" + fixture.testId() + "/start", session), 302);
+        Matcher matcher = ATTEMPT_LOCATION.matcher(start.headers().firstValue("Location").orElse(""));
+        if (!matcher.find()) {
+            stats.get("2 start").errors.incrementAndGet();
+            throw new IllegalStateException("Тест не начат: " + start.headers().firstValue("Location").orElse("-"));
+        }
+        long attemptId = Long.parseLong(matcher.group(1));
+
+        call("3 attempt page", get("/tester/attempt/" + attemptId, session), 200);
+
+        long sequence = 0;
+        List<String> batch = new ArrayList<>(ANSWER_BATCH);
+        for (int i = 0; i < fixture.questionOptions().size(); i++) {
+            call("4 question json", get("/tester/attempt/" + attemptId + "/questions/" + i, session), 200);
+            think();
+
+            // Порядок вопросов в попытке перемешан, поэтому отвечаем по данным фикстуры
+            Map.Entry<Long, List<Long>> question = fixture.questionOptions().get(i);
+            List<Long> options = question.getValue();
+            long optionId = options.get(ThreadLocalRandom.current().nextInt(options.size()));
+            batch.add("{\"questionId\":" + question.getKey() + ",\"answerOptionId\":" + optionId
+                    + ",\"sequence\":" + (++sequence) + "}");
+
+            if (batch.size() == ANSWER_BATCH || i == fixture.questionOptions().size() - 1) {
+                HttpResponse<String> saved = call("5 answers batch", HttpRequest.newBuilder(uri("/tester/attempt/" + attemptId + "/answers"))
+                        .header("Cookie", session)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", batch) + "]"))
+                        .build(), 200);
+                if (!saved.body().contains("success")) {
+                    stats.get("5 answers batch").errors.incrementAndGet();
+                }
+                batch.clear();
+            }
+        }
+
+        call("6 finish", HttpRequest.newBuilder(uri("/tester/attempt/" + attemptId + "/finish"))
+                .header("Cookie", session)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), 302);
+        call("7 results", get("/tester/attempt/" + attemptId + "/results", session), 200);
+    }
+
+    private String login(String username) throws Exception {
+        String form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8)
+                + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8);
+        HttpResponse<String> response = call("1 login", HttpRequest.newBuilder(uri("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), 302);
+        String location = response.headers().firstValue("Location").orElse("");
+        Matcher cookie = SESSION_COOKIE.matcher(String.join(";", response.headers().allValues("Set-Cookie")));
+        if (location.contains("error") || !cookie.find()) {
+            stats.get("1 login").errors.incrementAndGet();
+            throw new IllegalStateException("Не удалось войти: " + username);
+        }
+        return cookie.group(1);
+    }
+
+    private HttpResponse<String> call(String endpoint, HttpRequest request, int expectedStatus) throws Exception {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, e -> new EndpointStats());
+        long started = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception e) {
+            endpointStats.errors.incrementAndGet();
+            throw e;
+        }
+        endpointStats.latencies.add(System.nanoTime() - started);
+        if (response.statusCode() != expectedStatus) {
+            endpointStats.errors.incrementAndGet();
+            log.warn("{}: статус {} вместо {}", endpoint, response.statusCode(), expectedStatus);
+        }
+        return response;
+    }
+
+    private HttpRequest get(String path, String session) {
+        return HttpRequest.newBuilder(uri(path)).header("Cookie", session).GET().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static void think() throws InterruptedException {
+        if (THINK_MS > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(THINK_MS / 2, THINK_MS * 3 / 2 + 1));
+        }
+    }
+
+    private Fixture seed() {
+        User creator = new User();
+        creator.setUsername("load-creator");
+        creator.setPassword(passwordEncoder.encode(PASSWORD));
+        creator.setRole(User.Roles.CREATOR);
+        creator.setFirstName("Нагрузочный");
+        creator.setLastName("Создатель");
+        creator.setIsProfileComplete(true);
+        creator.setIsActive(true);
+        creator = userRepository.save(creator);
+
+        Test test = new Test();
+        test.setTitle("Нагрузочный экзамен");
+        test.setCreatedBy(creator);
+        test.setIsPublished(true);
+        test.setQuestionCount(QUESTIONS);
+        List<Question> questions = new ArrayList<>(QUESTIONS);
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question question = new Question();
+            question.setTest(test);
+            question.setOrderIndex(i + 1);
+            question.setText("Вопрос " + (i + 1));
+            for (int j = 0; j < 4; j++) {
+                AnswerOption option = new AnswerOption();
+                option.setText("Вариант " + (j + 1));
+                option.setIsCorrect(j == 0);
+                question.addAnswerOption(option);
+            }
+            questions.add(question);
+        }
+        test.setQuestions(questions);
+        test = testRepository.save(test);
+
+        List<Map.Entry<Long, List<Long>>> questionOptions = test.getQuestions().stream()
+                .map(q -> Map.entry(q.getId(), q.getAnswerOptions().stream().map(AnswerOption::getId).toList()))
+                .toList();
+
+        // Хеш пароля один на всех: BCrypt на каждого тестировщика только замедлит подготовку
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        List<User> testers = new ArrayList<>(TESTERS);
+        for (int i = 0; i < TESTERS; i++) {
+            User tester = new User();
+            tester.setUsername("load-tester-" + i);
+            tester.setPassword(passwordHash);
+            tester.setRole(User.Roles.TESTER);
+            tester.setFirstName("Тестировщик");
+            tester.setLastName(String.valueOf(i));
+            tester.setIsProfileComplete(true);
+            tester.setIsActive(true);
+            testers.add(tester);
+        }
+        userRepository.saveAll(testers);
+
+        log.info("Подготовлено: тестировщиков {}, вопросов {}, пауза {} мс", TESTERS, QUESTIONS, THINK_MS);
+        return new Fixture(test.getId(), questionOptions, testers.stream().map(User::getUsername).toList());
+    }
+
+    private void report(double wallSeconds) {
+        StringBuilder report = new StringBuilder()
+                .append(String.format("%nТестировщиков: %d, вопросов: %d, пауза: %d мс, время: %.1f с%n",
+                        TESTERS, QUESTIONS, THINK_MS, wallSeconds))
+                .append(String.format("%-18s %8s %7s %9s %9s %9s %9s %10s%n",
+                        "endpoint", "count", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms", "req/s"));
+        long totalRequests = 0;
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            long[] sorted = entry.getValue().latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            totalRequests += sorted.length;
+            report.append(String.format("%-18s %8d %7d %9.1f %9.1f %9.1f %9.1f %10.1f%n",
+                    entry.getKey(), sorted.length, entry.getValue().errors.get(),
+                    percentileMs(sorted, 0.50), percentileMs(sorted, 0.95), percentileMs(sorted, 0.99),
+                    percentileMs(sorted, 1.0), sorted.length / wallSeconds));
+        }
+        long statements = QueryCountingDataSource.STATEMENTS.get();
+        report.append(String.format("Всего запросов: %d (%.1f req/s), экзаменов в секунду: %.2f%n",
+                        totalRequests, totalRequests / wallSeconds, TESTERS / wallSeconds))
+                .append(String.format("SQL-выражений: %d, на тестировщика: %.1f, на HTTP-запрос: %.2f%n",
+                        statements, (double) statements / TESTERS, (double) statements / Math.max(1, totalRequests)));
+        log.info(report.toString());
+    }
+
+    private static double percentileMs(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1e6;
+    }
+
+    private record Fixture(Long testId, List<Map.Entry<Long, List<Long>>> questionOptions, List<String> usernames) {
+    }
+
+    private static final class EndpointStats {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+    }
+
+    /**
+     * Подсчёт SQL-выражений, подготовленных приложением через пул соединений
+     */
+    static final class QueryCountingDataSource extends DelegatingDataSource {
+
+        static final AtomicLong STATEMENTS = new AtomicLong();
+
+        QueryCountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static void reset() {
+            STATEMENTS.set(0);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("prepareStatement") || name.equals("prepareCall")
+                                || name.equals("createStatement")) {
+                            STATEMENTS.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.frist.assesspro.repository;
+
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.TestAttempt;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.ReapedAttempt;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TestAttemptRepositoryPostgresTest extends BasePostgresRepositoryTest {
+
+    @Autowired
+    private TestAttemptRepository testAttemptRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User creator;
+    private Test test;
+
+    @BeforeEach
+    void setUp() {
+        creator = new User();
+        creator.setUsername("creator");
+        creator.setPassword("pass");
+        creator.setRole(User.Roles.CREATOR);
+        userRepository.save(creator);
+
+        test = new Test();
+        test.setTitle("Тест");
+        test.setCreatedBy(creator);
+        testRepository.save(test);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("summarizeTestScores: перцентили и гистограмма считаются по завершённым попыткам")
+    void summarizeTestScores_CompletedAttempts_PercentilesAndBuckets() {
+        for (int score = 1; score <= 4; score++) {
+            attempt(tester("tester" + score), TestAttempt.AttemptStatus.COMPLETED, score, null);
+        }
+        attempt(tester("tester5"), TestAttempt.AttemptStatus.IN_PROGRESS, 0, null);
+
+        TestScoreSummary summary = testAttemptRepository.summarizeTestScores(test.getId(), 4, TesterScope.all());
+
+        assertThat(summary.totalAttempts()).isEqualTo(5);
+        assertThat(summary.uniqueTesters()).isEqualTo(5);
+        assertThat(summary.completedAttempts()).isEqualTo(4);
+        assertThat(summary.averageScore()).isEqualTo(2.5);
+        assertThat(summary.bestScore()).isEqualTo(4.0);
+        assertThat(summary.medianScore()).isEqualTo(2.5);
+        assertThat(summary.p90Score()).isCloseTo(3.7, within(1e-9));
+        // 25%, 50%, 75% и 100%: полный балл попадает в последнюю корзину
+        assertThat(summary.scoreDistribution()).containsExactly(0L, 0L, 1L, 0L, 0L, 1L, 0L, 1L, 0L, 1L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("summarizeTestScores: без вопросов гистограмма пуста, остальные показатели считаются")
+    void summarizeTestScores_NoQuestions_EmptyDistribution() {
+        attempt(tester("tester"), TestAttempt.AttemptStatus.COMPLETED, 3, null);
+
+        TestScoreSummary summary = testAttemptRepository.summarizeTestScores(test.getId(), 0, TesterScope.all());
+
+        assertThat(summary.completedAttempts()).isEqualTo(1);
+        assertThat(summary.bestScore()).isEqualTo(3.0);
+        assertThat(summary.scoreDistribution()).containsOnly(0L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("timeoutExpiredAttempts: просроченная попытка закрывается с баллом из running_score")
+    void timeoutExpiredAttempts_Expired_TimedOut() {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 1, 12, 0);
+        User tester = tester("tester");
+        TestAttempt expired = attempt(tester, TestAttempt.AttemptStatus.IN_PROGRESS, 0, now.minusMinutes(5));
+        TestAttempt running = attempt(tester, TestAttempt.AttemptStatus.IN_PROGRESS, 0, now.plusMinutes(5));
+        jdbcTemplate.update("UPDATE test_attempts SET running_score = 3 WHERE id = ?", expired.getId());
+
+        List<Long> ids = testAttemptRepository.findExpiredAttemptIds(now, 10);
+        List<ReapedAttempt> reaped = testAttemptRepository.timeoutExpiredAttempts(ids, now);
+
+        assertThat(ids).containsExactly(expired.getId());
+        assertThat(reaped).containsExactly(new ReapedAttempt(expired.getId(), now.minusMinutes(5)));
+        TestAttempt closed = testAttemptRepository.findById(expired.getId()).orElseThrow();
+        assertThat(closed.getStatus()).isEqualTo(TestAttempt.AttemptStatus.TIMEOUT);
+        assertThat(closed.getTotalScore()).isEqualTo(3);
+        assertThat(closed.getEndTime()).isEqualTo(now.minusMinutes(5));
+        assertThat(testAttemptRepository.findById(running.getId()).orElseThrow().getStatus())
+                .isEqualTo(TestAttempt.AttemptStatus.IN_PROGRESS);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("timeoutExpiredAttempts: попытка, заблокированная другой транзакцией, пропускается")
+    void timeoutExpiredAttempts_LockedAttempt_Skipped() throws Exception {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 1, 12, 0);
+        TestAttempt expired = attempt(tester("tester"), TestAttempt.AttemptStatus.IN_PROGRESS, 0, now.minusMinutes(5));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Сохранение ответа держит блокировку строки попытки до конца своей транзакции
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT id FROM test_attempts WHERE id = ? FOR UPDATE", Long.class, expired.getId());
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        List<ReapedAttempt> skipped = transactionTemplate.execute(status ->
+                testAttemptRepository.timeoutExpiredAttempts(List.of(expired.getId()), now));
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        List<ReapedAttempt> reaped = transactionTemplate.execute(status ->
+                testAttemptRepository.timeoutExpiredAttempts(List.of(expired.getId()), now));
+
+        assertThat(skipped).isEmpty();
+        assertThat(reaped).extracting(ReapedAttempt::attemptId).containsExactly(expired.getId());
+    }
+
+    private User tester(String username) {
+        User tester = new User();
+        tester.setUsername(username);
+        tester.setPassword("pass");
+        tester.setRole(User.Roles.TESTER);
+        return userRepository.save(tester);
+    }
+
+    private TestAttempt attempt(User tester, TestAttempt.AttemptStatus status, int score, LocalDateTime deadlineAt) {
+        TestAttempt attempt = new TestAttempt();
+        attempt.setTest(test);
+        attempt.setUser(tester);
+        attempt.setStartTime(LocalDateTime.of(2026, 3, 1, 11, 0));
+        attempt.setStatus(status);
+        attempt.setTotalQuestions(4);
+        attempt.setTotalScore(score);
+        attempt.setDeadlineAt(deadlineAt);
+        if (status == TestAttempt.AttemptStatus.COMPLETED) {
+            attempt.setEndTime(LocalDateTime.of(2026, 3, 1, 11, 30));
+        }
+        return testAttemptRepository.save(attempt);
+    }
+}
@@ -1,5 +1,7 @@
 package com.frist.assesspro.repository;
 
+import com.frist.assesspro.dto.statistics.AttemptListProjection;
+import com.frist.assesspro.dto.statistics.TesterTestStatsProjection;
 import com.frist.assesspro.dto.test.TestHistoryDTO;
 import com.frist.assesspro.entity.*;
 import jakarta.persistence.EntityManager;
@@ -7,9 +9,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
@@ -107,6 +106,16 @@ class TestAttemptRepositoryTest extends BaseRepositoryTest {
     }
 
 
+    @org.junit.jupiter.api.Test
+    void findTestStatsByUserId_ShouldGroupByTest() {
+        List<TesterTestStatsProjection> stats = testAttemptRepository.findTestStatsByUserId(tester.getId());
+        assertThat(stats).hasSize(1);
+        assertThat(stats.get(0).getTestTitle()).isEqualTo("Тест");
+        assertThat(stats.get(0).getTotalAttempts()).isEqualTo(1L);
+        assertThat(stats.get(0).getCompletedAttempts()).isEqualTo(1L);
+        assertThat(stats.get(0).getAveragePercentage()).isEqualTo(100.0);
+    }
+
     @org.junit.jupiter.api.Test
     void countByUserId_ShouldReturnCount() {
         assertThat(testAttemptRepository.countByUserId(tester.getId())).isEqualTo(1L);
@@ -161,18 +170,12 @@ class TestAttemptRepositoryTest extends BaseRepositoryTest {
 //    }
 
     @org.junit.jupiter.api.Test
-    void findByTestIdWithUser_ShouldFetchUser() {
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<TestAttempt> page = testAttemptRepository.findByTestIdWithUser(test.getId(), pageable);
-        assertThat(page.getContent()).hasSize(1);
-        assertThat(page.getContent().get(0).getUser()).isNotNull();
-    }
-
-    @org.junit.jupiter.api.Test
-    void searchByTestIdWithUser_ShouldFilter() {
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<TestAttempt> page = testAttemptRepository.searchByTestIdWithUser(test.getId(), "tester", pageable);
-        assertThat(page.getContent()).hasSize(1);
+    void findListRowsByIdIn_ShouldReturnProjection() {
+        List<AttemptListProjection> rows = testAttemptRepository.findListRowsByIdIn(List.of(attempt.getId()));
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getUsername()).isEqualTo("tester");
+        assertThat(rows.get(0).getTestTitle()).isEqualTo("Тест");
+        assertThat(rows.get(0).getTotalQuestions()).isEqualTo(1);
     }
 
     @org.junit.jupiter.api.Test
@@ -183,12 +186,12 @@ class TestAttemptRepositoryTest extends BaseRepositoryTest {
     }
 
     @org.junit.jupiter.api.Test
-    void findAttemptsByTestIdWithAllData_ShouldFetchAll() {
+    void findWithUserAndTestByIdIn_ShouldFetchUserAndTest() {
         entityManager.flush();
         entityManager.clear();
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<TestAttempt> page = testAttemptRepository.findAttemptsByTestIdWithUserAndTest(test.getId(), pageable);
-        assertThat(page.getContent()).hasSize(1);
-        assertThat(page.getContent().get(0).getTest().getQuestions()).isNotEmpty();
+        List<TestAttempt> attempts = testAttemptRepository.findWithUserAndTestByIdIn(List.of(attempt.getId()));
+        assertThat(attempts).hasSize(1);
+        assertThat(attempts.get(0).getUser().getUsername()).isEqualTo("tester");
+        assertThat(attempts.get(0).getTest().getTitle()).isEqualTo("Тест");
     }
 }
\ No newline at end of file
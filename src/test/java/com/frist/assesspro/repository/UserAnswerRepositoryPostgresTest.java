@@ -0,0 +1,182 @@
+package com.frist.assesspro.repository;
+
+import com.frist.assesspro.entity.*;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.AnswerUpsert;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.OptionStatsRow;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.QuestionStatsRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserAnswerRepositoryPostgresTest extends BasePostgresRepositoryTest {
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    @Autowired
+    private TestAttemptRepository testAttemptRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestRepository testRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerOptionRepository answerOptionRepository;
+
+    private User tester;
+    private Test test;
+    private Question question;
+    private AnswerOption correct;
+    private AnswerOption wrong;
+
+    @BeforeEach
+    void setUp() {
+        User creator = new User();
+        creator.setUsername("creator");
+        creator.setPassword("pass");
+        creator.setRole(User.Roles.CREATOR);
+        userRepository.save(creator);
+
+        tester = new User();
+        tester.setUsername("tester");
+        tester.setPassword("pass");
+        tester.setRole(User.Roles.TESTER);
+        userRepository.save(tester);
+
+        test = new Test();
+        test.setTitle("Тест");
+        test.setCreatedBy(creator);
+        testRepository.save(test);
+
+        question = new Question();
+        question.setText("2+2=?");
+        question.setTest(test);
+        questionRepository.save(question);
+
+        correct = option("4", true);
+        wrong = option("5", false);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("upsertAnswers: новый и изменённый ответ обновляют счётчики попытки, вопроса и вариантов")
+    void upsertAnswers_NewAndChangedAnswers_UpdateCounters() {
+        TestAttempt first = attempt(TestAttempt.AttemptStatus.IN_PROGRESS);
+        TestAttempt second = attempt(TestAttempt.AttemptStatus.IN_PROGRESS);
+
+        userAnswerRepository.upsertAnswers(List.of(
+                new AnswerUpsert(first.getId(), question.getId(), correct.getId(), true, 1),
+                new AnswerUpsert(second.getId(), question.getId(), wrong.getId(), false, 0)));
+
+        assertThat(questionStats().answerCount()).isEqualTo(2);
+        assertThat(questionStats().correctCount()).isEqualTo(1);
+        assertThat(chosenCounts()).containsEntry(correct.getId(), 1L).containsEntry(wrong.getId(), 1L);
+        assertThat(attemptCounters(first.getId())).containsExactly(1, 1);
+
+        userAnswerRepository.upsertAnswers(List.of(
+                new AnswerUpsert(second.getId(), question.getId(), correct.getId(), true, 1)));
+
+        assertThat(questionStats().answerCount()).isEqualTo(2);
+        assertThat(questionStats().correctCount()).isEqualTo(2);
+        assertThat(chosenCounts()).containsEntry(correct.getId(), 2L).containsEntry(wrong.getId(), 0L);
+        assertThat(attemptCounters(second.getId())).containsExactly(1, 1);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("upsertAnswers: ответ с меньшим номером не перезаписывает более новый")
+    void upsertAnswers_OlderSequence_Ignored() {
+        TestAttempt attempt = attempt(TestAttempt.AttemptStatus.IN_PROGRESS);
+
+        userAnswerRepository.upsertAnswers(List.of(
+                new AnswerUpsert(attempt.getId(), question.getId(), correct.getId(), true, 1, 5L)));
+        int answered = userAnswerRepository.upsertAnswerAndCount(
+                new AnswerUpsert(attempt.getId(), question.getId(), wrong.getId(), false, 0, 3L));
+
+        assertThat(answered).isEqualTo(1);
+        assertThat(questionStats().correctCount()).isEqualTo(1);
+        assertThat(chosenCounts()).containsEntry(correct.getId(), 1L).containsEntry(wrong.getId(), 0L);
+        assertThat(attemptCounters(attempt.getId())).containsExactly(1, 1);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("upsertAnswers: ответы закрытой попытки не записываются и не меняют счётчики")
+    void upsertAnswers_AttemptTimedOut_NotWritten() {
+        TestAttempt attempt = attempt(TestAttempt.AttemptStatus.TIMEOUT);
+
+        userAnswerRepository.upsertAnswers(List.of(
+                new AnswerUpsert(attempt.getId(), question.getId(), correct.getId(), true, 1)));
+
+        assertThat(userAnswerRepository.countByAttemptId(attempt.getId())).isZero();
+        assertThat(questionStats().answerCount()).isZero();
+        assertThat(attemptCounters(attempt.getId())).containsExactly(0, 0);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("recomputeItemStats: строки счётчика сводятся в одну без изменения итогов")
+    void recomputeItemStats_MergesSlots() {
+        for (int i = 0; i < 3; i++) {
+            TestAttempt attempt = attempt(TestAttempt.AttemptStatus.IN_PROGRESS);
+            userAnswerRepository.upsertAnswers(List.of(
+                    new AnswerUpsert(attempt.getId(), question.getId(), correct.getId(), true, 1)));
+        }
+        assertThat(counterRows()).isEqualTo(3);
+
+        int recomputed = userAnswerRepository.recomputeItemStats(test.getId());
+
+        assertThat(recomputed).isEqualTo(1);
+        assertThat(counterRows()).isEqualTo(1);
+        assertThat(questionStats().answerCount()).isEqualTo(3);
+        assertThat(questionStats().correctCount()).isEqualTo(3);
+        assertThat(questionStats().recomputedAt()).isNotNull();
+        assertThat(chosenCounts()).containsEntry(correct.getId(), 3L).containsEntry(wrong.getId(), 0L);
+    }
+
+    private AnswerOption option(String text, boolean isCorrect) {
+        AnswerOption option = new AnswerOption();
+        option.setText(text);
+        option.setIsCorrect(isCorrect);
+        option.setQuestion(question);
+        return answerOptionRepository.save(option);
+    }
+
+    private TestAttempt attempt(TestAttempt.AttemptStatus status) {
+        TestAttempt attempt = new TestAttempt();
+        attempt.setTest(test);
+        attempt.setUser(tester);
+        attempt.setStartTime(LocalDateTime.now());
+        attempt.setStatus(status);
+        attempt.setTotalQuestions(1);
+        return testAttemptRepository.save(attempt);
+    }
+
+    private QuestionStatsRow questionStats() {
+        return userAnswerRepository.findQuestionStats(test.getId()).get(0);
+    }
+
+    private Map<Long, Long> chosenCounts() {
+        return userAnswerRepository.findAnswerOptionStats(test.getId()).stream()
+                .collect(Collectors.toMap(OptionStatsRow::optionId, OptionStatsRow::chosenCount));
+    }
+
+    private List<Integer> attemptCounters(Long attemptId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT answered_count, running_score FROM test_attempts WHERE id = ?",
+                (rs, rowNum) -> List.of(rs.getInt(1), rs.getInt(2)), attemptId);
+    }
+
+    private Integer counterRows() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM question_stats WHERE question_id = ?", Integer.class, question.getId());
+    }
+}
@@ -1,5 +1,6 @@
 package com.frist.assesspro.repository;
 
+import com.frist.assesspro.entity.Project;
 import com.frist.assesspro.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +23,9 @@ class UserRepositoryTest extends BaseRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProjectRepository projectRepository;
+
     private User admin;
     private User creator;
     private User tester;
@@ -146,4 +150,18 @@ class UserRepositoryTest extends BaseRepositoryTest {
         List<User> creators = userRepository.findAllCreators();
         assertThat(creators).hasSize(1).extracting(User::getUsername).containsExactly("creator");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findIdsByProjectManagerId_ShouldReturnUsersOfManagerProjects() {
+        Project project = new Project();
+        project.setName("Проект");
+        project.setActive(true);
+        project.setManager(creator);
+        projectRepository.save(project);
+        tester.setProject(project);
+        userRepository.save(tester);
+
+        assertThat(userRepository.findIdsByProjectManagerId(creator.getId())).containsExactly(tester.getId());
+        assertThat(userRepository.findIdsByProjectManagerId(admin.getId())).isEmpty();
+    }
+}
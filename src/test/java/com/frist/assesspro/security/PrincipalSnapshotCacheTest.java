@@ -0,0 +1,119 @@
+package com.frist.assesspro.security;
+
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalSnapshotCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @InjectMocks
+    private PrincipalSnapshotCache principalSnapshots;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(5L);
+        user.setUsername("tester");
+        user.setRole(User.Roles.TESTER);
+        user.setFirstName("Иван");
+        user.setLastName("Петров");
+        user.setEmail("ivan@example.com");
+        user.setIsProfileComplete(true);
+    }
+
+    @Test
+    @DisplayName("get: снимок строится одним обращением к БД и затем берётся из кэша")
+    void get_SecondCallServedFromCache() {
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(user));
+        when(testAttemptRepository.findActiveAttemptIdByUserId(5L)).thenReturn(17L);
+
+        PrincipalSnapshot first = principalSnapshots.get("tester").orElseThrow();
+        PrincipalSnapshot second = principalSnapshots.get("tester").orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.userId()).isEqualTo(5L);
+        assertThat(first.profileComplete()).isTrue();
+        assertThat(first.hasActiveAttempt()).isTrue();
+        verify(userRepository, times(1)).findByUsername("tester");
+    }
+
+    @Test
+    @DisplayName("get: неизвестный пользователь не кэшируется")
+    void get_UnknownUser_NotCached() {
+        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+
+        assertThat(principalSnapshots.get("unknown")).isEmpty();
+        assertThat(principalSnapshots.get("unknown")).isEmpty();
+
+        verify(userRepository, times(2)).findByUsername("unknown");
+        verifyNoInteractions(testAttemptRepository);
+    }
+
+    @Test
+    @DisplayName("invalidateUser: следующий запрос строит снимок заново и сброс уходит другим узлам")
+    void invalidateUser_ForcesReload() {
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(user));
+        principalSnapshots.get("tester");
+
+        principalSnapshots.invalidateUser(5L);
+        principalSnapshots.get("tester");
+
+        verify(userRepository, times(2)).findByUsername("tester");
+        verify(invalidationBus).publish("principals", "user:5");
+    }
+
+    @Test
+    @DisplayName("invalidateAttempts: сбрасывается снимок с закрытой активной попыткой")
+    void invalidateAttempts_EvictsOwnerOfAttempt() {
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(user));
+        when(testAttemptRepository.findActiveAttemptIdByUserId(5L)).thenReturn(17L, (Long) null);
+        principalSnapshots.get("tester");
+
+        principalSnapshots.invalidateAttempts(List.of(3L));
+        assertThat(principalSnapshots.get("tester").orElseThrow().hasActiveAttempt()).isTrue();
+
+        principalSnapshots.invalidateAttempts(List.of(17L));
+        assertThat(principalSnapshots.get("tester").orElseThrow().hasActiveAttempt()).isFalse();
+        verify(userRepository, times(2)).findByUsername("tester");
+    }
+
+    @Test
+    @DisplayName("invalidateAttempts: снимок, прочитанный до закрытия попытки, не кэшируется")
+    void invalidateAttempts_DuringLoad_SnapshotNotCached() {
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(user));
+        when(testAttemptRepository.findActiveAttemptIdByUserId(5L)).thenAnswer(invocation -> {
+            principalSnapshots.invalidateAttempts(List.of(17L));
+            return 17L;
+        }).thenReturn(null);
+
+        assertThat(principalSnapshots.get("tester").orElseThrow().hasActiveAttempt()).isTrue();
+        assertThat(principalSnapshots.get("tester").orElseThrow().hasActiveAttempt()).isFalse();
+        verify(userRepository, times(2)).findByUsername("tester");
+    }
+}
@@ -5,6 +5,8 @@ import com.frist.assesspro.dto.admin.UserManagementDTO;
 import com.frist.assesspro.entity.TestAttempt;
 import com.frist.assesspro.entity.User;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.manager.ManagerScopeIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -50,6 +52,12 @@ class AdminServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ManagerScopeIndex managerScopeIndex;
+
+    @Mock
+    private PrincipalSnapshotCache principalSnapshots;
+
     @InjectMocks
     private AdminService adminService;
 
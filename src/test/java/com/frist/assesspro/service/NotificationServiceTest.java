@@ -0,0 +1,91 @@
+package com.frist.assesspro.service;
+
+import com.frist.assesspro.dto.notification.NotificationDTO;
+import com.frist.assesspro.entity.Notification;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.mapper.NotificationMapper;
+import com.frist.assesspro.repository.NotificationRepository;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationMapper notificationMapper;
+
+    @Mock
+    private SseService sseService;
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    private User recipient;
+
+    @BeforeEach
+    void setUp() {
+        recipient = new User();
+        recipient.setId(5L);
+        recipient.setUsername("manager");
+        recipient.setEmail("manager@example.com");
+
+        when(notificationRepository.existsByUserIdAndTypeAndRelatedEntityId(
+                5L, Notification.NotificationType.ASSIGNED_TO_PROJECT, 1L)).thenReturn(false);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(notificationMapper.toDto(any(Notification.class))).thenReturn(new NotificationDTO());
+
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("createNotification: SSE и email отправляются только после коммита")
+    void createNotification_DeliversAfterCommit() {
+        notificationService.createNotification(recipient, "Вы добавлены в проект",
+                Notification.NotificationType.ASSIGNED_TO_PROJECT, 1L);
+
+        verifyNoInteractions(sseService, emailService);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(sseService).sendToUser(eq(5L), any(NotificationDTO.class));
+        verify(emailService).sendEmail(eq("manager@example.com"), anyString(), eq("email/notification"), anyMap());
+    }
+
+    @Test
+    @DisplayName("createNotification: при откате транзакции SSE и email не отправляются")
+    void createNotification_RolledBack_NothingDelivered() {
+        notificationService.createNotification(recipient, "Вы добавлены в проект",
+                Notification.NotificationType.ASSIGNED_TO_PROJECT, 1L);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(sseService, emailService);
+    }
+}
@@ -3,6 +3,7 @@ package com.frist.assesspro.service;
 import com.frist.assesspro.dto.profile.ProfileCompletionDTO;
 import com.frist.assesspro.entity.User;
 import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -25,6 +26,9 @@ class ProfileServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PrincipalSnapshotCache principalSnapshots;
+
     @InjectMocks
     private ProfileService profileService;
 
@@ -8,6 +8,8 @@ import com.frist.assesspro.entity.Test;
 import com.frist.assesspro.entity.User;
 import com.frist.assesspro.repository.QuestionRepository;
 import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.service.taking.CatalogCache;
+import com.frist.assesspro.service.taking.CompiledTestCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -35,6 +37,12 @@ class QuestionServiceTest {
     @Mock
     private TestRepository testRepository;
 
+    @Mock
+    private CompiledTestCache compiledTestCache;
+
+    @Mock
+    private CatalogCache catalogCache;
+
     @InjectMocks
     private QuestionService questionService;
 
@@ -5,6 +5,18 @@ import com.frist.assesspro.dto.category.CategoryDTO;
 import com.frist.assesspro.dto.test.*;
 import com.frist.assesspro.entity.*;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.security.PrincipalSnapshot;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.outbox.OutboxService;
+import com.frist.assesspro.service.statistics.DailyAttemptRollup;
+import com.frist.assesspro.service.statistics.LiveExamMonitor;
+import com.frist.assesspro.service.statistics.TesterStatsRollup;
+import com.frist.assesspro.service.taking.AnswerWriteBehindBuffer;
+import com.frist.assesspro.service.taking.AttemptView;
+import com.frist.assesspro.service.taking.AttemptViewCache;
+import com.frist.assesspro.service.taking.CompiledTest;
+import com.frist.assesspro.service.taking.CatalogCache;
+import com.frist.assesspro.service.taking.CompiledTestCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -54,10 +66,38 @@ class TestPassingServiceTest {
     @Mock
     private CooldownService cooldownService;
 
+    @Mock
+    private CompiledTestCache compiledTestCache;
+
+    @Mock
+    private CatalogCache catalogCache;
+
+    @Mock
+    private AnswerWriteBehindBuffer answerWriteBehindBuffer;
+
+    @Mock
+    private AttemptViewCache attemptViewCache;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private TesterStatsRollup testerStatsRollup;
+
+    @Mock
+    private DailyAttemptRollup dailyAttemptRollup;
+
+    @Mock
+    private LiveExamMonitor liveExamMonitor;
+
+    @Mock
+    private PrincipalSnapshotCache principalSnapshots;
+
     @InjectMocks
     private TestPassingService testPassingService;
 
     private User tester;
+    private PrincipalSnapshot testerSnapshot;
     private com.frist.assesspro.entity.Test test;
     private TestAttempt attempt;
     private Question question;
@@ -73,6 +113,7 @@ class TestPassingServiceTest {
         tester.setFirstName("Иван");
         tester.setLastName("Петров");
         tester.setIsProfileComplete(true);
+        testerSnapshot = new PrincipalSnapshot(1L, "tester", User.Roles.TESTER, null, true, null);
 
         test = new com.frist.assesspro.entity.Test();
         test.setId(1L);
@@ -190,6 +231,54 @@ class TestPassingServiceTest {
         assertThat(dto.getRemainingQuestions()).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("getTestForTaking: продолжение попытки -> на странице только неотвеченные вопросы")
+    void getTestForTaking_ResumedAttempt_OnlyUnansweredQuestions() {
+        attempt.setStatus(TestAttempt.AttemptStatus.IN_PROGRESS);
+        Question question2 = new Question();
+        question2.setId(2L);
+        question2.setText("3+3=?");
+        question2.setOrderIndex(2);
+        question2.setAnswerOptions(List.of());
+        Question question3 = new Question();
+        question3.setId(3L);
+        question3.setText("4+4=?");
+        question3.setOrderIndex(3);
+        question3.setAnswerOptions(List.of());
+        test.setQuestions(List.of(question, question2, question3));
+        CompiledTest compiled = CompiledTest.compile(test, test.getQuestions(), 0);
+
+        // Порядок попытки: 3, 1, 2; на вопрос 1 уже ответили
+        AttemptView view = mock(AttemptView.class);
+        when(view.getQuestionCount()).thenReturn(3);
+        when(view.questionAt(0)).thenReturn(compiled.findQuestion(3L));
+        when(view.questionAt(1)).thenReturn(compiled.findQuestion(1L));
+        when(view.questionAt(2)).thenReturn(compiled.findQuestion(2L));
+        when(view.isAnswered(anyLong())).thenAnswer(invocation -> invocation.<Long>getArgument(0) == 1L);
+        when(view.getAnsweredCount()).thenReturn(1);
+        when(view.getTestId()).thenReturn(1L);
+        when(view.getCompiled()).thenReturn(compiled);
+
+        when(profileService.isProfileComplete("tester")).thenReturn(true);
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(compiled));
+        when(testRepository.getReferenceById(1L)).thenReturn(test);
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(tester));
+        when(testAttemptRepository.findByTestIdAndUserIdAndStatus(1L, 1L, TestAttempt.AttemptStatus.IN_PROGRESS))
+                .thenReturn(Optional.of(attempt));
+        when(attemptViewCache.get(1L)).thenReturn(Optional.of(view));
+
+        Optional<TestTakingDTO> result = testPassingService.getTestForTaking(1L, "tester");
+
+        assertThat(result).isPresent();
+        TestTakingDTO dto = result.get();
+        assertThat(dto.getQuestions()).extracting(QuestionForTakingDTO::getId).containsExactly(3L, 2L);
+        assertThat(dto.getQuestionIndexes()).containsExactly(0, 2);
+        assertThat(dto.getCurrentQuestionIndex()).isZero();
+        assertThat(dto.getTotalQuestions()).isEqualTo(3);
+        assertThat(dto.getAnsweredQuestions()).isEqualTo(1);
+        assertThat(dto.getRemainingQuestions()).isEqualTo(2);
+    }
+
     @Test
     @DisplayName("getTestForTaking: профиль не заполнен -> ошибка")
     void getTestForTaking_ProfileNotComplete_ThrowsException() {
@@ -301,13 +390,11 @@ class TestPassingServiceTest {
         when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
         when(questionRepository.findById(1L)).thenReturn(Optional.of(question));
         when(answerOptionRepository.findById(1L)).thenReturn(Optional.of(answer));
-        doNothing().when(userAnswerRepository).upsertAnswer(anyLong(), anyLong(), anyLong(), anyBoolean(), anyInt());
-        when(userAnswerRepository.sumPointsEarnedByAttemptId(1L)).thenReturn(1);
-        when(userAnswerRepository.countByAttemptId(1L)).thenReturn(1L); // ответили на 1 из 2
+        when(userAnswerRepository.upsertAnswerAndCount(any())).thenReturn(1); // ответили на 1 из 2
 
         testPassingService.saveAnswer(passingDTO, "tester");
 
-        verify(userAnswerRepository).upsertAnswer(1L, 1L, 1L, true, 1);
+        verify(userAnswerRepository).upsertAnswerAndCount(new UserAnswerRepositoryCustom.AnswerUpsert(1L, 1L, 1L, true, 1));
         verify(testAttemptRepository, never()).save(any(TestAttempt.class)); // не завершён
     }
 
@@ -342,9 +429,8 @@ class TestPassingServiceTest {
         when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
         when(questionRepository.findById(1L)).thenReturn(Optional.of(question));
         when(answerOptionRepository.findById(1L)).thenReturn(Optional.of(answer));
-        doNothing().when(userAnswerRepository).upsertAnswer(anyLong(), anyLong(), anyLong(), anyBoolean(), anyInt());
-        when(userAnswerRepository.sumPointsEarnedByAttemptId(1L)).thenReturn(1);
-        when(userAnswerRepository.countByAttemptId(1L)).thenReturn(1L); // все вопросы отвечены
+        when(userAnswerRepository.upsertAnswerAndCount(any())).thenReturn(1); // все вопросы отвечены
+        when(testAttemptRepository.findRunningScoreById(1L)).thenReturn(1);
 
         // Моки для finishTestAndGetResults
         // второй вызов findById
@@ -356,15 +442,59 @@ class TestPassingServiceTest {
 
         testPassingService.saveAnswer(passingDTO, "tester");
 
-        verify(userAnswerRepository).upsertAnswer(1L, 1L, 1L, true, 1);
+        verify(userAnswerRepository).upsertAnswerAndCount(new UserAnswerRepositoryCustom.AnswerUpsert(1L, 1L, 1L, true, 1));
         verify(testAttemptRepository, atLeastOnce()).save(attempt);
         assertThat(attempt.getStatus()).isEqualTo(TestAttempt.AttemptStatus.COMPLETED);
     }
 
+    @Test
+    @DisplayName("saveAnswers: пакет сохраняется одним UPSERT с номерами последовательности")
+    void saveAnswers_Success() {
+        attempt.setStatus(TestAttempt.AttemptStatus.IN_PROGRESS);
+        Question question2 = new Question();
+        question2.setId(2L);
+        question2.setOrderIndex(2);
+        question2.setAnswerOptions(List.of());
+        test.setQuestions(List.of(question, question2));
+
+        TestPassingDTO passingDTO = new TestPassingDTO();
+        passingDTO.setQuestionId(1L);
+        passingDTO.setAnswerOptionId(1L);
+        passingDTO.setSequence(7L);
+
+        when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(CompiledTest.compile(test, test.getQuestions(), 0)));
+        when(testAttemptRepository.findAnsweredCountById(1L)).thenReturn(1);
+
+        testPassingService.saveAnswers(1L, List.of(passingDTO), "tester");
+
+        verify(userAnswerRepository).upsertAnswers(
+                List.of(new UserAnswerRepositoryCustom.AnswerUpsert(1L, 1L, 1L, true, 1, 7L)));
+        verify(testAttemptRepository, never()).save(any(TestAttempt.class));
+    }
+
+    @Test
+    @DisplayName("saveAnswers: вопрос из другого теста -> ошибка, ничего не сохраняется")
+    void saveAnswers_ForeignQuestion_ThrowsException() {
+        attempt.setStatus(TestAttempt.AttemptStatus.IN_PROGRESS);
+
+        TestPassingDTO passingDTO = new TestPassingDTO();
+        passingDTO.setQuestionId(99L);
+
+        when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(CompiledTest.compile(test, test.getQuestions(), 0)));
+
+        assertThatThrownBy(() -> testPassingService.saveAnswers(1L, List.of(passingDTO), "tester"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Вопрос не принадлежит этому тесту");
+        verify(userAnswerRepository, never()).upsertAnswers(anyList());
+    }
+
     @Test
     @DisplayName("finishTestAndGetResults: успешное завершение")
     void finishTestAndGetResults_Success() {
         when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(CompiledTest.compile(test, test.getQuestions(), 0)));
         when(userAnswerRepository.findByAttemptId(1L)).thenReturn(List.of());
 
         TestResultsDTO result = testPassingService.finishTestAndGetResults(1L, "tester");
@@ -374,6 +504,25 @@ class TestPassingServiceTest {
         assertThat(result.getTestId()).isEqualTo(1L);
     }
 
+    @Test
+    @DisplayName("finishTestAndGetResults: уведомления менеджеров ставятся в outbox")
+    void finishTestAndGetResults_InProgress_EnqueuesOutboxEvent() {
+        attempt.setStatus(TestAttempt.AttemptStatus.IN_PROGRESS);
+        when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
+        when(testAttemptRepository.findRunningScoreById(1L)).thenReturn(1);
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(CompiledTest.compile(test, test.getQuestions(), 0)));
+        when(userAnswerRepository.findByAttemptId(1L)).thenReturn(List.of());
+
+        testPassingService.finishTestAndGetResults(1L, "tester");
+
+        assertThat(attempt.getStatus()).isEqualTo(TestAttempt.AttemptStatus.COMPLETED);
+        assertThat(attempt.getTotalScore()).isEqualTo(1);
+        verify(outboxService).enqueue(OutboxEvent.EventType.ATTEMPT_COMPLETED, 1L);
+        verify(testerStatsRollup).refresh(List.of(1L));
+        verify(dailyAttemptRollup).recordFinished(List.of(1L));
+        verify(liveExamMonitor).attemptsFinished(List.of(1L));
+    }
+
     @Test
     @DisplayName("getTestResults: получение результатов")
     void getTestResults_Success() {
@@ -384,8 +533,9 @@ class TestPassingServiceTest {
         ua.setPointsEarned(1);
 
         when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(CompiledTest.compile(test, test.getQuestions(), 0)));
         when(userAnswerRepository.findByAttemptId(1L)).thenReturn(List.of(ua));
-        when(userAnswerRepository.sumPointsEarnedByAttemptId(1L)).thenReturn(1);
+        when(testAttemptRepository.findRunningScoreById(1L)).thenReturn(1);
 
         TestResultsDTO result = testPassingService.getTestResults(1L, "tester");
 
@@ -402,7 +552,7 @@ class TestPassingServiceTest {
         historyDTO.setAttemptId(1L);
         historyDTO.setStatus(TestAttempt.AttemptStatus.COMPLETED);
 
-        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(tester));
+        when(principalSnapshots.getRequired("tester")).thenReturn(testerSnapshot);
         Page<TestHistoryDTO> page = new PageImpl<>(List.of(historyDTO), pageable, 1);
         when(testAttemptRepository.findTestHistoryDTOsByUserId(1L, pageable)).thenReturn(page);
 
@@ -420,15 +570,12 @@ class TestPassingServiceTest {
         historyDTO.setAttemptId(1L);
         historyDTO.setStatus(TestAttempt.AttemptStatus.IN_PROGRESS);
         historyDTO.setMaxPossibleScore(10L);
+        historyDTO.setAnsweredCount(5);
 
-        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(tester));
+        when(principalSnapshots.getRequired("tester")).thenReturn(testerSnapshot);
         Page<TestHistoryDTO> page = new PageImpl<>(List.of(historyDTO), pageable, 1);
         when(testAttemptRepository.findTestHistoryDTOsByUserId(1L, pageable)).thenReturn(page);
 
-        List<Object[]> countResult = new ArrayList<>();
-        countResult.add(new Object[]{1L, 5L});
-        when(userAnswerRepository.countByAttemptIds(List.of(1L))).thenReturn(countResult);
-
         Page<TestHistoryDTO> result = testPassingService.getUserTestHistory("tester", 0, 10, null);
 
         assertThat(result.getContent().get(0).getProgressPercentage()).isEqualTo(50); // 5/10
@@ -437,7 +584,7 @@ class TestPassingServiceTest {
     @Test
     @DisplayName("getUserTestHistory: без пагинации")
     void getUserTestHistory_WithoutPagination_Success() {
-        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(tester));
+        when(principalSnapshots.getRequired("tester")).thenReturn(testerSnapshot);
         Pageable pageable = PageRequest.of(0, 10, Sort.by("startTime").descending());
         Page<TestHistoryDTO> page = new PageImpl<>(List.of(), pageable, 0);
         when(testAttemptRepository.findTestHistoryDTOsByUserId(1L, pageable)).thenReturn(page);
@@ -450,7 +597,7 @@ class TestPassingServiceTest {
     @Test
     @DisplayName("getUserStatistics: успешное получение статистики пользователя")
     void getUserStatistics_Success() {
-        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(tester));
+        when(principalSnapshots.getRequired("tester")).thenReturn(testerSnapshot);
         when(testAttemptRepository.countByUserId(1L)).thenReturn(10L);
         when(testAttemptRepository.countByUserIdAndStatus(1L, TestAttempt.AttemptStatus.COMPLETED)).thenReturn(7L);
         when(testAttemptRepository.countByUserIdAndStatus(1L, TestAttempt.AttemptStatus.IN_PROGRESS)).thenReturn(2L);
@@ -4,6 +4,8 @@ import com.frist.assesspro.dto.TestDTO;
 import com.frist.assesspro.dto.test.TestUpdateDTO;
 import com.frist.assesspro.entity.*;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.service.taking.CatalogCache;
+import com.frist.assesspro.service.taking.CompiledTestCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -40,6 +42,12 @@ class TestServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private CompiledTestCache compiledTestCache;
+
+    @Mock
+    private CatalogCache catalogCache;
+
     @InjectMocks
     private TestService testService;
 
@@ -207,6 +215,7 @@ class TestServiceTest {
 
         assertThat(publishedTest.getIsPublished()).isTrue();
         verify(testRepository).save(test);
+        verify(catalogCache).invalidate();
     }
 
     @org.junit.jupiter.api.Test
@@ -3,8 +3,14 @@ package com.frist.assesspro.service;
 import com.frist.assesspro.dto.statistics.*;
 import com.frist.assesspro.entity.*;
 import com.frist.assesspro.repository.*;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.AttemptCursor;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterScope;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterStatsRow;
+import com.frist.assesspro.service.statistics.AttemptColumnStore;
+import com.frist.assesspro.service.statistics.TestSummaryCache;
+import com.frist.assesspro.service.statistics.TesterOverviewCache;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,11 +21,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -44,6 +52,15 @@ class TesterStatisticsServiceTest {
     @Mock
     private RetryCooldownExceptionRepository exceptionRepository;
 
+    @Mock
+    private TestSummaryCache testSummaryCache;
+
+    @Mock
+    private TesterOverviewCache testerOverviewCache;
+
+    @Mock
+    private AttemptColumnStore attemptColumnStore;
+
     @InjectMocks
     private TesterStatisticsService testerStatisticsService;
 
@@ -112,16 +129,32 @@ class TesterStatisticsServiceTest {
         exception.setIsPermanent(true);
     }
 
-    @Disabled
+    private AttemptListProjection listRow() {
+        AttemptListProjection row = mock(AttemptListProjection.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getTestId()).thenReturn(1L);
+        when(row.getTestTitle()).thenReturn("Тест по математике");
+        when(row.getUsername()).thenReturn("tester");
+        when(row.getLastName()).thenReturn("Петров");
+        when(row.getFirstName()).thenReturn("Иван");
+        when(row.getMiddleName()).thenReturn("Сергеевич");
+        when(row.getStartTime()).thenReturn(attempt.getStartTime());
+        when(row.getEndTime()).thenReturn(attempt.getEndTime());
+        when(row.getTotalScore()).thenReturn(1);
+        when(row.getTotalQuestions()).thenReturn(1);
+        return row;
+    }
+
     @Test
     @DisplayName("getTestersByTest: успешное получение списка тестировщиков с пагинацией")
     void getTestersByTest_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<TestAttempt> attemptsPage = new PageImpl<>(List.of(attempt), pageable, 1);
+        AttemptListProjection row = listRow();
 
         when(testRepository.existsById(1L)).thenReturn(true);
-        when(testAttemptRepository.findAttemptsByTestIdWithUserAndTest(1L, pageable))
-                .thenReturn(attemptsPage);
+        when(testAttemptRepository.findAttemptIdPage(1L, null, TesterScope.all(), pageable))
+                .thenReturn(new PageImpl<>(List.of(1L), pageable, 1));
+        when(testAttemptRepository.findListRowsByIdIn(List.of(1L))).thenReturn(List.of(row));
 
         Page<TesterAttemptDTO> result = testerStatisticsService.getTestersByTest(1L, "creator", pageable);
 
@@ -139,6 +172,35 @@ class TesterStatisticsServiceTest {
         assertThat(dto.getDurationMinutes()).isEqualTo(60L);
     }
 
+    @Test
+    @DisplayName("getTestersByTestAfter: порция после курсора и признак следующей порции")
+    void getTestersByTestAfter_ReturnsSliceWithNext() {
+        AttemptCursor cursor = new AttemptCursor(LocalDateTime.of(2026, 1, 1, 10, 0), 5L);
+        AttemptListProjection row = listRow();
+
+        when(testRepository.existsById(1L)).thenReturn(true);
+        when(testAttemptRepository.findAttemptIdsAfter(1L, "петров", TesterScope.all(), cursor, 2))
+                .thenReturn(List.of(1L, 7L));
+        when(testAttemptRepository.findListRowsByIdIn(List.of(1L))).thenReturn(List.of(row));
+
+        Slice<TesterAttemptDTO> result = testerStatisticsService.getTestersByTestAfter(
+                1L, "creator", " петров ", cursor, 1);
+
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getContent()).extracting(TesterAttemptDTO::getAttemptId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("AttemptCursor: кодирование и разбор курсора")
+    void attemptCursor_EncodeDecode() {
+        AttemptCursor cursor = new AttemptCursor(LocalDateTime.of(2026, 1, 1, 10, 0, 15), 42L);
+
+        assertThat(AttemptCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThatThrownBy(() -> AttemptCursor.decode("мусор"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Некорректный курсор");
+    }
+
     @Test
     @DisplayName("getTestersByTest: тест не найден -> ошибка")
     void getTestersByTest_TestNotFound_ThrowsException() {
@@ -189,46 +251,117 @@ class TesterStatisticsServiceTest {
         verify(testAttemptRepository).findRecentAttemptsForCreator("creator");
     }
 
-    @Disabled
     @Test
-    @DisplayName("getTestSummary: успешное получение общей статистики по тесту")
+    @DisplayName("getTestSummary: сводка из агрегирующего запроса переводится в проценты")
     void getTestSummary_Success() {
+        List<Long> distribution = List.of(0L, 0L, 0L, 0L, 1L, 0L, 0L, 1L, 0L, 2L);
+        TestScoreSummary scores = new TestScoreSummary(4, 5L, 3L, 4L, 3.0, 4.0, 3.5, 4.0, distribution);
+        when(testRepository.existsById(1L)).thenReturn(true);
+        when(testRepository.countQuestionsByTestId(1L)).thenReturn(4);
+        when(testSummaryCache.get(eq(1L), eq(4), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<TestScoreSummary>>getArgument(2).get());
+        when(testAttemptRepository.summarizeTestScores(1L, 4, TesterScope.all())).thenReturn(scores);
+
+        TestSummaryDTO result = testerStatisticsService.getTestSummary(1L, "creator");
+
+        assertThat(result.getTotalAttempts()).isEqualTo(5L);
+        assertThat(result.getUniqueTesters()).isEqualTo(3L);
+        assertThat(result.getAverageScore()).isEqualTo(75.0);
+        assertThat(result.getBestScore()).isEqualTo(100.0);
+        assertThat(result.getMedianScore()).isEqualTo(87.5);
+        assertThat(result.getP90Score()).isEqualTo(100.0);
+        assertThat(result.getScoreDistribution()).isEqualTo(distribution);
+        verify(testAttemptRepository, never()).findByTestId(anyLong());
+    }
+
+    @Test
+    @DisplayName("getTestSummary: знаменатель - текущее число вопросов, а не устаревшая колонка question_count")
+    void getTestSummary_StaleQuestionCountColumn_UsesQuestions() {
+        test.setQuestionCount(0);
+        TestScoreSummary scores = new TestScoreSummary(5, 1L, 1L, 1L, 5.0, 5.0, 5.0, 5.0,
+                List.of(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 1L));
+        lenient().when(testRepository.findById(1L)).thenReturn(Optional.of(test));
         when(testRepository.existsById(1L)).thenReturn(true);
-        when(testRepository.findById(1L)).thenReturn(Optional.of(test));
-        when(testAttemptRepository.findByTestId(1L)).thenReturn(List.of(attempt));
+        when(testRepository.countQuestionsByTestId(1L)).thenReturn(5);
+        when(testSummaryCache.get(eq(1L), eq(5), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<TestScoreSummary>>getArgument(2).get());
+        when(testAttemptRepository.summarizeTestScores(1L, 5, TesterScope.all())).thenReturn(scores);
 
         TestSummaryDTO result = testerStatisticsService.getTestSummary(1L, "creator");
 
+        assertThat(result.getTotalQuestions()).isEqualTo(5);
         assertThat(result.getAverageScore()).isEqualTo(100.0);
+    }
 
+    @Test
+    @DisplayName("getTestSummary: при включённом колоночном хранилище сводка считается в памяти")
+    void getTestSummary_ColumnarEnabled_SkipsQuery() {
+        when(testRepository.existsById(1L)).thenReturn(true);
+        when(testRepository.countQuestionsByTestId(1L)).thenReturn(4);
+        when(attemptColumnStore.isEnabled()).thenReturn(true);
+        when(attemptColumnStore.summarize(1L, 4, TesterScope.all())).thenReturn(TestScoreSummary.empty(4));
+
+        TestSummaryDTO result = testerStatisticsService.getTestSummary(1L, "creator");
+
+        assertThat(result.getTotalAttempts()).isZero();
+        verify(testAttemptRepository, never()).summarizeTestScores(anyLong(), anyInt(), any());
+        verifyNoInteractions(testSummaryCache);
+    }
+
+    @Test
+    @DisplayName("getFilteredTestSummary: сводка только по тестировщикам менеджера, без кэша")
+    void getFilteredTestSummary_Success() {
+        when(testRepository.existsById(1L)).thenReturn(true);
+        when(testRepository.countQuestionsByTestId(1L)).thenReturn(4);
+        when(testAttemptRepository.summarizeTestScores(1L, 4, TesterScope.manager(5L)))
+                .thenReturn(TestScoreSummary.empty(4));
+
+        TestSummaryDTO result = testerStatisticsService.getFilteredTestSummary(1L, TesterScope.manager(5L));
+
+        assertThat(result.getTotalAttempts()).isZero();
+        assertThat(result.getPercentage()).isEqualTo(0.0);
+        assertThat(result.getScoreDistribution()).hasSize(10);
+        verifyNoInteractions(testSummaryCache);
     }
 
-    @Disabled
     @Test
-    @DisplayName("getAggregatedTestersByTest: агрегация по тестировщикам")
+    @DisplayName("getAggregatedTestersByTest: страница из сводки, попытки только тестировщиков страницы")
     void getAggregatedTestersByTest_Success() {
         Pageable pageable = PageRequest.of(0, 10);
+        TesterStatsRow row = new TesterStatsRow(2L, "tester", 1L, 1L, 100.0, 100.0, 100.0, 60L,
+                attempt.getStartTime(), attempt.getStartTime());
         when(testRepository.existsById(1L)).thenReturn(true);
-        when(testAttemptRepository.findByTestId(1L)).thenReturn(List.of(attempt));
+        when(testAttemptRepository.findTesterStats(1L, null, null, pageable))
+                .thenReturn(new PageImpl<>(List.of(row), pageable, 1));
+        when(testAttemptRepository.findByTestIdAndUserIdsAndDateRange(1L, List.of(2L), true, null, true, null))
+                .thenReturn(List.of(attempt));
 
         Page<TesterAggregatedStatsDTO> result = testerStatisticsService.getAggregatedTestersByTest(
                 1L, "creator", pageable, null, null);
 
         assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isEqualTo(1);
         TesterAggregatedStatsDTO dto = result.getContent().get(0);
         assertThat(dto.getTesterUsername()).isEqualTo("tester");
         assertThat(dto.getTotalAttempts()).isEqualTo(1L);
         assertThat(dto.getCompletedAttempts()).isEqualTo(1L);
         assertThat(dto.getAveragePercentage()).isEqualTo(100.0);
         assertThat(dto.getBestPercentage()).isEqualTo(100.0);
+        assertThat(dto.getAttemptIds()).containsExactly(1L);
+        assertThat(dto.getRecentAttempts()).hasSize(1);
+        verify(testAttemptRepository, never()).findByTestIdAndDateRange(anyLong(), anyBoolean(), any(), anyBoolean(), any());
     }
 
     @Test
     @DisplayName("getTesterAggregatedStats: статистика конкретного тестировщика")
     void getTesterAggregatedStats_Success() {
+        TesterStatsRow row = new TesterStatsRow(2L, "tester", 1L, 1L, 100.0, 100.0, 100.0, 60L,
+                attempt.getStartTime(), attempt.getStartTime());
         when(testRepository.existsById(1L)).thenReturn(true);
         when(userRepository.findByUsername("tester")).thenReturn(Optional.of(tester));
-        when(testAttemptRepository.findByTestId(1L)).thenReturn(List.of(attempt));
+        when(testAttemptRepository.findByTestIdAndUserIdsAndDateRange(1L, List.of(2L), true, null, true, null))
+                .thenReturn(List.of(attempt));
+        when(testAttemptRepository.findTesterStats(1L, 2L)).thenReturn(Optional.of(row));
 
         TesterAggregatedStatsDTO result = testerStatisticsService.getTesterAggregatedStats(1L, "tester", "creator");
 
@@ -249,6 +382,67 @@ class TesterStatisticsServiceTest {
         assertThat(result.get(0).getId()).isEqualTo(2L);
     }
 
+    private TesterTestStatsProjection testStatsRow(Long testId, long attempts, long completed,
+                                                   double average, double best) {
+        TesterTestStatsProjection row = mock(TesterTestStatsProjection.class);
+        when(row.getTestId()).thenReturn(testId);
+        when(row.getTotalAttempts()).thenReturn(attempts);
+        when(row.getCompletedAttempts()).thenReturn(completed);
+        when(row.getAveragePercentage()).thenReturn(average);
+        when(row.getBestPercentage()).thenReturn(best);
+        return row;
+    }
+
+    @Test
+    @DisplayName("getTesterOverview: итоги взвешиваются по числу попыток в тестах")
+    void getTesterOverview_AggregatesPerTestRows() {
+        TesterTestStatsProjection first = testStatsRow(1L, 3, 2, 60.0, 90.0);
+        TesterTestStatsProjection second = testStatsRow(5L, 1, 1, 100.0, 100.0);
+
+        when(testerOverviewCache.get(eq(2L), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<TesterOverviewDTO>>getArgument(1).get());
+        when(testAttemptRepository.findTestStatsByUserId(2L)).thenReturn(List.of(first, second));
+
+        TesterOverviewDTO result = testerStatisticsService.getTesterOverview(2L);
+
+        assertThat(result.getTotalAttempts()).isEqualTo(4L);
+        assertThat(result.getCompletedAttempts()).isEqualTo(3L);
+        assertThat(result.getOverallAverage()).isEqualTo(70.0);
+        assertThat(result.getTestStatistics()).extracting(TestTesterStatisticsDTO::getTestId)
+                .containsExactly(1L, 5L);
+        assertThat(result.getTestStatistics().get(0).getBestPercentage()).isEqualTo(90.0);
+    }
+
+    @Test
+    @DisplayName("getTesterOverview: нет попыток -> нулевые итоги")
+    void getTesterOverview_NoAttempts_ReturnsZeros() {
+        when(testerOverviewCache.get(eq(2L), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<TesterOverviewDTO>>getArgument(1).get());
+        when(testAttemptRepository.findTestStatsByUserId(2L)).thenReturn(List.of());
+
+        TesterOverviewDTO result = testerStatisticsService.getTesterOverview(2L);
+
+        assertThat(result.getTotalAttempts()).isZero();
+        assertThat(result.getOverallAverage()).isEqualTo(0.0);
+        assertThat(result.getTestStatistics()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getTesterAttemptsByTest: страница попыток тестировщика по тесту")
+    void getTesterAttemptsByTest_Success() {
+        Pageable pageable = PageRequest.of(0, 10);
+        AttemptListProjection row = listRow();
+
+        when(testAttemptRepository.findAttemptIdPage(1L, null, TesterScope.testers(List.of(2L)), pageable))
+                .thenReturn(new PageImpl<>(List.of(1L), pageable, 1));
+        when(testAttemptRepository.findListRowsByIdIn(List.of(1L))).thenReturn(List.of(row));
+
+        Page<TesterAttemptDTO> result = testerStatisticsService.getTesterAttemptsByTest(2L, 1L, pageable);
+
+        assertThat(result.getTotalElements()).isEqualTo(1L);
+        assertThat(result.getContent().get(0).getPercentage()).isEqualTo(100.0);
+    }
+
     @Test
     @DisplayName("getAllAttemptsByTester: все попытки тестировщика")
     void getAllAttemptsByTester_Success() {
@@ -264,11 +458,11 @@ class TesterStatisticsServiceTest {
     @DisplayName("getTestersStatistics: статистика тестировщиков с поиском")
     void getTestersStatistics_WithSearch_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<TestAttempt> attemptsPage = new PageImpl<>(List.of(attempt), pageable, 1);
 
         when(testRepository.existsById(1L)).thenReturn(true);
-        when(testAttemptRepository.searchByTestIdWithUser(eq(1L), eq("петров"), eq(pageable)))
-                .thenReturn(attemptsPage);
+        when(testAttemptRepository.findAttemptIdPage(1L, "петров", TesterScope.all(), pageable))
+                .thenReturn(new PageImpl<>(List.of(1L), pageable, 1));
+        when(testAttemptRepository.findWithUserAndTestByIdIn(List.of(1L))).thenReturn(List.of(attempt));
         when(exceptionRepository.findUserIdsWithExceptions(1L)).thenReturn(Set.of());
 
         Page<TesterStatisticsDTO> result = testerStatisticsService.getTestersStatistics(
@@ -285,11 +479,11 @@ class TesterStatisticsServiceTest {
     @DisplayName("getTestersStatistics: без поиска")
     void getTestersStatistics_WithoutSearch_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<TestAttempt> attemptsPage = new PageImpl<>(List.of(attempt), pageable, 1);
 
         when(testRepository.existsById(1L)).thenReturn(true);
-        when(testAttemptRepository.findByTestIdWithUser(1L, pageable))
-                .thenReturn(attemptsPage);
+        when(testAttemptRepository.findAttemptIdPage(1L, null, TesterScope.all(), pageable))
+                .thenReturn(new PageImpl<>(List.of(1L), pageable, 1));
+        when(testAttemptRepository.findWithUserAndTestByIdIn(List.of(1L))).thenReturn(List.of(attempt));
         when(exceptionRepository.findUserIdsWithExceptions(1L)).thenReturn(Set.of(2L)); // есть исключение
 
         Page<TesterStatisticsDTO> result = testerStatisticsService.getTestersStatistics(
@@ -0,0 +1,159 @@
+package com.frist.assesspro.service.cache;
+
+import com.frist.assesspro.config.CacheSpecProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Environment environment;
+
+    private CacheSpecProperties properties;
+    private CacheInvalidationBus bus;
+    private List<Set<String>> catalogCalls;
+    private List<Set<String>> testsCalls;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheSpecProperties();
+        properties.getInvalidation().setEnabled(true);
+        bus = new CacheInvalidationBus(environment, properties,
+                Clock.fixed(NOW, ZoneOffset.UTC), new SimpleMeterRegistry()) {
+            @Override
+            Connection openConnection() {
+                return connection;
+            }
+        };
+        catalogCalls = new ArrayList<>();
+        testsCalls = new ArrayList<>();
+        bus.register("catalog", catalogCalls::add);
+        bus.register("tests", testsCalls::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.shutdown();
+    }
+
+    private static String message(String node, long seq, String... lines) {
+        return "v1|" + node + "|" + seq + "|" + NOW.toEpochMilli() + "\n" + String.join("\n", lines);
+    }
+
+    @Test
+    @DisplayName("receive: ключи из сообщения другого узла передаются обработчику кэша")
+    void receive_AppliesKeys() {
+        bus.receive(message("node-b", 1, "tests\t1\t2%09x"));
+
+        assertThat(testsCalls).containsExactly(Set.of("1", "2\tx"));
+        assertThat(catalogCalls).isEmpty();
+    }
+
+    @Test
+    @DisplayName("receive: строка без ключей сбрасывает кэш целиком")
+    void receive_LineWithoutKeys_InvalidatesAll() {
+        bus.receive(message("node-b", 1, "catalog"));
+
+        assertThat(catalogCalls).hasSize(1);
+        assertThat(catalogCalls.get(0)).isNull();
+    }
+
+    @Test
+    @DisplayName("receive: пропуск номера сообщения сбрасывает все кэши")
+    void receive_SequenceGap_ResyncsAllCaches() {
+        bus.receive(message("node-b", 1, "tests\t1"));
+        bus.receive(message("node-b", 3, "tests\t2"));
+
+        assertThat(testsCalls).hasSize(2);
+        assertThat(testsCalls.get(1)).isNull();
+        assertThat(catalogCalls).hasSize(1);
+        assertThat(catalogCalls.get(0)).isNull();
+
+        bus.receive(message("node-b", 4, "tests\t3"));
+        assertThat(testsCalls).last().isEqualTo(Set.of("3"));
+    }
+
+    @Test
+    @DisplayName("publish: вне транзакции сообщение отправляется потоком шины, свои сообщения узел не применяет")
+    void publish_OutsideTransaction_SentAndIgnoredByOwnNode() throws Exception {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+        bus.publish("tests", 5L);
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(statement, timeout(5_000)).execute();
+        verify(statement).setString(1, "assesspro_cache_invalidation");
+        verify(statement).setString(eq(2), payload.capture());
+        assertThat(payload.getValue()).endsWith("\ntests\t5");
+
+        bus.receive(payload.getValue());
+        assertThat(testsCalls).isEmpty();
+    }
+
+    @Test
+    @DisplayName("publish: события транзакции уходят одним сообщением только после коммита")
+    void publish_InTransaction_SentOnceAfterCommit() throws Exception {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.publish("tests", 5L);
+            bus.publish("tests", 6L);
+            bus.publishAll("catalog");
+            verify(connection, never()).prepareStatement(anyString());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(statement, timeout(5_000)).execute();
+        verify(statement).setString(eq(2), payload.capture());
+        assertThat(payload.getValue()).endsWith("\ntests\t5\t6\ncatalog");
+    }
+
+    @Test
+    @DisplayName("publish: при выключенной шине сообщения не отправляются")
+    void publish_Disabled_NothingSent() throws Exception {
+        properties.getInvalidation().setEnabled(false);
+
+        bus.publishAll("catalog");
+        bus.shutdown();
+
+        verify(connection, never()).prepareStatement(anyString());
+    }
+}
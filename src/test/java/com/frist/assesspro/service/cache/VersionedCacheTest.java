@@ -0,0 +1,91 @@
+package com.frist.assesspro.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionedCacheTest {
+
+    private final VersionedCache<Long, String> cache = new VersionedCache<>(Caffeine.newBuilder().build());
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("put: значение, загруженное до сброса ключа, не кэшируется")
+    void put_KeyEvictedDuringLoad_NotCached() {
+        long stamp = cache.stamp();
+        cache.evict(1L);
+        cache.put(1L, "old", stamp);
+
+        assertThat(cache.getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("put: сброс другого ключа не мешает кэшированию")
+    void put_OtherKeyEvicted_Cached() {
+        long stamp = cache.stamp();
+        cache.evict(2L);
+        cache.put(1L, "value", stamp);
+
+        assertThat(cache.getIfPresent(1L)).isEqualTo("value");
+    }
+
+    @Test
+    @DisplayName("put: значение, загруженное до сброса целиком, не кэшируется, после сброса - кэшируется")
+    void put_EvictAllDuringLoad_NotCached() {
+        long stamp = cache.stamp();
+        cache.evict(1L);
+        cache.evictAll();
+        cache.put(1L, "old", stamp);
+        assertThat(cache.getIfPresent(1L)).isNull();
+
+        long fresh = cache.stamp();
+        assertThat(fresh).isGreaterThan(stamp);
+        cache.put(1L, "new", fresh);
+        assertThat(cache.getIfPresent(1L)).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("evict: число отслеживаемых ключей ограничено, переполнение сворачивается в общий сброс")
+    void evict_ManyKeys_TrackingBounded() {
+        long stamp = cache.stamp();
+        for (long key = 0; key <= VersionedCache.MAX_TRACKED_KEYS; key++) {
+            cache.evict(key);
+        }
+
+        assertThat(cache.trackedKeys()).isZero();
+        cache.put(VersionedCache.MAX_TRACKED_KEYS + 1L, "old", stamp);
+        assertThat(cache.getIfPresent(VersionedCache.MAX_TRACKED_KEYS + 1L)).isNull();
+
+        cache.evict(1L);
+        long fresh = cache.stamp();
+        cache.put(2L, "new", fresh);
+        assertThat(cache.trackedKeys()).isEqualTo(1);
+        assertThat(cache.getIfPresent(2L)).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("evictNowAndAfterCommit: внутри транзакции сброс выполняется сейчас и после коммита")
+    void evictNowAndAfterCommit_RepeatsAfterCommit() {
+        AtomicInteger evictions = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        VersionedCache.evictNowAndAfterCommit(evictions::incrementAndGet);
+        assertThat(evictions).hasValue(1);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(evictions).hasValue(2);
+    }
+}
@@ -0,0 +1,67 @@
+package com.frist.assesspro.service.manager;
+
+import com.frist.assesspro.repository.UserRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ManagerScopeIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @InjectMocks
+    private ManagerScopeIndex index;
+
+    @Test
+    @DisplayName("contains: тестировщики менеджера загружаются один раз")
+    void contains_LoadsScopeOnce() {
+        when(userRepository.findIdsByProjectManagerId(1L)).thenReturn(List.of(10L, 11L, 5_000_000_000L));
+
+        assertThat(index.contains(1L, 10L)).isTrue();
+        assertThat(index.contains(1L, 5_000_000_000L)).isTrue();
+        assertThat(index.contains(1L, 12L)).isFalse();
+        assertThat(index.contains(1L, null)).isFalse();
+        verify(userRepository, times(1)).findIdsByProjectManagerId(1L);
+    }
+
+    @Test
+    @DisplayName("invalidateAll: следующий запрос перечитывает состав проектов")
+    void invalidateAll_ReloadsScope() {
+        when(userRepository.findIdsByProjectManagerId(1L))
+                .thenReturn(List.of(10L))
+                .thenReturn(List.of(10L, 12L));
+
+        assertThat(index.contains(1L, 12L)).isFalse();
+        index.invalidateAll();
+
+        assertThat(index.contains(1L, 12L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("testerIds: сброс во время загрузки не оставляет устаревшее множество в кэше")
+    void testerIds_InvalidatedDuringLoad_NotCached() {
+        when(userRepository.findIdsByProjectManagerId(1L)).thenAnswer(invocation -> {
+            index.invalidateAll();
+            return List.of(10L);
+        });
+
+        index.testerIds(1L);
+        index.testerIds(1L);
+
+        verify(userRepository, times(2)).findIdsByProjectManagerId(1L);
+    }
+}
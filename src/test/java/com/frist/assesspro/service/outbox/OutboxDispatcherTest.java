@@ -0,0 +1,168 @@
+package com.frist.assesspro.service.outbox;
+
+import com.frist.assesspro.config.OutboxProperties;
+import com.frist.assesspro.entity.Notification;
+import com.frist.assesspro.entity.OutboxEvent;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.TestAttempt;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.OutboxEventRepository;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.service.ManagerService;
+import com.frist.assesspro.service.NotificationService;
+import com.frist.assesspro.service.statistics.LeaderboardService;
+import com.frist.assesspro.service.taking.CompiledTestCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    private static final ZoneId ZONE = ZoneId.of("UTC");
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private ManagerService managerService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private CompiledTestCache compiledTestCache;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxDispatcher dispatcher;
+
+    private OutboxEvent event;
+    private TestAttempt attempt;
+    private User manager;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OutboxProperties();
+        properties.setMaxAttempts(3);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new OutboxDispatcher(outboxEventRepository, testAttemptRepository, managerService,
+                notificationService, compiledTestCache, leaderboardService, new TransactionTemplate(transactionManager),
+                properties, Clock.fixed(NOW.atZone(ZONE).toInstant(), ZONE), meterRegistry);
+
+        event = OutboxEvent.builder()
+                .id(10L)
+                .eventType(OutboxEvent.EventType.ATTEMPT_COMPLETED)
+                .aggregateId(1L)
+                .createdAt(NOW.minusSeconds(5))
+                .nextAttemptAt(NOW.minusSeconds(5))
+                .build();
+
+        User tester = new User();
+        tester.setId(2L);
+        tester.setFirstName("Иван");
+        tester.setLastName("Петров");
+
+        Test test = new Test();
+        test.setId(3L);
+        test.setTitle("Тест по математике");
+
+        attempt = new TestAttempt();
+        attempt.setId(1L);
+        attempt.setUser(tester);
+        attempt.setTest(test);
+        attempt.setTotalScore(4);
+        attempt.setTotalQuestions(5);
+        attempt.setStatus(TestAttempt.AttemptStatus.COMPLETED);
+
+        manager = new User();
+        manager.setId(4L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("dispatch: событие доставляется менеджерам и помечается обработанным")
+    void dispatch_DeliversNotificationAndMarksDone() {
+        when(outboxEventRepository.findDueIds(eq(NOW), any())).thenReturn(List.of(10L));
+        when(outboxEventRepository.lockPendingById(10L)).thenReturn(Optional.of(event));
+        when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
+        when(managerService.getManagersForTester(2L)).thenReturn(List.of(manager));
+
+        dispatcher.dispatch();
+
+        verify(notificationService).createNotification(eq(manager),
+                contains("завершил тест «Тест по математике» с результатом 4/5"),
+                eq(Notification.NotificationType.ATTEMPT_COMPLETED), eq(1L));
+        verify(leaderboardService).onAttemptCompleted(1L);
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.DONE);
+        assertThat(event.getProcessedAt()).isEqualTo(NOW);
+        assertThat(meterRegistry.get("assesspro.outbox.dispatched").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("assesspro.outbox.lag").timer().count()).isEqualTo(1);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("dispatch: при ошибке событие назначается на повтор с задержкой")
+    void dispatch_FailureSchedulesRetry() {
+        when(outboxEventRepository.findDueIds(eq(NOW), any())).thenReturn(List.of(10L));
+        when(outboxEventRepository.lockPendingById(10L)).thenReturn(Optional.of(event));
+        when(outboxEventRepository.findById(10L)).thenReturn(Optional.of(event));
+        when(testAttemptRepository.findById(1L)).thenReturn(Optional.of(attempt));
+        when(managerService.getManagersForTester(2L)).thenThrow(new RuntimeException("db error"));
+
+        dispatcher.dispatch();
+
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.PENDING);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getLastError()).isEqualTo("db error");
+        assertThat(event.getNextAttemptAt()).isEqualTo(NOW.plus(dispatcher.retryDelay(1)));
+        assertThat(meterRegistry.get("assesspro.outbox.retried").counter().count()).isEqualTo(1.0);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("dispatch: после исчерпания попыток событие помечается FAILED")
+    void dispatch_ExhaustedAttemptsMarksFailed() {
+        event.setAttempts(2);
+        when(outboxEventRepository.findDueIds(eq(NOW), any())).thenReturn(List.of(10L));
+        when(outboxEventRepository.lockPendingById(10L)).thenReturn(Optional.of(event));
+        when(outboxEventRepository.findById(10L)).thenReturn(Optional.of(event));
+        when(testAttemptRepository.findById(1L)).thenThrow(new RuntimeException("db error"));
+
+        dispatcher.dispatch();
+
+        assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.FAILED);
+        assertThat(meterRegistry.get("assesspro.outbox.failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("retryDelay: задержка растёт экспоненциально до предела")
+    void retryDelay_GrowsExponentiallyUpToMax() {
+        assertThat(dispatcher.retryDelay(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(dispatcher.retryDelay(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(dispatcher.retryDelay(30)).isEqualTo(Duration.ofMinutes(10));
+    }
+}
@@ -0,0 +1,140 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.AttemptColumnSink;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterScope;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.frist.assesspro.service.manager.ManagerScopeIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttemptColumnStoreTest {
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private ManagerScopeIndex managerScopeIndex;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private StatisticsProperties properties;
+    private AttemptColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StatisticsProperties();
+        properties.getColumnar().setEnabled(true);
+        store = new AttemptColumnStore(testAttemptRepository, managerScopeIndex, properties, invalidationBus,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Попытки теста 7 из 10 вопросов: тестировщик 1 - баллы 4 и 10, тестировщик 2 - 7 и незавершённая
+     */
+    private void stubTest() {
+        doAnswer(invocation -> {
+            AttemptColumnSink sink = invocation.getArgument(1);
+            sink.accept(1L, 7L, 1L, true, 4);
+            sink.accept(2L, 7L, 2L, true, 7);
+            sink.accept(3L, 7L, 1L, true, 10);
+            sink.accept(4L, 7L, 2L, false, 0);
+            return null;
+        }).when(testAttemptRepository).scanAttemptColumns(eq(7L), any(AttemptColumnSink.class));
+    }
+
+    @Test
+    @DisplayName("summarize: сводка совпадает по смыслу с агрегирующим запросом")
+    void summarize_MatchesAggregateQuery() {
+        stubTest();
+
+        TestScoreSummary summary = store.summarize(7L, 10, TesterScope.all());
+
+        assertThat(summary.totalAttempts()).isEqualTo(4);
+        assertThat(summary.uniqueTesters()).isEqualTo(2);
+        assertThat(summary.completedAttempts()).isEqualTo(3);
+        assertThat(summary.averageScore()).isEqualTo(7.0);
+        assertThat(summary.bestScore()).isEqualTo(10.0);
+        assertThat(summary.medianScore()).isEqualTo(7.0);
+        assertThat(summary.p90Score()).isEqualTo(9.4, within(1e-9));
+        assertThat(summary.scoreDistribution()).containsExactly(0L, 0L, 0L, 0L, 1L, 0L, 0L, 1L, 0L, 1L);
+    }
+
+    @Test
+    @DisplayName("summarize: попытки теста загружаются из БД один раз")
+    void summarize_LoadsOnce() {
+        stubTest();
+
+        store.summarize(7L, 10, TesterScope.all());
+        store.summarize(7L, 10, TesterScope.testers(List.of(1L)));
+
+        verify(testAttemptRepository, times(1)).scanAttemptColumns(eq(7L), any(AttemptColumnSink.class));
+    }
+
+    @Test
+    @DisplayName("summarize: круг менеджера берётся из кэша его тестировщиков")
+    void summarize_ManagerScope_FiltersByBitmap() {
+        stubTest();
+        Roaring64Bitmap testers = new Roaring64Bitmap();
+        testers.addLong(2L);
+        when(managerScopeIndex.testerIds(5L)).thenReturn(testers);
+
+        TestScoreSummary summary = store.summarize(7L, 10, TesterScope.manager(5L));
+
+        assertThat(summary.totalAttempts()).isEqualTo(2);
+        assertThat(summary.uniqueTesters()).isEqualTo(1);
+        assertThat(summary.completedAttempts()).isEqualTo(1);
+        assertThat(summary.averageScore()).isEqualTo(7.0);
+    }
+
+    @Test
+    @DisplayName("record: завершение попытки и новая попытка попадают в загруженный тест")
+    @SuppressWarnings("unchecked")
+    void record_UpdatesLoadedTest() {
+        stubTest();
+        store.summarize(7L, 10, TesterScope.all());
+        doAnswer(invocation -> {
+            AttemptColumnSink sink = invocation.getArgument(1);
+            sink.accept(4L, 7L, 2L, true, 9);
+            sink.accept(5L, 7L, 3L, false, 0);
+            return null;
+        }).when(testAttemptRepository).scanAttemptColumns(any(Collection.class), any(AttemptColumnSink.class));
+
+        store.record(List.of(4L, 5L));
+        TestScoreSummary summary = store.summarize(7L, 10, TesterScope.all());
+
+        assertThat(summary.totalAttempts()).isEqualTo(5);
+        assertThat(summary.uniqueTesters()).isEqualTo(3);
+        assertThat(summary.completedAttempts()).isEqualTo(4);
+        assertThat(summary.averageScore()).isEqualTo(7.5);
+    }
+
+    @Test
+    @DisplayName("record: при выключенном хранилище БД не читается")
+    @SuppressWarnings("unchecked")
+    void record_Disabled_DoesNothing() {
+        properties.getColumnar().setEnabled(false);
+
+        store.record(List.of(1L));
+
+        verify(testAttemptRepository, never()).scanAttemptColumns(any(Collection.class), any(AttemptColumnSink.class));
+    }
+}
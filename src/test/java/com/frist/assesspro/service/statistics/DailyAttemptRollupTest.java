@@ -0,0 +1,78 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyAttemptRollupTest {
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StatisticsProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private DailyAttemptRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StatisticsProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        rollup = new DailyAttemptRollup(testAttemptRepository, new TransactionTemplate(transactionManager),
+                properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("recordFinished: изменения JPA сбрасываются до записи приращений")
+    void recordFinished_FlushesBeforeAppend() {
+        rollup.recordFinished(List.of(1L, 2L));
+
+        var inOrder = inOrder(testAttemptRepository);
+        inOrder.verify(testAttemptRepository).flush();
+        inOrder.verify(testAttemptRepository).appendDailyRollupDeltas(List.of(1L, 2L), true);
+    }
+
+    @Test
+    @DisplayName("recordStarted: пустой список не обращается к БД")
+    void recordStarted_Empty_DoesNothing() {
+        rollup.recordStarted(List.of());
+
+        verifyNoInteractions(testAttemptRepository);
+    }
+
+    @Test
+    @DisplayName("compact: ошибка переноса не прерывает планировщик, время учитывается")
+    void compact_FailureIsLogged() {
+        when(testAttemptRepository.compactDailyRollup()).thenThrow(new RuntimeException("deadlock"));
+
+        rollup.compact();
+
+        assertThat(meterRegistry.get("assesspro.statistics.daily.compact").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("compact: выключенный перенос не обращается к БД")
+    void compact_Disabled_DoesNothing() {
+        properties.getDaily().setCompactEnabled(false);
+
+        rollup.compact();
+
+        verifyNoInteractions(testAttemptRepository);
+    }
+}
@@ -0,0 +1,87 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.dto.statistics.DailyAttemptsDTO;
+import com.frist.assesspro.entity.User;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.DailyRollupFilter;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.DailyRollupRow;
+import com.frist.assesspro.security.PrincipalSnapshot;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyStatisticsServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 3, 3);
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private PrincipalSnapshotCache principalSnapshots;
+
+    @InjectMocks
+    private DailyStatisticsService dailyStatisticsService;
+
+    private PrincipalSnapshot user;
+
+    @BeforeEach
+    void setUp() {
+        user = new PrincipalSnapshot(5L, "user", User.Roles.CREATOR, null, true, null);
+    }
+
+    @Test
+    @DisplayName("getCreatorDailyAttempts: дни без попыток дополняются нулями, средние - по завершённым")
+    void getCreatorDailyAttempts_FillsGapsAndAverages() {
+        when(principalSnapshots.getRequired("user")).thenReturn(user);
+        when(testAttemptRepository.findDailyRollup(FROM, TO, DailyRollupFilter.creator(5L, 7L)))
+                .thenReturn(List.of(new DailyRollupRow(LocalDate.of(2026, 3, 2), 4, 2, 15, 150.0, 50)));
+
+        List<DailyAttemptsDTO> series = dailyStatisticsService.getCreatorDailyAttempts("user", FROM, TO, 7L);
+
+        assertThat(series).extracting(DailyAttemptsDTO::getDate)
+                .containsExactly(FROM, LocalDate.of(2026, 3, 2), TO);
+        assertThat(series.get(0).getAttemptsCount()).isZero();
+        DailyAttemptsDTO day = series.get(1);
+        assertThat(day.getAttemptsCount()).isEqualTo(4L);
+        assertThat(day.getCompletedCount()).isEqualTo(2L);
+        assertThat(day.getAverageScore()).isEqualTo(7.5);
+        assertThat(day.getAveragePercentage()).isEqualTo(75.0);
+        assertThat(day.getTotalMinutes()).isEqualTo(50L);
+    }
+
+    @Test
+    @DisplayName("getManagerDailyAttempts: выборка ограничена проектами менеджера")
+    void getManagerDailyAttempts_UsesManagerFilter() {
+        when(principalSnapshots.getRequired("user")).thenReturn(user);
+
+        dailyStatisticsService.getManagerDailyAttempts("user", FROM, TO, null);
+
+        verify(testAttemptRepository).findDailyRollup(FROM, TO, DailyRollupFilter.manager(5L, null));
+    }
+
+    @Test
+    @DisplayName("getCreatorDailyAttempts: начало позже окончания -> исключение без запроса к БД")
+    void getCreatorDailyAttempts_InvalidRange_Throws() {
+        when(principalSnapshots.getRequired("user")).thenReturn(user);
+
+        assertThatThrownBy(() -> dailyStatisticsService.getCreatorDailyAttempts("user", TO, FROM, null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Начало периода");
+        verifyNoInteractions(testAttemptRepository);
+    }
+}
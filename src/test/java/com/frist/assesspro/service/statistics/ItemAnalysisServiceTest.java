@@ -0,0 +1,69 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.dto.statistics.ItemAnalysisDTO;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.OptionStatsRow;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.QuestionStatsRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAnalysisServiceTest {
+
+    @Mock
+    private UserAnswerRepository userAnswerRepository;
+
+    @Mock
+    private TestRepository testRepository;
+
+    @InjectMocks
+    private ItemAnalysisService itemAnalysisService;
+
+    @Test
+    @DisplayName("getItemAnalysis: трудность и частоты вариантов из счётчиков")
+    void getItemAnalysis_BuildsFromCounters() {
+        when(testRepository.existsById(1L)).thenReturn(true);
+        when(userAnswerRepository.findQuestionStats(1L)).thenReturn(List.of(
+                new QuestionStatsRow(10L, "2+2=?", 1, 4L, 3L, 0.5, null),
+                new QuestionStatsRow(20L, "3+3=?", 2, 0L, 0L, null, null)));
+        when(userAnswerRepository.findAnswerOptionStats(1L)).thenReturn(List.of(
+                new OptionStatsRow(101L, 10L, "4", true, 3L),
+                new OptionStatsRow(102L, 10L, "5", false, 1L),
+                new OptionStatsRow(201L, 20L, "6", true, 0L)));
+
+        List<ItemAnalysisDTO> result = itemAnalysisService.getItemAnalysis(1L);
+
+        assertThat(result).hasSize(2);
+        ItemAnalysisDTO answered = result.get(0);
+        assertThat(answered.getDifficulty()).isEqualTo(0.75);
+        assertThat(answered.getDiscrimination()).isEqualTo(0.5);
+        assertThat(answered.getOptions()).hasSize(2);
+        assertThat(answered.getOptions().get(1).getFrequency()).isEqualTo(0.25);
+
+        ItemAnalysisDTO unanswered = result.get(1);
+        assertThat(unanswered.getDifficulty()).isNull();
+        assertThat(unanswered.getOptions().get(0).getFrequency()).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("getItemAnalysis: тест не найден -> исключение")
+    void getItemAnalysis_TestNotFound_Throws() {
+        when(testRepository.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> itemAnalysisService.getItemAnalysis(99L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Тест не найден");
+        verifyNoInteractions(userAnswerRepository);
+    }
+}
@@ -0,0 +1,67 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemStatsRecomputeTest {
+
+    @Mock
+    private UserAnswerRepository userAnswerRepository;
+
+    @Mock
+    private TestRepository testRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StatisticsProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ItemStatsRecompute recompute;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StatisticsProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        recompute = new ItemStatsRecompute(userAnswerRepository, testRepository,
+                new TransactionTemplate(transactionManager), properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("recomputeAll: ошибка по одному тесту не останавливает пересчёт остальных")
+    void recomputeAll_ContinuesAfterFailure() {
+        when(testRepository.findAllIds()).thenReturn(List.of(1L, 2L));
+        when(userAnswerRepository.recomputeItemStats(1L)).thenThrow(new RuntimeException("db error"));
+        when(userAnswerRepository.recomputeItemStats(2L)).thenReturn(10);
+
+        recompute.recomputeAll();
+
+        verify(userAnswerRepository).recomputeItemStats(2L);
+        assertThat(meterRegistry.get("assesspro.statistics.items.recompute").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("recomputeAll: выключенный пересчёт не обращается к БД")
+    void recomputeAll_Disabled_DoesNothing() {
+        properties.getItems().setRecomputeEnabled(false);
+
+        recompute.recomputeAll();
+
+        verifyNoInteractions(testRepository, userAnswerRepository);
+    }
+}
@@ -0,0 +1,112 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.dto.statistics.LeaderboardEntryDTO;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.LeaderboardRow;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.LeaderboardUpdate;
+import com.frist.assesspro.service.SseService;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardServiceTest {
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private SseService sseService;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private StatisticsProperties properties;
+    private LeaderboardService leaderboardService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StatisticsProperties();
+        properties.getLeaderboard().setSize(2);
+        leaderboardService = new LeaderboardService(testAttemptRepository, sseService, properties, invalidationBus);
+    }
+
+    private static LeaderboardRow row(long boardId, long userId, double percentage) {
+        return new LeaderboardRow(boardId, userId, "user" + userId, "Иван", "Петров", percentage, 1);
+    }
+
+    @Test
+    @DisplayName("getTestLeaderboard: рейтинг загружается из БД один раз")
+    void getTestLeaderboard_LoadsOnce() {
+        when(testAttemptRepository.findTestLeaderboards(7L, 2)).thenReturn(List.of(row(7, 1, 90), row(7, 2, 60)));
+
+        leaderboardService.getTestLeaderboard(7L);
+        List<LeaderboardEntryDTO> board = leaderboardService.getTestLeaderboard(7L);
+
+        assertThat(board).extracting(LeaderboardEntryDTO::getFullName).containsOnly("Петров Иван");
+        verify(testAttemptRepository, times(1)).findTestLeaderboards(7L, 2);
+    }
+
+    @Test
+    @DisplayName("onAttemptCompleted: изменение рейтинга теста и проекта рассылается подписчикам")
+    void onAttemptCompleted_UpdatesAndPublishes() {
+        when(testAttemptRepository.findTestLeaderboards(7L, 2)).thenReturn(List.of(row(7, 1, 90)));
+        when(testAttemptRepository.findProjectLeaderboards(3L, 2)).thenReturn(List.of(row(3, 1, 90)));
+        leaderboardService.getTestLeaderboard(7L);
+        leaderboardService.getProjectLeaderboard(3L);
+        when(testAttemptRepository.findLeaderboardUpdate(100L))
+                .thenReturn(Optional.of(new LeaderboardUpdate(row(7, 2, 95), row(3, 2, 70))));
+
+        leaderboardService.onAttemptCompleted(100L);
+
+        assertThat(leaderboardService.getTestLeaderboard(7L))
+                .extracting(LeaderboardEntryDTO::getUserId).containsExactly(2L, 1L);
+        assertThat(leaderboardService.getProjectLeaderboard(3L))
+                .extracting(LeaderboardEntryDTO::getUserId).containsExactly(1L, 2L);
+        verify(sseService).sendToTopic(eq("leaderboard:test:7"), eq(LeaderboardService.SSE_EVENT), anyList());
+        verify(sseService).sendToTopic(eq("leaderboard:project:3"), eq(LeaderboardService.SSE_EVENT), anyList());
+        verify(testAttemptRepository, times(1)).findTestLeaderboards(7L, 2);
+    }
+
+    @Test
+    @DisplayName("onAttemptCompleted: падение лидера на последнее место перечитывает рейтинг из БД")
+    void onAttemptCompleted_StaleBoard_Reloads() {
+        when(testAttemptRepository.findTestLeaderboards(7L, 2))
+                .thenReturn(List.of(row(7, 1, 90), row(7, 2, 60)))
+                .thenReturn(List.of(row(7, 2, 60), row(7, 3, 50)));
+        leaderboardService.getTestLeaderboard(7L);
+        when(testAttemptRepository.findLeaderboardUpdate(100L))
+                .thenReturn(Optional.of(new LeaderboardUpdate(row(7, 1, 10), null)));
+
+        leaderboardService.onAttemptCompleted(100L);
+
+        assertThat(leaderboardService.getTestLeaderboard(7L))
+                .extracting(LeaderboardEntryDTO::getUserId).containsExactly(2L, 3L);
+        verify(testAttemptRepository, never()).findProjectLeaderboards(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("warmUp: все рейтинги загружаются двумя запросами")
+    void warmUp_LoadsAllBoards() {
+        when(testAttemptRepository.findTestLeaderboards(null, 2)).thenReturn(List.of(row(7, 1, 90), row(8, 2, 60)));
+        when(testAttemptRepository.findProjectLeaderboards(null, 2)).thenReturn(List.of(row(3, 1, 90)));
+
+        leaderboardService.warmUp();
+
+        assertThat(leaderboardService.getTestLeaderboard(8L)).hasSize(1);
+        assertThat(leaderboardService.getProjectLeaderboard(3L)).hasSize(1);
+        verify(testAttemptRepository, never()).findTestLeaderboards(8L, 2);
+    }
+}
@@ -0,0 +1,70 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.dto.statistics.LeaderboardEntryDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderboardTest {
+
+    private static Leaderboard.Entry entry(long userId, double percentage) {
+        return new Leaderboard.Entry(userId, "user" + userId, "Тестировщик " + userId, percentage, 1);
+    }
+
+    @Test
+    @DisplayName("offer: рейтинг упорядочен по проценту и ограничен K местами")
+    void offer_KeepsTopKOrdered() {
+        Leaderboard board = new Leaderboard(2);
+
+        board.offer(entry(1, 50));
+        board.offer(entry(2, 80));
+        Leaderboard.Change change = board.offer(entry(3, 70));
+
+        assertThat(change).isEqualTo(Leaderboard.Change.CHANGED);
+        assertThat(board.snapshot()).extracting(LeaderboardEntryDTO::getUserId).containsExactly(2L, 3L);
+        assertThat(board.snapshot()).extracting(LeaderboardEntryDTO::getRank).containsExactly(1, 2);
+    }
+
+    @Test
+    @DisplayName("offer: участник ниже последнего места полного рейтинга не меняет рейтинг")
+    void offer_BelowLastPlace_Unchanged() {
+        Leaderboard board = new Leaderboard(2);
+        board.offer(entry(1, 50));
+        board.offer(entry(2, 80));
+
+        assertThat(board.offer(entry(3, 40))).isEqualTo(Leaderboard.Change.UNCHANGED);
+        assertThat(board.offer(entry(2, 80))).isEqualTo(Leaderboard.Change.UNCHANGED);
+    }
+
+    @Test
+    @DisplayName("offer: рост результата участника перемещает его без пересчёта остальных")
+    void offer_ExistingImproves_MovesUp() {
+        Leaderboard board = new Leaderboard(3);
+        board.offer(entry(1, 90));
+        board.offer(entry(2, 60));
+        board.offer(entry(3, 50));
+
+        assertThat(board.offer(entry(3, 95))).isEqualTo(Leaderboard.Change.CHANGED);
+        assertThat(board.snapshot()).extracting(LeaderboardEntryDTO::getUserId).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    @DisplayName("offer: падение участника на последнее место усечённого рейтинга требует перечитывания")
+    void offer_DropToLastOfTruncatedBoard_Stale() {
+        Leaderboard board = Leaderboard.of(2, List.of(entry(1, 90), entry(2, 60)));
+
+        assertThat(board.offer(entry(1, 30))).isEqualTo(Leaderboard.Change.STALE);
+    }
+
+    @Test
+    @DisplayName("offer: падение результата в неполном рейтинге не требует перечитывания")
+    void offer_DropInCompleteBoard_Changed() {
+        Leaderboard board = Leaderboard.of(3, List.of(entry(1, 90), entry(2, 60)));
+
+        assertThat(board.offer(entry(1, 30))).isEqualTo(Leaderboard.Change.CHANGED);
+        assertThat(board.snapshot()).extracting(LeaderboardEntryDTO::getUserId).containsExactly(2L, 1L);
+    }
+}
@@ -0,0 +1,160 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.dto.statistics.ActiveAttemptProjection;
+import com.frist.assesspro.dto.statistics.LiveExamFrameDTO;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.service.SseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveExamMonitorTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+    private static final String TOPIC = "monitor:test:7";
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private SseService sseService;
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private LiveExamMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        StatisticsProperties properties = new StatisticsProperties();
+        properties.getMonitor().setIdleTimeoutMinutes(30);
+        clock = new MutableClock(NOW.atZone(ZONE).toInstant());
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new LiveExamMonitor(testAttemptRepository, sseService, properties, clock, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("publishFrames: множество ответов за интервал дают один кадр")
+    void publishFrames_CoalescesUpdates() {
+        when(sseService.hasSubscribers(TOPIC)).thenReturn(true);
+        monitor.attemptProgress(7L, 1L, 10, 1, 1);
+        monitor.attemptProgress(7L, 1L, 10, 2, 1);
+        monitor.attemptProgress(7L, 2L, 10, 5, 5);
+
+        monitor.publishFrames();
+        monitor.publishFrames();
+
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(sseService, times(1)).sendToTopic(eq(TOPIC), eq(LiveExamMonitor.SSE_EVENT), frame.capture());
+        LiveExamFrameDTO sent = (LiveExamFrameDTO) frame.getValue();
+        assertThat(sent.getInProgress()).isEqualTo(2);
+        assertThat(sent.getAnswersSubmitted()).isEqualTo(7L);
+        assertThat(sent.getAverageProgress()).isEqualTo(35.0);
+        assertThat(meterRegistry.get("assesspro.monitor.frames").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("publishFrames: без наблюдателей кадры не отправляются")
+    void publishFrames_NoSubscribers_SendsNothing() {
+        when(sseService.hasSubscribers(TOPIC)).thenReturn(false);
+        monitor.attemptProgress(7L, 1L, 10, 1, 1);
+
+        monitor.publishFrames();
+
+        verify(sseService, never()).sendToTopic(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("attemptsFinished: попытка уходит из активных и учитывается как завершённая")
+    void attemptsFinished_MovesToCompleted() {
+        when(testAttemptRepository.findActiveAttemptsByTestId(eq(7L), any(), any())).thenReturn(List.of());
+        monitor.attemptProgress(7L, 1L, 10, 10, 1);
+
+        monitor.attemptsFinished(List.of(1L, 99L));
+        LiveExamFrameDTO frame = monitor.getFrame(7L);
+
+        assertThat(frame.getInProgress()).isZero();
+        assertThat(frame.getCompletedAttempts()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("subscribe: незавершённые попытки из БД подгружаются один раз")
+    void subscribe_SeedsFromDatabaseOnce() {
+        ActiveAttemptProjection active = mock(ActiveAttemptProjection.class);
+        when(active.getId()).thenReturn(5L);
+        when(active.getAnsweredCount()).thenReturn(4);
+        when(active.getTotalQuestions()).thenReturn(8);
+        when(testAttemptRepository.findActiveAttemptsByTestId(7L, NOW, NOW.minusMinutes(30)))
+                .thenReturn(List.of(active));
+        when(sseService.subscribe(TOPIC)).thenReturn(new SseEmitter());
+
+        monitor.subscribe(7L);
+        LiveExamFrameDTO frame = monitor.getFrame(7L);
+
+        assertThat(frame.getInProgress()).isEqualTo(1);
+        assertThat(frame.getAverageProgress()).isEqualTo(50.0);
+        verify(testAttemptRepository, times(1)).findActiveAttemptsByTestId(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("publishFrames: попытки без активности дольше тайм-аута убираются")
+    void publishFrames_PrunesIdleAttempts() {
+        when(sseService.hasSubscribers(TOPIC)).thenReturn(true);
+        monitor.attemptProgress(7L, 1L, 10, 1, 1);
+        clock.advanceMinutes(31);
+        monitor.attemptProgress(7L, 2L, 10, 1, 1);
+
+        monitor.publishFrames();
+
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(sseService).sendToTopic(eq(TOPIC), eq(LiveExamMonitor.SSE_EVENT), frame.capture());
+        assertThat(((LiveExamFrameDTO) frame.getValue()).getInProgress()).isEqualTo(1);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advanceMinutes(long minutes) {
+            instant = instant.plusSeconds(minutes * 60);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TestScoreSummary;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TestSummaryCacheTest {
+
+    private final TestSummaryCache cache = new TestSummaryCache(mock(CacheInvalidationBus.class));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private TestScoreSummary load(int questionCount) {
+        loads.incrementAndGet();
+        return TestScoreSummary.empty(questionCount);
+    }
+
+    @Test
+    @DisplayName("get: повторный запрос обслуживается из кэша")
+    void get_SecondCallServedFromCache() {
+        TestScoreSummary first = cache.get(1L, 10, () -> load(10));
+        TestScoreSummary second = cache.get(1L, 10, () -> load(10));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("invalidate: следующий запрос пересчитывает сводку")
+    void invalidate_ReloadsSummary() {
+        cache.get(1L, 10, () -> load(10));
+        cache.invalidate(1L);
+        cache.get(1L, 10, () -> load(10));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("get: изменилось число вопросов -> сводка пересчитывается")
+    void get_QuestionCountChanged_Reloads() {
+        cache.get(1L, 10, () -> load(10));
+        TestScoreSummary reloaded = cache.get(1L, 12, () -> load(12));
+
+        assertThat(reloaded.questionCount()).isEqualTo(12);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("get: инвалидация во время расчёта не оставляет устаревшую сводку в кэше")
+    void get_InvalidatedDuringLoad_NotCached() {
+        cache.get(1L, 10, () -> {
+            cache.invalidate(1L);
+            return load(10);
+        });
+        cache.get(1L, 10, () -> load(10));
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,130 @@
+package com.frist.assesspro.service.statistics;
+
+import com.frist.assesspro.config.StatisticsProperties;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.TesterStatsKey;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TesterStatsRollupTest {
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private TestRepository testRepository;
+
+    @Mock
+    private TestSummaryCache testSummaryCache;
+
+    @Mock
+    private TesterOverviewCache testerOverviewCache;
+
+    @Mock
+    private AttemptColumnStore attemptColumnStore;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StatisticsProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private TesterStatsRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StatisticsProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        rollup = new TesterStatsRollup(testAttemptRepository, testRepository,
+                new TransactionTemplate(transactionManager), testSummaryCache, testerOverviewCache,
+                attemptColumnStore, cacheManager, invalidationBus, properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("refresh: изменения JPA сбрасываются до пересчёта сводки")
+    void refresh_FlushesBeforeRecalculation() {
+        rollup.refresh(List.of(1L, 2L));
+
+        var inOrder = inOrder(testAttemptRepository);
+        inOrder.verify(testAttemptRepository).flush();
+        inOrder.verify(testAttemptRepository).refreshTesterStats(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("refresh: кэши инвалидируются для тестов и тестировщиков пересчитанных строк")
+    void refresh_InvalidatesCachesOfAffectedRows() {
+        when(testAttemptRepository.refreshTesterStats(List.of(1L, 2L)))
+                .thenReturn(Set.of(new TesterStatsKey(7L, 3L), new TesterStatsKey(7L, 4L)));
+
+        rollup.refresh(List.of(1L, 2L));
+
+        verify(testSummaryCache).invalidate(7L);
+        verify(testerOverviewCache).invalidate(3L);
+        verify(testerOverviewCache).invalidate(4L);
+        verify(attemptColumnStore).record(List.of(1L, 2L));
+        verifyNoMoreInteractions(testSummaryCache, testerOverviewCache);
+    }
+
+    @Test
+    @DisplayName("refresh: сбрасываются закэшированные списки попыток только затронутых тестов")
+    void refresh_EvictsAttemptListsOfAffectedTests() {
+        CaffeineCache attemptLists = new CaffeineCache("testerStatistics", Caffeine.newBuilder().build());
+        attemptLists.put("7_0_20_UNSORTED", "page");
+        attemptLists.put("70_0_20_UNSORTED", "page");
+        when(cacheManager.getCache("testerStatistics")).thenReturn(attemptLists);
+        when(testAttemptRepository.refreshTesterStats(List.of(1L)))
+                .thenReturn(Set.of(new TesterStatsKey(7L, 3L)));
+
+        rollup.refresh(List.of(1L));
+
+        assertThat(attemptLists.getNativeCache().asMap()).containsOnlyKeys("70_0_20_UNSORTED");
+    }
+
+    @Test
+    @DisplayName("rebuild: ошибка по одному тесту не останавливает перестроение остальных")
+    void rebuild_ContinuesAfterFailure() {
+        when(testRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(testAttemptRepository.rebuildTesterStats(1L)).thenReturn(5);
+        when(testAttemptRepository.rebuildTesterStats(2L)).thenThrow(new RuntimeException("db error"));
+        when(testAttemptRepository.rebuildTesterStats(3L)).thenReturn(2);
+
+        rollup.rebuild();
+
+        verify(testAttemptRepository).rebuildTesterStats(3L);
+        assertThat(meterRegistry.get("assesspro.statistics.rollup.rebuild").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rebuild: выключенное перестроение не обращается к БД")
+    void rebuild_Disabled_DoesNothing() {
+        properties.getRollup().setRebuildEnabled(false);
+
+        rollup.rebuild();
+
+        verifyNoInteractions(testRepository, testAttemptRepository);
+    }
+}
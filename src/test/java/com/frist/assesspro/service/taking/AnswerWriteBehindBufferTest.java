@@ -0,0 +1,222 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.config.TakingProperties;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.AnswerUpsert;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnswerWriteBehindBufferTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Mock
+    private UserAnswerRepository userAnswerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Clock clock = Clock.fixed(NOW.atZone(ZoneId.of("UTC")).toInstant(), ZoneId.of("UTC"));
+    private TakingProperties properties;
+    private AnswerWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TakingProperties();
+        properties.getWriteBehind().setEnabled(true);
+        buffer = new AnswerWriteBehindBuffer(userAnswerRepository,
+                new TransactionTemplate(transactionManager), properties, clock, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("enqueue: счётчик отвеченных учитывает сохранённые и повторные ответы")
+    void enqueue_CountsDistinctQuestions() {
+        int first = buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, () -> List.of(5L));
+        int repeated = buffer.enqueue(new AnswerUpsert(1L, 10L, 101L, false, 0), null, () -> List.of(5L));
+        int second = buffer.enqueue(new AnswerUpsert(1L, 11L, 110L, true, 1), null, () -> List.of(5L));
+
+        assertThat(first).isEqualTo(2);
+        assertThat(repeated).isEqualTo(2);
+        assertThat(second).isEqualTo(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("flushAll: последний ответ на вопрос записывается одним пакетом")
+    void flushAll_WritesLatestAnswers() {
+        buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, List::of);
+        buffer.enqueue(new AnswerUpsert(1L, 10L, 101L, false, 0), null, List::of);
+        buffer.enqueue(new AnswerUpsert(2L, 20L, 200L, true, 1), null, List::of);
+
+        buffer.flushAll();
+
+        ArgumentCaptor<List<AnswerUpsert>> captor = ArgumentCaptor.forClass(List.class);
+        verify(userAnswerRepository, times(1)).upsertAnswers(captor.capture());
+        assertThat(captor.getValue()).containsExactly(
+                new AnswerUpsert(1L, 10L, 101L, false, 0),
+                new AnswerUpsert(2L, 20L, 200L, true, 1));
+
+        buffer.flushAll();
+        verifyNoMoreInteractions(userAnswerRepository);
+    }
+
+    @Test
+    @DisplayName("flush: при ошибке записи ответы остаются в буфере")
+    void flush_FailureKeepsAnswers() {
+        buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, List::of);
+        doThrow(new RuntimeException("db down")).doNothing().when(userAnswerRepository).upsertAnswers(anyList());
+
+        assertThatThrownBy(() -> buffer.flush(1L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Не удалось сохранить ответы");
+
+        buffer.flush(1L);
+        verify(userAnswerRepository, times(2)).upsertAnswers(List.of(new AnswerUpsert(1L, 10L, 100L, true, 1)));
+    }
+
+    @Test
+    @DisplayName("enqueue: ответ откатившейся транзакции не попадает в буфер")
+    void enqueue_RolledBackTransaction_NotBuffered() {
+        TransactionSynchronizationManager.initSynchronization();
+        int answered = buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, List::of);
+        assertThat(answered).isEqualTo(1);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        buffer.flushAll();
+
+        verifyNoInteractions(userAnswerRepository);
+        assertThat(buffer.enqueue(new AnswerUpsert(1L, 11L, 110L, true, 1), null, List::of)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("enqueue: ответ транзакции попадает в буфер после коммита")
+    void enqueue_CommittedTransaction_BufferedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, List::of);
+
+        buffer.flushAll();
+        verifyNoInteractions(userAnswerRepository);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        buffer.flushAll();
+        verify(userAnswerRepository).upsertAnswers(List.of(new AnswerUpsert(1L, 10L, 100L, true, 1)));
+    }
+
+    @Test
+    @DisplayName("flush: ответы текущей транзакции записываются сбросом попытки в той же транзакции")
+    void flush_SameTransaction_WritesUncommittedAnswers() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, List::of);
+            buffer.flush(1L);
+            verify(userAnswerRepository).upsertAnswers(List.of(new AnswerUpsert(1L, 10L, 100L, true, 1)));
+
+            assertThat(buffer.enqueue(new AnswerUpsert(1L, 11L, 110L, true, 1), null, List::of)).isEqualTo(2);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        buffer.flushAll();
+        verify(userAnswerRepository).upsertAnswers(List.of(new AnswerUpsert(1L, 11L, 110L, true, 1)));
+        verifyNoMoreInteractions(userAnswerRepository);
+    }
+
+    @Test
+    @DisplayName("flush: запись одной попытки не ждёт пакетной записи другой")
+    void flush_OtherAttemptNotBlockedByFlushAll() throws Exception {
+        properties.getWriteBehind().setMaxBatchSize(1);
+        buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, List::of);
+        buffer.enqueue(new AnswerUpsert(2L, 20L, 200L, true, 1), null, List::of);
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+            return null;
+        }).when(userAnswerRepository).upsertAnswers(List.of(new AnswerUpsert(1L, 10L, 100L, true, 1)));
+
+        CompletableFuture<Void> flushAll = CompletableFuture.runAsync(buffer::flushAll);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        try {
+            CompletableFuture.runAsync(() -> buffer.flush(2L)).get(5, TimeUnit.SECONDS);
+            verify(userAnswerRepository).upsertAnswers(List.of(new AnswerUpsert(2L, 20L, 200L, true, 1)));
+        } finally {
+            release.countDown();
+        }
+        flushAll.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("enqueue: ответ позже крайнего срока с запасом reaper отбрасывается")
+    void enqueue_AfterDeadlineWithGrace_Rejected() {
+        properties.getReaper().setGraceSeconds(30);
+
+        int accepted = buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), NOW.minusSeconds(20), List::of);
+        int rejected = buffer.enqueue(new AnswerUpsert(1L, 11L, 110L, true, 1), NOW.minusSeconds(40), List::of);
+        buffer.flushAll();
+
+        assertThat(accepted).isEqualTo(1);
+        assertThat(rejected).isEqualTo(1);
+        verify(userAnswerRepository).upsertAnswers(List.of(new AnswerUpsert(1L, 10L, 100L, true, 1)));
+    }
+
+    @Test
+    @DisplayName("flush: ответы нескольких попыток записываются одним пакетом")
+    void flush_SeveralAttempts_OneBatch() {
+        buffer.enqueue(new AnswerUpsert(2L, 20L, 200L, true, 1), null, List::of);
+        buffer.enqueue(new AnswerUpsert(1L, 10L, 100L, true, 1), null, List::of);
+        buffer.enqueue(new AnswerUpsert(3L, 30L, 300L, true, 1), null, List::of);
+
+        buffer.flush(List.of(2L, 1L));
+
+        verify(userAnswerRepository).upsertAnswers(List.of(
+                new AnswerUpsert(1L, 10L, 100L, true, 1),
+                new AnswerUpsert(2L, 20L, 200L, true, 1)));
+        buffer.flushAll();
+        verify(userAnswerRepository).upsertAnswers(List.of(new AnswerUpsert(3L, 30L, 300L, true, 1)));
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,151 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.config.TakingProperties;
+import com.frist.assesspro.entity.OutboxEvent;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.TestAttemptRepositoryCustom.ReapedAttempt;
+import com.frist.assesspro.security.PrincipalSnapshotCache;
+import com.frist.assesspro.service.outbox.OutboxService;
+import com.frist.assesspro.service.statistics.DailyAttemptRollup;
+import com.frist.assesspro.service.statistics.LiveExamMonitor;
+import com.frist.assesspro.service.statistics.TesterStatsRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttemptDeadlineReaperTest {
+
+    private static final ZoneId ZONE = ZoneId.of("UTC");
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AnswerWriteBehindBuffer answerWriteBehindBuffer;
+
+    @Mock
+    private AttemptViewCache attemptViewCache;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private TesterStatsRollup testerStatsRollup;
+
+    @Mock
+    private DailyAttemptRollup dailyAttemptRollup;
+
+    @Mock
+    private LiveExamMonitor liveExamMonitor;
+
+    @Mock
+    private PrincipalSnapshotCache principalSnapshots;
+
+    private TakingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AttemptDeadlineReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TakingProperties();
+        properties.getReaper().setBatchSize(2);
+        properties.getReaper().setGraceSeconds(30);
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(NOW.atZone(ZONE).toInstant(), ZONE);
+        reaper = new AttemptDeadlineReaper(testAttemptRepository, new TransactionTemplate(transactionManager),
+                answerWriteBehindBuffer, attemptViewCache, outboxService, testerStatsRollup, dailyAttemptRollup,
+                liveExamMonitor, principalSnapshots, properties, clock, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("reapExpiredAttempts: порции закрываются до первой неполной")
+    void reapExpiredAttempts_ProcessesChunksUntilPartial() {
+        when(testAttemptRepository.findExpiredAttemptIds(any(), eq(2)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+        when(testAttemptRepository.timeoutExpiredAttempts(List.of(1L, 2L), NOW.minusSeconds(30)))
+                .thenReturn(List.of(
+                        new ReapedAttempt(1L, NOW.minusMinutes(5)),
+                        new ReapedAttempt(2L, NOW.minusMinutes(1))));
+        when(testAttemptRepository.timeoutExpiredAttempts(List.of(3L), NOW.minusSeconds(30)))
+                .thenReturn(List.of(new ReapedAttempt(3L, NOW.minusSeconds(40))));
+
+        reaper.reapExpiredAttempts();
+
+        verify(testAttemptRepository, times(2)).findExpiredAttemptIds(NOW.minusSeconds(30), 2);
+        verify(answerWriteBehindBuffer).discard(1L);
+        verify(answerWriteBehindBuffer).discard(3L);
+        verify(attemptViewCache).evict(2L);
+        verify(outboxService).enqueueAll(OutboxEvent.EventType.ATTEMPT_COMPLETED, List.of(1L, 2L));
+        verify(outboxService).enqueueAll(OutboxEvent.EventType.ATTEMPT_COMPLETED, List.of(3L));
+        verify(testerStatsRollup).refresh(List.of(1L, 2L));
+        verify(testerStatsRollup).refresh(List.of(3L));
+        verify(dailyAttemptRollup).recordFinished(List.of(1L, 2L));
+        verify(dailyAttemptRollup).recordFinished(List.of(3L));
+        verify(liveExamMonitor).attemptsFinished(List.of(1L, 2L));
+        verify(liveExamMonitor).attemptsFinished(List.of(3L));
+        assertThat(meterRegistry.get("assesspro.attempts.reaped").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("assesspro.attempts.reaper.lag").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("reapExpiredAttempts: ответы порции сбрасываются из буфера до фиксации результата")
+    void reapExpiredAttempts_FlushesChunkFirst() {
+        when(answerWriteBehindBuffer.isEnabled()).thenReturn(true);
+        when(testAttemptRepository.findExpiredAttemptIds(any(), anyInt())).thenReturn(List.of(1L));
+        when(testAttemptRepository.timeoutExpiredAttempts(any(), any())).thenReturn(List.of());
+
+        reaper.reapExpiredAttempts();
+
+        var inOrder = inOrder(answerWriteBehindBuffer, testAttemptRepository);
+        inOrder.verify(testAttemptRepository).findExpiredAttemptIds(NOW.minusSeconds(30), 2);
+        inOrder.verify(answerWriteBehindBuffer).flush(List.of(1L));
+        inOrder.verify(testAttemptRepository).timeoutExpiredAttempts(List.of(1L), NOW.minusSeconds(30));
+        verify(answerWriteBehindBuffer, never()).flushAll();
+        assertThat(meterRegistry.get("assesspro.attempts.reaped").counter().count()).isZero();
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    @DisplayName("reapExpiredAttempts: нет попыток с истёкшим сроком - буфер и закрытие не трогаются")
+    void reapExpiredAttempts_NothingExpired_SkipsFlush() {
+        when(testAttemptRepository.findExpiredAttemptIds(any(), anyInt())).thenReturn(List.of());
+
+        reaper.reapExpiredAttempts();
+
+        verify(testAttemptRepository, never()).timeoutExpiredAttempts(any(), any());
+        verifyNoInteractions(answerWriteBehindBuffer, transactionManager);
+    }
+
+    @Test
+    @DisplayName("reapExpiredAttempts: выключенный reaper не обращается к БД")
+    void reapExpiredAttempts_Disabled_DoesNothing() {
+        properties.getReaper().setEnabled(false);
+
+        reaper.reapExpiredAttempts();
+
+        verifyNoInteractions(testAttemptRepository, answerWriteBehindBuffer, attemptViewCache, outboxService,
+                testerStatsRollup, dailyAttemptRollup, liveExamMonitor);
+    }
+}
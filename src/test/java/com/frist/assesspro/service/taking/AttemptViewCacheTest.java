@@ -0,0 +1,189 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.dto.test.AttemptHeaderProjection;
+import com.frist.assesspro.entity.AnswerOption;
+import com.frist.assesspro.entity.Question;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.entity.TestAttempt;
+import com.frist.assesspro.repository.TestAttemptRepository;
+import com.frist.assesspro.repository.UserAnswerRepository;
+import com.frist.assesspro.repository.UserAnswerRepositoryCustom.AnswerUpsert;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttemptViewCacheTest {
+
+    @Mock
+    private TestAttemptRepository testAttemptRepository;
+
+    @Mock
+    private UserAnswerRepository userAnswerRepository;
+
+    @Mock
+    private CompiledTestCache compiledTestCache;
+
+    @Mock
+    private AnswerWriteBehindBuffer answerWriteBehindBuffer;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @InjectMocks
+    private AttemptViewCache attemptViewCache;
+
+    private CompiledTest compiled;
+
+    @BeforeEach
+    void setUp() {
+        Test test = new Test();
+        test.setId(1L);
+        test.setTitle("Тест");
+        test.setIsPublished(true);
+
+        List<Question> questions = new ArrayList<>();
+        for (long i = 1; i <= 5; i++) {
+            Question question = new Question();
+            question.setId(i);
+            question.setOrderIndex((int) i);
+            question.setText("Вопрос " + i);
+            AnswerOption option = new AnswerOption();
+            option.setId(i * 10);
+            option.setText("Вариант");
+            option.setIsCorrect(true);
+            question.addAnswerOption(option);
+            questions.add(question);
+        }
+        compiled = CompiledTest.compile(test, questions, 0);
+    }
+
+    private AttemptHeaderProjection header(TestAttempt.AttemptStatus status) {
+        return header(status, 42L);
+    }
+
+    private AttemptHeaderProjection header(TestAttempt.AttemptStatus status, Long questionSeed) {
+        AttemptHeaderProjection header = mock(AttemptHeaderProjection.class);
+        lenient().when(header.getTestId()).thenReturn(1L);
+        lenient().when(header.getUsername()).thenReturn("tester");
+        lenient().when(header.getQuestionSeed()).thenReturn(questionSeed);
+        when(header.getStatus()).thenReturn(status);
+        return header;
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: представление собирается один раз и учитывает сохранённые ответы")
+    void get_BuildsViewOnce() {
+        AttemptHeaderProjection header = header(TestAttempt.AttemptStatus.IN_PROGRESS);
+        when(testAttemptRepository.findHeaderById(7L)).thenReturn(Optional.of(header));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(compiled));
+        List<Object[]> answers = new ArrayList<>();
+        answers.add(new Object[]{2L, 20L});
+        when(userAnswerRepository.findChosenOptionsByAttemptId(7L)).thenReturn(answers);
+
+        AttemptView first = attemptViewCache.get(7L).orElseThrow();
+        AttemptView second = attemptViewCache.get(7L).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getQuestionCount()).isEqualTo(5);
+        assertThat(first.isAnswered(2L)).isTrue();
+        assertThat(first.chosenOptionOf(2L)).isEqualTo(20L);
+        assertThat(first.getAnsweredCount()).isEqualTo(1);
+        verify(testAttemptRepository, times(1)).findHeaderById(7L);
+        verify(answerWriteBehindBuffer).flush(7L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: порядок вопросов стабилен для попытки при пересборке")
+    void get_OrderIsStableAcrossRebuilds() {
+        AttemptHeaderProjection header = header(TestAttempt.AttemptStatus.IN_PROGRESS);
+        when(testAttemptRepository.findHeaderById(7L)).thenReturn(Optional.of(header));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(compiled));
+
+        AttemptView first = attemptViewCache.get(7L).orElseThrow();
+        List<Long> firstOrder = new ArrayList<>();
+        for (int i = 0; i < first.getQuestionCount(); i++) {
+            firstOrder.add(first.questionAt(i).id());
+        }
+
+        attemptViewCache.evict(7L);
+        AttemptView rebuilt = attemptViewCache.get(7L).orElseThrow();
+
+        assertThat(rebuilt).isNotSameAs(first);
+        for (int i = 0; i < rebuilt.getQuestionCount(); i++) {
+            assertThat(rebuilt.questionAt(i).id()).isEqualTo(firstOrder.get(i));
+        }
+        assertThat(firstOrder).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: порядок вопросов задаётся сохранённым зерном попытки")
+    void get_OrderFollowsPersistedSeed() {
+        AttemptHeaderProjection first = header(TestAttempt.AttemptStatus.IN_PROGRESS, 42L);
+        AttemptHeaderProjection second = header(TestAttempt.AttemptStatus.IN_PROGRESS, 42L);
+        when(testAttemptRepository.findHeaderById(7L)).thenReturn(Optional.of(first));
+        when(testAttemptRepository.findHeaderById(8L)).thenReturn(Optional.of(second));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(compiled));
+
+        AttemptView view7 = attemptViewCache.get(7L).orElseThrow();
+        AttemptView view8 = attemptViewCache.get(8L).orElseThrow();
+
+        for (int i = 0; i < view7.getQuestionCount(); i++) {
+            assertThat(view8.questionAt(i).id()).isEqualTo(view7.questionAt(i).id());
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("recordAnswers: ответ отражается в закэшированном представлении")
+    void recordAnswers_UpdatesView() {
+        AttemptHeaderProjection header = header(TestAttempt.AttemptStatus.IN_PROGRESS);
+        when(testAttemptRepository.findHeaderById(7L)).thenReturn(Optional.of(header));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(compiled));
+
+        AttemptView view = attemptViewCache.get(7L).orElseThrow();
+        attemptViewCache.recordAnswers(7L, List.of(new AnswerUpsert(7L, 3L, 30L, true, 1)));
+
+        assertThat(view.isAnswered(3L)).isTrue();
+        assertThat(view.chosenOptionOf(3L)).isEqualTo(30L);
+        verify(invalidationBus).publish("attemptViews", 7L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: представление попытки, завершённой во время сборки, не кэшируется")
+    void get_EvictedDuringLoad_NotCached() {
+        AttemptHeaderProjection header = header(TestAttempt.AttemptStatus.IN_PROGRESS);
+        when(testAttemptRepository.findHeaderById(7L)).thenReturn(Optional.of(header));
+        when(compiledTestCache.get(1L)).thenReturn(Optional.of(compiled));
+        // Завершение попытки между чтением статуса и вставкой в кэш
+        doAnswer(invocation -> {
+            attemptViewCache.evict(7L);
+            return null;
+        }).doNothing().when(answerWriteBehindBuffer).flush(7L);
+
+        assertThat(attemptViewCache.get(7L)).isPresent();
+        attemptViewCache.get(7L);
+
+        verify(testAttemptRepository, times(2)).findHeaderById(7L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: завершённая попытка -> пусто")
+    void get_CompletedAttempt_ReturnsEmpty() {
+        AttemptHeaderProjection header = header(TestAttempt.AttemptStatus.COMPLETED);
+        when(testAttemptRepository.findHeaderById(7L)).thenReturn(Optional.of(header));
+
+        assertThat(attemptViewCache.get(7L)).isEmpty();
+        verifyNoInteractions(userAnswerRepository);
+    }
+}
@@ -0,0 +1,159 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Mock
+    private TestRepository testRepository;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private MutableClock clock;
+    private CatalogCache catalogCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START.toInstant(ZoneOffset.UTC));
+        catalogCache = new CatalogCache(testRepository, clock, invalidationBus);
+        loads = new AtomicInteger();
+    }
+
+    private List<String> load(LocalDateTime now) {
+        loads.incrementAndGet();
+        return List.of("каталог на " + now);
+    }
+
+    @Test
+    @DisplayName("get: повторный запрос до границы обслуживается из кэша")
+    void get_BeforeBoundary_ServedFromCache() {
+        when(testRepository.findNextAvailableFrom(any())).thenReturn(null);
+        when(testRepository.findNextAvailableTo(any())).thenReturn(null);
+
+        List<String> first = catalogCache.get("all-tests-list", this::load);
+        clock.advanceMinutes(30);
+        List<String> second = catalogCache.get("all-tests-list", this::load);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("get: запись перечитывается при открытии скрытого теста")
+    void get_AfterAvailableFrom_Reloads() {
+        when(testRepository.findNextAvailableFrom(any())).thenReturn(START.plusMinutes(10));
+        when(testRepository.findNextAvailableTo(any())).thenReturn(null);
+
+        catalogCache.get("all-tests-list", this::load);
+        clock.advanceMinutes(9);
+        catalogCache.get("all-tests-list", this::load);
+        assertThat(loads).hasValue(1);
+
+        clock.advanceMinutes(1);
+        List<String> reloaded = catalogCache.get("all-tests-list", this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(reloaded).containsExactly("каталог на " + START.plusMinutes(10));
+    }
+
+    @Test
+    @DisplayName("get: тест остаётся в каталоге в момент availableTo и исчезает сразу после")
+    void get_AfterAvailableTo_Reloads() {
+        when(testRepository.findNextAvailableFrom(any())).thenReturn(null);
+        when(testRepository.findNextAvailableTo(any())).thenReturn(START.plusMinutes(5));
+
+        catalogCache.get("all-tests-list", this::load);
+        clock.advanceMinutes(5);
+        catalogCache.get("all-tests-list", this::load);
+        assertThat(loads).hasValue(1);
+
+        clock.advanceNanos(1_000);
+        catalogCache.get("all-tests-list", this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("invalidate: следующий запрос читает каталог заново")
+    void invalidate_ForcesReload() {
+        when(testRepository.findNextAvailableFrom(any())).thenReturn(null);
+        when(testRepository.findNextAvailableTo(any())).thenReturn(null);
+        catalogCache.get("all-tests-list", this::load);
+
+        catalogCache.invalidate();
+        catalogCache.get("all-tests-list", this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("get: каталог, прочитанный во время инвалидации, не кэшируется")
+    void get_InvalidatedDuringLoad_NotCached() {
+        when(testRepository.findNextAvailableFrom(any())).thenReturn(null);
+        when(testRepository.findNextAvailableTo(any())).thenReturn(null);
+
+        catalogCache.get("all-tests-list", now -> {
+            catalogCache.invalidate();
+            return load(now);
+        });
+        catalogCache.get("all-tests-list", this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advanceMinutes(long minutes) {
+            instant = instant.plusSeconds(minutes * 60);
+        }
+
+        void advanceNanos(long nanos) {
+            instant = instant.plusNanos(nanos);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
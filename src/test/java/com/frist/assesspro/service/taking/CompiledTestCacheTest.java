@@ -0,0 +1,132 @@
+package com.frist.assesspro.service.taking;
+
+import com.frist.assesspro.entity.AnswerOption;
+import com.frist.assesspro.entity.Question;
+import com.frist.assesspro.entity.Test;
+import com.frist.assesspro.repository.QuestionRepository;
+import com.frist.assesspro.repository.TestRepository;
+import com.frist.assesspro.service.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CompiledTestCacheTest {
+
+    @Mock
+    private TestRepository testRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @InjectMocks
+    private CompiledTestCache compiledTestCache;
+
+    private Test test;
+    private List<Question> questions;
+
+    @BeforeEach
+    void setUp() {
+        test = new Test();
+        test.setId(1L);
+        test.setTitle("Тест по математике");
+        test.setIsPublished(true);
+
+        questions = new ArrayList<>();
+        questions.add(question(20L, 2, "3+3=?", 201L, 202L));
+        questions.add(question(10L, 1, "2+2=?", 101L, 102L));
+    }
+
+    private Question question(Long id, int orderIndex, String text, Long correctId, Long wrongId) {
+        Question question = new Question();
+        question.setId(id);
+        question.setOrderIndex(orderIndex);
+        question.setText(text);
+        question.setTest(test);
+
+        AnswerOption correct = new AnswerOption();
+        correct.setId(correctId);
+        correct.setText("верно");
+        correct.setIsCorrect(true);
+
+        AnswerOption wrong = new AnswerOption();
+        wrong.setId(wrongId);
+        wrong.setText("неверно");
+        wrong.setIsCorrect(false);
+
+        question.addAnswerOption(wrong);
+        question.addAnswerOption(correct);
+        return question;
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: повторный запрос обслуживается из кэша")
+    void get_SecondCallServedFromCache() {
+        when(testRepository.findById(1L)).thenReturn(Optional.of(test));
+        when(questionRepository.findQuestionsWithAnswersByTestId(1L)).thenReturn(questions);
+
+        CompiledTest first = compiledTestCache.get(1L).orElseThrow();
+        CompiledTest second = compiledTestCache.get(1L).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        verify(testRepository, times(1)).findById(1L);
+        verify(questionRepository, times(1)).findQuestionsWithAnswersByTestId(1L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: таблицы поиска вопросов и правильных вариантов")
+    void get_BuildsLookupTables() {
+        when(testRepository.findById(1L)).thenReturn(Optional.of(test));
+        when(questionRepository.findQuestionsWithAnswersByTestId(1L)).thenReturn(questions);
+
+        CompiledTest compiled = compiledTestCache.get(1L).orElseThrow();
+
+        assertThat(compiled.getQuestionCount()).isEqualTo(2);
+        assertThat(compiled.getQuestions().get(0).id()).isEqualTo(10L);
+        assertThat(compiled.containsQuestion(20L)).isTrue();
+        assertThat(compiled.containsQuestion(30L)).isFalse();
+        assertThat(compiled.isOptionOfQuestion(101L, 10L)).isTrue();
+        assertThat(compiled.isOptionOfQuestion(101L, 20L)).isFalse();
+        assertThat(compiled.isOptionCorrect(201L)).isTrue();
+        assertThat(compiled.isOptionCorrect(202L)).isFalse();
+        assertThat(compiled.findQuestion(20L).correctOptionId()).isEqualTo(201L);
+        assertThat(compiled.findOptionText(102L)).isEqualTo("неверно");
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("invalidate: следующий запрос собирает новую версию")
+    void invalidate_RecompilesWithNewVersion() {
+        when(testRepository.findById(1L)).thenReturn(Optional.of(test));
+        when(questionRepository.findQuestionsWithAnswersByTestId(1L)).thenReturn(questions);
+
+        CompiledTest first = compiledTestCache.get(1L).orElseThrow();
+        compiledTestCache.invalidate(1L);
+        CompiledTest second = compiledTestCache.get(1L).orElseThrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getVersion()).isGreaterThan(first.getVersion());
+        verify(testRepository, times(2)).findById(1L);
+    }
+
+    @org.junit.jupiter.api.Test
+    @DisplayName("get: тест не найден -> пусто")
+    void get_TestNotFound_ReturnsEmpty() {
+        when(testRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThat(compiledTestCache.get(99L)).isEmpty();
+        verifyNoInteractions(questionRepository);
+    }
+}
@@ -0,0 +1,2 @@
+-- Схема приложения для нагрузочной симуляции (Liquibase создаёт таблицы в ней)
+CREATE SCHEMA IF NOT EXISTS assess_pro_db;